@@ -0,0 +1,218 @@
+package com.libreriaSanSebastian.bookService.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tiempo hasta la primera respuesta de una instancia nueva, sin y con el modo de arranque rápido,
+ * y el de un nodo de borde.
+ *
+ * Cada invocación lanza la aplicación empaquetada en una JVM nueva y mide desde que se crea el
+ * proceso hasta que GET /api/v1/libros responde 200, que es lo que espera el balanceador antes
+ * de enviarle tráfico. El modo estandar arranca el jar como hasta ahora (ddl-auto=update, sin
+ * AOT ni CDS); el modo rapido usa la aplicación extraída con el archivo CDS, las definiciones
+ * de beans generadas por AOT y el perfil arranque-rapido; el modo borde arranca el jar con el
+ * perfil borde, sin base de datos, sirviendo una instantánea exportada de la misma base.
+ *
+ * Después de cada arranque, fuera del tiempo medido, se fuerza una recolección en la instancia
+ * (jcmd GC.run) y se lee su heap ocupado de /actuator/metrics; al terminar cada modo se
+ * imprimen el promedio, el mínimo y el máximo.
+ *
+ * Requiere el empaquetado del perfil Maven arranque-rapido:
+ * {@code mvn -Parranque-rapido,benchmark package exec:exec -Djmh.incluir=ArranqueBenchmark}
+ * Los modos estandar y rapido usan una base H2 en archivo cuyo esquema se crea una vez antes de
+ * medir, para que el modo rapido pueda validarlo; el tiempo incluye crear el pool y abrir la base.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+public class ArranqueBenchmark {
+
+    private static final String JAR = "bookService-0.0.1-SNAPSHOT.jar";
+
+    private static final Duration LIMITE_ARRANQUE = Duration.ofMinutes(2);
+
+    private static final Pattern VALOR_METRICA = Pattern.compile("\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+
+    @Param({"estandar", "rapido", "borde"})
+    private String modo;
+
+    @Param({"h2"})
+    private String perfiles;
+
+    @Param({"target"})
+    private String directorio;
+
+    private HttpClient cliente;
+
+    private String baseDatos;
+
+    private Path instantanea;
+
+    private Process proceso;
+
+    private int puerto;
+
+    private final List<Double> heapMb = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        cliente = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+        Path archivo = Path.of(directorio, "arranque-benchmark", "sansebastian").toAbsolutePath();
+        Files.createDirectories(archivo.getParent());
+        baseDatos = "jdbc:h2:file:" + archivo + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+
+        instantanea = archivo.resolveSibling("catalogo.bin");
+
+        // Crea o actualiza el esquema con un arranque que termina tras refrescar el contexto
+        List<String> comando = comando("estandar", puertoLibre());
+        comando.add(1, "-Dspring.context.exit=onRefresh");
+        ejecutar(comando, "No se pudo crear el esquema en " + baseDatos);
+
+        if (modo.equals("borde")) {
+            // Exporta la instantánea que servirá el nodo de borde
+            List<String> exportacion = comando("estandar", puertoLibre());
+            exportacion.add(1, "-Dspring.profiles.include=exportar-instantanea");
+            exportacion.add(1, "-Dlibros.instantanea.archivo=" + instantanea);
+            ejecutar(exportacion, "No se pudo exportar la instantánea a " + instantanea);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void detener() throws IOException, InterruptedException {
+        if (proceso != null) {
+            if (proceso.isAlive()) {
+                heapMb.add(heapOcupado());
+            }
+            proceso.destroy();
+            if (!proceso.waitFor(30, TimeUnit.SECONDS)) {
+                proceso.destroyForcibly().waitFor();
+            }
+            proceso = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void informarHeap() {
+        DoubleSummaryStatistics heap = heapMb.stream().mapToDouble(Double::doubleValue).summaryStatistics();
+        System.out.printf("%nHeap ocupado tras el arranque (modo %s, %d arranques): promedio %.1f MB, mínimo %.1f MB, máximo %.1f MB%n",
+                modo, heap.getCount(), heap.getAverage(), heap.getMin(), heap.getMax());
+    }
+
+    @Benchmark
+    public int primeraRespuesta() throws IOException, InterruptedException {
+        puerto = puertoLibre();
+        HttpRequest peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + "/api/v1/libros?limit=1"))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        long limite = System.nanoTime() + LIMITE_ARRANQUE.toNanos();
+        proceso = new ProcessBuilder(comando(modo, puerto))
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        while (System.nanoTime() < limite) {
+            if (!proceso.isAlive()) {
+                throw new IllegalStateException("La aplicación terminó al arrancar con código " + proceso.exitValue());
+            }
+            try {
+                int estado = cliente.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (estado == 200) {
+                    return estado;
+                }
+            } catch (ConnectException e) {
+                // Tomcat todavía no escucha
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("La aplicación no respondió en " + LIMITE_ARRANQUE);
+    }
+
+    private List<String> comando(String modoArranque, int puerto) {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> comando = new ArrayList<>();
+        comando.add(java);
+        if (modoArranque.equals("borde")) {
+            comando.add("-Dspring.profiles.active=borde");
+            comando.add("-Dlibros.instantanea.archivo=" + instantanea);
+            comando.add("-Dserver.port=" + puerto);
+            comando.add("-jar");
+            comando.add(Path.of(directorio, JAR).toString());
+        } else if (modoArranque.equals("rapido")) {
+            Path aplicacion = Path.of(directorio, "arranque");
+            comando.add("-XX:SharedArchiveFile=" + aplicacion.resolve("application.jsa"));
+            comando.add("-Dspring.aot.enabled=true");
+            comando.add("-Dspring.profiles.active=" + perfiles + ",arranque-rapido");
+            comando.add("-Dspring.datasource.url=" + baseDatos);
+            comando.add("-Dserver.port=" + puerto);
+            comando.add("-jar");
+            comando.add(aplicacion.resolve(JAR).toString());
+        } else {
+            comando.add("-Dspring.profiles.active=" + perfiles);
+            comando.add("-Dspring.datasource.url=" + baseDatos);
+            comando.add("-Dspring.jpa.hibernate.ddl-auto=update");
+            comando.add("-Dserver.port=" + puerto);
+            comando.add("-jar");
+            comando.add(Path.of(directorio, JAR).toString());
+        }
+        return comando;
+    }
+
+    /**
+     * Heap ocupado de la instancia en MB, después de una recolección completa para no contar
+     * los objetos temporales del arranque.
+     */
+    private double heapOcupado() throws IOException, InterruptedException {
+        String jcmd = Path.of(System.getProperty("java.home"), "bin", "jcmd").toString();
+        ejecutar(List.of(jcmd, String.valueOf(proceso.pid()), "GC.run"), "No se pudo forzar una recolección");
+        HttpRequest peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto
+                        + "/actuator/metrics/jvm.memory.used?tag=area:heap"))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        String cuerpo = cliente.send(peticion, HttpResponse.BodyHandlers.ofString()).body();
+        Matcher valor = VALOR_METRICA.matcher(cuerpo);
+        if (!valor.find()) {
+            throw new IllegalStateException("Respuesta inesperada de jvm.memory.used: " + cuerpo);
+        }
+        return Double.parseDouble(valor.group(1)) / (1024 * 1024);
+    }
+
+    private static void ejecutar(List<String> comando, String error) throws IOException, InterruptedException {
+        Process ejecucion = new ProcessBuilder(comando)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        if (!ejecucion.waitFor(LIMITE_ARRANQUE.toSeconds(), TimeUnit.SECONDS) || ejecucion.exitValue() != 0) {
+            ejecucion.destroyForcibly();
+            throw new IllegalStateException(error);
+        }
+    }
+
+    private static int puertoLibre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
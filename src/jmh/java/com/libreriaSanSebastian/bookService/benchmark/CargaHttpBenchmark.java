@@ -0,0 +1,129 @@
+package com.libreriaSanSebastian.bookService.benchmark;
+
+import com.libreriaSanSebastian.bookService.BookServiceApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prueba de carga HTTP de LibroController con hilos de plataforma y con hilos virtuales.
+ *
+ * Levanta la aplicación completa en un puerto aleatorio y la satura con más clientes
+ * concurrentes que hilos tiene Tomcat, de modo que con hilos de plataforma las
+ * peticiones hacen cola en el conector mientras esperan a la base de datos. Con
+ * virtuales=true (requiere JDK 21, perfil Maven virtuales) cada petición obtiene su
+ * propio hilo y el límite pasa a ser el pool de conexiones. En una JVM anterior esa
+ * ejecución falla, en lugar de medir de nuevo hilos de plataforma.
+ *
+ * Los métodos v2 consultan la API de solo lectura sobre R2DBC, que no ocupa hilos
+ * de Tomcat mientras espera a la base de datos, para compararla con la v1.
+ *
+ * Por defecto usa H2 embebida con el catálogo sintético; para una comparación
+ * representativa se puede apuntar a MySQL con -p perfiles=dev.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Threads(200)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class CargaHttpBenchmark {
+
+    @Param({"false", "true"})
+    private boolean virtuales;
+
+    @Param({"50"})
+    private int hilosTomcat;
+
+    @Param({"h2,semilla"})
+    private String perfiles;
+
+    private ConfigurableApplicationContext contexto;
+
+    private HttpClient cliente;
+
+    private String base;
+
+    private String baseV2;
+
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (virtuales && Runtime.version().feature() < 21) {
+            // Spring ignora spring.threads.virtual.enabled antes de JDK 21 y mediría hilos de plataforma
+            throw new IllegalStateException("virtuales=true requiere JDK 21: ejecutar con -Pvirtuales,benchmark "
+                    + "o limitar la ejecución a -p virtuales=false");
+        }
+        contexto = new SpringApplicationBuilder(BookServiceApplication.class)
+                .run("--spring.profiles.active=" + perfiles,
+                        "--server.port=0",
+                        "--server.tomcat.threads.max=" + hilosTomcat,
+                        "--spring.threads.virtual.enabled=" + virtuales,
+                        "--logging.level.root=WARN");
+        int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+        base = "http://localhost:" + puerto + "/api/v1/libros";
+        baseV2 = "http://localhost:" + puerto + "/api/v2/libros";
+
+        List<Long> filas = contexto.getBean(JdbcTemplate.class)
+                .queryForList("SELECT id FROM libros ORDER BY id", Long.class);
+        ids = filas.stream().mapToLong(Long::longValue).toArray();
+
+        cliente = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public int obtenerPorId() throws IOException, InterruptedException {
+        return enviar(HttpRequest.newBuilder(URI.create(base + "/" + idAleatorio())).GET());
+    }
+
+    @Benchmark
+    public int listarPagina() throws IOException, InterruptedException {
+        return enviar(HttpRequest.newBuilder(URI.create(base + "?after=" + idAleatorio() + "&limit=20")).GET());
+    }
+
+    @Benchmark
+    public int obtenerPorIdV2() throws IOException, InterruptedException {
+        return enviar(HttpRequest.newBuilder(URI.create(baseV2 + "/" + idAleatorio())).GET());
+    }
+
+    @Benchmark
+    public int listarPaginaV2() throws IOException, InterruptedException {
+        return enviar(HttpRequest.newBuilder(URI.create(baseV2 + "?after=" + idAleatorio() + "&limit=20")).GET());
+    }
+
+    @Benchmark
+    public int decrementarStock() throws IOException, InterruptedException {
+        return enviar(HttpRequest.newBuilder(URI.create(base + "/decrementar-stock/" + idAleatorio()))
+                .PUT(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    private int enviar(HttpRequest.Builder peticion) throws IOException, InterruptedException {
+        return cliente.send(peticion.timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private long idAleatorio() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
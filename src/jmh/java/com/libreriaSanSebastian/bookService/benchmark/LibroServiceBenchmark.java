@@ -0,0 +1,113 @@
+package com.libreriaSanSebastian.bookService.benchmark;
+
+import com.libreriaSanSebastian.bookService.BookServiceApplication;
+import com.libreriaSanSebastian.bookService.config.CacheConfig;
+import com.libreriaSanSebastian.bookService.dto.Pagina;
+import com.libreriaSanSebastian.bookService.dto.SugerenciaTitulo;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import com.libreriaSanSebastian.bookService.service.LibroService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsquedas de LibroService contra una base de datos H2 embebida con un catálogo sintético.
+ *
+ * El contexto de Spring se levanta una vez por fork con los perfiles h2 y semilla,
+ * por lo que los tiempos incluyen la caché, los índices en memoria y las consultas
+ * JPA reales. Los ids e ISBN consultados recorren todo el catálogo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LibroServiceBenchmark {
+
+    @Param({"100000"})
+    private int libros;
+
+    private ConfigurableApplicationContext contexto;
+
+    private LibroService libroService;
+
+    private Cache cacheLibros;
+
+    private long[] ids;
+
+    private String[] isbns;
+
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        contexto = new SpringApplicationBuilder(BookServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=h2,semilla",
+                        "--libros.semilla.libros=" + libros,
+                        "--libros.semilla.autores=" + Math.max(1, libros / 10),
+                        "--logging.level.root=WARN");
+        libroService = contexto.getBean(LibroService.class);
+        cacheLibros = contexto.getBean(CacheManager.class).getCache(CacheConfig.LIBROS);
+
+        List<Object[]> filas = contexto.getBean(JdbcTemplate.class).query(
+                "SELECT id, isbn FROM libros ORDER BY id",
+                (rs, n) -> new Object[]{rs.getLong(1), rs.getString(2)});
+        // Orden pseudoaleatorio y fijo, para no favorecer la localidad de las filas
+        ids = new long[filas.size()];
+        isbns = new String[filas.size()];
+        for (int i = 0; i < filas.size(); i++) {
+            Object[] fila = filas.get((int) ((i * 7919L) % filas.size()));
+            ids[i] = (Long) fila[0];
+            isbns[i] = (String) fila[1];
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Optional<Libro> buscarPorIdEnCache() {
+        // Los 1000 primeros ids del recorrido quedan en la caché tras el calentamiento
+        return libroService.buscarPorId(ids[siguiente() % 1000]);
+    }
+
+    @Benchmark
+    public Optional<Libro> buscarPorIdSinCache() {
+        long id = ids[siguiente()];
+        cacheLibros.evict(id);
+        return libroService.buscarPorId(id);
+    }
+
+    @Benchmark
+    public Optional<Libro> buscarPorIsbn() {
+        return libroService.buscarPorIsbn(isbns[siguiente()]);
+    }
+
+    @Benchmark
+    public Pagina<Libro> listarPaginaPorTitulo() {
+        return libroService.listarPagina(ids[siguiente()], null, 20, LibroService.ORDEN_TITULO);
+    }
+
+    @Benchmark
+    public List<SugerenciaTitulo> sugerirTitulos() {
+        return libroService.sugerirTitulos("la c", 10);
+    }
+
+    private int siguiente() {
+        int i = siguiente;
+        siguiente = (i + 1) % ids.length;
+        return i;
+    }
+}
@@ -0,0 +1,78 @@
+package com.libreriaSanSebastian.bookService.benchmark;
+
+import com.libreriaSanSebastian.bookService.assemblers.AutorModelAssembler;
+import com.libreriaSanSebastian.bookService.assemblers.LibroModelAssembler;
+import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo por entidad de LibroModelAssembler y AutorModelAssembler.
+ *
+ * Compara los enlaces construidos con linkTo(methodOn(...)) en cada entidad
+ * (enlacesDinamicos=true) con las plantillas precalculadas (enlacesDinamicos=false).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ModelAssemblerBenchmark {
+
+    @Param({"true", "false"})
+    private boolean enlacesDinamicos;
+
+    private LibroModelAssembler libroAssembler;
+
+    private AutorModelAssembler autorAssembler;
+
+    private Libro libro;
+
+    private Autor autor;
+
+    @Setup
+    public void setUp() {
+        // Los enlaces se construyen a partir de la petición actual del hilo
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        libroAssembler = new LibroModelAssembler();
+        autorAssembler = new AutorModelAssembler();
+        ReflectionTestUtils.setField(libroAssembler, "enlacesDinamicos", enlacesDinamicos);
+        ReflectionTestUtils.setField(autorAssembler, "enlacesDinamicos", enlacesDinamicos);
+
+        autor = new Autor();
+        autor.setId(1L);
+        autor.setNombre("Gabriel");
+        autor.setApellido("García Márquez");
+
+        libro = new Libro();
+        libro.setId(42L);
+        libro.setTitulo("Cien años de soledad");
+        libro.setIsbn("978-84-376-0494-7");
+        libro.setStock(10);
+        libro.setAutor(autor);
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public EntityModel<Libro> libroToModel() {
+        return libroAssembler.toModel(libro);
+    }
+
+    @Benchmark
+    public EntityModel<Autor> autorToModel() {
+        return autorAssembler.toModel(autor);
+    }
+}
@@ -0,0 +1,98 @@
+package com.libreriaSanSebastian.bookService.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.libreriaSanSebastian.bookService.assemblers.LibroModelAssembler;
+import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de responder un listado de libros en HAL JSON para distintos tamaños de página.
+ *
+ * Mide por separado la construcción del CollectionModel con el assembler y su
+ * serialización, y ambos pasos juntos como los ejecuta el controlador.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SerializacionHalBenchmark {
+
+    @Param({"1", "20", "100", "1000"})
+    private int tamano;
+
+    private LibroModelAssembler assembler;
+
+    private ObjectMapper objectMapper;
+
+    private List<Libro> libros;
+
+    private CollectionModel<EntityModel<Libro>> modelo;
+
+    @Setup
+    public void setUp() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assembler = new LibroModelAssembler();
+        ReflectionTestUtils.setField(assembler, "enlacesDinamicos", false);
+
+        // Misma configuración HAL que registra Spring HATEOAS en la aplicación
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new Jackson2HalModule());
+        objectMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        objectMapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+
+        libros = new ArrayList<>(tamano);
+        for (int i = 1; i <= tamano; i++) {
+            Autor autor = new Autor((long) (i % 50 + 1), "Autor " + i % 50, "Apellido", "Chilena", 0, null);
+            libros.add(new Libro((long) i, "Título del libro número " + i, String.valueOf(9790000000000L + i), i % 30, autor, 0, null));
+        }
+        modelo = construir();
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<Libro>> construirModelo() {
+        return construir();
+    }
+
+    @Benchmark
+    public byte[] serializarModelo() throws Exception {
+        return objectMapper.writeValueAsBytes(modelo);
+    }
+
+    @Benchmark
+    public byte[] construirYSerializar() throws Exception {
+        return objectMapper.writeValueAsBytes(construir());
+    }
+
+    private CollectionModel<EntityModel<Libro>> construir() {
+        List<EntityModel<Libro>> entidades = new ArrayList<>(libros.size());
+        for (Libro libro : libros) {
+            entidades.add(assembler.toModel(libro));
+        }
+        return CollectionModel.of(entidades, Link.of("http://localhost/api/v1/libros?limit=" + tamano).withSelfRel());
+    }
+}
@@ -1,28 +1,115 @@
 package com.libreriaSanSebastian.bookService.assemblers;
 
 import com.libreriaSanSebastian.bookService.controller.AutorController;
+import com.libreriaSanSebastian.bookService.controller.AutorReactivoController;
+import com.libreriaSanSebastian.bookService.dto.AutorConTotales;
 import com.libreriaSanSebastian.bookService.model.Autor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 @Component
 public class AutorModelAssembler implements RepresentationModelAssembler<Autor, EntityModel<Autor>> {
 
+    // Plantillas resueltas una sola vez a partir de los mapeos del controlador
+    private final PlantillaEnlace enlaceAutor = PlantillaEnlace.de(
+            AutorController.class, "obtenerPorId", Long.class, String.class);
+    private final PlantillaEnlace enlaceActualizar = PlantillaEnlace.de(
+            AutorController.class, "actualizar", Long.class, Autor.class, String.class);
+    private final PlantillaEnlace enlaceEliminar = PlantillaEnlace.de(AutorController.class, "eliminar", Long.class);
+    private final PlantillaEnlace enlaceLibros = PlantillaEnlace.de(
+            AutorController.class, "listarLibros", Long.class, Long.class, Integer.class);
+    private final PlantillaEnlace enlaceAutorV2 = PlantillaEnlace.de(
+            AutorReactivoController.class, "obtenerPorId", Long.class, String.class);
+
+    /**
+     * Si es true, los enlaces se construyen con linkTo(methodOn(...)) en cada entidad.
+     */
+    @Value("${libros.hateoas.enlaces-dinamicos:false}")
+    private boolean enlacesDinamicos;
+
     @Override
     public EntityModel<Autor> toModel(Autor autor) {
+        if (!enlacesDinamicos) {
+            String base = PlantillaEnlace.base(AutorController.class);
+            return EntityModel.of(autor,
+                    Link.of(enlaceAutor.expandir(base, autor.getId())).withSelfRel(),
+                    Link.of(base).withRel("autores"),
+                    Link.of(enlaceActualizar.expandir(base, autor.getId())).withRel("actualizar"),
+                    Link.of(enlaceEliminar.expandir(base, autor.getId())).withRel("eliminar"));
+        }
+
         EntityModel<Autor> autorModel = EntityModel.of(autor,
-                linkTo(methodOn(AutorController.class).obtenerPorId(autor.getId())).withSelfRel(),
+                linkTo(methodOn(AutorController.class).obtenerPorId(autor.getId(), null)).withSelfRel(),
                 linkTo(methodOn(AutorController.class).listarTodos()).withRel("autores"));
 
         // Enlace para actualizar autor
-        autorModel.add(linkTo(methodOn(AutorController.class).actualizar(autor.getId(), autor)).withRel("actualizar"));
+        autorModel.add(linkTo(methodOn(AutorController.class).actualizar(autor.getId(), autor, null)).withRel("actualizar"));
 
         // Enlace para eliminar autor
         autorModel.add(linkTo(methodOn(AutorController.class).eliminar(autor.getId())).withRel("eliminar"));
 
         return autorModel;
     }
+
+    /**
+     * Convierte un autor del listado con totales en su modelo HAL, con los mismos enlaces
+     * que {@link #toModel(Autor)} y además el enlace a sus libros.
+     *
+     * @param autor Autor con totales.
+     * @return Modelo HAL del autor.
+     */
+    public EntityModel<AutorConTotales> toModel(AutorConTotales autor) {
+        String base = PlantillaEnlace.base(AutorController.class);
+        return EntityModel.of(autor,
+                Link.of(enlaceAutor.expandir(base, autor.getId())).withSelfRel(),
+                Link.of(base).withRel("autores"),
+                Link.of(enlaceActualizar.expandir(base, autor.getId())).withRel("actualizar"),
+                Link.of(enlaceEliminar.expandir(base, autor.getId())).withRel("eliminar"),
+                Link.of(enlaceLibros.expandir(base, autor.getId())).withRel("libros"));
+    }
+
+    /**
+     * Agrega a una fila con campos parciales los mismos enlaces que {@link #toModel(Autor)}.
+     * La fila debe incluir el id.
+     *
+     * @param fila Campos del autor.
+     * @return La misma fila, con los enlaces en _links.
+     */
+    public Map<String, Object> enlazar(Map<String, Object> fila) {
+        String base = PlantillaEnlace.base(AutorController.class);
+        Object id = fila.get("id");
+        Map<String, Object> enlaces = new LinkedHashMap<>();
+        enlaces.put("self", Map.of("href", enlaceAutor.expandir(base, id)));
+        enlaces.put("autores", Map.of("href", base));
+        enlaces.put("actualizar", Map.of("href", enlaceActualizar.expandir(base, id)));
+        enlaces.put("eliminar", Map.of("href", enlaceEliminar.expandir(base, id)));
+        fila.put("_links", enlaces);
+        return fila;
+    }
+
+    /**
+     * Ensamblador de autores para la API v2, con las mismas reglas que
+     * {@link LibroModelAssembler#ensambladorV2()}: se obtiene en el hilo de la petición
+     * y puede aplicarse después desde cualquier hilo.
+     *
+     * @return Función que convierte cada autor en su modelo HAL.
+     */
+    public Function<Autor, EntityModel<Autor>> ensambladorV2() {
+        String base = PlantillaEnlace.base(AutorReactivoController.class);
+        String baseEscritura = PlantillaEnlace.base(AutorController.class);
+        return autor -> EntityModel.of(autor,
+                Link.of(enlaceAutorV2.expandir(base, autor.getId())).withSelfRel(),
+                Link.of(base).withRel("autores"),
+                Link.of(enlaceActualizar.expandir(baseEscritura, autor.getId())).withRel("actualizar"),
+                Link.of(enlaceEliminar.expandir(baseEscritura, autor.getId())).withRel("eliminar"));
+    }
 }
@@ -1,28 +1,112 @@
 package com.libreriaSanSebastian.bookService.assemblers;
 
 import com.libreriaSanSebastian.bookService.controller.LibroController;
+import com.libreriaSanSebastian.bookService.controller.LibroReactivoController;
+import com.libreriaSanSebastian.bookService.dto.LibroDeAutor;
 import com.libreriaSanSebastian.bookService.model.Libro;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 @Component
 public class LibroModelAssembler implements RepresentationModelAssembler<Libro, EntityModel<Libro>> {
 
+    // Plantillas resueltas una sola vez a partir de los mapeos del controlador
+    private final PlantillaEnlace enlaceLibro = PlantillaEnlace.de(
+            LibroController.class, "obtenerPorId", Long.class, String.class);
+    private final PlantillaEnlace enlaceActualizar = PlantillaEnlace.de(
+            LibroController.class, "actualizar", Long.class, Libro.class, String.class);
+    private final PlantillaEnlace enlaceEliminar = PlantillaEnlace.de(LibroController.class, "eliminar", Long.class);
+    private final PlantillaEnlace enlaceLibroV2 = PlantillaEnlace.de(
+            LibroReactivoController.class, "obtenerPorId", Long.class, String.class);
+
+    /**
+     * Si es true, los enlaces se construyen con linkTo(methodOn(...)) en cada entidad.
+     */
+    @Value("${libros.hateoas.enlaces-dinamicos:false}")
+    private boolean enlacesDinamicos;
+
     @Override
     public EntityModel<Libro> toModel(Libro libro) {
+        if (!enlacesDinamicos) {
+            String base = PlantillaEnlace.base(LibroController.class);
+            return EntityModel.of(libro,
+                    Link.of(enlaceLibro.expandir(base, libro.getId())).withSelfRel(),
+                    Link.of(base).withRel("libros"),
+                    Link.of(enlaceActualizar.expandir(base, libro.getId())).withRel("actualizar"),
+                    Link.of(enlaceEliminar.expandir(base, libro.getId())).withRel("eliminar"));
+        }
+
         EntityModel<Libro> libroModel = EntityModel.of(libro,
-                linkTo(methodOn(LibroController.class).obtenerPorId(libro.getId())).withSelfRel(),
-                linkTo(methodOn(LibroController.class).listarTodos()).withRel("libros"));
+                linkTo(methodOn(LibroController.class).obtenerPorId(libro.getId(), null)).withSelfRel(),
+                linkTo(LibroController.class).withRel("libros"));
 
         // Enlace para actualizar el libro
-        libroModel.add(linkTo(methodOn(LibroController.class).actualizar(libro.getId(), libro)).withRel("actualizar"));
+        libroModel.add(linkTo(methodOn(LibroController.class).actualizar(libro.getId(), libro, null)).withRel("actualizar"));
 
         // Enlace para eliminar el libro
         libroModel.add(linkTo(methodOn(LibroController.class).eliminar(libro.getId())).withRel("eliminar"));
 
         return libroModel;
     }
+
+    /**
+     * Convierte un libro del listado de un autor en su modelo HAL, con enlace al libro completo.
+     *
+     * @param libro Resumen del libro.
+     * @return Modelo HAL del resumen.
+     */
+    public EntityModel<LibroDeAutor> toModel(LibroDeAutor libro) {
+        String base = PlantillaEnlace.base(LibroController.class);
+        return EntityModel.of(libro,
+                Link.of(enlaceLibro.expandir(base, libro.getId())).withSelfRel(),
+                Link.of(base).withRel("libros"));
+    }
+
+    /**
+     * Agrega a una fila con campos parciales los mismos enlaces que {@link #toModel(Libro)}.
+     * La fila debe incluir el id.
+     *
+     * @param fila Campos del libro.
+     * @return La misma fila, con los enlaces en _links.
+     */
+    public Map<String, Object> enlazar(Map<String, Object> fila) {
+        String base = PlantillaEnlace.base(LibroController.class);
+        Object id = fila.get("id");
+        Map<String, Object> enlaces = new LinkedHashMap<>();
+        enlaces.put("self", Map.of("href", enlaceLibro.expandir(base, id)));
+        enlaces.put("libros", Map.of("href", base));
+        enlaces.put("actualizar", Map.of("href", enlaceActualizar.expandir(base, id)));
+        enlaces.put("eliminar", Map.of("href", enlaceEliminar.expandir(base, id)));
+        fila.put("_links", enlaces);
+        return fila;
+    }
+
+    /**
+     * Ensamblador para la API v2, que puede aplicarse fuera del hilo de la petición,
+     * por ejemplo sobre los elementos de un Flux. Las URL base se resuelven al invocar
+     * este método, por lo que debe llamarse desde el hilo de la petición.
+     *
+     * Produce la misma forma HAL que {@link #toModel}: self y libros apuntan a la v2
+     * y actualizar y eliminar a la v1, que sigue atendiendo las escrituras.
+     *
+     * @return Función que convierte cada libro en su modelo HAL.
+     */
+    public Function<Libro, EntityModel<Libro>> ensambladorV2() {
+        String base = PlantillaEnlace.base(LibroReactivoController.class);
+        String baseEscritura = PlantillaEnlace.base(LibroController.class);
+        return libro -> EntityModel.of(libro,
+                Link.of(enlaceLibroV2.expandir(base, libro.getId())).withSelfRel(),
+                Link.of(base).withRel("libros"),
+                Link.of(enlaceActualizar.expandir(baseEscritura, libro.getId())).withRel("actualizar"),
+                Link.of(enlaceEliminar.expandir(baseEscritura, libro.getId())).withRel("eliminar"));
+    }
 }
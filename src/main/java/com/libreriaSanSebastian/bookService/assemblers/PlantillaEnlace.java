@@ -0,0 +1,97 @@
+package com.libreriaSanSebastian.bookService.assemblers;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+/**
+ * Plantilla de enlace a un método de controlador con una variable {id}.
+ *
+ * La ruta del método se resuelve una sola vez, leyendo sus anotaciones de mapeo,
+ * y cada enlace se obtiene concatenando la URL base de la petición con el id.
+ * Evita crear un proxy con methodOn y resolver el mapeo por reflexión en cada entidad,
+ * generando exactamente el mismo href que linkTo(methodOn(...)).
+ */
+final class PlantillaEnlace {
+
+    private static final String VARIABLE_ID = "{id}";
+
+    private final String prefijo;
+
+    private final String sufijo;
+
+    private PlantillaEnlace(String prefijo, String sufijo) {
+        this.prefijo = prefijo;
+        this.sufijo = sufijo;
+    }
+
+    /**
+     * Resuelve la plantilla del método indicado de un controlador.
+     *
+     * El método se busca por nombre y tipos de parámetros, de modo que una sobrecarga
+     * no cambie la plantilla según el orden en que la reflexión devuelve los métodos.
+     *
+     * @param controlador Clase del controlador.
+     * @param metodo      Nombre del método, cuyo mapeo debe contener la variable {id}.
+     * @param parametros  Tipos de los parámetros del método.
+     * @return Plantilla del enlace.
+     */
+    static PlantillaEnlace de(Class<?> controlador, String metodo, Class<?>... parametros) {
+        Method handler;
+        try {
+            handler = controlador.getMethod(metodo, parametros);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("No existe el método " + metodo + Arrays.toString(parametros), e);
+        }
+        RequestMapping mapeo = AnnotatedElementUtils.findMergedAnnotation(handler, RequestMapping.class);
+        String ruta = mapeo == null || mapeo.path().length == 0 ? "" : mapeo.path()[0];
+        if (!ruta.isEmpty() && !ruta.startsWith("/")) {
+            ruta = "/" + ruta;
+        }
+        int posicion = ruta.indexOf(VARIABLE_ID);
+        if (posicion < 0) {
+            throw new IllegalArgumentException("El mapeo de " + metodo + " no contiene " + VARIABLE_ID);
+        }
+        return new PlantillaEnlace(ruta.substring(0, posicion), ruta.substring(posicion + VARIABLE_ID.length()));
+    }
+
+    /**
+     * Expande la plantilla con la URL base del controlador y el id de la entidad.
+     *
+     * @param base URL base del controlador, ver {@link #base(Class)}.
+     * @param id   Identificador de la entidad.
+     * @return URL del enlace.
+     */
+    String expandir(String base, Object id) {
+        return base + prefijo + id + sufijo;
+    }
+
+    /**
+     * Obtiene la URL base del controlador para la petición actual.
+     *
+     * Se calcula con linkTo una vez por petición y se guarda en sus atributos, de
+     * modo que todas las entidades de un listado comparten el mismo cálculo.
+     *
+     * @param controlador Clase del controlador.
+     * @return URL absoluta del mapeo de la clase del controlador.
+     */
+    static String base(Class<?> controlador) {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos == null) {
+            return linkTo(controlador).withSelfRel().getHref();
+        }
+        String clave = PlantillaEnlace.class.getName() + "." + controlador.getName();
+        String base = (String) atributos.getAttribute(clave, RequestAttributes.SCOPE_REQUEST);
+        if (base == null) {
+            base = linkTo(controlador).withSelfRel().getHref();
+            atributos.setAttribute(clave, base, RequestAttributes.SCOPE_REQUEST);
+        }
+        return base;
+    }
+}
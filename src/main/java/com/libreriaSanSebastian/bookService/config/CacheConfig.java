@@ -0,0 +1,30 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de la caché en memoria de libros y autores.
+ *
+ * El proveedor (Caffeine), el tamaño máximo y el tiempo de expiración se definen
+ * por perfil con las propiedades spring.cache.* de cada application-*.properties.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Caché de libros por id, con su autor.
+     */
+    public static final String LIBROS = "libros";
+
+    /**
+     * Caché que asocia un título con el id del libro.
+     */
+    public static final String LIBROS_POR_TITULO = "librosPorTitulo";
+
+    /**
+     * Caché de autores por id.
+     */
+    public static final String AUTORES = "autores";
+}
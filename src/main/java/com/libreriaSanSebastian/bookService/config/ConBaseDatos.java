@@ -0,0 +1,26 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registra el componente solo si la aplicación tiene base de datos, es decir, fuera de un
+ * nodo de borde (libros.instantanea.servir=true).
+ *
+ * El perfil "borde" excluye la autoconfiguración de JDBC, JPA y R2DBC: no hay fuente de
+ * datos, repositorios ni gestor de transacciones. Se marcan así los componentes de escritura
+ * y los que solo atiende la primaria (feed de cambios, eventos, API v2, importación). Los
+ * servicios de libros y autores se crean igual y responden las lecturas desde la instantánea,
+ * con sus dependencias de base de datos opcionales.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@ConditionalOnProperty(name = "libros.instantanea.servir", havingValue = "false", matchIfMissing = true)
+public @interface ConBaseDatos {
+}
@@ -0,0 +1,36 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara en el hilo actual.
+ *
+ * Hibernate lo instancia a partir de la propiedad
+ * hibernate.session_factory.statement_inspector; {@link MetricasConfig} lo reinicia
+ * al comenzar cada petición y publica el total al terminarla. Las sentencias de otros
+ * hilos no se suman, por eso no se publican las peticiones asíncronas.
+ */
+public class ContadorSentenciasSql implements StatementInspector {
+
+    private static final ThreadLocal<int[]> SENTENCIAS = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        SENTENCIAS.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Pone en cero el contador del hilo actual.
+     */
+    public static void reiniciar() {
+        SENTENCIAS.get()[0] = 0;
+    }
+
+    /**
+     * @return Sentencias preparadas en el hilo actual desde el último reinicio.
+     */
+    public static int obtener() {
+        return SENTENCIAS.get()[0];
+    }
+}
@@ -0,0 +1,52 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Inicialización diferida de la documentación OpenAPI (perfil "arranque-rapido").
+ *
+ * Los beans de springdoc y de {@link SwaggerConfig} se marcan como lazy: sus controladores se
+ * registran igual al arrancar, pero la construcción del modelo OpenAPI se hace con la primera
+ * petición a la documentación. El resto de beans se sigue creando al arrancar, para que un
+ * error de configuración se detecte antes de que la instancia reciba tráfico.
+ */
+@Configuration
+@ConditionalOnProperty(name = "libros.arranque.documentacion-diferida", havingValue = "true")
+public class DocumentacionDiferidaConfig {
+
+    private static final String PAQUETE_SPRINGDOC = "org.springdoc.";
+
+    @Bean
+    public static BeanFactoryPostProcessor documentacionDiferida() {
+        return fabrica -> {
+            for (String nombre : fabrica.getBeanDefinitionNames()) {
+                BeanDefinition definicion = fabrica.getBeanDefinition(nombre);
+                if (esDocumentacion(fabrica, definicion)) {
+                    definicion.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    /**
+     * Un bean es de documentación si su clase, o la de la configuración que lo declara con
+     * un método @Bean, pertenece a springdoc o es SwaggerConfig (o su subclase CGLIB).
+     */
+    static boolean esDocumentacion(ConfigurableListableBeanFactory fabrica, BeanDefinition definicion) {
+        if (esClaseDocumentacion(definicion.getBeanClassName())) {
+            return true;
+        }
+        String fabricaDelBean = definicion.getFactoryBeanName();
+        return fabricaDelBean != null && fabrica.containsBeanDefinition(fabricaDelBean)
+                && esClaseDocumentacion(fabrica.getBeanDefinition(fabricaDelBean).getBeanClassName());
+    }
+
+    private static boolean esClaseDocumentacion(String clase) {
+        return clase != null && (clase.startsWith(PAQUETE_SPRINGDOC) || clase.startsWith(SwaggerConfig.class.getName()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import com.libreriaSanSebastian.bookService.service.InstantaneaService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.nio.file.Path;
+
+/**
+ * Comando de exportación de la instantánea del catálogo, con el perfil "exportar-instantanea".
+ *
+ * Se ejecuta contra la primaria, escribe libros.instantanea.archivo y termina la aplicación
+ * sin levantar el servidor web:
+ * {@code java -jar bookService.jar --spring.profiles.active=dev,exportar-instantanea --libros.instantanea.archivo=/srv/catalogo.bin}
+ * El archivo se reemplaza de forma atómica, por lo que puede escribirse directamente en el
+ * directorio que vigilan los nodos de borde o copiarse a ellos después.
+ */
+@Configuration
+@Profile("exportar-instantanea")
+public class ExportacionInstantaneaConfig {
+
+    @Value("${libros.instantanea.archivo}")
+    private String archivo;
+
+    @Bean
+    public ApplicationRunner exportarInstantanea(InstantaneaService instantanea, ApplicationContext contexto) {
+        return argumentos -> {
+            instantanea.exportar(Path.of(archivo));
+            System.exit(SpringApplication.exit(contexto));
+        };
+    }
+}
@@ -0,0 +1,243 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.libreriaSanSebastian.bookService.dto.RespuestaGuardada;
+import com.libreriaSanSebastian.bookService.service.AlmacenIdempotencia;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Soporte de la cabecera Idempotency-Key en los endpoints que modifican stock.
+ *
+ * La primera petición con una clave la reserva, se ejecuta y su respuesta (estado,
+ * tipo de contenido y cuerpo) queda guardada. Las repeticiones con la misma clave y
+ * la misma petición reciben esa respuesta sin volver a ejecutarse, con la cabecera
+ * Idempotent-Replayed. Una repetición mientras la original sigue en curso recibe 409,
+ * y la reutilización de la clave con otro método, ruta o cuerpo recibe 422.
+ *
+ * Las respuestas 5xx no se guardan: la clave se libera para que el cliente reintente.
+ * Las peticiones sin cabecera no se ven afectadas.
+ */
+public class FiltroIdempotencia extends OncePerRequestFilter {
+
+    /**
+     * Cabecera con la clave de idempotencia elegida por el cliente.
+     */
+    public static final String CABECERA = "Idempotency-Key";
+
+    /**
+     * Cabecera agregada a las respuestas repetidas desde el almacén.
+     */
+    public static final String CABECERA_REPETIDA = "Idempotent-Replayed";
+
+    /**
+     * Peticiones con Idempotency-Key, etiquetadas por resultado: ejecutada, repetida,
+     * en_curso o reutilizada. La tasa de repeticiones es repetida sobre el total.
+     */
+    public static final String METRICA_PETICIONES = "libros.idempotencia.peticiones";
+
+    private static final int LONGITUD_MAXIMA_CLAVE = 255;
+
+    private static final Set<String> METODOS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final AlmacenIdempotencia almacen;
+
+    private final ObjectMapper objectMapper;
+
+    public FiltroIdempotencia(AlmacenIdempotencia almacen, ObjectMapper objectMapper) {
+        this.almacen = almacen;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(CABECERA) == null || !METODOS.contains(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String clave = request.getHeader(CABECERA).trim();
+        if (clave.isEmpty() || clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            error(response, HttpStatus.BAD_REQUEST,
+                    "La cabecera Idempotency-Key debe tener entre 1 y " + LONGITUD_MAXIMA_CLAVE + " caracteres");
+            return;
+        }
+
+        byte[] cuerpo = StreamUtils.copyToByteArray(request.getInputStream());
+        String huella = huella(request, cuerpo);
+        RespuestaGuardada previa = almacen.reservar(clave, huella);
+        if (previa != null) {
+            if (!previa.getHuella().equals(huella)) {
+                contar("reutilizada");
+                error(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        "La Idempotency-Key ya se usó con una petición distinta");
+            } else if (previa.isEnCurso()) {
+                contar("en_curso");
+                error(response, HttpStatus.CONFLICT,
+                        "Una petición con la misma Idempotency-Key está en curso");
+            } else {
+                contar("repetida");
+                repetir(response, previa);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper respuesta = new ContentCachingResponseWrapper(response);
+        boolean guardada = false;
+        try {
+            chain.doFilter(new CuerpoLeido(request, cuerpo), respuesta);
+            if (respuesta.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                almacen.guardar(clave, new RespuestaGuardada(huella, respuesta.getStatus(),
+                        respuesta.getContentType(), respuesta.getContentAsByteArray()));
+                guardada = true;
+            }
+        } finally {
+            if (!guardada) {
+                almacen.liberar(clave);
+            }
+            respuesta.copyBodyToResponse();
+        }
+        contar("ejecutada");
+    }
+
+    private void repetir(HttpServletResponse response, RespuestaGuardada guardada) throws IOException {
+        response.setStatus(guardada.getEstado());
+        response.setHeader(CABECERA_REPETIDA, "true");
+        if (guardada.getTipoContenido() != null) {
+            response.setContentType(guardada.getTipoContenido());
+        }
+        if (guardada.getCuerpo() != null && guardada.getCuerpo().length > 0) {
+            response.setContentLength(guardada.getCuerpo().length);
+            response.getOutputStream().write(guardada.getCuerpo());
+        }
+    }
+
+    private void error(HttpServletResponse response, HttpStatus estado, String mensaje) throws IOException {
+        response.setStatus(estado.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", mensaje));
+    }
+
+    private static void contar(String resultado) {
+        Metrics.counter(METRICA_PETICIONES, "resultado", resultado).increment();
+    }
+
+    /**
+     * Huella SHA-256 del método, la ruta con sus parámetros y el cuerpo de la petición.
+     */
+    static String huella(HttpServletRequest request, byte[] cuerpo) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) ' ');
+            sha.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+            if (request.getQueryString() != null) {
+                sha.update((byte) '?');
+                sha.update(request.getQueryString().getBytes(StandardCharsets.UTF_8));
+            }
+            sha.update((byte) '\n');
+            return HexFormat.of().formatHex(sha.digest(cuerpo));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Petición cuyo cuerpo ya se leyó para calcular la huella y se vuelve a entregar
+     * al controlador desde memoria.
+     */
+    private static final class CuerpoLeido extends HttpServletRequestWrapper {
+
+        private final byte[] cuerpo;
+
+        CuerpoLeido(HttpServletRequest request, byte[] cuerpo) {
+            super(request);
+            this.cuerpo = cuerpo;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(cuerpo);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(byte[] destino, int desde, int cantidad) {
+                    return entrada.read(destino, desde, cantidad);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * El cuerpo ya está en memoria: el listener se notifica de inmediato con todo
+                 * el cuerpo disponible y, si lo leyó completo, con el fin de la lectura.
+                 */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String codificacion = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    codificacion == null ? StandardCharsets.UTF_8 : Charset.forName(codificacion)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return cuerpo.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return cuerpo.length;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Lectura de las escrituras propias cuando hay réplicas de lectura.
+ *
+ * Las peticiones que modifican datos leen siempre de la primaria y devuelven la cookie
+ * {@link #COOKIE}, que vence a los libros.replicas.lectura-propia. Mientras el cliente
+ * la envía, sus lecturas también van a la primaria, de modo que ve sus cambios aunque
+ * las réplicas todavía no los hayan recibido. El resto de los clientes sigue leyendo
+ * de las réplicas.
+ */
+public class FiltroLecturaPropia extends OncePerRequestFilter {
+
+    /**
+     * Cookie que marca a un cliente con escrituras recientes.
+     */
+    public static final String COOKIE = "libros-escritura";
+
+    private static final Set<String> METODOS_LECTURA = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final Duration ventana;
+
+    public FiltroLecturaPropia(Duration ventana) {
+        this.ventana = ventana;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean escritura = !METODOS_LECTURA.contains(request.getMethod());
+        if (escritura) {
+            // Se agrega antes de ejecutar la petición, ya que después la respuesta puede estar enviada
+            Cookie cookie = new Cookie(COOKIE, "1");
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, ventana.toSeconds()));
+            response.addCookie(cookie);
+        }
+        RuteoReplicas.leerDePrimaria(escritura || escrituraReciente(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RuteoReplicas.leerDePrimaria(false);
+        }
+    }
+
+    private static boolean escrituraReciente(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE.equals(cookie.getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,64 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rechazo de lo que un nodo de borde no puede atender desde la instantánea del catálogo.
+ *
+ * Las escrituras reciben 405, ya que deben hacerse en la primaria. El feed de cambios, los
+ * eventos SSE y la API v2 reciben 501: se leen de la base de datos, que un nodo de borde no
+ * tiene, por lo que sus componentes no se registran (ver {@link ConBaseDatos}).
+ */
+public class FiltroSoloLectura extends OncePerRequestFilter {
+
+    private static final Set<String> METODOS_LECTURA = Set.of("GET", "HEAD", "OPTIONS");
+
+    private static final List<String> RUTAS_PRIMARIA = List.of(
+            "/api/v1/libros/cambios",
+            "/api/v1/autores/cambios",
+            "/api/v1/libros/eventos",
+            "/api/v2/");
+
+    private final ObjectMapper objectMapper;
+
+    public FiltroSoloLectura(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!METODOS_LECTURA.contains(request.getMethod())) {
+            response.setHeader(HttpHeaders.ALLOW, String.join(", ", METODOS_LECTURA));
+            error(response, HttpStatus.METHOD_NOT_ALLOWED,
+                    "Nodo de solo lectura: las modificaciones deben enviarse a la primaria");
+            return;
+        }
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        if (RUTAS_PRIMARIA.stream().anyMatch(ruta::startsWith)) {
+            error(response, HttpStatus.NOT_IMPLEMENTED,
+                    "Este recurso solo lo atiende la primaria, no la instantánea del catálogo");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void error(HttpServletResponse response, HttpStatus estado, String mensaje) throws IOException {
+        response.setStatus(estado.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", mensaje));
+    }
+}
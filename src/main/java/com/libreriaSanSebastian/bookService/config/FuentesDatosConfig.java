@@ -0,0 +1,56 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+
+/**
+ * Fuente de datos JDBC usada por JPA.
+ *
+ * La autoconfiguración de Spring Boot no crea el DataSource cuando existe una
+ * ConnectionFactory de R2DBC, que se usa para la API v2. Aquí se declara de forma
+ * explícita con las mismas propiedades spring.datasource.* y spring.datasource.hikari.*,
+ * de modo que ambos accesos conviven sobre la misma base de datos.
+ *
+ * Si se configuran réplicas de lectura (libros.replicas.urls), la fuente usada por JPA
+ * es un LazyConnectionDataSourceProxy sobre la primaria, que envía las transacciones de
+ * solo lectura a {@link RuteoReplicas} (ver {@link ReplicasConfig}).
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+@ConBaseDatos
+public class FuentesDatosConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource fuentePrimaria(DataSourceProperties propiedades) {
+        HikariDataSource dataSource = propiedades.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        if (StringUtils.hasText(propiedades.getName())) {
+            dataSource.setPoolName(propiedades.getName());
+        }
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource fuentePrimaria, ObjectProvider<RuteoReplicas> ruteoReplicas) {
+        RuteoReplicas replicas = ruteoReplicas.getIfAvailable();
+        if (replicas == null) {
+            return fuentePrimaria;
+        }
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(fuentePrimaria);
+        proxy.setReadOnlyDataSource(replicas);
+        return proxy;
+    }
+}
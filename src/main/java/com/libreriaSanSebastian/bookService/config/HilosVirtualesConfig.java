@@ -0,0 +1,94 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import io.micrometer.core.instrument.Metrics;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Diagnóstico de hilos virtuales fijados a su hilo portador.
+ *
+ * Con spring.threads.virtual.enabled=true (requiere JDK 21) Tomcat y el ejecutor de
+ * tareas de Spring atienden cada petición en un hilo virtual. Si un hilo virtual se
+ * bloquea dentro de un bloque synchronized o de código nativo, por ejemplo en un
+ * driver JDBC, queda fijado a su portador y deja de liberar el hilo de plataforma.
+ *
+ * Esta configuración escucha el evento JFR jdk.VirtualThreadPinned y, para cada
+ * fijación que supera el umbral, registra la pila de llamadas en el log y la cuenta
+ * en la métrica libros.hilos.virtuales.fijados etiquetada con el primer marco de
+ * la aplicación o de la librería responsable.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class HilosVirtualesConfig {
+
+    /**
+     * Fijaciones de hilos virtuales que superaron el umbral.
+     */
+    public static final String METRICA_FIJADOS = "libros.hilos.virtuales.fijados";
+
+    private static final String EVENTO_FIJADO = "jdk.VirtualThreadPinned";
+
+    private static final int MARCOS_LOG = 12;
+
+    private static final Logger log = LoggerFactory.getLogger(HilosVirtualesConfig.class);
+
+    @Value("${libros.hilos-virtuales.umbral-fijacion:20ms}")
+    private Duration umbral;
+
+    private RecordingStream grabacion;
+
+    @PostConstruct
+    public void iniciar() {
+        grabacion = new RecordingStream();
+        grabacion.enable(EVENTO_FIJADO).withThreshold(umbral).withStackTrace();
+        grabacion.onEvent(EVENTO_FIJADO, this::registrar);
+        grabacion.startAsync();
+        log.info("Hilos virtuales habilitados; se registran fijaciones de más de {} ms", umbral.toMillis());
+    }
+
+    @PreDestroy
+    public void detener() {
+        grabacion.close();
+    }
+
+    private void registrar(RecordedEvent evento) {
+        List<RecordedFrame> marcos = evento.getStackTrace() == null
+                ? List.of() : evento.getStackTrace().getFrames();
+        Metrics.counter(METRICA_FIJADOS, "origen", origen(marcos)).increment();
+
+        if (log.isWarnEnabled()) {
+            StringBuilder pila = new StringBuilder();
+            for (int i = 0; i < Math.min(MARCOS_LOG, marcos.size()); i++) {
+                RecordedFrame marco = marcos.get(i);
+                pila.append("\n\tat ").append(marco.getMethod().getType().getName())
+                        .append('.').append(marco.getMethod().getName())
+                        .append(':').append(marco.getLineNumber());
+            }
+            log.warn("Hilo virtual fijado durante {} ms{}", evento.getDuration().toMillis(), pila);
+        }
+    }
+
+    /**
+     * Primer marco de la pila que no pertenece al JDK, o el primero si todos lo son.
+     */
+    private static String origen(List<RecordedFrame> marcos) {
+        for (RecordedFrame marco : marcos) {
+            String clase = marco.getMethod().getType().getName();
+            if (!clase.startsWith("java.") && !clase.startsWith("jdk.") && !clase.startsWith("sun.")) {
+                return clase;
+            }
+        }
+        return marcos.isEmpty() ? "desconocido" : marcos.get(0).getMethod().getType().getName();
+    }
+}
@@ -0,0 +1,36 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.libreriaSanSebastian.bookService.service.AlmacenIdempotencia;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registro del filtro de Idempotency-Key sobre los endpoints que modifican stock,
+ * que el servicio de pedidos reintenta ante un timeout.
+ *
+ * Sin la clave, un reintento de una petición que sí se aplicó vuelve a descontar
+ * stock y suma carga a la base de datos justo cuando está saturada.
+ */
+@Configuration
+public class IdempotenciaConfig {
+
+    /**
+     * Rutas de los endpoints de stock atendidos por el filtro.
+     */
+    public static final String[] RUTAS = {
+            "/api/v1/libros/decrementar-stock",
+            "/api/v1/libros/decrementar-stock/*",
+            "/api/v1/libros/reponer-stock"
+    };
+
+    @Bean
+    public FilterRegistrationBean<FiltroIdempotencia> filtroIdempotencia(AlmacenIdempotencia almacen,
+                                                                        ObjectMapper objectMapper) {
+        FilterRegistrationBean<FiltroIdempotencia> registro =
+                new FilterRegistrationBean<>(new FiltroIdempotencia(almacen, objectMapper));
+        registro.addUrlPatterns(RUTAS);
+        return registro;
+    }
+}
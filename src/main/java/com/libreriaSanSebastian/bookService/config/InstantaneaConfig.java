@@ -0,0 +1,27 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Nodo de borde de solo lectura: activo con libros.instantanea.servir=true (perfil "borde").
+ *
+ * Los libros y autores se leen de la instantánea mapeada en memoria (ver
+ * {@link com.libreriaSanSebastian.bookService.service.InstantaneaService}); el filtro rechaza
+ * las escrituras y los recursos que solo puede atender la primaria.
+ */
+@Configuration
+@ConditionalOnProperty(name = "libros.instantanea.servir", havingValue = "true")
+public class InstantaneaConfig {
+
+    @Bean
+    public FilterRegistrationBean<FiltroSoloLectura> filtroSoloLectura(ObjectMapper objectMapper) {
+        FilterRegistrationBean<FiltroSoloLectura> registro =
+                new FilterRegistrationBean<>(new FiltroSoloLectura(objectMapper));
+        registro.addUrlPatterns("/api/*");
+        return registro;
+    }
+}
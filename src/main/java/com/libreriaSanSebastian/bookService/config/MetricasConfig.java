@@ -0,0 +1,66 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Métricas por método de controlador que complementan las de Actuator.
+ *
+ * Publica la cantidad de sentencias SQL ejecutadas en cada petición, etiquetada con
+ * el controlador y el método que la atendió, para detectar consultas N+1 sin
+ * necesidad de activar el log de SQL. Las métricas se registran en el registro
+ * global de Micrometer, al que Spring Boot agrega el registro de Prometheus.
+ *
+ * El contador de sentencias es del hilo que atiende la petición, por lo que las peticiones
+ * asíncronas no se registran: la exportación NDJSON escribe desde otro hilo, la API v2 usa
+ * R2DBC, que no pasa por Hibernate, y los eventos SSE envían desde su propio pool. Su
+ * distribución subestimaría las sentencias en lugar de mostrarlas.
+ */
+@Configuration
+public class MetricasConfig implements WebMvcConfigurer {
+
+    /**
+     * Distribución de sentencias SQL por petición.
+     */
+    public static final String METRICA_SENTENCIAS = "libros.http.sentencias.sql";
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SentenciasPorPeticion());
+    }
+
+    /**
+     * Reinicia el contador al comenzar cada petición y publica el total al terminarla. En una
+     * petición asíncrona, Spring MVC no llama a afterCompletion en el despacho inicial y sí en
+     * el despacho asíncrono que la completa, que se descarta.
+     */
+    static class SentenciasPorPeticion implements AsyncHandlerInterceptor {
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            ContadorSentenciasSql.reiniciar();
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                    Object handler, Exception ex) {
+            if (request.getDispatcherType() != DispatcherType.ASYNC && handler instanceof HandlerMethod metodo) {
+                DistributionSummary.builder(METRICA_SENTENCIAS)
+                        .baseUnit("sentencias")
+                        .tag("controlador", metodo.getBeanType().getSimpleName())
+                        .tag("metodo", metodo.getMethod().getName())
+                        .register(Metrics.globalRegistry)
+                        .record(ContadorSentenciasSql.obtener());
+            }
+        }
+    }
+}
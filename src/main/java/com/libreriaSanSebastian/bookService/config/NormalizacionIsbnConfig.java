@@ -0,0 +1,31 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import com.libreriaSanSebastian.bookService.service.NormalizacionIsbnService;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Migración única de los ISBN guardados, con el perfil "normalizar-isbn".
+ *
+ * Debe ejecutarse contra la primaria antes de desplegar la restricción uk_libros_isbn:
+ * {@code java -jar bookService.jar --spring.profiles.active=dev,normalizar-isbn}
+ * El comando no modifica el esquema; el siguiente arranque con ddl-auto=update crea la
+ * restricción sobre los ISBN ya normalizados. Los duplicados que informe deben
+ * resolverse a mano antes de ese arranque.
+ */
+@Configuration
+@Profile("normalizar-isbn")
+public class NormalizacionIsbnConfig {
+
+    @Bean
+    public ApplicationRunner normalizarIsbn(NormalizacionIsbnService normalizacion, ApplicationContext contexto) {
+        return argumentos -> {
+            normalizacion.normalizar();
+            System.exit(SpringApplication.exit(contexto));
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réplicas de lectura, activas solo si libros.replicas.urls tiene al menos una URL.
+ *
+ * Cada réplica tiene su propio pool, con el mismo driver y las mismas credenciales que
+ * la primaria salvo que se indiquen libros.replicas.usuario y libros.replicas.clave.
+ * Las lecturas de los listados dejan de competir en la primaria con las escrituras de
+ * stock; las escrituras, y las lecturas que deben verlas, siguen en la primaria.
+ */
+@Configuration
+@ConditionalOnExpression("!'${libros.replicas.urls:}'.isBlank()")
+public class ReplicasConfig {
+
+    @Value("${libros.replicas.urls}")
+    private List<String> urls;
+
+    @Value("${libros.replicas.usuario:${spring.datasource.username:}}")
+    private String usuario;
+
+    @Value("${libros.replicas.clave:${spring.datasource.password:}}")
+    private String clave;
+
+    @Value("${libros.replicas.pool-maximo:10}")
+    private int poolMaximo;
+
+    @Value("${libros.replicas.retraso-maximo:1s}")
+    private Duration retrasoMaximo;
+
+    @Value("${libros.replicas.lectura-propia:5s}")
+    private Duration lecturaPropia;
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public RuteoReplicas ruteoReplicas(HikariDataSource fuentePrimaria, DataSourceProperties propiedades) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            String nombre = "replica-" + (replicas.size() + 1);
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(propiedades.determineDriverClassName())
+                    .url(url.trim())
+                    .username(usuario)
+                    .password(clave)
+                    .build();
+            replica.setPoolName(nombre);
+            replica.setMaximumPoolSize(poolMaximo);
+            replica.setReadOnly(true);
+            replica.setMetricRegistry(Metrics.globalRegistry);
+            pools.add(replica);
+            replicas.put(nombre, replica);
+        }
+        return new RuteoReplicas(fuentePrimaria, replicas, retrasoMaximo);
+    }
+
+    @Bean
+    public FilterRegistrationBean<FiltroLecturaPropia> filtroLecturaPropia() {
+        return new FilterRegistrationBean<>(new FiltroLecturaPropia(lecturaPropia));
+    }
+
+    /**
+     * Cierra los pools de las réplicas al detener la aplicación.
+     */
+    @PreDestroy
+    public void cerrar() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,188 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fuente de datos de las transacciones de solo lectura: reparte las conexiones entre
+ * las réplicas disponibles en turnos rotativos y usa la primaria cuando no hay ninguna.
+ *
+ * {@link FuentesDatosConfig} la asigna como fuente de solo lectura de un
+ * LazyConnectionDataSourceProxy, que obtiene la conexión física recién en la primera
+ * sentencia, cuando ya se sabe si la transacción es de solo lectura.
+ *
+ * Se usa la primaria en lugar de una réplica cuando:
+ * - la réplica está atrasada más de libros.replicas.retraso-maximo o no responde, según la
+ *   última verificación (cada libros.replicas.verificacion-ms);
+ * - el hilo lee sus propias escrituras recientes (ver {@link FiltroLecturaPropia});
+ * - la transacción es la implícita de un método heredado de un repositorio (findById,
+ *   findAll, existsById): alimentan las cachés de libros y autores y comprueban el
+ *   resultado de escrituras recién hechas, por lo que no deben ver datos atrasados.
+ *   Solo los métodos de servicio marcados con @Transactional(readOnly = true) van a las réplicas;
+ * - la transacción es la de un feed de cambios (métodos listarCambios): el corte se calcula
+ *   con las escrituras en curso de la primaria, y una réplica atrasada respecto de ese corte
+ *   haría que el cliente saltara cambios para siempre. Además, el retraso se estima con la
+ *   última modificación de libros, que no refleja los cambios de autores ni las eliminaciones.
+ */
+public class RuteoReplicas extends AbstractRoutingDataSource {
+
+    /**
+     * Conexiones de solo lectura, con la etiqueta destino (el nombre de la réplica o primaria).
+     */
+    public static final String METRICA_LECTURAS = "libros.replicas.lecturas";
+
+    /**
+     * Retraso estimado de cada réplica en segundos, con la etiqueta replica.
+     */
+    public static final String METRICA_RETRASO = "libros.replicas.retraso";
+
+    private static final String PRIMARIA = "primaria";
+
+    private static final String TRANSACCION_REPOSITORIO = SimpleJpaRepository.class.getName() + ".";
+
+    private static final String TRANSACCION_CAMBIOS = ".listarCambios";
+
+    private static final String ULTIMA_MODIFICACION = "SELECT MAX(modificado) FROM libros";
+
+    private static final ThreadLocal<Boolean> LEER_DE_PRIMARIA = new ThreadLocal<>();
+
+    private final JdbcTemplate primaria;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final Duration retrasoMaximo;
+
+    private final AtomicInteger turno = new AtomicInteger();
+
+    /**
+     * @param primaria      Fuente de datos primaria.
+     * @param replicas      Fuentes de datos de las réplicas por nombre.
+     * @param retrasoMaximo Retraso a partir del cual una réplica deja de usarse.
+     */
+    public RuteoReplicas(DataSource primaria, Map<String, DataSource> replicas, Duration retrasoMaximo) {
+        this.primaria = new JdbcTemplate(primaria);
+        this.retrasoMaximo = retrasoMaximo;
+        Map<Object, Object> destinos = new HashMap<>();
+        replicas.forEach((nombre, fuente) -> {
+            Replica replica = new Replica(nombre, new JdbcTemplate(fuente));
+            this.replicas.add(replica);
+            destinos.put(nombre, fuente);
+            Metrics.gauge(METRICA_RETRASO, Tags.of("replica", nombre), replica,
+                    r -> r.retraso == null ? Double.NaN : r.retraso.toMillis() / 1000.0);
+        });
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primaria);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Indica si las lecturas del hilo actual deben hacerse en la primaria.
+     *
+     * @param primaria true para leer de la primaria hasta que se llame con false.
+     */
+    public static void leerDePrimaria(boolean primaria) {
+        if (primaria) {
+            LEER_DE_PRIMARIA.set(Boolean.TRUE);
+        } else {
+            LEER_DE_PRIMARIA.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String transaccion = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (LEER_DE_PRIMARIA.get() == null && (transaccion == null
+                || !transaccion.startsWith(TRANSACCION_REPOSITORIO) && !transaccion.endsWith(TRANSACCION_CAMBIOS))) {
+            for (int intento = 0; intento < replicas.size(); intento++) {
+                Replica replica = replicas.get(Math.floorMod(turno.getAndIncrement(), replicas.size()));
+                if (replica.disponible) {
+                    Metrics.counter(METRICA_LECTURAS, "destino", replica.nombre).increment();
+                    return replica.nombre;
+                }
+            }
+        }
+        Metrics.counter(METRICA_LECTURAS, "destino", PRIMARIA).increment();
+        // Sin clave se usa la fuente por defecto, la primaria
+        return null;
+    }
+
+    /**
+     * Estima el retraso de cada réplica comparando su última modificación de libros con
+     * la de la primaria. Si la réplica no tiene la última modificación, el retraso se acota
+     * por el tiempo transcurrido desde la última que sí tiene.
+     */
+    @Scheduled(fixedDelayString = "${libros.replicas.verificacion-ms:1000}")
+    public void verificar() {
+        Instant ahora = Instant.now();
+        Timestamp enPrimaria;
+        try {
+            enPrimaria = primaria.queryForObject(ULTIMA_MODIFICACION, Timestamp.class);
+        } catch (RuntimeException e) {
+            // Sin la referencia de la primaria se conserva el último estado conocido
+            return;
+        }
+        for (Replica replica : replicas) {
+            boolean disponible;
+            try {
+                Timestamp enReplica = replica.jdbc.queryForObject(ULTIMA_MODIFICACION, Timestamp.class);
+                if (enPrimaria == null || (enReplica != null && !enReplica.before(enPrimaria))) {
+                    replica.retraso = Duration.ZERO;
+                } else {
+                    // Sin ninguna modificación la réplica todavía no recibió los datos
+                    replica.retraso = enReplica == null ? null : Duration.between(enReplica.toInstant(), ahora);
+                }
+                disponible = replica.retraso != null && replica.retraso.compareTo(retrasoMaximo) <= 0;
+            } catch (RuntimeException e) {
+                replica.retraso = null;
+                disponible = false;
+            }
+            if (disponible && !replica.disponible) {
+                logger.info("Réplica " + replica.nombre + " disponible");
+            } else if (!disponible && replica.disponible) {
+                logger.warn("Réplica " + replica.nombre + " sin respuesta o atrasada (" + replica.retraso
+                        + "), sus lecturas pasan a la primaria");
+            }
+            replica.disponible = disponible;
+        }
+    }
+
+    /**
+     * Réplica con el resultado de su última verificación.
+     */
+    private static final class Replica {
+
+        private final String nombre;
+
+        private final JdbcTemplate jdbc;
+
+        /**
+         * Falso hasta la primera verificación.
+         */
+        private volatile boolean disponible;
+
+        /**
+         * Retraso estimado, null si no pudo estimarse.
+         */
+        private volatile Duration retraso;
+
+        private Replica(String nombre, JdbcTemplate jdbc) {
+            this.nombre = nombre;
+            this.jdbc = jdbc;
+        }
+    }
+}
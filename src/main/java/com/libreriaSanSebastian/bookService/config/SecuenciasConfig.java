@@ -0,0 +1,65 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+
+/**
+ * Ajuste de las secuencias de ids de libros y autores.
+ *
+ * En MySQL, Hibernate emula las secuencias con las tablas libros_seq y autores_seq.
+ * Al crearlas sobre una base de datos que ya tenía filas con ids generados por
+ * AUTO_INCREMENT, comienzan en 1; este ajuste las adelanta por encima del id máximo
+ * antes de que la aplicación atienda peticiones. En bases de datos con secuencias
+ * reales (H2) se reinician con el mismo valor. También se usa después de insertar
+ * filas con ids explícitos, como al generar un catálogo sintético.
+ */
+@Configuration
+@ConBaseDatos
+public class SecuenciasConfig {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Garantiza que el esquema ya fue creado o actualizado por Hibernate
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Adelanta las secuencias de libros y autores por encima del id máximo de cada tabla.
+     */
+    @PostConstruct
+    public void ajustarSecuencias() {
+        ajustar("libros_seq", "libros", 500);
+        ajustar("autores_seq", "autores", 50);
+    }
+
+    private void ajustar(String secuencia, String tabla, int incremento) {
+        // Con el optimizador pooled el valor leído es el límite superior del bloque reservado
+        if (!existeTabla(secuencia)) {
+            Long maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabla, Long.class);
+            if (maximo != null && maximo > 0) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + secuencia + " RESTART WITH " + (maximo + incremento + 1));
+            }
+            return;
+        }
+        jdbcTemplate.update("UPDATE " + secuencia + " SET next_val = "
+                + "(SELECT COALESCE(MAX(id), 0) + ? + 1 FROM " + tabla + ") "
+                + "WHERE next_val <= (SELECT COALESCE(MAX(id), 0) + ? FROM " + tabla + ")",
+                incremento, incremento);
+    }
+
+    private boolean existeTabla(String nombre) {
+        Boolean existe = jdbcTemplate.execute((Connection conexion) -> {
+            try (ResultSet tablas = conexion.getMetaData().getTables(conexion.getCatalog(), null, nombre, new String[]{"TABLE"})) {
+                return tablas.next();
+            }
+        });
+        return Boolean.TRUE.equals(existe);
+    }
+}
@@ -0,0 +1,44 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import com.libreriaSanSebastian.bookService.service.GeneradorCatalogo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Generación de un catálogo sintético al iniciar la aplicación con el perfil "semilla".
+ *
+ * Se ejecuta antes de que se construyan los índices en memoria y antes de atender
+ * peticiones. Para usarlo como comando, sin levantar el servidor web:
+ * {@code java -jar bookService.jar --spring.profiles.active=h2,semilla --spring.main.web-application-type=none}
+ */
+@Configuration
+@Profile("semilla")
+public class SemillaConfig {
+
+    @Value("${libros.semilla.autores:10000}")
+    private int autores;
+
+    @Value("${libros.semilla.libros:100000}")
+    private long libros;
+
+    @Value("${libros.semilla.semilla:42}")
+    private long semilla;
+
+    @Value("${libros.semilla.sesgo:2.5}")
+    private double sesgo;
+
+    @Value("${libros.semilla.solo-si-vacio:true}")
+    private boolean soloSiVacio;
+
+    @Bean
+    public ApplicationRunner generarCatalogo(GeneradorCatalogo generador) {
+        return argumentos -> {
+            if (!soloSiVacio || generador.catalogoVacio()) {
+                generador.generar(autores, libros, semilla, sesgo);
+            }
+        };
+    }
+}
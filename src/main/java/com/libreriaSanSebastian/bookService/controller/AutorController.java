@@ -1,7 +1,15 @@
 package com.libreriaSanSebastian.bookService.controller;
 
 import com.libreriaSanSebastian.bookService.assemblers.AutorModelAssembler;
+import com.libreriaSanSebastian.bookService.assemblers.LibroModelAssembler;
+import com.libreriaSanSebastian.bookService.dto.AutorConTotales;
+import com.libreriaSanSebastian.bookService.dto.Cambios;
+import com.libreriaSanSebastian.bookService.dto.CamposSolicitados;
+import com.libreriaSanSebastian.bookService.dto.LibroDeAutor;
+import com.libreriaSanSebastian.bookService.dto.MarcaCambios;
+import com.libreriaSanSebastian.bookService.dto.Pagina;
 import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.repository.ProyeccionRepository;
 import com.libreriaSanSebastian.bookService.service.AutorService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,14 +19,23 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
@@ -34,13 +51,29 @@ public class AutorController {
     @Autowired
     private AutorModelAssembler assembler;
 
+    @Autowired
+    private LibroModelAssembler libroAssembler;
+
+    @Value("${libros.paginacion.limite-defecto:20}")
+    private int limiteDefecto;
+
+    @Value("${libros.paginacion.limite-maximo:100}")
+    private int limiteMaximo;
+
+    @Value("${libros.cambios.limite-defecto:500}")
+    private int limiteCambiosDefecto;
+
+    @Value("${libros.cambios.limite-maximo:1000}")
+    private int limiteCambiosMaximo;
+
     @Operation(summary = "Listar todos los autores",
-               description = "Obtiene una lista completa de todos los autores registrados en el sistema")
+               description = "Obtiene una lista completa de todos los autores registrados en el sistema, " +
+                             "con la cantidad de libros y el stock total de cada uno")
     @ApiResponse(responseCode = "200", description = "Lista de autores obtenida exitosamente",
-                 content = @Content(mediaType = "application/json", schema = @Schema(implementation = Autor.class)))
+                 content = @Content(mediaType = "application/json", schema = @Schema(implementation = AutorConTotales.class)))
     @GetMapping
-    public CollectionModel<EntityModel<Autor>> listarTodos() {
-        List<EntityModel<Autor>> autores = autorService.listarTodos().stream()
+    public CollectionModel<EntityModel<AutorConTotales>> listarTodos() {
+        List<EntityModel<AutorConTotales>> autores = autorService.listarConTotales().stream()
                 .map(assembler::toModel)
                 .collect(Collectors.toList());
 
@@ -48,20 +81,163 @@ public class AutorController {
                 linkTo(methodOn(AutorController.class).listarTodos()).withSelfRel());
     }
 
+    @Operation(summary = "Listar autores con campos parciales",
+               description = "Devuelve todos los autores con solo el id y los campos indicados en fields, " +
+                             "leídos con una proyección sobre la tabla de autores. Los enlaces se incluyen " +
+                             "solo si fields contiene _links")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Lista de autores obtenida exitosamente",
+                     content = @Content(mediaType = "application/json")),
+        @ApiResponse(responseCode = "400", description = "Campos inválidos", content = @Content(mediaType = "application/json"))
+    })
+    @GetMapping(params = "fields")
+    public ResponseEntity<?> listarParcial(
+            @Parameter(description = "Campos a devolver separados por coma; _links agrega los enlaces",
+                       required = true, example = "nombre,apellido")
+            @RequestParam String fields) {
+        CamposSolicitados campos;
+        try {
+            campos = CamposSolicitados.de(fields, ProyeccionRepository.CAMPOS_AUTOR.keySet());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        List<Map<String, Object>> autores = autorService.listarParcial(campos);
+        if (campos.isEnlaces()) {
+            autores.forEach(assembler::enlazar);
+        }
+        return ResponseEntity.ok(RespuestaParcial.coleccion(campos, "autores", autores,
+                List.of(linkTo(methodOn(AutorController.class).listarTodos()).withSelfRel())));
+    }
+
+    @Operation(summary = "Listar libros de un autor",
+               description = "Obtiene una página de los libros de un autor, ordenados por id, " +
+                             "usando paginación por cursor")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Página de libros obtenida exitosamente",
+                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = LibroDeAutor.class))),
+        @ApiResponse(responseCode = "404", description = "Autor no encontrado", content = @Content)
+    })
+    @GetMapping("/{id}/libros")
+    public ResponseEntity<CollectionModel<EntityModel<LibroDeAutor>>> listarLibros(
+            @Parameter(description = "ID único del autor", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Id del último libro de la página anterior", example = "20")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Cantidad de libros por página", example = "20")
+            @RequestParam(required = false) Integer limit) {
+        if (autorService.buscarPorId(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        int limite = limit == null ? limiteDefecto : Math.max(1, Math.min(limit, limiteMaximo));
+        Pagina<LibroDeAutor> pagina = autorService.listarLibros(id, after, limite);
+        List<LibroDeAutor> elementos = pagina.getElementos();
+
+        CollectionModel<EntityModel<LibroDeAutor>> modelo = CollectionModel.of(
+                elementos.stream().map(libroAssembler::toModel).collect(Collectors.toList()),
+                enlaceLibros(IanaLinkRelations.SELF, id, after, limite),
+                linkTo(methodOn(AutorController.class).obtenerPorId(id, null)).withRel("autor"));
+        if (pagina.isHaySiguiente()) {
+            modelo.add(enlaceLibros(IanaLinkRelations.NEXT, id, elementos.get(elementos.size() - 1).getId(), limite));
+        }
+        return ResponseEntity.ok(modelo);
+    }
+
+    /**
+     * Construye un enlace a la página de libros del autor posicionada en el cursor indicado.
+     */
+    private Link enlaceLibros(LinkRelation rel, Long id, Long after, int limite) {
+        UriComponentsBuilder uri = linkTo(AutorController.class).slash(id).slash("libros").toUriComponentsBuilder();
+        if (after != null) {
+            uri.queryParam("after", after);
+        }
+        return Link.of(uri.queryParam("limit", limite).toUriString(), rel);
+    }
+
+    @Operation(summary = "Obtener los cambios de autores",
+               description = "Feed de sincronización incremental: devuelve los autores creados o modificados " +
+                             "y los ids de los eliminados después de la marca desde, junto con la marca a enviar " +
+                             "en la siguiente consulta. Sin desde solo devuelve la marca inicial")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Cambios obtenidos exitosamente",
+                     content = @Content(mediaType = "application/json")),
+        @ApiResponse(responseCode = "400", description = "Marca inválida", content = @Content(mediaType = "application/json")),
+        @ApiResponse(responseCode = "410", description = "La marca ya no puede completarse; se debe volver a leer el listado",
+                     content = @Content(mediaType = "application/json"))
+    })
+    @GetMapping(value = "/cambios", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> listarCambios(
+            @Parameter(description = "Marca devuelta por la consulta anterior", example = "1760745600000000-7")
+            @RequestParam(required = false) String desde,
+            @Parameter(description = "Cantidad máxima de cambios", example = "500")
+            @RequestParam(required = false) Integer limit) {
+        if (desde == null) {
+            return ResponseEntity.ok(new Cambios<>(List.of(), List.of(), autorService.marcaInicialCambios(), false));
+        }
+        MarcaCambios marca;
+        try {
+            marca = MarcaCambios.de(desde);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        int limite = limit == null ? limiteCambiosDefecto : Math.max(1, Math.min(limit, limiteCambiosMaximo));
+        return autorService.listarCambios(marca, limite)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.GONE)
+                        .body(Map.of("error", "La marca ya no puede completarse; se debe volver a leer el listado")));
+    }
+
     @Operation(summary = "Obtener autor por ID",
                description = "Busca y retorna un autor específico por su identificador único")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Autor encontrado exitosamente",
                      content = @Content(mediaType = "application/json", schema = @Schema(implementation = Autor.class))),
+        @ApiResponse(responseCode = "304", description = "El autor no cambió desde la versión indicada en If-None-Match",
+                     content = @Content),
         @ApiResponse(responseCode = "404", description = "Autor no encontrado", content = @Content)
     })
     @GetMapping("/{id}")
     public ResponseEntity<EntityModel<Autor>> obtenerPorId(
             @Parameter(description = "ID único del autor", required = true, example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @Parameter(description = "ETag de la representación que ya tiene el cliente")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<Autor> autor = autorService.buscarPorId(id);
+        if (autor.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = ETags.de(autor.get());
+        if (ETags.noModificado(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(assembler.toModel(autor.get()));
+    }
+
+    @Operation(summary = "Obtener autor por ID con campos parciales",
+               description = "Devuelve solo el id y los campos indicados en fields, tomados del autor en caché")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Autor encontrado exitosamente",
+                     content = @Content(mediaType = "application/json")),
+        @ApiResponse(responseCode = "400", description = "Campos inválidos", content = @Content(mediaType = "application/json")),
+        @ApiResponse(responseCode = "404", description = "Autor no encontrado", content = @Content)
+    })
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<?> obtenerParcial(
+            @Parameter(description = "ID único del autor", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Campos a devolver separados por coma; _links agrega los enlaces",
+                       required = true, example = "nombre,apellido")
+            @RequestParam String fields) {
+        CamposSolicitados campos;
+        try {
+            campos = CamposSolicitados.de(fields, ProyeccionRepository.CAMPOS_AUTOR.keySet());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
         return autorService.buscarPorId(id)
-                .map(assembler::toModel)
-                .map(ResponseEntity::ok)
+                .map(campos::recortar)
+                .<ResponseEntity<?>>map(fila -> ResponseEntity.ok(campos.isEnlaces() ? assembler.enlazar(fila) : fila))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -83,7 +259,7 @@ public class AutorController {
         Autor autorCreado = autorService.guardar(autor);
         EntityModel<Autor> autorModel = assembler.toModel(autorCreado);
         return ResponseEntity
-                .created(linkTo(methodOn(AutorController.class).obtenerPorId(autorCreado.getId())).toUri())
+                .created(linkTo(methodOn(AutorController.class).obtenerPorId(autorCreado.getId(), null)).toUri())
                 .body(autorModel);
     }
 
@@ -94,26 +270,79 @@ public class AutorController {
                      content = @Content(mediaType = "application/json", schema = @Schema(implementation = Autor.class))),
         @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos",
                      content = @Content(mediaType = "application/json")),
-        @ApiResponse(responseCode = "404", description = "Autor no encontrado", content = @Content)
+        @ApiResponse(responseCode = "404", description = "Autor no encontrado", content = @Content),
+        @ApiResponse(responseCode = "412", description = "El autor fue modificado desde la versión indicada en If-Match",
+                     content = @Content(mediaType = "application/json"))
     })
     @PutMapping("/{id}")
     public ResponseEntity<?> actualizar(
             @Parameter(description = "ID único del autor", required = true, example = "1")
             @PathVariable Long id,
             @Parameter(description = "Datos actualizados del autor", required = true)
-            @RequestBody Autor autor) {
+            @RequestBody Autor autor,
+            @Parameter(description = "ETag de la versión que el cliente pretende modificar")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (autor.getNombre() == null || autor.getNombre().isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("error", "El nombre del autor es requerido"));
         }
         return autorService.buscarPorId(id)
-                .map(existente -> {
+                .<ResponseEntity<?>>map(existente -> {
+                    if (!ETags.coincide(ifMatch, ETags.de(existente))) {
+                        return autorModificado();
+                    }
                     autor.setId(id);
-                    Autor actualizado = autorService.guardar(autor);
-                    return ResponseEntity.ok(assembler.toModel(actualizado));
+                    autor.setVersion(existente.getVersion());
+                    try {
+                        Autor actualizado = autorService.guardar(autor);
+                        return ResponseEntity.ok().eTag(ETags.de(actualizado)).body(assembler.toModel(actualizado));
+                    } catch (ObjectOptimisticLockingFailureException e) {
+                        return autorModificado();
+                    }
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @Operation(summary = "Modificar autor parcialmente",
+               description = "Aplica un JSON Merge Patch (RFC 7396) con nombre, apellido y/o nacionalidad. " +
+                             "Solo se escriben las columnas indicadas, con una única sentencia UPDATE")
+    @ApiResponses({
+        @ApiResponse(responseCode = "204", description = "Autor modificado exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Parche inválido o If-Match con varias versiones",
+                     content = @Content(mediaType = "application/json")),
+        @ApiResponse(responseCode = "404", description = "Autor no encontrado", content = @Content),
+        @ApiResponse(responseCode = "412", description = "El autor fue modificado desde la versión indicada en If-Match",
+                     content = @Content(mediaType = "application/json"))
+    })
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> modificar(
+            @Parameter(description = "ID único del autor", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Atributos a modificar", required = true)
+            @RequestBody Map<String, Object> parche,
+            @Parameter(description = "ETag de la versión que el cliente pretende modificar")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long version;
+        boolean modificado;
+        try {
+            version = ETags.version(ifMatch);
+            modificado = autorService.modificar(id, parche, version);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (modificado) {
+            return ResponseEntity.noContent().build();
+        }
+        if (version != null && autorService.existe(id)) {
+            return autorModificado();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    private ResponseEntity<?> autorModificado() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(Map.of("error", "El autor fue modificado por otra petición"));
+    }
+
     @Operation(summary = "Eliminar autor",
                description = "Elimina permanentemente un autor del sistema")
     @ApiResponses({
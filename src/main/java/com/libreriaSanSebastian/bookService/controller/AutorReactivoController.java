@@ -0,0 +1,107 @@
+package com.libreriaSanSebastian.bookService.controller;
+
+import com.libreriaSanSebastian.bookService.assemblers.AutorModelAssembler;
+import com.libreriaSanSebastian.bookService.config.ConBaseDatos;
+import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.repository.CatalogoReactivoRepository;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
+
+/**
+ * API v2 de autores, de solo lectura y no bloqueante. Ver {@link LibroReactivoController}.
+ */
+@RestController
+@RequestMapping("/api/v2/autores")
+@Tag(name = "Autores v2", description = "Consultas de autores no bloqueantes (solo lectura)")
+@ConBaseDatos
+public class AutorReactivoController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private CatalogoReactivoRepository catalogo;
+
+    @Autowired
+    private AutorModelAssembler assembler;
+
+    @Value("${libros.paginacion.limite-defecto:20}")
+    private int limiteDefecto;
+
+    @Value("${libros.paginacion.limite-maximo:100}")
+    private int limiteMaximo;
+
+    @Operation(summary = "Listar autores paginados",
+               description = "Obtiene una página de autores ordenados por id. El enlace next continúa desde el último autor")
+    @ApiResponse(responseCode = "200", description = "Página de autores obtenida exitosamente",
+                 content = @Content(mediaType = "application/json", schema = @Schema(implementation = Autor.class)))
+    @GetMapping(produces = {"application/hal+json", "application/json"})
+    public Mono<CollectionModel<EntityModel<Autor>>> listar(
+            @Parameter(description = "Id del último autor de la página anterior", example = "20")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Cantidad de autores por página", example = "20")
+            @RequestParam(required = false) Integer limit) {
+        int limite = limit == null ? limiteDefecto : Math.max(1, Math.min(limit, limiteMaximo));
+        Function<Autor, EntityModel<Autor>> ensamblar = assembler.ensambladorV2();
+        String base = linkTo(AutorReactivoController.class).withSelfRel().getHref();
+
+        return catalogo.listarAutores(after == null ? 0 : after, limite + 1)
+                .collectList()
+                .map(autores -> PaginaV2.de(autores, ensamblar, Autor::getId, base, after, limite));
+    }
+
+    @Operation(summary = "Exportar autores en NDJSON",
+               description = "Transmite todos los autores como NDJSON con un modelo HAL por línea, " +
+                             "leyendo al ritmo en que el cliente consume la respuesta")
+    @ApiResponse(responseCode = "200", description = "Exportación iniciada exitosamente",
+                 content = @Content(mediaType = NDJSON, schema = @Schema(implementation = Autor.class)))
+    @GetMapping(value = "/export", produces = NDJSON)
+    public Flux<EntityModel<Autor>> exportar() {
+        return catalogo.recorrerAutores().map(assembler.ensambladorV2());
+    }
+
+    @Operation(summary = "Obtener autor por ID",
+               description = "Busca y retorna un autor específico por su identificador único")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Autor encontrado exitosamente",
+                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Autor.class))),
+        @ApiResponse(responseCode = "304", description = "El autor no cambió desde la versión indicada en If-None-Match",
+                     content = @Content),
+        @ApiResponse(responseCode = "404", description = "Autor no encontrado", content = @Content)
+    })
+    @GetMapping(value = "/{id}", produces = {"application/hal+json", "application/json"})
+    public Mono<ResponseEntity<EntityModel<Autor>>> obtenerPorId(
+            @Parameter(description = "ID único del autor", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "ETag de la representación que ya tiene el cliente")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Function<Autor, EntityModel<Autor>> ensamblar = assembler.ensambladorV2();
+        return catalogo.buscarAutor(id)
+                .map(autor -> {
+                    String etag = ETags.de(autor);
+                    if (ETags.noModificado(ifNoneMatch, etag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<EntityModel<Autor>>build();
+                    }
+                    return ResponseEntity.ok().eTag(etag).body(ensamblar.apply(autor));
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,109 @@
+package com.libreriaSanSebastian.bookService.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.libreriaSanSebastian.bookService.config.ConBaseDatos;
+import com.libreriaSanSebastian.bookService.dto.EstadisticaCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/v1/cache")
+@Tag(name = "Caché", description = "Estadísticas de la caché en memoria de libros y autores")
+@ConBaseDatos
+public class CacheController {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Operation(summary = "Estadísticas de la caché",
+               description = "Obtiene aciertos, fallos y desalojos de cada caché en memoria")
+    @ApiResponse(responseCode = "200", description = "Estadísticas obtenidas exitosamente",
+                 content = @Content(mediaType = "application/json", schema = @Schema(implementation = EstadisticaCache.class)))
+    @GetMapping
+    public List<EstadisticaCache> obtenerEstadisticas() {
+        return cacheManager.getCacheNames().stream()
+                .sorted()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .map(this::estadistica)
+                .collect(Collectors.toList());
+    }
+
+    @Operation(summary = "Estadísticas de la caché de segundo nivel",
+               description = "Obtiene aciertos, fallos y desalojos de cada región de la caché de segundo nivel " +
+                             "de Hibernate. Las regiones JCache no informan su cantidad de entradas, que se devuelve como -1")
+    @ApiResponse(responseCode = "200", description = "Estadísticas obtenidas exitosamente",
+                 content = @Content(mediaType = "application/json", schema = @Schema(implementation = EstadisticaCache.class)))
+    @GetMapping("/hibernate")
+    public List<EstadisticaCache> obtenerEstadisticasHibernate() {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return Arrays.stream(estadisticas.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(region -> estadistica(region, estadisticas.getCacheRegionStatistics(region)))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private EstadisticaCache estadistica(Cache cache) {
+        if (!(cache instanceof CaffeineCache caffeine)) {
+            return new EstadisticaCache(cache.getName(), 0, 0, 0, 0, 0);
+        }
+        CacheStats stats = caffeine.getNativeCache().stats();
+        return new EstadisticaCache(cache.getName(), caffeine.getNativeCache().estimatedSize(),
+                stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+    }
+
+    private EstadisticaCache estadistica(String region, CacheRegionStatistics stats) {
+        if (stats == null) {
+            return null;
+        }
+        long lecturas = stats.getHitCount() + stats.getMissCount();
+        long entradas = stats.getElementCountInMemory();
+        return new EstadisticaCache(region, entradas < 0 ? -1 : entradas, stats.getHitCount(), stats.getMissCount(),
+                lecturas == 0 ? 0 : stats.getHitCount() / (double) lecturas, desalojos(region));
+    }
+
+    /**
+     * Desalojos de una región según las estadísticas JCache publicadas por JMX
+     * (monitoring.statistics en application.conf). Devuelve 0 si no están disponibles.
+     */
+    private long desalojos(String region) {
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        try {
+            long total = 0;
+            for (ObjectName nombre : servidor.queryNames(
+                    new ObjectName("javax.cache:type=CacheStatistics,Cache=" + region + ",*"), null)) {
+                total += ((Number) servidor.getAttribute(nombre, "CacheEvictions")).longValue();
+            }
+            return total;
+        } catch (JMException | RuntimeException e) {
+            return 0;
+        }
+    }
+}
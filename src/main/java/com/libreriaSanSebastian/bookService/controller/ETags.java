@@ -0,0 +1,134 @@
+package com.libreriaSanSebastian.bookService.controller;
+
+import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Libro;
+
+/**
+ * Cálculo y comparación de ETags a partir de la versión de las entidades.
+ *
+ * Permite responder peticiones condicionales sin serializar el modelo HAL.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * ETag fuerte de un libro. Incluye la versión del autor porque la
+     * representación del libro contiene los datos de su autor.
+     *
+     * @param libro Libro.
+     * @return ETag entre comillas.
+     */
+    static String de(Libro libro) {
+        if (libro.getAutor() == null) {
+            return "\"" + libro.getVersion() + "\"";
+        }
+        return "\"" + libro.getVersion() + "." + libro.getAutor().getVersion() + "\"";
+    }
+
+    /**
+     * ETag fuerte de un autor.
+     *
+     * @param autor Autor.
+     * @return ETag entre comillas.
+     */
+    static String de(Autor autor) {
+        return "\"" + autor.getVersion() + "\"";
+    }
+
+    /**
+     * Evalúa la cabecera If-None-Match con comparación débil.
+     *
+     * @param ifNoneMatch Valor de la cabecera, puede ser null.
+     * @param etag        ETag actual del recurso.
+     * @return true si el cliente ya tiene la representación actual.
+     */
+    static boolean noModificado(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals("*") || valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evalúa la cabecera If-Match con comparación fuerte.
+     *
+     * @param ifMatch Valor de la cabecera, puede ser null.
+     * @param etag    ETag actual del recurso.
+     * @return true si no hay condición o si alguna ETag coincide con la actual.
+     */
+    static boolean coincide(String ifMatch, String etag) {
+        if (ifMatch == null) {
+            return true;
+        }
+        for (String candidato : ifMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*") || valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Obtiene la versión indicada en una cabecera If-Match, para comprobarla en la propia
+     * sentencia UPDATE. De la ETag de un libro solo se toma su versión: la modificación
+     * no cambia la fila del autor.
+     *
+     * La cabecera puede tener varias ETags separadas por comas, como en {@link #coincide};
+     * las que no corresponden a ninguna versión se ignoran porque nunca coinciden.
+     *
+     * @param ifMatch Valor de la cabecera, puede ser null.
+     * @return Versión esperada, null si no hay condición, o -1 si la cabecera no
+     *         corresponde a ninguna versión (nunca coincide).
+     * @throws IllegalArgumentException si las ETags indican versiones distintas, que no
+     *                                  pueden comprobarse con una sola sentencia.
+     */
+    static Long version(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        long version = -1L;
+        for (String candidato : ifMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*")) {
+                return null;
+            }
+            long actual = versionDe(valor);
+            if (actual < 0) {
+                continue;
+            }
+            if (version >= 0 && version != actual) {
+                throw new IllegalArgumentException("If-Match solo admite ETags de una misma versión");
+            }
+            version = actual;
+        }
+        return version;
+    }
+
+    /**
+     * Versión de una ETag fuerte, o -1 si no corresponde a ninguna versión.
+     */
+    private static long versionDe(String valor) {
+        if (valor.length() < 3 || !valor.startsWith("\"") || !valor.endsWith("\"")) {
+            return -1L;
+        }
+        String etag = valor.substring(1, valor.length() - 1);
+        int punto = etag.indexOf('.');
+        try {
+            return Long.parseLong(punto < 0 ? etag : etag.substring(0, punto));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
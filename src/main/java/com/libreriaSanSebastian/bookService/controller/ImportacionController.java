@@ -0,0 +1,54 @@
+package com.libreriaSanSebastian.bookService.controller;
+
+import com.libreriaSanSebastian.bookService.config.ConBaseDatos;
+import com.libreriaSanSebastian.bookService.dto.ResultadoImportacion;
+import com.libreriaSanSebastian.bookService.service.ImportacionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/api/v1/libros/importar")
+@Tag(name = "Importación", description = "Carga masiva del catálogo de libros desde archivos de editoriales")
+@ConBaseDatos
+public class ImportacionController {
+
+    private static final String CSV = "text/csv";
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private ImportacionService importacionService;
+
+    @Operation(summary = "Importar libros",
+               description = "Inserta por lotes los libros de un archivo CSV (con encabezado titulo,isbn,stock," +
+                             "autor_nombre,autor_apellido,autor_nacionalidad) o NDJSON, creando los autores " +
+                             "que no existen. El archivo se procesa a medida que se recibe")
+    @ApiResponse(responseCode = "200", description = "Importación finalizada; incluye el detalle de las filas con error",
+                 content = @Content(mediaType = "application/json", schema = @Schema(implementation = ResultadoImportacion.class)))
+    @PostMapping(consumes = {CSV, NDJSON})
+    public ResultadoImportacion importar(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType tipo,
+            InputStream cuerpo) throws IOException {
+        ImportacionService.Formato formato = tipo.isCompatibleWith(MediaType.parseMediaType(CSV))
+                ? ImportacionService.Formato.CSV
+                : ImportacionService.Formato.NDJSON;
+        Charset charset = tipo.getCharset() != null ? tipo.getCharset() : StandardCharsets.UTF_8;
+        return importacionService.importar(new InputStreamReader(cuerpo, charset), formato);
+    }
+}
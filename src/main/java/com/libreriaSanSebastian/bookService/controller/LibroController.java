@@ -1,8 +1,23 @@
 package com.libreriaSanSebastian.bookService.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.libreriaSanSebastian.bookService.assemblers.LibroModelAssembler;
+import com.libreriaSanSebastian.bookService.dto.Cambios;
+import com.libreriaSanSebastian.bookService.dto.CamposSolicitados;
+import com.libreriaSanSebastian.bookService.dto.ContencionStock;
+import com.libreriaSanSebastian.bookService.dto.LineaStock;
+import com.libreriaSanSebastian.bookService.dto.MarcaCambios;
+import com.libreriaSanSebastian.bookService.dto.Pagina;
+import com.libreriaSanSebastian.bookService.dto.ResultadoLineaStock;
+import com.libreriaSanSebastian.bookService.dto.SugerenciaTitulo;
 import com.libreriaSanSebastian.bookService.model.Libro;
+import com.libreriaSanSebastian.bookService.repository.ProyeccionRepository;
+import com.libreriaSanSebastian.bookService.service.EventosLibrosService;
+import com.libreriaSanSebastian.bookService.service.IndiceIsbn;
 import com.libreriaSanSebastian.bookService.service.LibroService;
+import com.libreriaSanSebastian.bookService.service.StockCalienteService;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,15 +25,37 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
@@ -28,29 +65,328 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 @Tag(name = "Libros", description = "Operaciones relacionadas con la gestión de libros")
 public class LibroController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
+    private static final int MAX_SUGERENCIAS = 50;
+
+    /**
+     * Tiempo del listado paginado separado en consulta y ensamblado HAL; la
+     * serialización es la diferencia con http.server.requests.
+     */
+    private static final Timer FASE_CONSULTA = Metrics.timer("libros.api.fase",
+            "operacion", "listar", "fase", "consulta");
+    private static final Timer FASE_ENSAMBLADO = Metrics.timer("libros.api.fase",
+            "operacion", "listar", "fase", "ensamblado");
+
     @Autowired
     private LibroService libroService;
 
     @Autowired
     private LibroModelAssembler assembler;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StockCalienteService stockCaliente;
+
+    @Autowired(required = false)
+    private EventosLibrosService eventos;
+
+    @Value("${libros.paginacion.limite-defecto:20}")
+    private int limiteDefecto;
+
+    @Value("${libros.paginacion.limite-maximo:100}")
+    private int limiteMaximo;
+
+    @Value("${libros.cambios.limite-defecto:500}")
+    private int limiteCambiosDefecto;
+
+    @Value("${libros.cambios.limite-maximo:1000}")
+    private int limiteCambiosMaximo;
+
+    @Value("${libros.exportacion.timeout:30m}")
+    private Duration timeoutExportacion;
+
     @Operation(
-        summary = "Listar todos los libros",
-        description = "Obtiene una lista completa de todos los libros registrados en el sistema"
-    )
-    @ApiResponse(
-        responseCode = "200",
-        description = "Lista de libros obtenida exitosamente",
-        content = @Content(mediaType = "application/json", schema = @Schema(implementation = Libro.class))
+        summary = "Listar libros paginados",
+        description = "Obtiene una página de libros usando paginación por cursor. " +
+                      "Los enlaces next/prev permiten recorrer el catálogo; el listado completo " +
+                      "solo se obtiene indicando explícitamente todos=true"
     )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Página de libros obtenida exitosamente",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Libro.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Parámetros de paginación inválidos",
+            content = @Content(mediaType = "application/json")
+        )
+    })
     @GetMapping(produces = {"application/hal+json", "application/json"})
-    public CollectionModel<EntityModel<Libro>> listarTodos() {
-        List<EntityModel<Libro>> libros = libroService.listarTodos().stream()
+    public ResponseEntity<?> listarTodos(
+            @Parameter(description = "Id del último libro de la página anterior", example = "20")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Id del primer libro de la página siguiente", example = "21")
+            @RequestParam(required = false) Long before,
+            @Parameter(description = "Cantidad de libros por página", example = "20")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Orden de la paginación: id o titulo", example = "id")
+            @RequestParam(required = false, defaultValue = LibroService.ORDEN_ID) String sort,
+            @Parameter(description = "Devuelve el catálogo completo sin paginar")
+            @RequestParam(required = false) Boolean todos) {
+        if (Boolean.TRUE.equals(todos)) {
+            List<EntityModel<Libro>> libros = libroService.listarTodos().stream()
+                    .map(assembler::toModel)
+                    .collect(Collectors.toList());
+
+            return ResponseEntity.ok(CollectionModel.of(libros, linkTo(LibroController.class).withSelfRel()));
+        }
+
+        if (!LibroService.ORDEN_ID.equals(sort) && !LibroService.ORDEN_TITULO.equals(sort)) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "El orden debe ser 'id' o 'titulo'"));
+        }
+        if (after != null && before != null) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Los parámetros after y before no pueden usarse a la vez"));
+        }
+
+        int limite = limit == null ? limiteDefecto : Math.max(1, Math.min(limit, limiteMaximo));
+        long inicio = System.nanoTime();
+        Pagina<Libro> pagina = libroService.listarPagina(after, before, limite, sort);
+        long consultado = System.nanoTime();
+        FASE_CONSULTA.record(consultado - inicio, TimeUnit.NANOSECONDS);
+
+        List<EntityModel<Libro>> libros = pagina.getElementos().stream()
                 .map(assembler::toModel)
                 .collect(Collectors.toList());
 
-        return CollectionModel.of(libros,
-                linkTo(methodOn(LibroController.class).listarTodos()).withSelfRel());
+        CollectionModel<EntityModel<Libro>> modelo = CollectionModel.of(libros,
+                enlacePagina(IanaLinkRelations.SELF, before != null ? "before" : "after",
+                        before != null ? before : after, limite, sort));
+
+        if (!libros.isEmpty()) {
+            List<Libro> elementos = pagina.getElementos();
+            if (pagina.isHaySiguiente()) {
+                modelo.add(enlacePagina(IanaLinkRelations.NEXT, "after",
+                        elementos.get(elementos.size() - 1).getId(), limite, sort));
+            }
+            if (pagina.isHayAnterior()) {
+                modelo.add(enlacePagina(IanaLinkRelations.PREV, "before",
+                        elementos.get(0).getId(), limite, sort));
+            }
+        }
+        FASE_ENSAMBLADO.record(System.nanoTime() - consultado, TimeUnit.NANOSECONDS);
+        return ResponseEntity.ok(modelo);
+    }
+
+    @Operation(
+        summary = "Listar libros paginados con campos parciales",
+        description = "Igual que el listado paginado, pero cada libro incluye solo el id y los campos " +
+                      "indicados en fields (por ejemplo titulo,stock,autor.nombre), leídos con una " +
+                      "proyección en lugar de cargar las entidades. Los enlaces se incluyen solo si " +
+                      "fields contiene _links"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Página de libros obtenida exitosamente",
+                     content = @Content(mediaType = "application/json")),
+        @ApiResponse(responseCode = "400", description = "Campos o parámetros de paginación inválidos",
+                     content = @Content(mediaType = "application/json"))
+    })
+    @GetMapping(params = "fields", produces = {"application/hal+json", "application/json"})
+    public ResponseEntity<?> listarParcial(
+            @Parameter(description = "Campos a devolver separados por coma; _links agrega los enlaces",
+                       required = true, example = "titulo,stock,autor.nombre")
+            @RequestParam String fields,
+            @Parameter(description = "Id del último libro de la página anterior", example = "20")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Id del primer libro de la página siguiente", example = "21")
+            @RequestParam(required = false) Long before,
+            @Parameter(description = "Cantidad de libros por página", example = "20")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Orden de la paginación: id o titulo", example = "id")
+            @RequestParam(required = false, defaultValue = LibroService.ORDEN_ID) String sort) {
+        if (!LibroService.ORDEN_ID.equals(sort) && !LibroService.ORDEN_TITULO.equals(sort)) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "El orden debe ser 'id' o 'titulo'"));
+        }
+        if (after != null && before != null) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Los parámetros after y before no pueden usarse a la vez"));
+        }
+        CamposSolicitados campos;
+        try {
+            campos = CamposSolicitados.de(fields, ProyeccionRepository.CAMPOS_LIBRO.keySet());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        int limite = limit == null ? limiteDefecto : Math.max(1, Math.min(limit, limiteMaximo));
+        long inicio = System.nanoTime();
+        Pagina<Map<String, Object>> pagina = libroService.listarPaginaParcial(campos, after, before, limite, sort);
+        long consultado = System.nanoTime();
+        FASE_CONSULTA.record(consultado - inicio, TimeUnit.NANOSECONDS);
+
+        List<Map<String, Object>> libros = pagina.getElementos();
+        List<Link> enlaces = new ArrayList<>();
+        if (campos.isEnlaces()) {
+            libros.forEach(assembler::enlazar);
+            enlaces.add(enlacePagina(IanaLinkRelations.SELF, before != null ? "before" : "after",
+                    before != null ? before : after, limite, sort));
+            if (!libros.isEmpty() && pagina.isHaySiguiente()) {
+                enlaces.add(enlacePagina(IanaLinkRelations.NEXT, "after",
+                        (Long) libros.get(libros.size() - 1).get("id"), limite, sort));
+            }
+            if (!libros.isEmpty() && pagina.isHayAnterior()) {
+                enlaces.add(enlacePagina(IanaLinkRelations.PREV, "before",
+                        (Long) libros.get(0).get("id"), limite, sort));
+            }
+        }
+        Map<String, Object> cuerpo = RespuestaParcial.coleccion(campos, "libros", libros, enlaces);
+        FASE_ENSAMBLADO.record(System.nanoTime() - consultado, TimeUnit.NANOSECONDS);
+        return ResponseEntity.ok(cuerpo);
+    }
+
+    /**
+     * Construye un enlace al listado paginado posicionado en el cursor indicado.
+     */
+    private Link enlacePagina(LinkRelation rel, String parametroCursor, Long cursor, int limite, String orden) {
+        UriComponentsBuilder uri = linkTo(LibroController.class).toUriComponentsBuilder();
+        if (cursor != null) {
+            uri.queryParam(parametroCursor, cursor);
+        }
+        uri.queryParam("limit", limite).queryParam("sort", orden);
+        return Link.of(uri.toUriString(), rel);
+    }
+
+    @Operation(
+        summary = "Exportar catálogo en NDJSON",
+        description = "Transmite el catálogo completo como NDJSON (un libro por línea) " +
+                      "leyendo la base de datos con un cursor, sin cargar el catálogo en memoria"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Exportación iniciada exitosamente",
+        content = @Content(mediaType = NDJSON, schema = @Schema(implementation = Libro.class))
+    )
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportar(HttpServletRequest request) {
+        // Solo esta respuesta puede durar minutos, el resto mantiene el timeout asíncrono por defecto
+        AsyncWebRequest asincrona = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asincrona != null) {
+            asincrona.setTimeout(timeoutExportacion.toMillis());
+        }
+        StreamingResponseBody cuerpo = salida -> {
+            OutputStream buffer = new BufferedOutputStream(salida, 64 * 1024);
+            libroService.exportar(libro -> {
+                try {
+                    buffer.write(objectMapper.writeValueAsBytes(libro));
+                    buffer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            buffer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(cuerpo);
+    }
+
+    @Operation(
+        summary = "Suscribirse a los cambios de libros",
+        description = "Canal Server-Sent Events con los cambios de stock y de catálogo, agrupados por libro. " +
+                      "Cada evento libros contiene una lista de {id, tipo, stock} con tipo STOCK, ACTUALIZADO o ELIMINADO. " +
+                      "El evento resincronizar indica que se descartaron cambios por un cliente lento " +
+                      "y que debe volver a leerse el listado"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Suscripción establecida",
+            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Se alcanzó el máximo de suscriptores de la instancia",
+            content = @Content
+        )
+    })
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> suscribirEventos() {
+        return eventos.suscribir()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    @Operation(
+        summary = "Obtener los cambios de libros",
+        description = "Feed de sincronización incremental: devuelve los libros creados o modificados " +
+                      "(con su autor) y los ids de los eliminados después de la marca desde, junto con " +
+                      "la marca a enviar en la siguiente consulta. Sin desde solo devuelve la marca inicial, " +
+                      "que debe obtenerse antes de leer el listado completo. Los cambios de los últimos " +
+                      "segundos (libros.cambios.margen) se entregan en la consulta siguiente"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Cambios obtenidos exitosamente; si hayMas es true se debe consultar de nuevo con la marca",
+            content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Marca inválida",
+            content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "410",
+            description = "La marca es anterior a la retención de eliminaciones; se debe volver a leer el listado completo",
+            content = @Content(mediaType = "application/json")
+        )
+    })
+    @GetMapping(value = "/cambios", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> listarCambios(
+            @Parameter(description = "Marca devuelta por la consulta anterior", example = "1760745600000000-42")
+            @RequestParam(required = false) String desde,
+            @Parameter(description = "Cantidad máxima de cambios", example = "500")
+            @RequestParam(required = false) Integer limit) {
+        if (desde == null) {
+            return ResponseEntity.ok(new Cambios<>(List.of(), List.of(), libroService.marcaInicialCambios(), false));
+        }
+        MarcaCambios marca;
+        try {
+            marca = MarcaCambios.de(desde);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        int limite = limit == null ? limiteCambiosDefecto : Math.max(1, Math.min(limit, limiteCambiosMaximo));
+        return libroService.listarCambios(marca, limite)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.GONE)
+                        .body(Map.of("error", "La marca ya no puede completarse; se debe volver a leer el listado")));
+    }
+
+    @Operation(
+        summary = "Sugerir títulos",
+        description = "Autocompletado de títulos por prefijo, sin distinguir mayúsculas ni tildes. " +
+                      "Se resuelve con un índice en memoria, sin consultar la base de datos"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Sugerencias obtenidas exitosamente",
+        content = @Content(mediaType = "application/json", schema = @Schema(implementation = SugerenciaTitulo.class))
+    )
+    @GetMapping(value = "/sugerencias")
+    public List<SugerenciaTitulo> sugerirTitulos(
+            @Parameter(description = "Texto escrito por el usuario", required = true, example = "cien a")
+            @RequestParam String q,
+            @Parameter(description = "Cantidad máxima de sugerencias", example = "10")
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+        return libroService.sugerirTitulos(q, Math.max(1, Math.min(limit, MAX_SUGERENCIAS)));
     }
 
     @Operation(
@@ -63,6 +399,11 @@ public class LibroController {
             description = "Libro encontrado exitosamente",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = Libro.class))
         ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "El libro no cambió desde la versión indicada en If-None-Match",
+            content = @Content
+        ),
         @ApiResponse(
             responseCode = "404",
             description = "Libro no encontrado",
@@ -72,10 +413,47 @@ public class LibroController {
     @GetMapping(value = "/{id}", produces = {"application/hal+json", "application/json"})
     public ResponseEntity<EntityModel<Libro>> obtenerPorId(
             @Parameter(description = "ID único del libro", required = true, example = "1")
-            @PathVariable Long id) {
-        return libroService.buscarPorId(id)
-                .map(assembler::toModel)
-                .map(ResponseEntity::ok)
+            @PathVariable Long id,
+            @Parameter(description = "ETag de la representación que ya tiene el cliente")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<Libro> libro = libroService.buscarPorId(id);
+        if (libro.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = ETags.de(libro.get());
+        if (ETags.noModificado(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(assembler.toModel(libro.get()));
+    }
+
+    @Operation(
+        summary = "Obtener libro por ID con campos parciales",
+        description = "Devuelve solo el id y los campos indicados en fields. Si el libro está en la caché " +
+                      "se recorta la entidad guardada; si no, se consultan únicamente esas columnas"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Libro encontrado exitosamente",
+                     content = @Content(mediaType = "application/json")),
+        @ApiResponse(responseCode = "400", description = "Campos inválidos", content = @Content(mediaType = "application/json")),
+        @ApiResponse(responseCode = "404", description = "Libro no encontrado", content = @Content)
+    })
+    @GetMapping(value = "/{id}", params = "fields", produces = {"application/hal+json", "application/json"})
+    public ResponseEntity<?> obtenerParcial(
+            @Parameter(description = "ID único del libro", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Campos a devolver separados por coma; _links agrega los enlaces",
+                       required = true, example = "titulo,stock")
+            @RequestParam String fields) {
+        CamposSolicitados campos;
+        try {
+            campos = CamposSolicitados.de(fields, ProyeccionRepository.CAMPOS_LIBRO.keySet());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return libroService.buscarParcial(campos, id)
+                .<ResponseEntity<?>>map(fila -> ResponseEntity.ok(campos.isEnlaces() ? assembler.enlazar(fila) : fila))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -105,6 +483,39 @@ public class LibroController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @Operation(
+        summary = "Obtener libro por ISBN",
+        description = "Busca un libro por su ISBN-10 o ISBN-13, con o sin guiones, usando el índice de ISBN en memoria"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Libro encontrado exitosamente",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Libro.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "ISBN inválido",
+            content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Libro no encontrado",
+            content = @Content
+        )
+    })
+    @GetMapping(value = "/isbn/{isbn}", produces = {"application/hal+json", "application/json"})
+    public ResponseEntity<?> obtenerPorIsbn(
+            @Parameter(description = "ISBN-10 o ISBN-13 del libro", required = true, example = "978-84-376-0494-7")
+            @PathVariable String isbn) {
+        if (IndiceIsbn.normalizar(isbn) == IndiceIsbn.INVALIDO) {
+            return isbnInvalido();
+        }
+        return libroService.buscarPorIsbn(isbn)
+                .<ResponseEntity<?>>map(libro -> ResponseEntity.ok().eTag(ETags.de(libro)).body(assembler.toModel(libro)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @Operation(
         summary = "Crear nuevo libro",
         description = "Registra un nuevo libro en el sistema"
@@ -119,6 +530,11 @@ public class LibroController {
             responseCode = "400",
             description = "Datos de entrada inválidos",
             content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Ya existe un libro con ese ISBN",
+            content = @Content(mediaType = "application/json")
         )
     })
     @PostMapping
@@ -130,10 +546,18 @@ public class LibroController {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", "El título y el ISBN son requeridos"));
         }
+        if (IndiceIsbn.normalizar(libro.getIsbn()) == IndiceIsbn.INVALIDO) {
+            return isbnInvalido();
+        }
 
-        Libro libroCreado = libroService.guardar(libro);
+        Libro libroCreado;
+        try {
+            libroCreado = libroService.guardar(libro);
+        } catch (DataIntegrityViolationException e) {
+            return isbnDuplicado();
+        }
         return ResponseEntity
-                .created(linkTo(methodOn(LibroController.class).obtenerPorId(libroCreado.getId())).toUri())
+                .created(linkTo(methodOn(LibroController.class).obtenerPorId(libroCreado.getId(), null)).toUri())
                 .body(assembler.toModel(libroCreado));
     }
 
@@ -156,6 +580,16 @@ public class LibroController {
             responseCode = "404",
             description = "Libro no encontrado",
             content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "412",
+            description = "El libro fue modificado desde la versión indicada en If-Match",
+            content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Ya existe un libro con ese ISBN",
+            content = @Content(mediaType = "application/json")
         )
     })
     @PutMapping(value = "/{id}")
@@ -163,22 +597,124 @@ public class LibroController {
             @Parameter(description = "ID único del libro", required = true, example = "1")
             @PathVariable Long id,
             @Parameter(description = "Datos actualizados del libro", required = true)
-            @RequestBody Libro libro) {
+            @RequestBody Libro libro,
+            @Parameter(description = "ETag de la versión que el cliente pretende modificar")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (libro.getTitulo() == null || libro.getTitulo().isEmpty() ||
             libro.getIsbn() == null || libro.getIsbn().isEmpty()) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", "El título y el ISBN son requeridos"));
         }
+        if (IndiceIsbn.normalizar(libro.getIsbn()) == IndiceIsbn.INVALIDO) {
+            return isbnInvalido();
+        }
 
         return libroService.buscarPorId(id)
-                .map(existente -> {
+                .<ResponseEntity<?>>map(existente -> {
+                    if (!ETags.coincide(ifMatch, ETags.de(existente))) {
+                        return libroModificado();
+                    }
                     libro.setId(id);
-                    Libro actualizado = libroService.guardar(libro);
-                    return ResponseEntity.ok(assembler.toModel(actualizado));
+                    libro.setVersion(existente.getVersion());
+                    try {
+                        Libro actualizado = libroService.guardar(libro);
+                        return ResponseEntity.ok().eTag(ETags.de(actualizado)).body(assembler.toModel(actualizado));
+                    } catch (ObjectOptimisticLockingFailureException e) {
+                        return libroModificado();
+                    } catch (DataIntegrityViolationException e) {
+                        return isbnDuplicado();
+                    }
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @Operation(
+        summary = "Modificar libro parcialmente",
+        description = "Aplica un JSON Merge Patch (RFC 7396) con titulo, isbn, stock y/o autor ({\"id\": n} o null). " +
+                      "Solo se escriben las columnas indicadas, con una única sentencia UPDATE"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "204",
+            description = "Libro modificado exitosamente"
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Parche inválido, autor inexistente o If-Match con varias versiones",
+            content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Libro no encontrado",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Ya existe un libro con ese ISBN",
+            content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "412",
+            description = "El libro fue modificado desde la versión indicada en If-Match",
+            content = @Content(mediaType = "application/json")
+        )
+    })
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> modificar(
+            @Parameter(description = "ID único del libro", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Atributos a modificar", required = true)
+            @RequestBody Map<String, Object> parche,
+            @Parameter(description = "ETag de la versión que el cliente pretende modificar")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long version;
+        boolean modificado;
+        try {
+            version = ETags.version(ifMatch);
+            modificado = libroService.modificar(id, parche, version);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            String causa = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase();
+            if (causa.contains("uk_libros_isbn")) {
+                return isbnDuplicado();
+            }
+            return ResponseEntity.badRequest().body(Map.of("error", "El autor indicado no existe"));
+        }
+        if (modificado) {
+            return ResponseEntity.noContent().build();
+        }
+        // Sin filas afectadas: solo con If-Match hace falta distinguir versión desactualizada de inexistente
+        if (version != null && libroService.existe(id)) {
+            return libroModificado();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Respuesta para una actualización basada en una versión que ya no es la actual.
+     */
+    private ResponseEntity<?> libroModificado() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(Map.of("error", "El libro fue modificado por otra petición"));
+    }
+
+    /**
+     * Respuesta para un ISBN con formato o dígito de control incorrecto.
+     */
+    private ResponseEntity<?> isbnInvalido() {
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", "El ISBN debe ser un ISBN-10 o ISBN-13 válido"));
+    }
+
+    /**
+     * Respuesta para un ISBN que ya pertenece a otro libro.
+     */
+    private ResponseEntity<?> isbnDuplicado() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "Ya existe un libro con ese ISBN"));
+    }
+
     @Operation(
         summary = "Eliminar libro",
         description = "Elimina permanentemente un libro del sistema"
@@ -206,7 +742,8 @@ public class LibroController {
 
     @Operation(
         summary = "Decrementar stock de libro",
-        description = "Reduce en 1 el stock disponible de un libro"
+        description = "Reduce en 1 el stock disponible de un libro. " +
+                      "Con la cabecera Idempotency-Key, un reintento devuelve la respuesta original sin volver a descontar"
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -237,4 +774,101 @@ public class LibroController {
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    @Operation(
+        summary = "Contención de stock por libro",
+        description = "Obtiene el tiempo de espera de los decrementos de stock por libro, " +
+                      "de mayor a menor tiempo acumulado, para decidir qué libros marcar como calientes"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Estadísticas obtenidas exitosamente",
+        content = @Content(mediaType = "application/json", schema = @Schema(implementation = ContencionStock.class))
+    )
+    @GetMapping(value = "/stock/contencion")
+    public List<ContencionStock> obtenerContencionStock() {
+        return stockCaliente.obtenerContencion();
+    }
+
+    @Operation(
+        summary = "Decrementar stock de varios libros",
+        description = "Reduce el stock de varios libros en una única transacción. " +
+                      "Si alguna línea no puede aplicarse no se modifica ningún libro. " +
+                      "Con la cabecera Idempotency-Key, un reintento devuelve la respuesta original sin volver a aplicarse"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Stock decrementado exitosamente en todas las líneas",
+            content = @Content(mediaType = "application/json",
+                               schema = @Schema(implementation = ResultadoLineaStock.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Líneas inválidas",
+            content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Alguna línea no tiene stock suficiente o el libro no existe; no se aplicó ningún cambio",
+            content = @Content(mediaType = "application/json",
+                               schema = @Schema(implementation = ResultadoLineaStock.class))
+        )
+    })
+    @PutMapping(value = "/decrementar-stock")
+    public ResponseEntity<?> decrementarStockLote(
+            @Parameter(description = "Libros y cantidades a descontar", required = true)
+            @RequestBody List<LineaStock> lineas) {
+        if (lineas == null || lineas.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Debe indicar al menos una línea"));
+        }
+        for (LineaStock linea : lineas) {
+            if (linea.getId() == null || linea.getCantidad() == null || linea.getCantidad() < 1) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Cada línea requiere un id y una cantidad mayor a 0"));
+            }
+        }
+
+        List<ResultadoLineaStock> resultados = libroService.decrementarStockLote(lineas);
+        boolean exitoso = resultados.stream()
+                .allMatch(r -> r.getEstado() == ResultadoLineaStock.Estado.DECREMENTADO);
+        return ResponseEntity.status(exitoso ? HttpStatus.OK : HttpStatus.CONFLICT).body(resultados);
+    }
+
+    @Operation(
+        summary = "Reponer stock de varios libros",
+        description = "Suma stock a varios libros en una única transacción, con una sentencia UPDATE " +
+                      "por bloque de libros. Las líneas de libros inexistentes se informan y no impiden reponer el resto. " +
+                      "Con la cabecera Idempotency-Key, un reintento devuelve la respuesta original sin volver a aplicarse"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Stock repuesto; el estado de cada línea indica si el libro existía",
+            content = @Content(mediaType = "application/json",
+                               schema = @Schema(implementation = ResultadoLineaStock.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Líneas inválidas",
+            content = @Content(mediaType = "application/json")
+        )
+    })
+    @PutMapping(value = "/reponer-stock")
+    public ResponseEntity<?> reponerStock(
+            @Parameter(description = "Libros y cantidades a sumar", required = true)
+            @RequestBody List<LineaStock> lineas) {
+        if (lineas == null || lineas.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Debe indicar al menos una línea"));
+        }
+        for (LineaStock linea : lineas) {
+            if (linea.getId() == null || linea.getCantidad() == null || linea.getCantidad() < 1) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Cada línea requiere un id y una cantidad mayor a 0"));
+            }
+        }
+        return ResponseEntity.ok(libroService.reponerStock(lineas));
+    }
 }
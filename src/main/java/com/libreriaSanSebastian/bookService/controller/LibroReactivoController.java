@@ -0,0 +1,141 @@
+package com.libreriaSanSebastian.bookService.controller;
+
+import com.libreriaSanSebastian.bookService.assemblers.LibroModelAssembler;
+import com.libreriaSanSebastian.bookService.config.ConBaseDatos;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import com.libreriaSanSebastian.bookService.repository.CatalogoReactivoRepository;
+import com.libreriaSanSebastian.bookService.service.StockCalienteService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
+
+/**
+ * API v2 de libros, de solo lectura y no bloqueante.
+ *
+ * Las consultas se ejecutan con el driver R2DBC y el controlador devuelve Mono y Flux,
+ * por lo que el hilo de la petición se libera mientras se espera a la base de datos.
+ * Las respuestas tienen la misma forma HAL y el mismo stock disponible que la v1; las
+ * escrituras se siguen realizando en /api/v1/libros.
+ */
+@RestController
+@RequestMapping("/api/v2/libros")
+@Tag(name = "Libros v2", description = "Consultas de libros no bloqueantes (solo lectura)")
+@ConBaseDatos
+public class LibroReactivoController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private CatalogoReactivoRepository catalogo;
+
+    @Autowired
+    private LibroModelAssembler assembler;
+
+    @Autowired
+    private StockCalienteService stockCaliente;
+
+    @Value("${libros.paginacion.limite-defecto:20}")
+    private int limiteDefecto;
+
+    @Value("${libros.paginacion.limite-maximo:100}")
+    private int limiteMaximo;
+
+    @Operation(
+        summary = "Listar libros paginados",
+        description = "Obtiene una página de libros ordenados por id. El enlace next continúa desde el último libro"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Página de libros obtenida exitosamente",
+        content = @Content(mediaType = "application/json", schema = @Schema(implementation = Libro.class))
+    )
+    @GetMapping(produces = {"application/hal+json", "application/json"})
+    public Mono<CollectionModel<EntityModel<Libro>>> listar(
+            @Parameter(description = "Id del último libro de la página anterior", example = "20")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Cantidad de libros por página", example = "20")
+            @RequestParam(required = false) Integer limit) {
+        int limite = limit == null ? limiteDefecto : Math.max(1, Math.min(limit, limiteMaximo));
+        Function<Libro, EntityModel<Libro>> ensamblar = assembler.ensambladorV2();
+        String base = linkTo(LibroReactivoController.class).withSelfRel().getHref();
+
+        // Se pide un libro más para saber si existe una página siguiente
+        return catalogo.listarLibros(after == null ? 0 : after, limite + 1)
+                .map(stockCaliente::conStockDisponible)
+                .collectList()
+                .map(libros -> PaginaV2.de(libros, ensamblar, Libro::getId, base, after, limite));
+    }
+
+    @Operation(
+        summary = "Exportar catálogo en NDJSON",
+        description = "Transmite el catálogo completo como NDJSON con un modelo HAL por línea. " +
+                      "Las filas se leen de la base de datos al ritmo en que el cliente consume la respuesta"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Exportación iniciada exitosamente",
+        content = @Content(mediaType = NDJSON, schema = @Schema(implementation = Libro.class))
+    )
+    @GetMapping(value = "/export", produces = NDJSON)
+    public Flux<EntityModel<Libro>> exportar() {
+        return catalogo.recorrerLibros().map(stockCaliente::conStockDisponible).map(assembler.ensambladorV2());
+    }
+
+    @Operation(
+        summary = "Obtener libro por ID",
+        description = "Busca y retorna un libro específico por su identificador único"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Libro encontrado exitosamente",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = Libro.class))
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "El libro no cambió desde la versión indicada en If-None-Match",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Libro no encontrado",
+            content = @Content
+        )
+    })
+    @GetMapping(value = "/{id}", produces = {"application/hal+json", "application/json"})
+    public Mono<ResponseEntity<EntityModel<Libro>>> obtenerPorId(
+            @Parameter(description = "ID único del libro", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "ETag de la representación que ya tiene el cliente")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Function<Libro, EntityModel<Libro>> ensamblar = assembler.ensambladorV2();
+        return catalogo.buscarLibro(id)
+                .map(stockCaliente::conStockDisponible)
+                .map(libro -> {
+                    String etag = ETags.de(libro);
+                    if (ETags.noModificado(ifNoneMatch, etag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<EntityModel<Libro>>build();
+                    }
+                    return ResponseEntity.ok().eTag(etag).body(ensamblar.apply(libro));
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,55 @@
+package com.libreriaSanSebastian.bookService.controller;
+
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Construcción de las páginas por cursor de la API v2.
+ *
+ * Las consultas piden un elemento más que el límite; si llega, se descarta y
+ * se agrega el enlace next a partir del id del último elemento de la página.
+ */
+final class PaginaV2 {
+
+    private PaginaV2() {
+    }
+
+    /**
+     * Arma el modelo HAL de una página.
+     *
+     * @param elementos Elementos leídos, hasta limite + 1.
+     * @param ensamblar Conversión de cada elemento a su modelo HAL.
+     * @param id        Obtención del id de un elemento, usado como cursor.
+     * @param base      URL base del controlador, resuelta en el hilo de la petición.
+     * @param after     Cursor de la página actual, puede ser null.
+     * @param limite    Cantidad de elementos por página.
+     * @return Modelo HAL de la página con sus enlaces self y next.
+     */
+    static <T> CollectionModel<EntityModel<T>> de(List<T> elementos, Function<T, EntityModel<T>> ensamblar,
+                                                  Function<T, Long> id, String base, Long after, int limite) {
+        boolean haySiguiente = elementos.size() > limite;
+        List<T> pagina = haySiguiente ? elementos.subList(0, limite) : elementos;
+        CollectionModel<EntityModel<T>> modelo = CollectionModel.of(
+                pagina.stream().map(ensamblar).toList(),
+                enlace(base, after, limite, IanaLinkRelations.SELF));
+        if (haySiguiente) {
+            modelo.add(enlace(base, id.apply(pagina.get(pagina.size() - 1)), limite, IanaLinkRelations.NEXT));
+        }
+        return modelo;
+    }
+
+    private static Link enlace(String base, Long after, int limite, LinkRelation rel) {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromUriString(base);
+        if (after != null) {
+            uri.queryParam("after", after);
+        }
+        return Link.of(uri.queryParam("limit", limite).toUriString(), rel);
+    }
+}
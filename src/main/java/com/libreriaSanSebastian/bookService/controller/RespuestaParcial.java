@@ -0,0 +1,54 @@
+package com.libreriaSanSebastian.bookService.controller;
+
+import com.libreriaSanSebastian.bookService.dto.CamposSolicitados;
+import org.springframework.hateoas.Link;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Construcción de las respuestas con sparse fieldsets (parámetro fields).
+ *
+ * Conservan la forma HAL de las respuestas completas (_embedded y _links), pero
+ * los elementos son mapas con los campos solicitados y los enlaces solo se
+ * incluyen si el cliente pidió _links.
+ */
+final class RespuestaParcial {
+
+    private RespuestaParcial() {
+    }
+
+    /**
+     * Arma la respuesta de un listado.
+     *
+     * @param campos     Campos solicitados.
+     * @param relacion   Nombre de la colección dentro de _embedded.
+     * @param elementos  Filas con los campos de cada elemento.
+     * @param enlaces    Enlaces de la colección, agregados solo si se pidió _links.
+     * @return Cuerpo de la respuesta.
+     */
+    static Map<String, Object> coleccion(CamposSolicitados campos, String relacion,
+                                         List<Map<String, Object>> elementos, List<Link> enlaces) {
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("_embedded", Map.of(relacion, elementos));
+        if (campos.isEnlaces()) {
+            cuerpo.put("_links", enlaces(enlaces));
+        }
+        return cuerpo;
+    }
+
+    /**
+     * Convierte los enlaces al formato HAL: un objeto con un href por relación.
+     *
+     * @param enlaces Enlaces a convertir.
+     * @return Mapa ordenado de relación a enlace.
+     */
+    static Map<String, Object> enlaces(List<Link> enlaces) {
+        Map<String, Object> hal = new LinkedHashMap<>();
+        for (Link enlace : enlaces) {
+            hal.put(enlace.getRel().value(), Map.of("href", enlace.getHref()));
+        }
+        return hal;
+    }
+}
@@ -0,0 +1,58 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.hateoas.server.core.Relation;
+
+/**
+ * Autor con la cantidad de libros y el stock total de su catálogo.
+ *
+ * Los totales se calculan en la misma consulta que lee los autores, agrupando
+ * sus libros, en lugar de recorrer los libros de cada autor.
+ *
+ * Conserva los campos y la relación HAL (autorList) de {@link
+ * com.libreriaSanSebastian.bookService.model.Autor}, que el listado devolvía antes de
+ * incluir los totales, para que los clientes existentes no noten el cambio.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Relation(itemRelation = "autor", collectionRelation = "autorList")
+public class AutorConTotales {
+
+    /**
+     * Identificador del autor.
+     */
+    private Long id;
+
+    /**
+     * Nombre del autor.
+     */
+    private String nombre;
+
+    /**
+     * Apellido del autor.
+     */
+    private String apellido;
+
+    /**
+     * Nacionalidad del autor.
+     */
+    private String nacionalidad;
+
+    /**
+     * Versión del autor, la misma que se publica como ETag.
+     */
+    private long version;
+
+    /**
+     * Cantidad de libros del autor.
+     */
+    private Long totalLibros;
+
+    /**
+     * Suma del stock de todos los libros del autor.
+     */
+    private Long stockTotal;
+}
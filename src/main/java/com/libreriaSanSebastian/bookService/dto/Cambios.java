@@ -0,0 +1,79 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página del feed de cambios: los elementos modificados y los ids eliminados
+ * después de una marca, con la marca que el cliente debe enviar en la siguiente consulta.
+ *
+ * @param <T> Tipo de los elementos modificados.
+ */
+@Getter
+@AllArgsConstructor
+public class Cambios<T> {
+
+    /**
+     * Elementos creados o modificados, con su estado actual.
+     */
+    private final List<T> modificados;
+
+    /**
+     * Ids de los elementos eliminados.
+     */
+    private final List<Long> eliminados;
+
+    /**
+     * Marca a enviar en la siguiente consulta.
+     */
+    private final MarcaCambios marca;
+
+    /**
+     * Indica si quedan cambios hasta el corte que no entraron en la página.
+     */
+    private final boolean hayMas;
+
+    /**
+     * Arma una página combinando, en orden de posición, los modificados y las eliminaciones.
+     *
+     * Ambas listas deben estar ordenadas por posición y obtenerse con limite + 1 filas,
+     * para saber si quedan cambios. Si quedan, la marca es la posición del último cambio
+     * incluido; si no, cubre todos los cambios hasta el corte, aunque la página esté vacía.
+     *
+     * @param modificados          Elementos modificados ordenados por posición.
+     * @param posicionModificado   Posición (momento, id) de un elemento modificado.
+     * @param eliminaciones        Eliminaciones ordenadas por posición.
+     * @param posicionEliminacion  Posición (momento, id) de una eliminación.
+     * @param limite               Cantidad máxima de cambios de la página.
+     * @param corte                Marca que cubre todos los cambios consultados.
+     * @return Página de cambios.
+     */
+    public static <T, E> Cambios<T> combinar(List<T> modificados, Function<T, MarcaCambios> posicionModificado,
+                                             List<E> eliminaciones, Function<E, MarcaCambios> posicionEliminacion,
+                                             int limite, MarcaCambios corte) {
+        List<T> paginaModificados = new ArrayList<>();
+        List<Long> paginaEliminados = new ArrayList<>();
+        MarcaCambios ultima = null;
+        int m = 0;
+        int e = 0;
+        while (m + e < limite && (m < modificados.size() || e < eliminaciones.size())) {
+            MarcaCambios siguienteModificado = m < modificados.size() ? posicionModificado.apply(modificados.get(m)) : null;
+            MarcaCambios siguienteEliminacion = e < eliminaciones.size() ? posicionEliminacion.apply(eliminaciones.get(e)) : null;
+            if (siguienteEliminacion == null
+                    || (siguienteModificado != null && siguienteModificado.compareTo(siguienteEliminacion) < 0)) {
+                paginaModificados.add(modificados.get(m++));
+                ultima = siguienteModificado;
+            } else {
+                paginaEliminados.add(siguienteEliminacion.getId());
+                e++;
+                ultima = siguienteEliminacion;
+            }
+        }
+        boolean hayMas = m < modificados.size() || e < eliminaciones.size();
+        return new Cambios<>(paginaModificados, paginaEliminados, hayMas ? ultima : corte, hayMas);
+    }
+}
@@ -0,0 +1,118 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Campos solicitados por el cliente con el parámetro fields (sparse fieldsets).
+ *
+ * Los campos de una entidad relacionada se indican con su ruta, por ejemplo
+ * autor.nombre, y el nombre de la relación sola equivale a todos sus campos.
+ * El id se incluye siempre, ya que identifica cada elemento y sirve de cursor.
+ * Los enlaces HAL solo se agregan si se solicita el campo _links.
+ */
+@Getter
+@AllArgsConstructor
+public class CamposSolicitados {
+
+    /**
+     * Campo que solicita los enlaces HAL.
+     */
+    public static final String ENLACES = "_links";
+
+    private static final String ID = "id";
+
+    /**
+     * Rutas de los campos a devolver, en el orden en que se indicaron, comenzando por el id.
+     */
+    private final List<String> campos;
+
+    /**
+     * Indica si la respuesta debe incluir los enlaces HAL.
+     */
+    private final boolean enlaces;
+
+    /**
+     * Interpreta el parámetro fields.
+     *
+     * @param fields     Lista de campos separados por coma.
+     * @param permitidos Rutas de los campos que admite el recurso.
+     * @return Campos solicitados.
+     * @throws IllegalArgumentException si se solicita un campo que el recurso no admite.
+     */
+    public static CamposSolicitados de(String fields, Set<String> permitidos) {
+        Set<String> campos = new LinkedHashSet<>();
+        campos.add(ID);
+        boolean enlaces = false;
+        for (String campo : fields.split(",")) {
+            campo = campo.trim();
+            if (campo.isEmpty()) {
+                continue;
+            }
+            if (ENLACES.equals(campo)) {
+                enlaces = true;
+            } else if (permitidos.contains(campo)) {
+                campos.add(campo);
+            } else {
+                String prefijo = campo + ".";
+                List<String> anidados = permitidos.stream().filter(p -> p.startsWith(prefijo)).toList();
+                if (anidados.isEmpty()) {
+                    throw new IllegalArgumentException("Campo desconocido: " + campo);
+                }
+                campos.addAll(anidados);
+            }
+        }
+        return new CamposSolicitados(new ArrayList<>(campos), enlaces);
+    }
+
+    /**
+     * Arma la representación de un elemento con los campos solicitados.
+     *
+     * Las rutas con punto se agrupan en un objeto anidado, que queda en null si
+     * todos sus valores lo son (por ejemplo, un libro sin autor).
+     *
+     * @param valor Obtención del valor de cada ruta.
+     * @return Mapa ordenado con los campos del elemento.
+     */
+    public Map<String, Object> fila(Function<String, Object> valor) {
+        Map<String, Object> fila = new LinkedHashMap<>();
+        for (String campo : campos) {
+            int punto = campo.indexOf('.');
+            if (punto < 0) {
+                fila.put(campo, valor.apply(campo));
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> anidado = (Map<String, Object>) fila.computeIfAbsent(
+                    campo.substring(0, punto), relacion -> new LinkedHashMap<String, Object>());
+            anidado.put(campo.substring(punto + 1), valor.apply(campo));
+        }
+        fila.replaceAll((campo, dato) -> dato instanceof Map<?, ?> anidado
+                && anidado.values().stream().allMatch(Objects::isNull) ? null : dato);
+        return fila;
+    }
+
+    /**
+     * Arma la representación de una entidad ya cargada, por ejemplo desde la caché,
+     * leyendo cada ruta como propiedad anidada.
+     *
+     * @param entidad Entidad de la que se toman los valores.
+     * @return Mapa ordenado con los campos de la entidad.
+     */
+    public Map<String, Object> recortar(Object entidad) {
+        BeanWrapper propiedades = PropertyAccessorFactory.forBeanPropertyAccess(entidad);
+        // Si la relación es null la ruta anidada no es legible y el valor queda en null
+        return fila(campo -> propiedades.isReadableProperty(campo) ? propiedades.getPropertyValue(campo) : null);
+    }
+}
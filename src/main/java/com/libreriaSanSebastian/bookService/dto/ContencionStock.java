@@ -0,0 +1,42 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estadísticas de espera al decrementar el stock de un libro en la base de datos.
+ *
+ * El tiempo medido es el de la sentencia UPDATE, dominado por la espera del
+ * bloqueo de fila cuando muchas peticiones compiten por el mismo libro.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContencionStock {
+
+    /**
+     * Identificador del libro.
+     */
+    private Long id;
+
+    /**
+     * Cantidad de decrementos ejecutados contra la base de datos.
+     */
+    private long operaciones;
+
+    /**
+     * Tiempo medio de espera en milisegundos.
+     */
+    private double esperaMediaMs;
+
+    /**
+     * Tiempo máximo de espera en milisegundos.
+     */
+    private double esperaMaximaMs;
+
+    /**
+     * Indica si el libro está atendido por el motor de stock caliente.
+     */
+    private boolean caliente;
+}
@@ -0,0 +1,24 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fila de un archivo de importación que no pudo importarse.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErrorImportacion {
+
+    /**
+     * Número de línea en el archivo, comenzando en 1.
+     */
+    private long linea;
+
+    /**
+     * Motivo por el que la fila no se importó.
+     */
+    private String mensaje;
+}
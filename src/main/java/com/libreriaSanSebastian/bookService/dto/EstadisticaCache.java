@@ -0,0 +1,44 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estadísticas de uso de una caché.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticaCache {
+
+    /**
+     * Nombre de la caché.
+     */
+    private String nombre;
+
+    /**
+     * Cantidad aproximada de entradas almacenadas.
+     */
+    private long entradas;
+
+    /**
+     * Cantidad de lecturas encontradas en la caché.
+     */
+    private long aciertos;
+
+    /**
+     * Cantidad de lecturas que debieron ir a la base de datos.
+     */
+    private long fallos;
+
+    /**
+     * Proporción de aciertos sobre el total de lecturas (0 a 1).
+     */
+    private double tasaAciertos;
+
+    /**
+     * Cantidad de entradas desalojadas por tamaño o expiración.
+     */
+    private long desalojos;
+}
@@ -0,0 +1,54 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cambio de un libro publicado en /api/v1/libros/eventos.
+ *
+ * Los cambios del mismo libro dentro de un intervalo de publicación se agrupan en
+ * un único evento con el tipo más amplio y el stock vigente al publicarlo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoLibro {
+
+    /**
+     * Tipo de cambio, de menor a mayor alcance.
+     */
+    public enum Tipo {
+        /** Solo cambió el stock. */
+        STOCK,
+        /** Cambiaron otros datos del libro; el cliente debe volver a leerlo. */
+        ACTUALIZADO,
+        /** El libro se eliminó. */
+        ELIMINADO;
+
+        /**
+         * Tipo resultante de agrupar dos cambios del mismo libro.
+         *
+         * @param otro Otro cambio.
+         * @return El de mayor alcance.
+         */
+        public Tipo combinar(Tipo otro) {
+            return compareTo(otro) >= 0 ? this : otro;
+        }
+    }
+
+    /**
+     * Identificador del libro.
+     */
+    private Long id;
+
+    /**
+     * Tipo de cambio.
+     */
+    private Tipo tipo;
+
+    /**
+     * Stock disponible al publicar el evento, null si el libro se eliminó.
+     */
+    private Integer stock;
+}
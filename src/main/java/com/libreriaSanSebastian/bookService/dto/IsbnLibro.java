@@ -0,0 +1,19 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+/**
+ * Proyección con el ISBN de un libro.
+ *
+ * Permite construir el índice de ISBN sin cargar las entidades ni sus autores.
+ */
+public interface IsbnLibro {
+
+    /**
+     * @return Identificador del libro.
+     */
+    Long getId();
+
+    /**
+     * @return Código ISBN del libro.
+     */
+    String getIsbn();
+}
@@ -0,0 +1,37 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resumen de un libro dentro del listado de libros de un autor.
+ *
+ * Se obtiene con una proyección sobre la tabla libros, sin cargar la entidad
+ * ni volver a leer el autor, que ya es conocido por quien consulta.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LibroDeAutor {
+
+    /**
+     * Identificador del libro.
+     */
+    private Long id;
+
+    /**
+     * Título del libro.
+     */
+    private String titulo;
+
+    /**
+     * ISBN-13 del libro sin guiones.
+     */
+    private String isbn;
+
+    /**
+     * Cantidad de copias disponibles.
+     */
+    private Integer stock;
+}
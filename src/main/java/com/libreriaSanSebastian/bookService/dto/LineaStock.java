@@ -0,0 +1,26 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Línea de una operación de stock por lote.
+ *
+ * Indica el libro afectado y la cantidad de unidades a descontar.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LineaStock {
+
+    /**
+     * Identificador del libro.
+     */
+    private Long id;
+
+    /**
+     * Cantidad de unidades a descontar. Debe ser mayor a 0.
+     */
+    private Integer cantidad;
+}
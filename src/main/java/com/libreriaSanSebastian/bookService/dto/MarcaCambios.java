@@ -0,0 +1,136 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Marca de agua del feed de cambios: la posición (momento de modificación, id) del
+ * último cambio entregado al cliente.
+ *
+ * El id desempata los cambios registrados en el mismo microsegundo, de modo que una
+ * página puede terminar en medio de ellos sin repetir ni perder ninguno. Se publica
+ * como texto opaco con el formato microsegundos-id.
+ *
+ * Las escrituras toman su momento con {@link #modificacion()}, que registra la primera
+ * marca de cada transacción hasta que termina: el feed no avanza más allá de la escritura
+ * en curso más antigua de esta instancia, por mucho que dure su transacción.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class MarcaCambios implements Comparable<MarcaCambios> {
+
+    /**
+     * Momento de modificación del último cambio entregado.
+     */
+    private final Instant momento;
+
+    /**
+     * Id del último cambio entregado en ese momento.
+     */
+    private final long id;
+
+    /**
+     * Primera marca de cada transacción de escritura en curso, por transacción.
+     */
+    private static final Map<Object, Instant> ESCRITURAS_EN_CURSO = new ConcurrentHashMap<>();
+
+    private static final Object RECURSO_ESCRITURA = new Object();
+
+    /**
+     * Momento actual con la precisión de las marcas, usado para registrar cada modificación.
+     *
+     * @return Momento actual truncado a microsegundos.
+     */
+    public static Instant ahora() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * Momento con el que una escritura registra su modificación. Dentro de una transacción,
+     * la primera marca queda registrada como escritura en curso hasta que la transacción termina.
+     *
+     * @return Momento actual truncado a microsegundos.
+     */
+    public static Instant modificacion() {
+        Instant ahora = ahora();
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(RECURSO_ESCRITURA)) {
+            Object transaccion = new Object();
+            ESCRITURAS_EN_CURSO.put(transaccion, ahora);
+            TransactionSynchronizationManager.bindResource(RECURSO_ESCRITURA, transaccion);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RECURSO_ESCRITURA);
+                    ESCRITURAS_EN_CURSO.remove(transaccion);
+                }
+            });
+        }
+        return ahora;
+    }
+
+    /**
+     * Momento de la escritura en curso más antigua de esta instancia.
+     *
+     * @return Primera marca de la transacción de escritura más antigua, o vacío si no hay ninguna.
+     */
+    public static Optional<Instant> escrituraMasAntigua() {
+        return ESCRITURAS_EN_CURSO.values().stream().min(Instant::compareTo);
+    }
+
+    /**
+     * Marca que cubre todos los cambios hasta el momento indicado, inclusive.
+     *
+     * @param corte Momento de corte.
+     * @return Marca posterior a cualquier id registrado en ese momento.
+     */
+    public static MarcaCambios hasta(Instant corte) {
+        return new MarcaCambios(corte, Long.MAX_VALUE);
+    }
+
+    /**
+     * Interpreta una marca publicada por {@link #toString()}.
+     *
+     * @param texto Marca con el formato microsegundos-id.
+     * @return Marca de cambios.
+     * @throws IllegalArgumentException si el texto no es una marca válida.
+     */
+    public static MarcaCambios de(String texto) {
+        int guion = texto.indexOf('-');
+        try {
+            if (guion > 0) {
+                long micros = Long.parseLong(texto.substring(0, guion));
+                long id = Long.parseLong(texto.substring(guion + 1));
+                if (micros >= 0 && id >= 0) {
+                    return new MarcaCambios(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), id);
+                }
+            }
+        } catch (NumberFormatException | ArithmeticException e) {
+            // Se informa igual que cualquier otro formato inválido
+        }
+        throw new IllegalArgumentException("Marca de cambios inválida: " + texto);
+    }
+
+    @Override
+    public int compareTo(MarcaCambios otra) {
+        int comparacion = momento.compareTo(otra.momento);
+        return comparacion != 0 ? comparacion : Long.compare(id, otra.id);
+    }
+
+    @Override
+    @JsonValue
+    public String toString() {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, momento) + "-" + id;
+    }
+}
@@ -0,0 +1,24 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+/**
+ * Proyección con el nombre completo de un autor.
+ *
+ * Permite construir el mapa de autores de una importación sin cargar las entidades.
+ */
+public interface NombreAutor {
+
+    /**
+     * @return Identificador del autor.
+     */
+    Long getId();
+
+    /**
+     * @return Nombre del autor.
+     */
+    String getNombre();
+
+    /**
+     * @return Apellido del autor.
+     */
+    String getApellido();
+}
@@ -0,0 +1,34 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Página de resultados obtenida con paginación por cursor (keyset).
+ *
+ * Contiene los elementos de la página, en el orden solicitado, e indica si
+ * existen elementos antes o después de ella para construir los enlaces prev/next.
+ *
+ * @param <T> Tipo de los elementos de la página.
+ */
+@Getter
+@AllArgsConstructor
+public class Pagina<T> {
+
+    /**
+     * Elementos de la página.
+     */
+    private final List<T> elementos;
+
+    /**
+     * Indica si existen elementos anteriores al primero de la página.
+     */
+    private final boolean hayAnterior;
+
+    /**
+     * Indica si existen elementos posteriores al último de la página.
+     */
+    private final boolean haySiguiente;
+}
@@ -0,0 +1,57 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Respuesta guardada para una Idempotency-Key, que se devuelve tal cual cuando
+ * el cliente repite la petición.
+ *
+ * Mientras la petición original se ejecuta, la clave queda reservada con estado 0.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RespuestaGuardada {
+
+    /**
+     * Huella (SHA-256 en hexadecimal) del método, la ruta y el cuerpo de la petición.
+     * Una repetición con otra huella reutiliza la clave para una petición distinta.
+     */
+    private String huella;
+
+    /**
+     * Código de estado HTTP de la respuesta, o 0 si la petición sigue en curso.
+     */
+    private int estado;
+
+    /**
+     * Tipo de contenido de la respuesta, null si no tiene cuerpo.
+     */
+    private String tipoContenido;
+
+    /**
+     * Cuerpo de la respuesta tal como se envió.
+     */
+    private byte[] cuerpo;
+
+    /**
+     * Reserva de una clave cuya petición todavía no terminó.
+     *
+     * @param huella Huella de la petición.
+     * @return Respuesta en curso.
+     */
+    public static RespuestaGuardada enCurso(String huella) {
+        return new RespuestaGuardada(huella, 0, null, null);
+    }
+
+    /**
+     * Indica si la petición original todavía no terminó.
+     *
+     * @return true si no hay respuesta guardada.
+     */
+    public boolean isEnCurso() {
+        return estado == 0;
+    }
+}
@@ -0,0 +1,47 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resumen de una importación masiva de libros.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoImportacion {
+
+    /**
+     * Cantidad de filas de datos leídas.
+     */
+    private long procesadas;
+
+    /**
+     * Cantidad de libros insertados.
+     */
+    private long importadas;
+
+    /**
+     * Cantidad de autores creados durante la importación.
+     */
+    private long autoresCreados;
+
+    /**
+     * Cantidad total de filas con error.
+     */
+    private long totalErrores;
+
+    /**
+     * Detalle de las filas con error, limitado a las primeras
+     * según libros.importacion.max-errores.
+     */
+    private List<ErrorImportacion> errores;
+
+    /**
+     * Duración de la importación en milisegundos.
+     */
+    private long duracionMs;
+}
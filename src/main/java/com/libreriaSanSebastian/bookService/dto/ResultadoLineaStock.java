@@ -0,0 +1,51 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de una línea de una operación de stock por lote.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoLineaStock {
+
+    /**
+     * Estado posible de una línea del lote.
+     */
+    public enum Estado {
+        /** El stock se descontó. */
+        DECREMENTADO,
+        /** El stock se sumó. */
+        REPUESTO,
+        /** La línea era válida pero el lote no se aplicó porque otra línea falló. */
+        NO_APLICADO,
+        /** El libro no tiene stock suficiente. */
+        SIN_STOCK,
+        /** El libro no existe. */
+        NO_ENCONTRADO
+    }
+
+    /**
+     * Identificador del libro.
+     */
+    private Long id;
+
+    /**
+     * Cantidad solicitada en la línea.
+     */
+    private Integer cantidad;
+
+    /**
+     * Estado de la línea.
+     */
+    private Estado estado;
+
+    /**
+     * Stock del libro tras aplicar el lote, o el stock actual si no se aplicó.
+     * Es null si el libro no existe y en las reposiciones, que no vuelven a leer el stock.
+     */
+    private Integer stock;
+}
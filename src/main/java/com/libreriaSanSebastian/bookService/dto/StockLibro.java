@@ -0,0 +1,19 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+/**
+ * Proyección con el stock de un libro.
+ *
+ * Permite consultar y bloquear el stock sin cargar la entidad completa ni su autor.
+ */
+public interface StockLibro {
+
+    /**
+     * @return Identificador del libro.
+     */
+    Long getId();
+
+    /**
+     * @return Stock disponible del libro.
+     */
+    Integer getStock();
+}
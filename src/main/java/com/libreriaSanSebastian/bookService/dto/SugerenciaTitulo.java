@@ -0,0 +1,24 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sugerencia de autocompletado: id y título original de un libro.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SugerenciaTitulo {
+
+    /**
+     * Identificador del libro.
+     */
+    private Long id;
+
+    /**
+     * Título del libro, tal como está registrado.
+     */
+    private String titulo;
+}
@@ -1,26 +1,46 @@
 package com.libreriaSanSebastian.bookService.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.libreriaSanSebastian.bookService.dto.MarcaCambios;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.*;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.time.Instant;
 
 /**
  * Entidad Autor
  * 
  * Representa un autor en el sistema de la librería.
  * Incluye información básica como nombre, apellido y nacionalidad.
+ *
+ * Los autores casi no cambian y se cargan con cada libro, por lo que se guardan en la
+ * caché de segundo nivel de Hibernate (región entidad.autor, ver application.conf).
+ *
+ * Como la relación desde Libro es diferida, un libro recién guardado puede referenciar
+ * un proxy de Hibernate; se ignoran sus propiedades internas al serializarlo.
  */
 @Entity
-@Table(name = "autores")
+@Table(name = "autores", indexes = {
+        @Index(name = "idx_autores_modificado_id", columnList = "modificado, id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entidad.autor")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Autor {
     /**
      * Identificador único del autor.
-     * Se genera automáticamente.
+     * Se genera automáticamente desde una secuencia que reserva bloques de ids,
+     * lo que permite agrupar los INSERT en lotes JDBC.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "autores_seq")
+    @SequenceGenerator(name = "autores_seq", sequenceName = "autores_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -43,4 +63,25 @@ public class Autor {
      */
     @Column(length = 50)
     private String nacionalidad;
-}
\ No newline at end of file
+
+    /**
+     * Versión del autor para control de concurrencia optimista.
+     * Se incrementa en cada modificación y se publica como ETag en la API.
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    /**
+     * Momento de la última modificación del autor, con precisión de microsegundos.
+     * Ordena, junto con el id, los cambios que devuelve /api/v1/autores/cambios.
+     */
+    @JsonIgnore
+    private Instant modificado;
+
+    @PrePersist
+    @PreUpdate
+    void marcarModificado() {
+        modificado = MarcaCambios.modificacion();
+    }
+}
@@ -0,0 +1,59 @@
+package com.libreriaSanSebastian.bookService.model;
+
+import lombok.*;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Entidad ClaveIdempotencia
+ * Idempotency-Key recibida y la respuesta de su petición, para el almacén
+ * compartido en base de datos (libros.idempotencia.almacen=base-datos).
+ */
+@Entity
+@Table(name = "claves_idempotencia", indexes = {
+        @Index(name = "idx_claves_idempotencia_expira", columnList = "expira")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClaveIdempotencia {
+
+    /**
+     * Idempotency-Key enviada por el cliente.
+     * La clave primaria garantiza que solo una petición pueda reservarla.
+     */
+    @Id
+    @Column(length = 255)
+    private String clave;
+
+    /**
+     * Huella SHA-256 de la petición, en hexadecimal.
+     */
+    @Column(nullable = false, length = 64)
+    private String huella;
+
+    /**
+     * Código de estado HTTP de la respuesta, 0 mientras la petición está en curso.
+     */
+    @Column(nullable = false)
+    private int estado;
+
+    /**
+     * Tipo de contenido de la respuesta.
+     */
+    @Column(length = 100)
+    private String tipoContenido;
+
+    /**
+     * Cuerpo de la respuesta.
+     */
+    @Lob
+    private byte[] cuerpo;
+
+    /**
+     * Momento a partir del cual la clave vence y puede purgarse.
+     */
+    @Column(nullable = false)
+    private Instant expira;
+}
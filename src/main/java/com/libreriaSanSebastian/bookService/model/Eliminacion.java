@@ -0,0 +1,57 @@
+package com.libreriaSanSebastian.bookService.model;
+
+import lombok.*;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Entidad Eliminacion
+ * Registro (tombstone) de un libro o autor eliminado, para que el feed de cambios
+ * informe la baja a los clientes que sincronizan de forma incremental.
+ * Se conserva durante libros.cambios.retencion-eliminaciones y luego se purga.
+ */
+@Entity
+@Table(name = "eliminaciones", indexes = {
+        @Index(name = "idx_eliminaciones_tipo_eliminado", columnList = "tipo, eliminado, entidad_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Eliminacion {
+
+    /**
+     * Tipo de entidad eliminada.
+     */
+    public enum Tipo {
+        LIBRO,
+        AUTOR
+    }
+
+    /**
+     * Identificador del registro.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "eliminaciones_seq")
+    @SequenceGenerator(name = "eliminaciones_seq", sequenceName = "eliminaciones_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * Tipo de entidad eliminada.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Tipo tipo;
+
+    /**
+     * Id del libro o autor eliminado.
+     */
+    @Column(name = "entidad_id", nullable = false)
+    private Long entidadId;
+
+    /**
+     * Momento de la eliminación, con la misma precisión que el momento de modificación.
+     */
+    @Column(nullable = false)
+    private Instant eliminado;
+}
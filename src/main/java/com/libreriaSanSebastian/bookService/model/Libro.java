@@ -1,15 +1,25 @@
 package com.libreriaSanSebastian.bookService.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.libreriaSanSebastian.bookService.dto.MarcaCambios;
 import lombok.*;
 import jakarta.persistence.*;
 
+import java.time.Instant;
+
 /**
  *  Entidad Libro
  *  Representa un libro en el sistema de la librería.
  *  Incluye información básica como título, ISBN, stock y autor.
  */
 @Entity
-@Table(name = "libros")
+@Table(name = "libros", indexes = {
+        @Index(name = "idx_libros_titulo_id", columnList = "titulo, id"),
+        @Index(name = "idx_libros_autor_id", columnList = "autor_id, id"),
+        @Index(name = "idx_libros_modificado_id", columnList = "modificado, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_libros_isbn", columnNames = "isbn")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,10 +27,12 @@ public class Libro {
     
     /**
      * Identificador único del libro.
-     * Se genera automáticamente.
+     * Se genera automáticamente desde una secuencia que reserva bloques de ids,
+     * lo que permite agrupar los INSERT en lotes JDBC.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "libros_seq")
+    @SequenceGenerator(name = "libros_seq", sequenceName = "libros_seq", allocationSize = 500)
     private Long id;
 
     /**
@@ -35,6 +47,7 @@ public class Libro {
      *  Codigo ISBN del libro.
      *  No puede ser nulo y debe ser unico.
      *  Representa el identificador internacional del libro.
+     *  Se guarda normalizado como ISBN-13 sin guiones.
      */
     @Column(nullable = false)
     private String isbn;
@@ -50,8 +63,33 @@ public class Libro {
     /**
      *  Autor del libro.
      *  Relación muchos a uno con la entidad Autor.
+     *  Se carga de forma diferida: las consultas que devuelven el libro con su
+     *  autor lo obtienen explícitamente con JOIN FETCH.
     */
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "autor_id")
     private Autor autor;
-}
\ No newline at end of file
+
+    /**
+     *  Versión del libro para control de concurrencia optimista.
+     *  Se incrementa en cada modificación y se publica como ETag en la API.
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    /**
+     *  Momento de la última modificación del libro, con precisión de microsegundos.
+     *  Lo asignan las escrituras por JPA y las sentencias UPDATE masivas, y junto con
+     *  el id ordena los cambios que devuelve /api/v1/libros/cambios.
+     *  Es null en las filas que no se modificaron desde que existe la columna.
+     */
+    @JsonIgnore
+    private Instant modificado;
+
+    @PrePersist
+    @PreUpdate
+    void marcarModificado() {
+        modificado = MarcaCambios.modificacion();
+    }
+}
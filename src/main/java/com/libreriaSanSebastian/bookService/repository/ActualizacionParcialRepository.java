@@ -0,0 +1,139 @@
+package com.libreriaSanSebastian.bookService.repository;
+
+import com.libreriaSanSebastian.bookService.config.ConBaseDatos;
+import com.libreriaSanSebastian.bookService.dto.MarcaCambios;
+import com.libreriaSanSebastian.bookService.model.Autor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Actualizaciones parciales de libros y autores con una única sentencia UPDATE.
+ *
+ * Solo se escriben las columnas indicadas, sin leer antes la entidad ni pasar
+ * por merge, y la versión y el momento de modificación se actualizan en la misma
+ * sentencia para invalidar las ETags publicadas y anunciar el cambio en el feed de
+ * cambios. La cantidad de filas afectadas indica si el registro existía (y si
+ * coincidía la versión esperada, cuando se indica).
+ */
+@Repository
+@ConBaseDatos
+public class ActualizacionParcialRepository {
+
+    /**
+     * Atributos de Libro que pueden modificarse parcialmente.
+     * autor recibe el id del autor, o null para quitarlo.
+     */
+    public static final Set<String> ATRIBUTOS_LIBRO = Set.of("titulo", "isbn", "stock", "autor");
+
+    /**
+     * Atributos de Autor que pueden modificarse parcialmente.
+     */
+    public static final Set<String> ATRIBUTOS_AUTOR = Set.of("nombre", "apellido", "nacionalidad");
+
+    /**
+     * Cantidad máxima de libros por sentencia de reposición.
+     */
+    static final int LIBROS_POR_SENTENCIA = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Modifica los atributos indicados de un libro.
+     *
+     * @param id      Identificador del libro.
+     * @param cambios Nuevos valores por atributo, ya validados (ver {@link #ATRIBUTOS_LIBRO}).
+     * @param version Versión esperada del libro, o null para no comprobarla.
+     * @return Número de filas afectadas (1 si se actualizó, 0 si no existe o cambió la versión).
+     */
+    @Transactional
+    public int actualizarLibro(long id, Map<String, Object> cambios, Long version) {
+        Map<String, Object> valores = new LinkedHashMap<>(cambios);
+        if (valores.containsKey("autor") && valores.get("autor") != null) {
+            valores.put("autor", entityManager.getReference(Autor.class, valores.get("autor")));
+        }
+        return actualizar("Libro", id, valores, ATRIBUTOS_LIBRO, version);
+    }
+
+    /**
+     * Modifica los atributos indicados de un autor.
+     *
+     * Como toda actualización masiva de Hibernate, invalida la región de la caché de
+     * segundo nivel de autores y sus consultas cacheadas.
+     *
+     * @param id      Identificador del autor.
+     * @param cambios Nuevos valores por atributo, ya validados (ver {@link #ATRIBUTOS_AUTOR}).
+     * @param version Versión esperada del autor, o null para no comprobarla.
+     * @return Número de filas afectadas (1 si se actualizó, 0 si no existe o cambió la versión).
+     */
+    @Transactional
+    public int actualizarAutor(long id, Map<String, Object> cambios, Long version) {
+        return actualizar("Autor", id, cambios, ATRIBUTOS_AUTOR, version);
+    }
+
+    /**
+     * Suma stock a varios libros, con una sentencia por cada bloque de
+     * {@link #LIBROS_POR_SENTENCIA} libros: stock = stock + CASE id WHEN ... END.
+     *
+     * @param cantidades Cantidad a sumar por id de libro.
+     * @return Número de libros actualizados.
+     */
+    @Transactional
+    public int reponerStock(Map<Long, Integer> cantidades) {
+        List<Map.Entry<Long, Integer>> lineas = new ArrayList<>(cantidades.entrySet());
+        Instant ahora = MarcaCambios.modificacion();
+        int actualizados = 0;
+        for (int desde = 0; desde < lineas.size(); desde += LIBROS_POR_SENTENCIA) {
+            List<Map.Entry<Long, Integer>> bloque =
+                    lineas.subList(desde, Math.min(desde + LIBROS_POR_SENTENCIA, lineas.size()));
+            StringBuilder jpql = new StringBuilder("UPDATE Libro l SET l.stock = l.stock + CASE l.id");
+            for (int i = 0; i < bloque.size(); i++) {
+                jpql.append(" WHEN :id").append(i).append(" THEN :cantidad").append(i);
+            }
+            jpql.append(" ELSE 0 END, l.version = l.version + 1, l.modificado = :ahora WHERE l.id IN :ids");
+
+            Query consulta = entityManager.createQuery(jpql.toString()).setParameter("ahora", ahora);
+            List<Long> ids = new ArrayList<>(bloque.size());
+            for (int i = 0; i < bloque.size(); i++) {
+                consulta.setParameter("id" + i, bloque.get(i).getKey());
+                consulta.setParameter("cantidad" + i, bloque.get(i).getValue());
+                ids.add(bloque.get(i).getKey());
+            }
+            actualizados += consulta.setParameter("ids", ids).executeUpdate();
+        }
+        return actualizados;
+    }
+
+    private int actualizar(String entidad, long id, Map<String, Object> cambios, Set<String> permitidos, Long version) {
+        StringBuilder jpql = new StringBuilder("UPDATE ").append(entidad).append(" e SET ");
+        for (String atributo : cambios.keySet()) {
+            if (!permitidos.contains(atributo)) {
+                throw new IllegalArgumentException("Atributo no modificable: " + atributo);
+            }
+            jpql.append("e.").append(atributo).append(" = :").append(atributo).append(", ");
+        }
+        jpql.append("e.version = e.version + 1, e.modificado = :ahora WHERE e.id = :id");
+        if (version != null) {
+            jpql.append(" AND e.version = :version");
+        }
+
+        Query consulta = entityManager.createQuery(jpql.toString())
+                .setParameter("id", id)
+                .setParameter("ahora", MarcaCambios.modificacion());
+        cambios.forEach(consulta::setParameter);
+        if (version != null) {
+            consulta.setParameter("version", version);
+        }
+        return consulta.executeUpdate();
+    }
+}
@@ -1,9 +1,20 @@
 package com.libreriaSanSebastian.bookService.repository;
 
+import com.libreriaSanSebastian.bookService.dto.AutorConTotales;
+import com.libreriaSanSebastian.bookService.dto.NombreAutor;
 import com.libreriaSanSebastian.bookService.model.Autor;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Repositorio de Autores
  * 
@@ -11,11 +22,73 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface AutorRepository extends JpaRepository<Autor, Long> {
+
+    /**
+     * Región de la caché de consultas de Hibernate para las consultas de autores.
+     * Hibernate la invalida ante cualquier escritura sobre la tabla autores.
+     */
+    String REGION_CONSULTAS = "consultas.autores";
+
     /**
      * Busca un autor por su nombre.
+     * El resultado se guarda en la caché de consultas.
      * 
      * @param nombre Nombre del autor.
      * @return Autor encontrado o null si no existe.
      */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGION_CONSULTAS)
+    })
     Autor findByNombre(String nombre);
-}
\ No newline at end of file
+
+    /**
+     * Obtiene todos los autores.
+     * El resultado se guarda en la caché de consultas.
+     *
+     * @return Lista de autores.
+     */
+    @Override
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGION_CONSULTAS)
+    })
+    List<Autor> findAll();
+
+    /**
+     * Obtiene todos los autores con la cantidad de libros y el stock total de cada uno.
+     * Los totales se calculan en una sola consulta agrupada; los autores sin libros
+     * aparecen con ambos totales en cero.
+     *
+     * @return Lista de autores con totales, ordenada por id.
+     */
+    @Query("SELECT new com.libreriaSanSebastian.bookService.dto.AutorConTotales(" +
+           "a.id, a.nombre, a.apellido, a.nacionalidad, a.version, COUNT(l.id), COALESCE(SUM(l.stock), 0L)) " +
+           "FROM Autor a LEFT JOIN Libro l ON l.autor = a " +
+           "GROUP BY a.id, a.nombre, a.apellido, a.nacionalidad, a.version ORDER BY a.id")
+    List<AutorConTotales> findAllConTotales();
+
+    /**
+     * Recorre los ids y nombres de todos los autores.
+     *
+     * @return Stream de ids, nombres y apellidos.
+     */
+    @Query("SELECT a.id AS id, a.nombre AS nombre, a.apellido AS apellido FROM Autor a")
+    Stream<NombreAutor> streamNombres();
+
+    /**
+     * Obtiene, ordenados por momento de modificación e id, los autores modificados
+     * después de la posición (desde, id) y no después del momento de corte.
+     * El índice (modificado, id) resuelve el filtro y el orden.
+     *
+     * @param desde    Momento de la posición de partida.
+     * @param id       Id del último autor entregado en ese momento.
+     * @param hasta    Momento de corte.
+     * @param pageable Límite de filas a obtener (siempre la primera página).
+     * @return Lista de autores.
+     */
+    @Query("SELECT a FROM Autor a " +
+           "WHERE (a.modificado > :desde OR (a.modificado = :desde AND a.id > :id)) AND a.modificado <= :hasta " +
+           "ORDER BY a.modificado ASC, a.id ASC")
+    List<Autor> findModificados(Instant desde, Long id, Instant hasta, Pageable pageable);
+}
@@ -0,0 +1,137 @@
+package com.libreriaSanSebastian.bookService.repository;
+
+import com.libreriaSanSebastian.bookService.config.ConBaseDatos;
+import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Statement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Consultas de solo lectura del catálogo sobre R2DBC, para la API v2.
+ *
+ * Usa el driver no bloqueante directamente a través de la SPI de R2DBC: cada consulta
+ * toma una conexión del pool, emite las filas a medida que el cliente las solicita y
+ * la devuelve al completar o cancelar. Las entidades se construyen como objetos
+ * simples, sin contexto de persistencia; las escrituras siguen pasando por JPA.
+ * El momento de modificación no se lee: no se serializa y solo lo usa el feed de cambios.
+ */
+@Repository
+@ConBaseDatos
+public class CatalogoReactivoRepository {
+
+    private static final String SELECT_LIBROS =
+            "SELECT l.id, l.titulo, l.isbn, l.stock, l.version, " +
+            "a.id AS autor_id, a.nombre, a.apellido, a.nacionalidad, a.version AS autor_version " +
+            "FROM libros l LEFT JOIN autores a ON a.id = l.autor_id ";
+
+    private static final String SELECT_AUTORES =
+            "SELECT a.id AS autor_id, a.nombre, a.apellido, a.nacionalidad, a.version AS autor_version " +
+            "FROM autores a ";
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    /**
+     * Busca un libro con su autor.
+     *
+     * @param id Identificador del libro.
+     * @return Mono con el libro, vacío si no existe.
+     */
+    public Mono<Libro> buscarLibro(long id) {
+        return consultar(SELECT_LIBROS + "WHERE l.id = ?", CatalogoReactivoRepository::libro, id).next();
+    }
+
+    /**
+     * Obtiene una página de libros ordenados por id.
+     *
+     * @param despuesDe Id a partir del cual (sin incluirlo) comienza la página.
+     * @param limite    Cantidad máxima de libros.
+     * @return Flux con los libros de la página.
+     */
+    public Flux<Libro> listarLibros(long despuesDe, int limite) {
+        return consultar(SELECT_LIBROS + "WHERE l.id > ? ORDER BY l.id LIMIT " + limite,
+                CatalogoReactivoRepository::libro, despuesDe);
+    }
+
+    /**
+     * Recorre el catálogo completo ordenado por id, leyendo las filas según la demanda del suscriptor.
+     *
+     * @return Flux con todos los libros.
+     */
+    public Flux<Libro> recorrerLibros() {
+        return consultar(SELECT_LIBROS + "ORDER BY l.id", CatalogoReactivoRepository::libro);
+    }
+
+    /**
+     * Busca un autor.
+     *
+     * @param id Identificador del autor.
+     * @return Mono con el autor, vacío si no existe.
+     */
+    public Mono<Autor> buscarAutor(long id) {
+        return consultar(SELECT_AUTORES + "WHERE a.id = ?", CatalogoReactivoRepository::autor, id).next();
+    }
+
+    /**
+     * Obtiene una página de autores ordenados por id.
+     *
+     * @param despuesDe Id a partir del cual (sin incluirlo) comienza la página.
+     * @param limite    Cantidad máxima de autores.
+     * @return Flux con los autores de la página.
+     */
+    public Flux<Autor> listarAutores(long despuesDe, int limite) {
+        return consultar(SELECT_AUTORES + "WHERE a.id > ? ORDER BY a.id LIMIT " + limite,
+                CatalogoReactivoRepository::autor, despuesDe);
+    }
+
+    /**
+     * Recorre todos los autores ordenados por id, leyendo las filas según la demanda del suscriptor.
+     *
+     * @return Flux con todos los autores.
+     */
+    public Flux<Autor> recorrerAutores() {
+        return consultar(SELECT_AUTORES + "ORDER BY a.id", CatalogoReactivoRepository::autor);
+    }
+
+    private <T> Flux<T> consultar(String sql, Function<Readable, T> mapeo, Object... parametros) {
+        return Flux.usingWhen(connectionFactory.create(),
+                conexion -> {
+                    Statement sentencia = conexion.createStatement(sql);
+                    for (int i = 0; i < parametros.length; i++) {
+                        sentencia.bind(i, parametros[i]);
+                    }
+                    return Flux.from(sentencia.execute()).concatMap(resultado -> resultado.map(mapeo));
+                },
+                Connection::close);
+    }
+
+    private static Libro libro(Readable fila) {
+        Long autorId = fila.get("autor_id", Long.class);
+        return new Libro(
+                fila.get("id", Long.class),
+                fila.get("titulo", String.class),
+                fila.get("isbn", String.class),
+                fila.get("stock", Integer.class),
+                autorId == null ? null : autor(fila),
+                fila.get("version", Long.class),
+                null);
+    }
+
+    private static Autor autor(Readable fila) {
+        return new Autor(
+                fila.get("autor_id", Long.class),
+                fila.get("nombre", String.class),
+                fila.get("apellido", String.class),
+                fila.get("nacionalidad", String.class),
+                fila.get("autor_version", Long.class),
+                null);
+    }
+}
@@ -0,0 +1,65 @@
+package com.libreriaSanSebastian.bookService.repository;
+
+import com.libreriaSanSebastian.bookService.model.ClaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Repositorio de Idempotency-Key
+ *
+ * Operaciones del almacén de idempotencia en base de datos, cada una con una única sentencia.
+ */
+@Repository
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, String> {
+
+    /**
+     * Reserva una clave insertándola en curso (estado 0). A diferencia de save, que
+     * con un id asignado lee antes la fila, el INSERT falla con una violación de la
+     * clave primaria si otra petición ya la reservó.
+     *
+     * @param clave  Idempotency-Key.
+     * @param huella Huella de la petición.
+     * @param expira Vencimiento de la clave.
+     * @return Número de filas insertadas.
+     */
+    @Modifying
+    @Transactional
+    @Query("INSERT INTO ClaveIdempotencia (clave, huella, estado, expira) VALUES (:clave, :huella, 0, :expira)")
+    int reservar(String clave, String huella, Instant expira);
+
+    /**
+     * Guarda la respuesta de una clave reservada.
+     *
+     * @return Número de filas actualizadas.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ClaveIdempotencia c SET c.estado = :estado, c.tipoContenido = :tipoContenido, " +
+           "c.cuerpo = :cuerpo, c.expira = :expira WHERE c.clave = :clave")
+    int guardar(String clave, int estado, String tipoContenido, byte[] cuerpo, Instant expira);
+
+    /**
+     * Elimina una clave solo si ya venció, para poder volver a reservarla.
+     *
+     * @return Número de filas eliminadas.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.clave = :clave AND c.expira < :ahora")
+    int eliminarVencida(String clave, Instant ahora);
+
+    /**
+     * Elimina todas las claves vencidas.
+     *
+     * @return Número de filas eliminadas.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.expira < :ahora")
+    int eliminarVencidas(Instant ahora);
+}
@@ -0,0 +1,50 @@
+package com.libreriaSanSebastian.bookService.repository;
+
+import com.libreriaSanSebastian.bookService.model.Eliminacion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repositorio de Eliminaciones
+ *
+ * Registros de libros y autores eliminados que consulta el feed de cambios.
+ */
+@Repository
+public interface EliminacionRepository extends JpaRepository<Eliminacion, Long> {
+
+    /**
+     * Obtiene, ordenadas por momento de eliminación e id de la entidad, las eliminaciones
+     * posteriores a la posición (desde, id) y no posteriores al momento de corte.
+     * El índice (tipo, eliminado, entidad_id) resuelve el filtro y el orden.
+     *
+     * @param tipo     Tipo de entidad.
+     * @param desde    Momento de la posición de partida.
+     * @param id       Id de la última entidad entregada en ese momento.
+     * @param hasta    Momento de corte.
+     * @param pageable Límite de filas a obtener (siempre la primera página).
+     * @return Lista de eliminaciones.
+     */
+    @Query("SELECT e FROM Eliminacion e WHERE e.tipo = :tipo " +
+           "AND (e.eliminado > :desde OR (e.eliminado = :desde AND e.entidadId > :id)) AND e.eliminado <= :hasta " +
+           "ORDER BY e.eliminado ASC, e.entidadId ASC")
+    List<Eliminacion> findEliminaciones(Eliminacion.Tipo tipo, Instant desde, Long id, Instant hasta,
+                                        Pageable pageable);
+
+    /**
+     * Elimina los registros anteriores al momento indicado.
+     *
+     * @param antesDe Momento límite de retención.
+     * @return Número de filas eliminadas.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Eliminacion e WHERE e.eliminado < :antesDe")
+    int eliminarAnteriores(Instant antesDe);
+}
@@ -1,14 +1,29 @@
 package com.libreriaSanSebastian.bookService.repository;
 
+import com.libreriaSanSebastian.bookService.dto.IsbnLibro;
+import com.libreriaSanSebastian.bookService.dto.LibroDeAutor;
+import com.libreriaSanSebastian.bookService.dto.MarcaCambios;
+import com.libreriaSanSebastian.bookService.dto.StockLibro;
+import com.libreriaSanSebastian.bookService.dto.SugerenciaTitulo;
 import com.libreriaSanSebastian.bookService.model.Libro;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 /**
  * Repositorio de Libros
@@ -28,14 +43,153 @@ public interface LibroRepository extends JpaRepository<Libro, Long> {
 
     /**
      * Disminuye el stock de un libro en 1, solo si el stock es mayor a 0.
+     * También incrementa la versión del libro para invalidar su ETag.
      * 
      * @param id Identificador del libro.
      * @return Número de filas afectadas (1 si se actualizó, 0 si no).
      */
+    default int decrementarStock(Long id) {
+        return decrementarStock(id, MarcaCambios.modificacion());
+    }
+
+    /**
+     * Disminuye el stock de un libro en 1, solo si el stock es mayor a 0, y registra
+     * el momento de la modificación.
+     *
+     * @param id    Identificador del libro.
+     * @param ahora Momento de la modificación.
+     * @return Número de filas afectadas (1 si se actualizó, 0 si no).
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Libro l SET l.stock = l.stock - 1, l.version = l.version + 1, l.modificado = :ahora " +
+           "WHERE l.id = :id AND l.stock > 0")
+    int decrementarStock(Long id, Instant ahora);
+
+    /**
+     * Disminuye el stock de un libro en la cantidad indicada, solo si hay stock suficiente.
+     *
+     * @param id       Identificador del libro.
+     * @param cantidad Cantidad de unidades a descontar.
+     * @return Número de filas afectadas (1 si se actualizó, 0 si no).
+     */
+    default int decrementarStock(Long id, int cantidad) {
+        return decrementarStock(id, cantidad, MarcaCambios.modificacion());
+    }
+
+    /**
+     * Disminuye el stock de un libro en la cantidad indicada, solo si hay stock suficiente,
+     * y registra el momento de la modificación.
+     *
+     * @param id       Identificador del libro.
+     * @param cantidad Cantidad de unidades a descontar.
+     * @param ahora    Momento de la modificación.
+     * @return Número de filas afectadas (1 si se actualizó, 0 si no).
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Libro l SET l.stock = l.stock - :cantidad, l.version = l.version + 1, l.modificado = :ahora " +
+           "WHERE l.id = :id AND l.stock >= :cantidad")
+    int decrementarStock(Long id, int cantidad, Instant ahora);
+
+    /**
+     * Aumenta el stock de un libro en la cantidad indicada.
+     *
+     * @param id       Identificador del libro.
+     * @param cantidad Cantidad de unidades a sumar.
+     * @return Número de filas afectadas (1 si se actualizó, 0 si el libro no existe).
+     */
+    default int incrementarStock(Long id, int cantidad) {
+        return incrementarStock(id, cantidad, MarcaCambios.modificacion());
+    }
+
+    /**
+     * Aumenta el stock de un libro en la cantidad indicada y registra el momento de la modificación.
+     *
+     * @param id       Identificador del libro.
+     * @param cantidad Cantidad de unidades a sumar.
+     * @param ahora    Momento de la modificación.
+     * @return Número de filas afectadas (1 si se actualizó, 0 si el libro no existe).
+     */
     @Modifying
     @Transactional
-    @Query("UPDATE Libro l SET l.stock = l.stock - 1 WHERE l.id = :id AND l.stock > 0")
-    int decrementarStock(Long id);
+    @Query("UPDATE Libro l SET l.stock = l.stock + :cantidad, l.version = l.version + 1, l.modificado = :ahora " +
+           "WHERE l.id = :id")
+    int incrementarStock(Long id, int cantidad, Instant ahora);
+
+    /**
+     * Reemplaza el ISBN de un libro y registra el momento de la modificación.
+     * Lo usa la normalización de los ISBN guardados antes de exigir su unicidad.
+     *
+     * @param id    Identificador del libro.
+     * @param isbn  ISBN-13 sin guiones.
+     * @param ahora Momento de la modificación.
+     * @return Número de filas afectadas (1 si se actualizó, 0 si el libro no existe).
+     */
+    @Modifying
+    @Query("UPDATE Libro l SET l.isbn = :isbn, l.version = l.version + 1, l.modificado = :ahora WHERE l.id = :id")
+    int actualizarIsbn(Long id, String isbn, Instant ahora);
+
+    /**
+     * Registra como modificados los libros cuyo stock disponible cambió sin escribir su fila,
+     * para que aparezcan en el feed de cambios. No incrementa la versión: el stock persistido
+     * no cambia.
+     *
+     * @param ids   Identificadores de los libros.
+     * @param ahora Momento de la modificación.
+     * @return Número de filas afectadas.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Libro l SET l.modificado = :ahora WHERE l.id IN :ids")
+    int marcarModificados(Collection<Long> ids, Instant ahora);
+
+    /**
+     * Obtiene y bloquea para escritura el stock de los libros indicados.
+     *
+     * Las filas se bloquean en orden de id para que transacciones concurrentes
+     * adquieran los bloqueos en el mismo orden y no se produzcan deadlocks.
+     * Debe ejecutarse dentro de una transacción.
+     *
+     * @param ids Identificadores de los libros.
+     * @return Stock de los libros existentes, ordenado por id.
+     */
+    @Query(value = "SELECT id, stock FROM libros WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<StockLibro> bloquearStock(Collection<Long> ids);
+
+    /**
+     * Obtiene el stock de los libros indicados, sin bloquear las filas.
+     *
+     * @param ids Identificadores de los libros.
+     * @return Stock de los libros existentes.
+     */
+    @Query("SELECT l.id AS id, l.stock AS stock FROM Libro l WHERE l.id IN :ids")
+    List<StockLibro> findStockByIds(Collection<Long> ids);
+
+    /**
+     * Obtiene cuáles de los ids indicados corresponden a libros existentes.
+     *
+     * @param ids Identificadores de libros.
+     * @return Ids existentes.
+     */
+    @Query("SELECT l.id FROM Libro l WHERE l.id IN :ids")
+    List<Long> findIdsExistentes(Collection<Long> ids);
+
+    /**
+     * Obtiene, ordenados por momento de modificación e id, los libros modificados
+     * después de la posición (desde, id) y no después del momento de corte.
+     * El índice (modificado, id) resuelve el filtro y el orden.
+     *
+     * @param desde    Momento de la posición de partida.
+     * @param id       Id del último libro entregado en ese momento.
+     * @param hasta    Momento de corte.
+     * @param pageable Límite de filas a obtener (siempre la primera página).
+     * @return Lista de libros con autores.
+     */
+    @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autor " +
+           "WHERE (l.modificado > :desde OR (l.modificado = :desde AND l.id > :id)) AND l.modificado <= :hasta " +
+           "ORDER BY l.modificado ASC, l.id ASC")
+    List<Libro> findModificados(Instant desde, Long id, Instant hasta, Pageable pageable);
 
     /**
      * Busca un libro por su id e incluye la información del autor.
@@ -62,4 +216,146 @@ public interface LibroRepository extends JpaRepository<Libro, Long> {
      */
     @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autor WHERE l.titulo = :titulo")
     Libro findByTituloWithAutor(String titulo);
-}
\ No newline at end of file
+
+    /**
+     * Busca un libro por su ISBN normalizado e incluye la información del autor.
+     *
+     * @param isbn ISBN-13 sin guiones.
+     * @return Optional con el libro y su autor si existe.
+     */
+    @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autor WHERE l.isbn = :isbn")
+    Optional<Libro> findByIsbnWithAutor(String isbn);
+
+    /**
+     * Indica si existe un libro con el ISBN indicado.
+     *
+     * @param isbn ISBN-13 sin guiones.
+     * @return true si existe.
+     */
+    boolean existsByIsbn(String isbn);
+
+    /**
+     * Obtiene el ISBN de un libro sin cargar la entidad.
+     *
+     * @param id Identificador del libro.
+     * @return Optional con el ISBN si el libro existe y lo tiene.
+     */
+    @Query("SELECT l.isbn FROM Libro l WHERE l.id = :id")
+    Optional<String> findIsbnById(Long id);
+
+    /**
+     * Obtiene, ordenados por id, los libros cuyo id es mayor al cursor indicado.
+     * El límite de filas se aplica en la consulta SQL mediante el Pageable.
+     *
+     * @param despuesDe Id del último libro de la página anterior.
+     * @param pageable  Límite de filas a obtener (siempre la primera página).
+     * @return Lista de libros con autores.
+     */
+    @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autor WHERE l.id > :despuesDe ORDER BY l.id ASC")
+    List<Libro> findSiguientesPorId(Long despuesDe, Pageable pageable);
+
+    /**
+     * Obtiene, en orden descendente de id, los libros cuyo id es menor al cursor indicado.
+     *
+     * @param antesDe  Id del primer libro de la página siguiente.
+     * @param pageable Límite de filas a obtener (siempre la primera página).
+     * @return Lista de libros con autores, del más cercano al cursor al más lejano.
+     */
+    @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autor WHERE l.id < :antesDe ORDER BY l.id DESC")
+    List<Libro> findAnterioresPorId(Long antesDe, Pageable pageable);
+
+    /**
+     * Obtiene, ordenados por id, los libros de un autor cuyo id es mayor al cursor indicado.
+     *
+     * Lee solo las columnas del resumen y filtra por la clave foránea, sin unir la
+     * tabla de autores; el índice (autor_id, id) resuelve el filtro y el orden.
+     *
+     * @param autorId   Identificador del autor.
+     * @param despuesDe Id del último libro de la página anterior.
+     * @param pageable  Límite de filas a obtener (siempre la primera página).
+     * @return Lista de resúmenes de libros.
+     */
+    @Query("SELECT new com.libreriaSanSebastian.bookService.dto.LibroDeAutor(l.id, l.titulo, l.isbn, l.stock) " +
+           "FROM Libro l WHERE l.autor.id = :autorId AND l.id > :despuesDe ORDER BY l.id ASC")
+    List<LibroDeAutor> findPorAutor(Long autorId, Long despuesDe, Pageable pageable);
+
+    /**
+     * Obtiene los primeros libros ordenados por título (y por id para desempatar).
+     *
+     * @param pageable Límite de filas a obtener (siempre la primera página).
+     * @return Lista de libros con autores.
+     */
+    @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autor ORDER BY l.titulo ASC, l.id ASC")
+    List<Libro> findPrimerosPorTitulo(Pageable pageable);
+
+    /**
+     * Obtiene, ordenados por título e id, los libros posteriores al cursor (titulo, id).
+     *
+     * @param titulo   Título del último libro de la página anterior.
+     * @param id       Id del último libro de la página anterior.
+     * @param pageable Límite de filas a obtener (siempre la primera página).
+     * @return Lista de libros con autores.
+     */
+    @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autor " +
+           "WHERE l.titulo > :titulo OR (l.titulo = :titulo AND l.id > :id) " +
+           "ORDER BY l.titulo ASC, l.id ASC")
+    List<Libro> findSiguientesPorTitulo(String titulo, Long id, Pageable pageable);
+
+    /**
+     * Obtiene, en orden descendente de título e id, los libros anteriores al cursor (titulo, id).
+     *
+     * @param titulo   Título del primer libro de la página siguiente.
+     * @param id       Id del primer libro de la página siguiente.
+     * @param pageable Límite de filas a obtener (siempre la primera página).
+     * @return Lista de libros con autores, del más cercano al cursor al más lejano.
+     */
+    @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autor " +
+           "WHERE l.titulo < :titulo OR (l.titulo = :titulo AND l.id < :id) " +
+           "ORDER BY l.titulo DESC, l.id DESC")
+    List<Libro> findAnterioresPorTitulo(String titulo, Long id, Pageable pageable);
+
+    /**
+     * Obtiene únicamente el título de un libro, para resolver cursores ordenados por título.
+     *
+     * @param id Identificador del libro.
+     * @return Optional con el título si el libro existe.
+     */
+    @Query("SELECT l.titulo FROM Libro l WHERE l.id = :id")
+    Optional<String> findTituloById(Long id);
+
+    /**
+     * Recorre todos los libros con sus autores mediante un cursor de base de datos.
+     *
+     * Las filas se obtienen en bloques según el fetch size, sin materializar el
+     * resultado completo. Las entidades se cargan en modo solo lectura para evitar
+     * el dirty checking. Debe consumirse dentro de una transacción y cerrarse al terminar.
+     *
+     * @return Stream de libros con autores, ordenado por id.
+     */
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autor ORDER BY l.id ASC")
+    Stream<Libro> streamAllWithAutor();
+
+    /**
+     * Recorre el id y el título de todos los libros, sin cargar las entidades.
+     * Se usa para construir el índice de autocompletado. Debe consumirse dentro de una transacción.
+     *
+     * @return Stream de ids y títulos.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.libreriaSanSebastian.bookService.dto.SugerenciaTitulo(l.id, l.titulo) FROM Libro l")
+    Stream<SugerenciaTitulo> streamTitulos();
+
+    /**
+     * Recorre los ids e ISBN de todos los libros para construir el índice de ISBN.
+     *
+     * @return Stream de ids e ISBN.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT l.id AS id, l.isbn AS isbn FROM Libro l")
+    Stream<IsbnLibro> streamIsbns();
+}
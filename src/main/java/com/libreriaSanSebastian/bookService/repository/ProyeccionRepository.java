@@ -0,0 +1,158 @@
+package com.libreriaSanSebastian.bookService.repository;
+
+import com.libreriaSanSebastian.bookService.config.ConBaseDatos;
+import com.libreriaSanSebastian.bookService.dto.CamposSolicitados;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Consultas con proyecciones dinámicas para las respuestas con sparse fieldsets.
+ *
+ * Cada consulta selecciona únicamente las columnas de los campos solicitados, sin
+ * cargar entidades en el contexto de persistencia, y solo une la tabla de autores
+ * cuando se pide alguno de sus campos. Las expresiones JPQL salen de las tablas
+ * de campos permitidos, nunca del texto recibido del cliente.
+ */
+@Repository
+@ConBaseDatos
+public class ProyeccionRepository {
+
+    /**
+     * Campos de libro que pueden solicitarse, con su expresión JPQL.
+     * autor.id se lee de la clave foránea y no requiere unir la tabla de autores.
+     */
+    public static final Map<String, String> CAMPOS_LIBRO = campos(
+            "id", "l.id",
+            "titulo", "l.titulo",
+            "isbn", "l.isbn",
+            "stock", "l.stock",
+            "version", "l.version",
+            "autor.id", "l.autor.id",
+            "autor.nombre", "a.nombre",
+            "autor.apellido", "a.apellido",
+            "autor.nacionalidad", "a.nacionalidad",
+            "autor.version", "a.version");
+
+    /**
+     * Campos de autor que pueden solicitarse, con su expresión JPQL.
+     */
+    public static final Map<String, String> CAMPOS_AUTOR = campos(
+            "id", "a.id",
+            "nombre", "a.nombre",
+            "apellido", "a.apellido",
+            "nacionalidad", "a.nacionalidad",
+            "version", "a.version");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Obtiene, ordenados por id, los libros posteriores (o anteriores) al cursor.
+     *
+     * @param campos     Campos a seleccionar.
+     * @param cursor     Id del cursor, o null para comenzar desde el principio.
+     * @param haciaAtras Si es true se leen los libros con id menor al cursor en orden descendente.
+     * @param filas      Cantidad máxima de filas.
+     * @return Filas con los campos solicitados.
+     */
+    public List<Map<String, Object>> librosPorId(CamposSolicitados campos, Long cursor, boolean haciaAtras, int filas) {
+        String condicion = cursor == null ? "" : haciaAtras ? "WHERE l.id < :id " : "WHERE l.id > :id ";
+        TypedQuery<Tuple> consulta = consultaLibros(campos,
+                condicion + "ORDER BY l.id " + (haciaAtras ? "DESC" : "ASC"));
+        if (cursor != null) {
+            consulta.setParameter("id", cursor);
+        }
+        return filas(campos, consulta.setMaxResults(filas));
+    }
+
+    /**
+     * Obtiene, ordenados por título e id, los libros posteriores (o anteriores) al cursor (titulo, id).
+     *
+     * @param campos     Campos a seleccionar.
+     * @param titulo     Título del libro del cursor, o null para comenzar desde el principio.
+     * @param cursor     Id del libro del cursor.
+     * @param haciaAtras Si es true se leen los libros anteriores al cursor en orden descendente.
+     * @param filas      Cantidad máxima de filas.
+     * @return Filas con los campos solicitados.
+     */
+    public List<Map<String, Object>> librosPorTitulo(CamposSolicitados campos, String titulo, Long cursor,
+                                                     boolean haciaAtras, int filas) {
+        String comparacion = haciaAtras ? "<" : ">";
+        String direccion = haciaAtras ? "DESC" : "ASC";
+        String condicion = titulo == null ? "" : "WHERE l.titulo " + comparacion + " :titulo " +
+                "OR (l.titulo = :titulo AND l.id " + comparacion + " :id) ";
+        TypedQuery<Tuple> consulta = consultaLibros(campos,
+                condicion + "ORDER BY l.titulo " + direccion + ", l.id " + direccion);
+        if (titulo != null) {
+            consulta.setParameter("titulo", titulo).setParameter("id", cursor);
+        }
+        return filas(campos, consulta.setMaxResults(filas));
+    }
+
+    /**
+     * Busca un libro por su id.
+     *
+     * @param campos Campos a seleccionar.
+     * @param id     Identificador del libro.
+     * @return Optional con la fila del libro si existe.
+     */
+    public Optional<Map<String, Object>> libro(CamposSolicitados campos, long id) {
+        return filas(campos, consultaLibros(campos, "WHERE l.id = :id").setParameter("id", id))
+                .stream().findFirst();
+    }
+
+    /**
+     * Obtiene todos los autores ordenados por id.
+     *
+     * @param campos Campos a seleccionar.
+     * @return Filas con los campos solicitados.
+     */
+    public List<Map<String, Object>> autores(CamposSolicitados campos) {
+        return filas(campos, entityManager.createQuery(
+                "SELECT " + seleccion(campos, CAMPOS_AUTOR) + " FROM Autor a ORDER BY a.id", Tuple.class));
+    }
+
+    private TypedQuery<Tuple> consultaLibros(CamposSolicitados campos, String resto) {
+        boolean unirAutor = campos.getCampos().stream()
+                .anyMatch(campo -> CAMPOS_LIBRO.get(campo).startsWith("a."));
+        return entityManager.createQuery("SELECT " + seleccion(campos, CAMPOS_LIBRO) + " FROM Libro l " +
+                (unirAutor ? "LEFT JOIN l.autor a " : "") + resto, Tuple.class);
+    }
+
+    private static String seleccion(CamposSolicitados campos, Map<String, String> expresiones) {
+        return campos.getCampos().stream()
+                .map(campo -> expresiones.get(campo) + " AS " + alias(campo))
+                .collect(Collectors.joining(", "));
+    }
+
+    private static List<Map<String, Object>> filas(CamposSolicitados campos, TypedQuery<Tuple> consulta) {
+        return consulta.getResultList().stream()
+                .map(tupla -> campos.fila(campo -> tupla.get(alias(campo))))
+                .toList();
+    }
+
+    /**
+     * Tabla de campos que conserva el orden de declaración, usado al expandir una relación.
+     */
+    private static Map<String, String> campos(String... pares) {
+        Map<String, String> campos = new LinkedHashMap<>();
+        for (int i = 0; i < pares.length; i += 2) {
+            campos.put(pares[i], pares[i + 1]);
+        }
+        return Collections.unmodifiableMap(campos);
+    }
+
+    private static String alias(String campo) {
+        return campo.replace('.', '_');
+    }
+}
@@ -0,0 +1,40 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.dto.RespuestaGuardada;
+
+/**
+ * Almacén de las respuestas de peticiones con Idempotency-Key.
+ *
+ * La implementación se elige con libros.idempotencia.almacen: memoria (por instancia)
+ * o base-datos (compartido entre instancias). Las claves vencen pasado
+ * libros.idempotencia.ttl desde la última escritura.
+ */
+public interface AlmacenIdempotencia {
+
+    /**
+     * Reserva una clave para ejecutar su petición. La reserva es atómica: de varias
+     * peticiones simultáneas con la misma clave, solo una la obtiene.
+     *
+     * @param clave  Idempotency-Key recibida.
+     * @param huella Huella de la petición.
+     * @return null si la clave quedó reservada; en otro caso, la respuesta guardada
+     *         o la reserva en curso de la petición que la obtuvo antes.
+     */
+    RespuestaGuardada reservar(String clave, String huella);
+
+    /**
+     * Guarda la respuesta de una clave reservada.
+     *
+     * @param clave     Idempotency-Key.
+     * @param respuesta Respuesta a devolver en las repeticiones.
+     */
+    void guardar(String clave, RespuestaGuardada respuesta);
+
+    /**
+     * Libera una clave reservada sin guardar respuesta, para que la petición pueda
+     * reintentarse (por ejemplo, tras un error del servidor).
+     *
+     * @param clave Idempotency-Key.
+     */
+    void liberar(String clave);
+}
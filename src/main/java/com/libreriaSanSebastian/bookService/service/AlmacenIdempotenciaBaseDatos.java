@@ -0,0 +1,83 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.dto.RespuestaGuardada;
+import com.libreriaSanSebastian.bookService.model.ClaveIdempotencia;
+import com.libreriaSanSebastian.bookService.repository.ClaveIdempotenciaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Almacén de Idempotency-Key en la tabla claves_idempotencia, compartido por todas
+ * las instancias del servicio.
+ *
+ * La reserva es un INSERT sobre la clave primaria: si falla, se lee la fila existente.
+ * La fila en curso vence tras un plazo corto (libros.idempotencia.en-curso), que se extiende
+ * al TTL completo al guardar la respuesta; si la instancia cae a mitad de la petición, una
+ * repetición toma la clave cuando vence ese plazo en lugar de recibir 409 durante todo el TTL.
+ * Una clave vencida y todavía no purgada se elimina y se vuelve a reservar. Las claves
+ * vencidas se purgan periódicamente con un DELETE sobre el índice de vencimiento.
+ */
+@Service
+@ConditionalOnProperty(name = "libros.idempotencia.almacen", havingValue = "base-datos")
+public class AlmacenIdempotenciaBaseDatos implements AlmacenIdempotencia {
+
+    @Autowired
+    private ClaveIdempotenciaRepository claveRepository;
+
+    @Value("${libros.idempotencia.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${libros.idempotencia.en-curso:60s}")
+    private Duration enCurso;
+
+    @Override
+    public RespuestaGuardada reservar(String clave, String huella) {
+        Instant ahora = Instant.now();
+        try {
+            claveRepository.reservar(clave, huella, ahora.plus(enCurso));
+            return null;
+        } catch (DataIntegrityViolationException e) {
+            // Clave ya reservada: se devuelve su respuesta, salvo que haya vencido la respuesta o la reserva
+        }
+        Optional<ClaveIdempotencia> existente = claveRepository.findById(clave);
+        if (existente.isPresent() && existente.get().getExpira().isAfter(ahora)) {
+            ClaveIdempotencia fila = existente.get();
+            return new RespuestaGuardada(fila.getHuella(), fila.getEstado(), fila.getTipoContenido(), fila.getCuerpo());
+        }
+        claveRepository.eliminarVencida(clave, ahora);
+        try {
+            claveRepository.reservar(clave, huella, ahora.plus(enCurso));
+            return null;
+        } catch (DataIntegrityViolationException e) {
+            // Otra petición la reservó entre la eliminación y el INSERT
+            return RespuestaGuardada.enCurso(huella);
+        }
+    }
+
+    @Override
+    public void guardar(String clave, RespuestaGuardada respuesta) {
+        claveRepository.guardar(clave, respuesta.getEstado(), respuesta.getTipoContenido(),
+                respuesta.getCuerpo(), Instant.now().plus(ttl));
+    }
+
+    @Override
+    public void liberar(String clave) {
+        claveRepository.deleteById(clave);
+    }
+
+    /**
+     * Elimina las claves vencidas.
+     */
+    @Scheduled(fixedDelayString = "${libros.idempotencia.base-datos.purga-ms:60000}")
+    public void purgarVencidas() {
+        claveRepository.eliminarVencidas(Instant.now());
+    }
+}
@@ -0,0 +1,92 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.libreriaSanSebastian.bookService.dto.RespuestaGuardada;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Almacén de Idempotency-Key en memoria, con Caffeine.
+ *
+ * El tamaño se limita por bytes ocupados (clave, huella y cuerpo de la respuesta)
+ * en lugar de por cantidad de entradas, de modo que unas pocas respuestas grandes
+ * no desplacen miles de respuestas pequeñas ni excedan la memoria prevista.
+ * Las reservas en curso pesan 0 para que la expulsión por tamaño no las descarte mientras
+ * la petición original se ejecuta, y vencen tras libros.idempotencia.en-curso; las
+ * respuestas guardadas vencen tras el TTL completo.
+ * Las claves solo se deduplican dentro de la misma instancia.
+ */
+@Service
+@ConditionalOnProperty(name = "libros.idempotencia.almacen", havingValue = "memoria", matchIfMissing = true)
+public class AlmacenIdempotenciaMemoria implements AlmacenIdempotencia {
+
+    /**
+     * Cantidad de claves guardadas.
+     */
+    public static final String METRICA_CLAVES = "libros.idempotencia.claves";
+
+    /**
+     * Bytes estimados por entrada además de la clave y el cuerpo.
+     */
+    private static final int BYTES_ENTRADA = 128;
+
+    @Value("${libros.idempotencia.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${libros.idempotencia.en-curso:60s}")
+    private Duration enCurso;
+
+    @Value("${libros.idempotencia.memoria.capacidad:32MB}")
+    private DataSize capacidad;
+
+    private Cache<String, RespuestaGuardada> respuestas;
+
+    @PostConstruct
+    public void iniciar() {
+        respuestas = Caffeine.newBuilder()
+                .expireAfter(new Expiry<String, RespuestaGuardada>() {
+                    @Override
+                    public long expireAfterCreate(String clave, RespuestaGuardada respuesta, long ahora) {
+                        return (respuesta.isEnCurso() ? enCurso : ttl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String clave, RespuestaGuardada respuesta, long ahora, long restante) {
+                        return expireAfterCreate(clave, respuesta, ahora);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String clave, RespuestaGuardada respuesta, long ahora, long restante) {
+                        return restante;
+                    }
+                })
+                .maximumWeight(capacidad.toBytes())
+                .<String, RespuestaGuardada>weigher((clave, respuesta) -> respuesta.isEnCurso() ? 0
+                        : BYTES_ENTRADA + clave.length() + (respuesta.getCuerpo() == null ? 0 : respuesta.getCuerpo().length))
+                .build();
+        Metrics.gauge(METRICA_CLAVES, respuestas, Cache::estimatedSize);
+    }
+
+    @Override
+    public RespuestaGuardada reservar(String clave, String huella) {
+        return respuestas.asMap().putIfAbsent(clave, RespuestaGuardada.enCurso(huella));
+    }
+
+    @Override
+    public void guardar(String clave, RespuestaGuardada respuesta) {
+        respuestas.put(clave, respuesta);
+    }
+
+    @Override
+    public void liberar(String clave) {
+        respuestas.invalidate(clave);
+    }
+}
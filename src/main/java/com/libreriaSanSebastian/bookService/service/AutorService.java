@@ -1,39 +1,136 @@
 package com.libreriaSanSebastian.bookService.service;
 
+import com.libreriaSanSebastian.bookService.config.CacheConfig;
+import com.libreriaSanSebastian.bookService.dto.AutorConTotales;
+import com.libreriaSanSebastian.bookService.dto.Cambios;
+import com.libreriaSanSebastian.bookService.dto.CamposSolicitados;
+import com.libreriaSanSebastian.bookService.dto.LibroDeAutor;
+import com.libreriaSanSebastian.bookService.dto.MarcaCambios;
+import com.libreriaSanSebastian.bookService.dto.Pagina;
 import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Eliminacion;
+import com.libreriaSanSebastian.bookService.repository.ActualizacionParcialRepository;
 import com.libreriaSanSebastian.bookService.repository.AutorRepository;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import com.libreriaSanSebastian.bookService.repository.ProyeccionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * Servicio para la gestión de autores.
  * 
  * Proporciona métodos para listar, buscar, guardar y eliminar autores.
+ * En un nodo de borde las lecturas se responden desde la instantánea del catálogo
+ * (ver {@link InstantaneaService}).
  */
 @Service
 public class AutorService {
 
-    @Autowired
+    @Autowired(required = false)
     private AutorRepository autorRepository;
 
+    @Autowired(required = false)
+    private LibroRepository libroRepository;
+
+    @Autowired(required = false)
+    private ProyeccionRepository proyeccionRepository;
+
+    @Autowired(required = false)
+    private ActualizacionParcialRepository actualizacionParcial;
+
+    @Autowired(required = false)
+    private CambiosService cambios;
+
+    @Autowired
+    private InstantaneaService instantanea;
+
     /**
      * Obtiene la lista de todos los autores.
+     * Se resuelve desde la caché de consultas y de entidades de Hibernate mientras
+     * no cambie la tabla de autores. Se lee de la primaria aunque haya réplicas, para
+     * no guardar en esas cachés filas atrasadas.
      * 
      * @return Lista de autores.
      */
     public List<Autor> listarTodos() {
+        InstantaneaCatalogo catalogo = instantanea.actual();
+        if (catalogo != null) {
+            return catalogo.autores();
+        }
         return autorRepository.findAll();
     }
 
+    /**
+     * Obtiene todos los autores con la cantidad de libros y el stock total de cada uno,
+     * calculados en una única consulta agrupada.
+     *
+     * @return Lista de autores con totales, ordenada por id.
+     */
+    @Transactional(readOnly = true)
+    public List<AutorConTotales> listarConTotales() {
+        InstantaneaCatalogo catalogo = instantanea.actual();
+        if (catalogo != null) {
+            return catalogo.autoresConTotales();
+        }
+        return autorRepository.findAllConTotales();
+    }
+
+    /**
+     * Obtiene todos los autores con solo los campos solicitados, sin cargar las entidades.
+     *
+     * @param campos Campos a devolver.
+     * @return Filas con los campos de cada autor, ordenadas por id.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> listarParcial(CamposSolicitados campos) {
+        InstantaneaCatalogo catalogo = instantanea.actual();
+        if (catalogo != null) {
+            return catalogo.autores().stream().map(campos::recortar).toList();
+        }
+        return proyeccionRepository.autores(campos);
+    }
+
+    /**
+     * Obtiene una página de los libros de un autor usando paginación por cursor.
+     * Se solicita una fila extra para saber si existe una página siguiente.
+     *
+     * @param autorId   Identificador del autor.
+     * @param despuesDe Id del último libro de la página anterior, o null para la primera página.
+     * @param limite    Cantidad máxima de libros de la página.
+     * @return Página de resúmenes de libros ordenados por id.
+     */
+    @Transactional(readOnly = true)
+    public Pagina<LibroDeAutor> listarLibros(Long autorId, Long despuesDe, int limite) {
+        InstantaneaCatalogo catalogo = instantanea.actual();
+        List<LibroDeAutor> libros = catalogo != null
+                ? catalogo.librosDeAutor(autorId, despuesDe == null ? 0L : despuesDe, limite + 1)
+                : libroRepository.findPorAutor(autorId, despuesDe == null ? 0L : despuesDe, PageRequest.of(0, limite + 1));
+        boolean hayMas = libros.size() > limite;
+        return new Pagina<>(hayMas ? libros.subList(0, limite) : libros, despuesDe != null, hayMas);
+    }
+
     /**
      * Busca un autor por su identificador.
+     * El resultado se guarda en la caché de autores.
      * 
      * @param id Identificador del autor.
      * @return Optional con el autor si existe.
      */
+    @Cacheable(cacheNames = CacheConfig.AUTORES, key = "#id", unless = "#result == null")
     public Optional<Autor> buscarPorId(Long id) {
+        InstantaneaCatalogo catalogo = instantanea.actual();
+        if (catalogo != null) {
+            return catalogo.autor(id);
+        }
         return autorRepository.findById(id);
     }
 
@@ -44,25 +141,127 @@ public class AutorService {
      * @return Optional con el autor si existe.
      */
     public Optional<Autor> buscarPorNombre(String nombre) {
+        InstantaneaCatalogo catalogo = instantanea.actual();
+        if (catalogo != null) {
+            return catalogo.autores().stream().filter(a -> a.getNombre().equals(nombre)).findFirst();
+        }
         return Optional.ofNullable(autorRepository.findByNombre(nombre));
     }
 
     /**
      * Guarda un autor en la base de datos.
+     * Invalida su entrada en caché y la caché de libros, que incluyen los datos del autor.
+     * Hibernate actualiza la caché de segundo nivel e invalida las consultas de autores al confirmar.
      * 
      * @param autor Autor a guardar.
      * @return Autor guardado.
      */
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.AUTORES, key = "#result.id"),
+        @CacheEvict(cacheNames = CacheConfig.LIBROS, allEntries = true)
+    })
     public Autor guardar(Autor autor) {
         return autorRepository.save(autor);
     }
 
     /**
-     * Elimina un autor por su identificador.
+     * Aplica un JSON Merge Patch (RFC 7396) a un autor con una única sentencia UPDATE
+     * que solo escribe los atributos presentes en el parche (nombre, apellido, nacionalidad).
+     * Invalida su entrada en caché y la caché de libros, que incluyen los datos del autor.
+     *
+     * @param id      Identificador del autor.
+     * @param parche  Atributos a modificar con sus nuevos valores.
+     * @param version Versión esperada del autor, o null para no comprobarla.
+     * @return true si el autor se modificó.
+     * @throws IllegalArgumentException si el parche está vacío, incluye atributos que no
+     *                                  pueden modificarse o valores inválidos.
+     */
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.AUTORES, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.LIBROS, allEntries = true)
+    })
+    public boolean modificar(Long id, Map<String, Object> parche, Long version) {
+        return actualizacionParcial.actualizarAutor(id, cambiosAutor(parche), version) > 0;
+    }
+
+    /**
+     * Indica si existe un autor, para distinguir un autor inexistente de una versión
+     * desactualizada cuando una modificación condicional no afecta ninguna fila.
+     *
+     * @param id Identificador del autor.
+     * @return true si el autor existe.
+     */
+    public boolean existe(Long id) {
+        return autorRepository.existsById(id);
+    }
+
+    /**
+     * Valida un parche de autor: nombre y apellido son obligatorios en la tabla,
+     * la nacionalidad puede quitarse con null.
+     */
+    private static Map<String, Object> cambiosAutor(Map<String, Object> parche) {
+        if (parche == null || parche.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un atributo a modificar");
+        }
+        Map<String, Object> cambios = new LinkedHashMap<>();
+        parche.forEach((atributo, valor) -> {
+            switch (atributo) {
+                case "nombre", "apellido" -> {
+                    if (!(valor instanceof String texto) || texto.isEmpty() || texto.length() > 100) {
+                        throw new IllegalArgumentException("El " + atributo + " es requerido y no puede superar los 100 caracteres");
+                    }
+                    cambios.put(atributo, texto);
+                }
+                case "nacionalidad" -> {
+                    if (valor != null && (!(valor instanceof String texto) || texto.length() > 50)) {
+                        throw new IllegalArgumentException("La nacionalidad no puede superar los 50 caracteres");
+                    }
+                    cambios.put(atributo, valor);
+                }
+                default -> throw new IllegalArgumentException("El atributo " + atributo + " no puede modificarse");
+            }
+        });
+        return cambios;
+    }
+
+    /**
+     * Obtiene los autores creados, modificados o eliminados después de una marca.
+     *
+     * Aunque es de solo lectura, se lee siempre de la primaria: RuteoReplicas no
+     * envía a las réplicas las transacciones de los métodos listarCambios.
+     *
+     * @param desde  Marca devuelta por la consulta anterior.
+     * @param limite Cantidad máxima de cambios.
+     * @return Página de cambios, o vacío si la marca ya no puede completarse.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Cambios<Autor>> listarCambios(MarcaCambios desde, int limite) {
+        return cambios.listar(Eliminacion.Tipo.AUTOR, desde, limite, autorRepository::findModificados,
+                autor -> new MarcaCambios(autor.getModificado(), autor.getId()));
+    }
+
+    /**
+     * Obtiene la marca con la que un cliente comienza a sincronizar los autores.
+     *
+     * @return Marca inicial del feed de cambios.
+     */
+    public MarcaCambios marcaInicialCambios() {
+        return cambios.marcaInicial();
+    }
+
+    /**
+     * Elimina un autor por su identificador y registra la eliminación para el feed de cambios.
+     * Invalida su entrada en caché y la caché de libros, que incluyen los datos del autor.
      * 
      * @param id Identificador del autor a eliminar.
      */
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.AUTORES, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.LIBROS, allEntries = true)
+    })
+    @Transactional
     public void eliminar(Long id) {
         autorRepository.deleteById(id);
+        cambios.registrarEliminacion(Eliminacion.Tipo.AUTOR, id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.config.ConBaseDatos;
+import com.libreriaSanSebastian.bookService.dto.Cambios;
+import com.libreriaSanSebastian.bookService.dto.MarcaCambios;
+import com.libreriaSanSebastian.bookService.model.Eliminacion;
+import com.libreriaSanSebastian.bookService.repository.EliminacionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Feed de cambios para la sincronización incremental de libros y autores.
+ *
+ * Cada escritura registra su momento de modificación y cada eliminación deja un
+ * registro en la tabla eliminaciones. Un cliente consulta los cambios posteriores a
+ * su última marca, ordenados por (momento, id) sobre un índice, en lugar de volver
+ * a leer el catálogo completo.
+ *
+ * Solo se entregan los cambios anteriores a ahora - libros.cambios.margen: un cambio
+ * se registra con el momento en que se escribe, pero es visible recién al confirmarse
+ * su transacción, y el margen evita que la marca avance más allá de una transacción
+ * todavía abierta. Además, el corte nunca supera la escritura en curso más antigua de
+ * esta instancia ({@link MarcaCambios#escrituraMasAntigua()}), de modo que una transacción
+ * local más larga que el margen retiene la marca hasta confirmarse. El margen debe superar
+ * la duración de las transacciones de escritura de las otras instancias y la diferencia
+ * entre sus relojes.
+ *
+ * Las eliminaciones se conservan durante libros.cambios.retencion-eliminaciones; una
+ * marca más antigua ya no puede completarse y el cliente debe sincronizar desde cero.
+ */
+@Service
+@ConBaseDatos
+public class CambiosService {
+
+    /**
+     * Consulta de los elementos modificados después de una posición y hasta un corte.
+     *
+     * @param <T> Tipo de los elementos.
+     */
+    @FunctionalInterface
+    public interface ConsultaModificados<T> {
+        List<T> buscar(Instant desde, Long id, Instant hasta, Pageable pageable);
+    }
+
+    @Autowired
+    private EliminacionRepository eliminacionRepository;
+
+    @Value("${libros.cambios.margen:5s}")
+    private Duration margen;
+
+    @Value("${libros.cambios.retencion-eliminaciones:30d}")
+    private Duration retencion;
+
+    /**
+     * Registra la eliminación de un libro o autor. Debe ejecutarse en la misma
+     * transacción que la eliminación.
+     *
+     * @param tipo Tipo de entidad eliminada.
+     * @param id   Id de la entidad eliminada.
+     */
+    public void registrarEliminacion(Eliminacion.Tipo tipo, Long id) {
+        eliminacionRepository.save(new Eliminacion(null, tipo, id, MarcaCambios.modificacion()));
+    }
+
+    /**
+     * Marca con la que un cliente nuevo comienza a sincronizar.
+     *
+     * Cubre los cambios hasta el corte actual: el cliente debe obtenerla antes de leer
+     * el listado completo, y a partir de ella recibe los cambios posteriores a la lectura.
+     *
+     * @return Marca inicial.
+     */
+    public MarcaCambios marcaInicial() {
+        return MarcaCambios.hasta(corte(MarcaCambios.ahora()));
+    }
+
+    /**
+     * Obtiene los cambios posteriores a una marca.
+     *
+     * @param tipo        Tipo de entidad.
+     * @param desde       Marca de la consulta anterior.
+     * @param limite      Cantidad máxima de cambios.
+     * @param consulta    Consulta de los elementos modificados.
+     * @param posicion    Posición (momento, id) de un elemento modificado.
+     * @return Página de cambios, o vacío si la marca es anterior a la retención de eliminaciones.
+     */
+    public <T> Optional<Cambios<T>> listar(Eliminacion.Tipo tipo, MarcaCambios desde, int limite,
+                                           ConsultaModificados<T> consulta, Function<T, MarcaCambios> posicion) {
+        Instant ahora = MarcaCambios.ahora();
+        if (desde.getMomento().isBefore(ahora.minus(retencion))) {
+            return Optional.empty();
+        }
+        Instant hasta = corte(ahora);
+        MarcaCambios corte = MarcaCambios.hasta(hasta);
+        if (desde.compareTo(corte) >= 0) {
+            // Marca que ya cubre el corte (por ejemplo, una marca inicial reciente): no se retrocede
+            return Optional.of(new Cambios<>(List.of(), List.of(), desde, false));
+        }
+        Pageable ventana = PageRequest.of(0, limite + 1);
+        List<T> modificados = consulta.buscar(desde.getMomento(), desde.getId(), hasta, ventana);
+        List<Eliminacion> eliminaciones = eliminacionRepository.findEliminaciones(
+                tipo, desde.getMomento(), desde.getId(), hasta, ventana);
+        return Optional.of(Cambios.combinar(modificados, posicion, eliminaciones,
+                e -> new MarcaCambios(e.getEliminado(), e.getEntidadId()), limite, corte));
+    }
+
+    /**
+     * Momento hasta el que se entregan cambios: ahora - margen, o el anterior a la escritura
+     * en curso más antigua si empezó antes.
+     */
+    private Instant corte(Instant ahora) {
+        Instant hasta = ahora.minus(margen);
+        Optional<Instant> enCurso = MarcaCambios.escrituraMasAntigua();
+        if (enCurso.isPresent() && !enCurso.get().isAfter(hasta)) {
+            return enCurso.get().minus(1, ChronoUnit.MICROS);
+        }
+        return hasta;
+    }
+
+    /**
+     * Purga las eliminaciones que superaron el período de retención.
+     */
+    @Scheduled(fixedDelayString = "${libros.cambios.purga-ms:3600000}")
+    public void purgarEliminaciones() {
+        eliminacionRepository.eliminarAnteriores(MarcaCambios.ahora().minus(retencion));
+    }
+}
@@ -0,0 +1,282 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Libro;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.libreriaSanSebastian.bookService.service.InstantaneaCatalogo.*;
+
+/**
+ * Escritura de una instantánea del catálogo en el formato que lee {@link InstantaneaCatalogo}.
+ *
+ * Se reciben primero todos los autores y luego todos los libros, ambos en orden de id.
+ * Los registros de libros y los textos se vuelcan a archivos temporales a medida que
+ * llegan; en memoria quedan los títulos y unos pocos valores por libro, necesarios para
+ * ordenar los índices. {@link #terminar()} arma el archivo junto al destino y lo reemplaza
+ * con un movimiento atómico, de modo que un nodo que lo vigila nunca lee un archivo a medio
+ * escribir y los que ya lo tienen mapeado conservan la versión anterior.
+ */
+final class EscritorInstantanea implements Closeable {
+
+    private final Path destino;
+
+    private final Path registros;
+
+    private final Path textos;
+
+    private final DataOutputStream salidaRegistros;
+
+    private final DataOutputStream salidaTextos;
+
+    private long tamanoTextos;
+
+    private final List<Autor> autores = new ArrayList<>();
+
+    private final List<int[]> textosAutores = new ArrayList<>();
+
+    private final MapaLongLong posicionAutores = new MapaLongLong();
+
+    private long[] stockAutores;
+
+    private int[] librosAutores;
+
+    private int libros;
+
+    private long[] ids = new long[1024];
+
+    private int[] autorLibros = new int[1024];
+
+    private long[] isbns = new long[1024];
+
+    private int[] normalizados = new int[1024];
+
+    private final List<String> titulos = new ArrayList<>();
+
+    private final List<String> titulosNormalizados = new ArrayList<>();
+
+    /**
+     * @param destino Archivo de la instantánea; se reemplaza al terminar.
+     * @throws IOException si no pueden crearse los archivos temporales.
+     */
+    EscritorInstantanea(Path destino) throws IOException {
+        this.destino = destino.toAbsolutePath();
+        registros = Files.createTempFile(this.destino.getParent(), this.destino.getFileName() + ".", ".libros");
+        textos = Files.createTempFile(this.destino.getParent(), this.destino.getFileName() + ".", ".textos");
+        salidaRegistros = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(registros)));
+        salidaTextos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(textos)));
+    }
+
+    /**
+     * Agrega un autor. Los autores deben recibirse antes que los libros y en orden de id.
+     *
+     * @param autor Autor a agregar.
+     * @throws IOException si no puede escribirse el archivo temporal.
+     */
+    void autor(Autor autor) throws IOException {
+        if (stockAutores != null) {
+            throw new IllegalStateException("Los autores deben agregarse antes que los libros");
+        }
+        if (!autores.isEmpty() && autor.getId() <= autores.get(autores.size() - 1).getId()) {
+            throw new IllegalArgumentException("Los autores deben agregarse en orden de id: " + autor.getId());
+        }
+        posicionAutores.poner(autor.getId(), autores.size());
+        autores.add(autor);
+        textosAutores.add(new int[]{texto(autor.getNombre()), texto(autor.getApellido()), texto(autor.getNacionalidad())});
+    }
+
+    /**
+     * Agrega un libro con su autor, que ya debe haberse agregado. Los libros deben
+     * recibirse en orden de id.
+     *
+     * @param libro Libro a agregar.
+     * @throws IOException si no puede escribirse el archivo temporal.
+     */
+    void libro(Libro libro) throws IOException {
+        if (stockAutores == null) {
+            stockAutores = new long[autores.size()];
+            librosAutores = new int[autores.size()];
+        }
+        if (libros > 0 && libro.getId() <= ids[libros - 1]) {
+            throw new IllegalArgumentException("Los libros deben agregarse en orden de id: " + libro.getId());
+        }
+        int autor = SIN_VALOR;
+        if (libro.getAutor() != null) {
+            long posicion = posicionAutores.obtener(libro.getAutor().getId());
+            if (posicion == MapaLongLong.AUSENTE) {
+                throw new IllegalArgumentException("El autor " + libro.getAutor().getId() + " del libro "
+                        + libro.getId() + " no se agregó a la instantánea");
+            }
+            autor = (int) posicion;
+            stockAutores[autor] += libro.getStock();
+            librosAutores[autor]++;
+        }
+
+        if (libros == ids.length) {
+            int capacidad = libros * 2;
+            ids = Arrays.copyOf(ids, capacidad);
+            autorLibros = Arrays.copyOf(autorLibros, capacidad);
+            isbns = Arrays.copyOf(isbns, capacidad);
+            normalizados = Arrays.copyOf(normalizados, capacidad);
+        }
+        String normalizado = IndiceTitulos.normalizar(libro.getTitulo());
+        ids[libros] = libro.getId();
+        autorLibros[libros] = autor;
+        isbns[libros] = IndiceIsbn.normalizar(libro.getIsbn());
+        normalizados[libros] = texto(normalizado);
+        titulos.add(libro.getTitulo());
+        titulosNormalizados.add(normalizado);
+        libros++;
+
+        salidaRegistros.writeLong(libro.getId());
+        salidaRegistros.writeLong(libro.getVersion());
+        salidaRegistros.writeLong(micros(libro.getModificado()));
+        salidaRegistros.writeInt(autor);
+        salidaRegistros.writeInt(libro.getStock());
+        salidaRegistros.writeInt(texto(libro.getTitulo()));
+        salidaRegistros.writeInt(texto(libro.getIsbn()));
+    }
+
+    /**
+     * Escribe la instantánea completa y reemplaza el archivo de destino.
+     *
+     * @return Cantidad de libros escritos.
+     * @throws IOException si no puede escribirse el archivo o supera los 2 GiB.
+     */
+    int terminar() throws IOException {
+        if (stockAutores == null) {
+            stockAutores = new long[autores.size()];
+            librosAutores = new int[autores.size()];
+        }
+        salidaRegistros.close();
+        salidaTextos.close();
+
+        int[] porTitulo = ordenar(Comparator.<Integer, String>comparing(titulos::get)
+                .thenComparingLong(i -> ids[i]), IntStream.range(0, libros));
+        int[] porNormalizado = ordenar(Comparator.<Integer, String>comparing(titulosNormalizados::get)
+                .thenComparingLong(i -> ids[i]), IntStream.range(0, libros));
+        int[] porIsbn = ordenar(Comparator.comparingLong(i -> isbns[i]),
+                IntStream.range(0, libros).filter(i -> isbns[i] != IndiceIsbn.INVALIDO));
+        // El orden de id se conserva dentro de cada autor
+        int[] porAutor = ordenar(Comparator.comparingInt(i -> autorLibros[i]),
+                IntStream.range(0, libros).filter(i -> autorLibros[i] != SIN_VALOR));
+
+        long inicioAutores = CABECERA;
+        long inicioLibros = inicioAutores + (long) autores.size() * AUTOR;
+        long inicioTitulos = inicioLibros + (long) libros * LIBRO;
+        long inicioSugerencias = inicioTitulos + (long) libros * Integer.BYTES;
+        long inicioIsbn = inicioSugerencias + (long) libros * SUGERENCIA;
+        long inicioPorAutor = inicioIsbn + (long) porIsbn.length * ISBN;
+        long inicioTextos = inicioPorAutor + (long) porAutor.length * Integer.BYTES;
+        long tamano = inicioTextos + tamanoTextos;
+        if (tamano > Integer.MAX_VALUE) {
+            throw new IOException("La instantánea ocuparía " + tamano + " bytes y supera el máximo de 2 GiB");
+        }
+
+        Path temporal = Files.createTempFile(destino.getParent(), destino.getFileName() + ".", ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+            DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal)));
+            salida.writeInt(MAGICO);
+            salida.writeInt(VERSION);
+            salida.writeLong(micros(Instant.now()));
+            salida.writeInt(autores.size());
+            salida.writeInt(libros);
+            for (long inicio : new long[]{inicioAutores, inicioLibros, inicioTitulos, inicioSugerencias,
+                    inicioIsbn, inicioPorAutor, inicioTextos, tamano}) {
+                salida.writeInt((int) inicio);
+            }
+            for (int i = 0; i < autores.size(); i++) {
+                Autor autor = autores.get(i);
+                salida.writeLong(autor.getId());
+                salida.writeLong(autor.getVersion());
+                salida.writeLong(micros(autor.getModificado()));
+                salida.writeLong(stockAutores[i]);
+                salida.writeInt(librosAutores[i]);
+                for (int texto : textosAutores.get(i)) {
+                    salida.writeInt(texto);
+                }
+            }
+            Files.copy(registros, salida);
+            for (int posicion : porTitulo) {
+                salida.writeInt(posicion);
+            }
+            for (int posicion : porNormalizado) {
+                salida.writeInt(normalizados[posicion]);
+                salida.writeInt(posicion);
+            }
+            for (int posicion : porIsbn) {
+                salida.writeLong(isbns[posicion]);
+                salida.writeInt(posicion);
+            }
+            for (int posicion : porAutor) {
+                salida.writeInt(posicion);
+            }
+            Files.copy(textos, salida);
+            salida.flush();
+            canal.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return libros;
+    }
+
+    /**
+     * Elimina los archivos temporales.
+     */
+    @Override
+    public void close() throws IOException {
+        salidaRegistros.close();
+        salidaTextos.close();
+        Files.deleteIfExists(registros);
+        Files.deleteIfExists(textos);
+    }
+
+    /**
+     * Escribe un texto y devuelve su desplazamiento dentro de la sección de textos.
+     */
+    private int texto(String texto) throws IOException {
+        if (texto == null) {
+            return SIN_VALOR;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Texto demasiado largo para la instantánea: " + bytes.length + " bytes");
+        }
+        if (tamanoTextos > Integer.MAX_VALUE) {
+            throw new IOException("Los textos de la instantánea superan el máximo de 2 GiB");
+        }
+        int desplazamiento = (int) tamanoTextos;
+        salidaTextos.writeShort(bytes.length);
+        salidaTextos.write(bytes);
+        tamanoTextos += 2 + bytes.length;
+        return desplazamiento;
+    }
+
+    private static int[] ordenar(Comparator<Integer> orden, IntStream posiciones) {
+        // El ordenamiento de objetos es estable
+        return posiciones.boxed().sorted(orden).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static long micros(Instant momento) {
+        return momento == null ? SIN_FECHA : ChronoUnit.MICROS.between(Instant.EPOCH, momento);
+    }
+}
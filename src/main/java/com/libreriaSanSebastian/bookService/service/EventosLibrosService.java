@@ -0,0 +1,422 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.config.ConBaseDatos;
+import com.libreriaSanSebastian.bookService.dto.EventoLibro;
+import com.libreriaSanSebastian.bookService.dto.StockLibro;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Canal de eventos (Server-Sent Events) con los cambios de stock y de catálogo,
+ * para que los clientes no consulten el listado de libros periódicamente.
+ *
+ * LibroService publica cada cambio como evento de Spring y este servicio lo recibe
+ * después de confirmarse la transacción, de modo que nunca se anuncia un cambio
+ * revertido. Los cambios se acumulan por libro y se publican cada
+ * libros.eventos.intervalo-ms: una ráfaga de ventas del mismo libro produce un solo
+ * evento, con el stock leído en una única consulta para todo el intervalo.
+ *
+ * Cada suscriptor es un SseEmitter asíncrono, que no ocupa un hilo mientras espera.
+ * Los envíos se hacen desde un pool fijo de hilos, y cada suscriptor tiene un buffer
+ * propio de como máximo libros.eventos.buffer libros, donde los cambios pendientes
+ * del mismo libro también se agrupan. Si un cliente lento desborda su buffer, los
+ * cambios pendientes se descartan y recibe un evento resincronizar para que vuelva
+ * a leer el listado, sin afectar al resto de suscriptores.
+ *
+ * Un envío que no termina en libros.eventos.limite-envio (cliente que dejó de leer con
+ * la conexión abierta) se da por estancado: el suscriptor se descarta, se interrumpe la
+ * escritura y el pool suma un hilo mientras ese envío siga bloqueado, para que unos
+ * pocos clientes estancados no dejen sin envíos al resto. Al liberarse la escritura, el
+ * emisor se completa con error y el pool vuelve a su tamaño.
+ */
+@Service
+@ConBaseDatos
+public class EventosLibrosService {
+
+    /**
+     * Cantidad de suscriptores conectados.
+     */
+    public static final String METRICA_SUSCRIPTORES = "libros.eventos.suscriptores";
+
+    /**
+     * Desbordes del buffer de un suscriptor, que lo obligan a resincronizarse.
+     */
+    public static final String METRICA_DESBORDES = "libros.eventos.desbordes";
+
+    /**
+     * Suscriptores descartados porque un envío superó libros.eventos.limite-envio.
+     */
+    public static final String METRICA_ESTANCADOS = "libros.eventos.estancados";
+
+    /**
+     * Nombre del evento SSE con la lista de cambios.
+     */
+    public static final String EVENTO_LIBROS = "libros";
+
+    /**
+     * Nombre del evento SSE que indica que se perdieron cambios y el cliente debe volver a leer el listado.
+     */
+    public static final String EVENTO_RESINCRONIZAR = "resincronizar";
+
+    private static final int IDS_POR_CONSULTA = 1000;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private StockCalienteService stockCaliente;
+
+    @Value("${libros.eventos.buffer:256}")
+    private int capacidadBuffer;
+
+    @Value("${libros.eventos.max-suscriptores:10000}")
+    private int maxSuscriptores;
+
+    @Value("${libros.eventos.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${libros.eventos.hilos-envio:4}")
+    private int hilosEnvio;
+
+    @Value("${libros.eventos.limite-envio:10s}")
+    private Duration limiteEnvio;
+
+    private final Map<Long, EventoLibro.Tipo> pendientes = new ConcurrentHashMap<>();
+
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong secuencia = new AtomicLong();
+
+    private Executor envios;
+
+    @PostConstruct
+    public void iniciar() {
+        AtomicInteger numero = new AtomicInteger();
+        envios = new ThreadPoolExecutor(hilosEnvio, hilosEnvio, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), tarea -> {
+            Thread hilo = new Thread(tarea, "eventos-libros-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        Metrics.gauge(METRICA_SUSCRIPTORES, suscriptores, Set::size);
+    }
+
+    /**
+     * Registra un nuevo suscriptor.
+     *
+     * @return Emisor SSE del suscriptor, o vacío si se alcanzó el máximo de suscriptores.
+     */
+    public Optional<SseEmitter> suscribir() {
+        if (suscriptores.size() >= maxSuscriptores) {
+            return Optional.empty();
+        }
+        SseEmitter emisor = new SseEmitter(timeout.toMillis());
+        agregar(emisor);
+        return Optional.of(emisor);
+    }
+
+    Suscriptor agregar(SseEmitter emisor) {
+        Suscriptor suscriptor = new Suscriptor(emisor);
+        suscriptores.add(suscriptor);
+        emisor.onCompletion(() -> suscriptores.remove(suscriptor));
+        emisor.onTimeout(emisor::complete);
+        emisor.onError(error -> suscriptores.remove(suscriptor));
+        return suscriptor;
+    }
+
+    /**
+     * Acumula un cambio confirmado hasta la próxima publicación. Si no hay transacción
+     * activa (el cambio ya se confirmó en el repositorio) se acumula de inmediato.
+     *
+     * @param cambio Cambio publicado por LibroService.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void registrar(EventoLibro cambio) {
+        pendientes.merge(cambio.getId(), cambio.getTipo(), EventoLibro.Tipo::combinar);
+    }
+
+    /**
+     * Publica a todos los suscriptores los cambios acumulados desde la publicación anterior.
+     */
+    @Scheduled(fixedDelayString = "${libros.eventos.intervalo-ms:250}")
+    public void publicar() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        Map<Long, EventoLibro.Tipo> cambios = new TreeMap<>();
+        for (Long id : pendientes.keySet()) {
+            EventoLibro.Tipo tipo = pendientes.remove(id);
+            if (tipo != null) {
+                cambios.put(id, tipo);
+            }
+        }
+        if (suscriptores.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> stock = stockActual(cambios.entrySet().stream()
+                .filter(e -> e.getValue() != EventoLibro.Tipo.ELIMINADO)
+                .map(Map.Entry::getKey)
+                .toList());
+        List<EventoLibro> eventos = new ArrayList<>(cambios.size());
+        cambios.forEach((id, tipo) -> {
+            Integer disponible = stock.get(id);
+            eventos.add(disponible == null
+                    ? new EventoLibro(id, EventoLibro.Tipo.ELIMINADO, null)
+                    : new EventoLibro(id, tipo, disponible));
+        });
+
+        long numero = secuencia.incrementAndGet();
+        suscriptores.forEach(suscriptor -> suscriptor.encolar(numero, eventos));
+    }
+
+    /**
+     * Envía un comentario a los suscriptores sin cambios pendientes, para que los proxies
+     * no cierren las conexiones inactivas y para detectar los clientes desconectados.
+     */
+    @Scheduled(fixedDelayString = "${libros.eventos.latido-ms:30000}")
+    public void latir() {
+        suscriptores.forEach(Suscriptor::latir);
+    }
+
+    /**
+     * Descarta los suscriptores cuyo envío en curso superó libros.eventos.limite-envio.
+     */
+    @Scheduled(fixedDelayString = "${libros.eventos.revision-envios-ms:1000}")
+    public void revisarEnvios() {
+        long limite = System.nanoTime() - limiteEnvio.toNanos();
+        suscriptores.forEach(suscriptor -> {
+            if (suscriptor.descartarSiEstancado(limite)) {
+                suscriptores.remove(suscriptor);
+                Metrics.counter(METRICA_ESTANCADOS).increment();
+                ajustarHilos(1);
+            }
+        });
+    }
+
+    /**
+     * Suma o resta hilos al pool de envíos mientras hay escrituras estancadas.
+     */
+    private void ajustarHilos(int delta) {
+        if (envios instanceof ThreadPoolExecutor pool) {
+            synchronized (pool) {
+                if (delta > 0) {
+                    pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+                    pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+                } else {
+                    pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+                    pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cierra las conexiones de los suscriptores al detener la aplicación.
+     */
+    @PreDestroy
+    public void cerrar() {
+        suscriptores.forEach(suscriptor -> suscriptor.emisor.complete());
+        if (envios instanceof ExecutorService servicio) {
+            servicio.shutdownNow();
+        }
+    }
+
+    /**
+     * Stock disponible de los libros existentes: el persistido más las unidades
+     * reservadas en memoria por el motor de stock caliente.
+     */
+    private Map<Long, Integer> stockActual(List<Long> ids) {
+        Map<Long, Integer> stock = new HashMap<>();
+        for (int desde = 0; desde < ids.size(); desde += IDS_POR_CONSULTA) {
+            List<Long> bloque = ids.subList(desde, Math.min(desde + IDS_POR_CONSULTA, ids.size()));
+            for (StockLibro fila : libroRepository.findStockByIds(bloque)) {
+                stock.put(fila.getId(), fila.getStock() + stockCaliente.unidadesReservadas(fila.getId()));
+            }
+        }
+        return stock;
+    }
+
+    /**
+     * Suscriptor con su buffer de cambios pendientes de enviar.
+     *
+     * Como máximo hay una tarea de envío por suscriptor; mientras envía, los nuevos
+     * cambios se agregan al buffer y la misma tarea los envía al terminar.
+     */
+    final class Suscriptor {
+
+        private final SseEmitter emisor;
+
+        private final Map<Long, EventoLibro> buffer = new LinkedHashMap<>();
+
+        private long ultimaSecuencia;
+
+        private boolean resincronizar;
+
+        private boolean latido;
+
+        private boolean enviando;
+
+        /**
+         * Hilo que escribe y System.nanoTime() al empezar la escritura en curso, 0 si no escribe.
+         */
+        private Thread hiloEnvio;
+
+        private long inicioEnvio;
+
+        private boolean descartado;
+
+        Suscriptor(SseEmitter emisor) {
+            this.emisor = emisor;
+        }
+
+        /**
+         * Marca el suscriptor como descartado e interrumpe su escritura si empezó antes del límite.
+         *
+         * @param limite System.nanoTime() antes del cual una escritura se considera estancada.
+         * @return true si se descartó.
+         */
+        synchronized boolean descartarSiEstancado(long limite) {
+            if (descartado || inicioEnvio == 0 || inicioEnvio - limite > 0) {
+                return false;
+            }
+            descartado = true;
+            buffer.clear();
+            hiloEnvio.interrupt();
+            return true;
+        }
+
+        private void escribir(SseEmitter.SseEventBuilder evento) throws IOException {
+            synchronized (this) {
+                hiloEnvio = Thread.currentThread();
+                inicioEnvio = System.nanoTime();
+            }
+            try {
+                emisor.send(evento);
+            } finally {
+                synchronized (this) {
+                    inicioEnvio = 0;
+                    hiloEnvio = null;
+                    if (descartado) {
+                        // La interrupción era para esta escritura: no debe llegar a la próxima tarea del hilo
+                        Thread.interrupted();
+                    }
+                }
+            }
+            synchronized (this) {
+                if (descartado) {
+                    throw new IOException("Envío estancado más de " + limiteEnvio);
+                }
+            }
+        }
+
+        void encolar(long numero, List<EventoLibro> eventos) {
+            synchronized (this) {
+                for (EventoLibro evento : eventos) {
+                    EventoLibro anterior = buffer.remove(evento.getId());
+                    buffer.put(evento.getId(), anterior == null ? evento : new EventoLibro(evento.getId(),
+                            anterior.getTipo().combinar(evento.getTipo()), evento.getStock()));
+                }
+                if (buffer.size() > capacidadBuffer) {
+                    buffer.clear();
+                    resincronizar = true;
+                    Metrics.counter(METRICA_DESBORDES).increment();
+                }
+                ultimaSecuencia = numero;
+            }
+            programar();
+        }
+
+        void latir() {
+            synchronized (this) {
+                latido = true;
+            }
+            programar();
+        }
+
+        private void programar() {
+            synchronized (this) {
+                if (enviando) {
+                    return;
+                }
+                enviando = true;
+            }
+            envios.execute(this::enviar);
+        }
+
+        private void enviar() {
+            while (true) {
+                List<EventoLibro> eventos;
+                boolean avisarResincronizacion;
+                boolean enviarLatido;
+                long numero;
+                synchronized (this) {
+                    if (buffer.isEmpty() && !resincronizar && !latido) {
+                        enviando = false;
+                        return;
+                    }
+                    eventos = new ArrayList<>(buffer.values());
+                    avisarResincronizacion = resincronizar;
+                    enviarLatido = latido && eventos.isEmpty() && !resincronizar;
+                    numero = ultimaSecuencia;
+                    buffer.clear();
+                    resincronizar = false;
+                    latido = false;
+                }
+                try {
+                    if (avisarResincronizacion) {
+                        escribir(SseEmitter.event().id(String.valueOf(numero)).name(EVENTO_RESINCRONIZAR).data("{}"));
+                    }
+                    if (!eventos.isEmpty()) {
+                        escribir(SseEmitter.event().id(String.valueOf(numero)).name(EVENTO_LIBROS)
+                                .data(eventos, MediaType.APPLICATION_JSON));
+                    }
+                    if (enviarLatido) {
+                        escribir(SseEmitter.event().comment("latido"));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Cliente desconectado o estancado: se descarta sin reintentar
+                    suscriptores.remove(this);
+                    boolean estancado;
+                    synchronized (this) {
+                        buffer.clear();
+                        enviando = false;
+                        estancado = descartado;
+                    }
+                    if (estancado) {
+                        ajustarHilos(-1);
+                    }
+                    emisor.completeWithError(e);
+                    return;
+                }
+            }
+        }
+    }
+}
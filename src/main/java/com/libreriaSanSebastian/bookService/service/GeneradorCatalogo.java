@@ -0,0 +1,222 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.config.ConBaseDatos;
+import com.libreriaSanSebastian.bookService.config.SecuenciasConfig;
+import jakarta.persistence.EntityManagerFactory;
+import net.datafaker.Faker;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generador de catálogos sintéticos para reproducir volúmenes de producción en local y en CI.
+ *
+ * Para una misma semilla y una base de datos vacía genera siempre el mismo catálogo:
+ * autores con nombres en español, títulos armados con plantillas en español, una
+ * distribución de libros por autor sesgada (pocos autores concentran la mayoría de los
+ * libros) y niveles de stock donde predominan las cantidades bajas. Las filas se
+ * escriben con INSERT de varias filas por sentencia, sin pasar por JPA.
+ */
+@Service
+@ConBaseDatos
+public class GeneradorCatalogo {
+
+    private static final Logger log = LoggerFactory.getLogger(GeneradorCatalogo.class);
+
+    // Prefijo de los ISBN sintéticos: el resto del ISBN es el id del libro, así nunca se repiten
+    private static final long PREFIJO_ISBN = 979_000_000_000L;
+
+    private static final String[][] SUSTANTIVOS = {
+            {"la", "casa", "f"}, {"el", "silencio", "m"}, {"la", "noche", "f"}, {"el", "río", "m"},
+            {"la", "ciudad", "f"}, {"el", "jardín", "m"}, {"la", "memoria", "f"}, {"el", "viaje", "m"},
+            {"la", "sombra", "f"}, {"el", "invierno", "m"}, {"la", "isla", "f"}, {"el", "laberinto", "m"},
+            {"la", "tormenta", "f"}, {"el", "espejo", "m"}, {"la", "frontera", "f"}, {"el", "puerto", "m"},
+            {"la", "carta", "f"}, {"el", "desierto", "m"}, {"la", "lluvia", "f"}, {"el", "faro", "m"},
+            {"la", "herencia", "f"}, {"el", "camino", "m"}, {"la", "guerra", "f"}, {"el", "secreto", "m"},
+            {"la", "montaña", "f"}, {"el", "mar", "m"}, {"la", "promesa", "f"}, {"el", "olvido", "m"}
+    };
+
+    private static final String[] ADJETIVOS = {
+            "perdido", "oscuro", "antiguo", "secreto", "infinito", "dormido", "último", "olvidado",
+            "encantado", "breve", "triste", "azul", "feliz", "imposible", "salvaje", "quieto"
+    };
+
+    private static final String[] PREFIJOS = {
+            "Crónica de", "Memorias de", "Historia de", "El regreso de", "Cartas a", "Los días de"
+    };
+
+    private static final String[] NACIONALIDADES = {
+            "Chilena", "Chilena", "Chilena", "Argentina", "Argentina", "Colombiana", "Mexicana",
+            "Mexicana", "Peruana", "Española", "Española", "Uruguaya", "Cubana", "Venezolana"
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SecuenciasConfig secuencias;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${libros.semilla.filas-por-sentencia:500}")
+    private int filasPorSentencia;
+
+    /**
+     * Genera e inserta un catálogo sintético.
+     *
+     * @param autores Cantidad de autores a generar.
+     * @param libros  Cantidad de libros a generar.
+     * @param semilla Semilla de los generadores aleatorios.
+     * @param sesgo   Exponente de la distribución de libros por autor; 1 es uniforme y
+     *                valores mayores concentran más libros en los primeros autores.
+     */
+    public void generar(int autores, long libros, long semilla, double sesgo) {
+        long inicio = System.nanoTime();
+        Random aleatorio = new Random(semilla);
+        Faker faker = new Faker(Locale.forLanguageTag("es"), new Random(semilla + 1));
+
+        long primerAutor = maximoId("autores") + 1;
+        Insercion insercionAutores = new Insercion(
+                "INSERT INTO autores (id, nombre, apellido, nacionalidad, version) VALUES ", "(?, ?, ?, ?, 0)");
+        for (int i = 0; i < autores; i++) {
+            String apellido = aleatorio.nextInt(3) == 0
+                    ? faker.name().lastName() + " " + faker.name().lastName()
+                    : faker.name().lastName();
+            insercionAutores.agregar(primerAutor + i, recortar(faker.name().firstName(), 100),
+                    recortar(apellido, 100), NACIONALIDADES[aleatorio.nextInt(NACIONALIDADES.length)]);
+        }
+        insercionAutores.terminar();
+        log.info("Catálogo sintético: {} autores insertados", autores);
+
+        long primerLibro = maximoId("libros") + 1;
+        Insercion insercionLibros = new Insercion(
+                "INSERT INTO libros (id, titulo, isbn, stock, autor_id, version) VALUES ", "(?, ?, ?, ?, ?, 0)");
+        for (long i = 0; i < libros; i++) {
+            long id = primerLibro + i;
+            Long autor = autores == 0 ? null : primerAutor + (long) (autores * Math.pow(aleatorio.nextDouble(), sesgo));
+            insercionLibros.agregar(id, titulo(aleatorio, faker), IndiceIsbn.formatear(IndiceIsbn.completar(PREFIJO_ISBN + id)),
+                    stock(aleatorio), autor);
+            if ((i + 1) % 100_000 == 0) {
+                log.info("Catálogo sintético: {} de {} libros insertados", i + 1, libros);
+            }
+        }
+        insercionLibros.terminar();
+
+        secuencias.ajustarSecuencias();
+        // Las filas se insertaron sin pasar por Hibernate: se descarta la caché de segundo nivel
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        log.info("Catálogo sintético generado con semilla {}: {} autores y {} libros en {} ms",
+                semilla, autores, libros, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Indica si la tabla de libros no tiene filas.
+     *
+     * @return true si no hay libros.
+     */
+    public boolean catalogoVacio() {
+        return maximoId("libros") == 0;
+    }
+
+    private long maximoId(String tabla) {
+        Long maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabla, Long.class);
+        return maximo == null ? 0 : maximo;
+    }
+
+    static String titulo(Random aleatorio, Faker faker) {
+        String[] sustantivo = SUSTANTIVOS[aleatorio.nextInt(SUSTANTIVOS.length)];
+        String titulo;
+        switch (aleatorio.nextInt(5)) {
+            case 0 -> titulo = sustantivo[0] + " " + sustantivo[1] + " " + adjetivo(aleatorio, sustantivo[2]);
+            case 1 -> titulo = sustantivo[0] + " " + sustantivo[1] + " de " + faker.address().cityName();
+            case 2 -> {
+                String[] otro = SUSTANTIVOS[aleatorio.nextInt(SUSTANTIVOS.length)];
+                titulo = sustantivo[0] + " " + sustantivo[1] + " y " + otro[0] + " " + otro[1];
+            }
+            case 3 -> titulo = PREFIJOS[aleatorio.nextInt(PREFIJOS.length)] + " " + faker.name().firstName();
+            default -> titulo = sustantivo[0] + " " + sustantivo[1] + " de " + faker.name().firstName();
+        }
+        return recortar(Character.toUpperCase(titulo.charAt(0)) + titulo.substring(1), 150);
+    }
+
+    /**
+     * Stock con predominio de cantidades bajas y unos pocos libros con mucho stock.
+     */
+    static int stock(Random aleatorio) {
+        double r = aleatorio.nextDouble();
+        if (r < 0.08) {
+            return 0;
+        }
+        if (r < 0.75) {
+            return 1 + aleatorio.nextInt(10);
+        }
+        if (r < 0.97) {
+            return 11 + aleatorio.nextInt(90);
+        }
+        return 101 + aleatorio.nextInt(900);
+    }
+
+    private static String adjetivo(Random aleatorio, String genero) {
+        String adjetivo = ADJETIVOS[aleatorio.nextInt(ADJETIVOS.length)];
+        return "f".equals(genero) && adjetivo.endsWith("o")
+                ? adjetivo.substring(0, adjetivo.length() - 1) + "a"
+                : adjetivo;
+    }
+
+    private static String recortar(String texto, int largo) {
+        return texto.length() <= largo ? texto : texto.substring(0, largo);
+    }
+
+    /**
+     * Acumula filas y las inserta con una sentencia de varias filas al llegar al tamaño configurado.
+     */
+    private final class Insercion {
+
+        private final String prefijo;
+
+        private final String fila;
+
+        private final String sentenciaCompleta;
+
+        private final List<Object> valores = new ArrayList<>();
+
+        private int filas;
+
+        private Insercion(String prefijo, String fila) {
+            this.prefijo = prefijo;
+            this.fila = fila;
+            this.sentenciaCompleta = sentencia(filasPorSentencia);
+        }
+
+        private void agregar(Object... fila) {
+            Collections.addAll(valores, fila);
+            if (++filas == filasPorSentencia) {
+                terminar();
+            }
+        }
+
+        private void terminar() {
+            if (filas == 0) {
+                return;
+            }
+            jdbcTemplate.update(filas == filasPorSentencia ? sentenciaCompleta : sentencia(filas), valores.toArray());
+            valores.clear();
+            filas = 0;
+        }
+
+        private String sentencia(int cantidad) {
+            return prefijo + String.join(", ", Collections.nCopies(cantidad, fila));
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.libreriaSanSebastian.bookService.config.ConBaseDatos;
+import com.libreriaSanSebastian.bookService.dto.ErrorImportacion;
+import com.libreriaSanSebastian.bookService.dto.NombreAutor;
+import com.libreriaSanSebastian.bookService.dto.ResultadoImportacion;
+import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import com.libreriaSanSebastian.bookService.repository.AutorRepository;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Servicio de importación masiva de libros desde archivos CSV o NDJSON.
+ *
+ * El archivo se lee línea por línea y los libros se insertan en lotes, cada uno en
+ * su propia transacción: los ids se obtienen de la secuencia por bloques, por lo que
+ * Hibernate agrupa los INSERT de cada lote en sentencias JDBC por lotes, y el contexto
+ * de persistencia se vacía después de cada lote para que la memoria no crezca con el
+ * tamaño del archivo. Los autores se resuelven por nombre y apellido con un mapa local
+ * cargado una sola vez, creando los que no existen.
+ *
+ * Si un lote falla al insertarse, sus filas se reintentan una a una para identificar
+ * las que causan el error sin perder el resto.
+ */
+@Service
+@ConBaseDatos
+public class ImportacionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacionService.class);
+
+    /**
+     * Formato del archivo de importación.
+     */
+    public enum Formato {
+        /** Valores separados por comas con encabezado. */
+        CSV,
+        /** Un libro en JSON por línea. */
+        NDJSON
+    }
+
+    /**
+     * Columnas reconocidas en el encabezado de un CSV.
+     */
+    static final List<String> COLUMNAS = List.of(
+            "titulo", "isbn", "stock", "autor_nombre", "autor_apellido", "autor_nacionalidad");
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IndiceIsbn indiceIsbn;
+
+    @Autowired
+    private IndiceTitulos indiceTitulos;
+
+    @Value("${libros.importacion.lote:500}")
+    private int tamanoLote;
+
+    @Value("${libros.importacion.max-errores:1000}")
+    private int maxErrores;
+
+    /**
+     * Importa los libros del archivo indicado.
+     *
+     * @param origen  Contenido del archivo.
+     * @param formato Formato del archivo.
+     * @return Resumen de la importación con el detalle de las filas con error.
+     * @throws IOException Si no es posible leer el archivo.
+     */
+    public ResultadoImportacion importar(Reader origen, Formato formato) throws IOException {
+        long inicio = System.nanoTime();
+        Importacion importacion = new Importacion(cargarAutores());
+        BufferedReader lector = origen instanceof BufferedReader b ? b : new BufferedReader(origen, 64 * 1024);
+
+        long numero = 0;
+        int[] columnas = null;
+        if (formato == Formato.CSV) {
+            String encabezado = lector.readLine();
+            numero++;
+            columnas = leerEncabezado(encabezado);
+            if (columnas == null) {
+                importacion.error(numero, "El encabezado debe incluir las columnas titulo e isbn");
+                return importacion.resultado(inicio);
+            }
+        }
+
+        List<Fila> lote = new ArrayList<>(tamanoLote);
+        Set<Long> isbnsDelLote = new HashSet<>();
+        String linea;
+        while ((linea = lector.readLine()) != null) {
+            numero++;
+            if (linea.isBlank()) {
+                continue;
+            }
+            importacion.procesadas++;
+            try {
+                Libro libro = formato == Formato.CSV ? desdeCsv(linea, columnas) : desdeNdjson(linea);
+                long isbn = validar(libro);
+                if (!isbnsDelLote.add(isbn) || existeIsbn(isbn)) {
+                    throw new IllegalArgumentException("Ya existe un libro con el ISBN " + libro.getIsbn());
+                }
+                lote.add(new Fila(numero, libro, libro.getAutor()));
+            } catch (IllegalArgumentException e) {
+                importacion.error(numero, e.getMessage());
+            }
+
+            if (lote.size() >= tamanoLote) {
+                insertarLote(lote, importacion);
+                lote.clear();
+                isbnsDelLote.clear();
+                log.info("Importación en curso: {} filas procesadas, {} libros importados, {} errores",
+                        importacion.procesadas, importacion.importadas, importacion.totalErrores);
+            }
+        }
+        if (!lote.isEmpty()) {
+            insertarLote(lote, importacion);
+        }
+
+        ResultadoImportacion resultado = importacion.resultado(inicio);
+        log.info("Importación finalizada: {} filas procesadas, {} libros importados, {} autores creados, {} errores en {} ms",
+                resultado.getProcesadas(), resultado.getImportadas(), resultado.getAutoresCreados(),
+                resultado.getTotalErrores(), resultado.getDuracionMs());
+        return resultado;
+    }
+
+    /**
+     * Inserta un lote en una transacción. Si falla, reintenta sus filas de a una.
+     */
+    private void insertarLote(List<Fila> lote, Importacion importacion) {
+        Map<String, Long> autoresNuevos = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(estado -> {
+                for (Fila fila : lote) {
+                    persistir(fila, importacion.autores, autoresNuevos);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        } catch (PersistenceException | DataAccessException e) {
+            // Los autores creados en el lote no llegaron a la base de datos
+            importacion.autores.keySet().removeAll(autoresNuevos.keySet());
+            if (lote.size() == 1) {
+                Fila fila = lote.get(0);
+                importacion.error(fila.linea, "No se pudo insertar el libro: "
+                        + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            } else {
+                for (Fila fila : lote) {
+                    insertarLote(List.of(fila), importacion);
+                }
+            }
+            return;
+        }
+
+        for (Fila fila : lote) {
+            indiceIsbn.actualizar(fila.libro.getId(), fila.libro.getIsbn());
+            indiceTitulos.actualizar(fila.libro.getId(), fila.libro.getTitulo());
+        }
+        importacion.importadas += lote.size();
+        importacion.autoresCreados += autoresNuevos.size();
+    }
+
+    private void persistir(Fila fila, Map<String, Long> autores, Map<String, Long> autoresNuevos) {
+        Libro libro = fila.libro;
+        Autor autor = fila.autor;
+        if (autor != null) {
+            String clave = claveAutor(autor.getNombre(), autor.getApellido());
+            Long idAutor = autores.get(clave);
+            if (idAutor == null) {
+                Autor nuevo = new Autor(null, autor.getNombre().trim(), autor.getApellido().trim(), autor.getNacionalidad(), 0, null);
+                entityManager.persist(nuevo);
+                autores.put(clave, nuevo.getId());
+                autoresNuevos.put(clave, nuevo.getId());
+                libro.setAutor(nuevo);
+            } else {
+                libro.setAutor(entityManager.getReference(Autor.class, idAutor));
+            }
+        }
+        // Un reintento de un lote fallido vuelve a insertar el mismo objeto
+        libro.setId(null);
+        libro.setVersion(0);
+        entityManager.persist(libro);
+    }
+
+    /**
+     * Carga el id de todos los autores existentes indexado por nombre y apellido.
+     */
+    private Map<String, Long> cargarAutores() {
+        return transactionTemplate.execute(estado -> {
+            Map<String, Long> autores = new HashMap<>();
+            try (Stream<NombreAutor> nombres = autorRepository.streamNombres()) {
+                nombres.forEach(a -> autores.putIfAbsent(claveAutor(a.getNombre(), a.getApellido()), a.getId()));
+            }
+            return autores;
+        });
+    }
+
+    /**
+     * Indica si el ISBN ya pertenece a un libro. El índice en memoria descarta la mayoría
+     * de los ISBN nuevos sin consultar la base de datos.
+     */
+    private boolean existeIsbn(long isbn) {
+        if (indiceIsbn.isCargado() && indiceIsbn.buscar(isbn) == null) {
+            return false;
+        }
+        return libroRepository.existsByIsbn(IndiceIsbn.formatear(isbn));
+    }
+
+    /**
+     * Valida los datos de un libro y normaliza su ISBN.
+     *
+     * @return ISBN-13 normalizado.
+     */
+    private long validar(Libro libro) {
+        if (libro.getTitulo() == null || libro.getTitulo().isBlank()) {
+            throw new IllegalArgumentException("El título es requerido");
+        }
+        if (libro.getTitulo().length() > 150) {
+            throw new IllegalArgumentException("El título no puede superar los 150 caracteres");
+        }
+        long isbn = IndiceIsbn.normalizar(libro.getIsbn());
+        if (isbn == IndiceIsbn.INVALIDO) {
+            throw new IllegalArgumentException("El ISBN debe ser un ISBN-10 o ISBN-13 válido: " + libro.getIsbn());
+        }
+        libro.setIsbn(IndiceIsbn.formatear(isbn));
+        if (libro.getStock() == null) {
+            libro.setStock(0);
+        } else if (libro.getStock() < 0) {
+            throw new IllegalArgumentException("El stock no puede ser negativo");
+        }
+        Autor autor = libro.getAutor();
+        if (autor != null && (autor.getNombre() == null || autor.getNombre().isBlank()
+                || autor.getApellido() == null || autor.getApellido().isBlank())) {
+            throw new IllegalArgumentException("El autor requiere nombre y apellido");
+        }
+        return isbn;
+    }
+
+    private Libro desdeNdjson(String linea) {
+        try {
+            Libro libro = objectMapper.readValue(linea, Libro.class);
+            if (libro.getAutor() != null) {
+                libro.getAutor().setId(null);
+            }
+            return libro;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+
+    private Libro desdeCsv(String linea, int[] columnas) {
+        List<String> valores = separarCsv(linea);
+        Libro libro = new Libro();
+        libro.setTitulo(valor(valores, columnas[0]));
+        libro.setIsbn(valor(valores, columnas[1]));
+        String stock = valor(valores, columnas[2]);
+        if (stock != null) {
+            try {
+                libro.setStock(Integer.parseInt(stock.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("El stock debe ser un número entero: " + stock);
+            }
+        }
+        String nombre = valor(valores, columnas[3]);
+        String apellido = valor(valores, columnas[4]);
+        if (nombre != null || apellido != null) {
+            libro.setAutor(new Autor(null, nombre, apellido, valor(valores, columnas[5]), 0, null));
+        }
+        return libro;
+    }
+
+    /**
+     * Obtiene la posición de cada columna de {@link #COLUMNAS} en el encabezado.
+     *
+     * @return Posiciones (-1 si la columna no está), o null si faltan titulo o isbn.
+     */
+    static int[] leerEncabezado(String encabezado) {
+        if (encabezado == null) {
+            return null;
+        }
+        // Quita la marca BOM que agregan algunas hojas de cálculo
+        List<String> nombres = separarCsv(encabezado.replace("\uFEFF", ""));
+        int[] columnas = new int[COLUMNAS.size()];
+        for (int i = 0; i < columnas.length; i++) {
+            columnas[i] = -1;
+            for (int j = 0; j < nombres.size(); j++) {
+                if (COLUMNAS.get(i).equalsIgnoreCase(nombres.get(j).trim())) {
+                    columnas[i] = j;
+                }
+            }
+        }
+        return columnas[0] < 0 || columnas[1] < 0 ? null : columnas;
+    }
+
+    /**
+     * Separa una línea CSV en campos. Admite campos entre comillas dobles con comas
+     * y comillas escapadas ("").
+     */
+    static List<String> separarCsv(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("Comillas sin cerrar");
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+
+    private static String valor(List<String> valores, int columna) {
+        if (columna < 0 || columna >= valores.size() || valores.get(columna).isBlank()) {
+            return null;
+        }
+        return valores.get(columna);
+    }
+
+    private static String claveAutor(String nombre, String apellido) {
+        return (nombre.trim() + '\u0000' + apellido.trim()).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Fila válida pendiente de insertar.
+     */
+    private static final class Fila {
+
+        private final long linea;
+
+        private final Libro libro;
+
+        // Datos del autor leídos del archivo; el libro pasa a referenciar la entidad persistida
+        private final Autor autor;
+
+        private Fila(long linea, Libro libro, Autor autor) {
+            this.linea = linea;
+            this.libro = libro;
+            this.autor = autor;
+        }
+    }
+
+    /**
+     * Estado de una importación en curso.
+     */
+    private final class Importacion {
+
+        private final Map<String, Long> autores;
+
+        private final List<ErrorImportacion> errores = new ArrayList<>();
+
+        private long procesadas;
+
+        private long importadas;
+
+        private long autoresCreados;
+
+        private long totalErrores;
+
+        private Importacion(Map<String, Long> autores) {
+            this.autores = autores;
+        }
+
+        private void error(long linea, String mensaje) {
+            totalErrores++;
+            if (errores.size() < maxErrores) {
+                errores.add(new ErrorImportacion(linea, mensaje));
+            }
+        }
+
+        private ResultadoImportacion resultado(long inicio) {
+            return new ResultadoImportacion(procesadas, importadas, autoresCreados, totalErrores,
+                    errores, (System.nanoTime() - inicio) / 1_000_000);
+        }
+    }
+}
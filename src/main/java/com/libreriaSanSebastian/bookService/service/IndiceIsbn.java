@@ -0,0 +1,183 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.config.ConBaseDatos;
+import com.libreriaSanSebastian.bookService.dto.IsbnLibro;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+/**
+ * Índice en memoria de ISBN a id de libro.
+ *
+ * Cada ISBN se normaliza a ISBN-13 y se guarda como un {@code long} en un
+ * {@link MapaLongLong}, de modo que el índice ocupa unos 16 bytes por celda y las
+ * búsquedas no crean objetos. Se construye al iniciar la aplicación y se mantiene
+ * actualizado desde {@link LibroService}.
+ */
+@Component
+@ConBaseDatos
+public class IndiceIsbn {
+
+    /**
+     * Valor devuelto por {@link #normalizar(String)} cuando el ISBN no es válido.
+     */
+    public static final long INVALIDO = -1L;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    private final MapaLongLong ids = new MapaLongLong();
+
+    private volatile boolean cargado;
+
+    /**
+     * Carga todos los ISBN desde la base de datos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        ids.limpiar((int) libroRepository.count());
+        try (Stream<IsbnLibro> isbns = libroRepository.streamIsbns()) {
+            isbns.forEach(l -> actualizar(l.getId(), l.getIsbn()));
+        }
+        cargado = true;
+    }
+
+    /**
+     * Asocia el ISBN de un libro a su id. Los ISBN que no son válidos se ignoran.
+     *
+     * @param id   Identificador del libro.
+     * @param isbn ISBN del libro.
+     */
+    public void actualizar(Long id, String isbn) {
+        long clave = normalizar(isbn);
+        if (id != null && clave != INVALIDO) {
+            ids.poner(clave, id);
+        }
+    }
+
+    /**
+     * Quita el ISBN del índice si sigue asociado al libro indicado.
+     *
+     * @param isbn ISBN-13 normalizado.
+     * @param id   Identificador del libro.
+     */
+    public void eliminar(long isbn, Long id) {
+        ids.quitar(isbn, id);
+    }
+
+    /**
+     * Busca el id del libro con el ISBN indicado.
+     *
+     * @param isbn ISBN-13 normalizado.
+     * @return Id del libro, o null si no está indexado.
+     */
+    public Long buscar(long isbn) {
+        long id = ids.obtener(isbn);
+        return id == MapaLongLong.AUSENTE ? null : id;
+    }
+
+    /**
+     * @return true si el índice ya se cargó desde la base de datos.
+     */
+    public boolean isCargado() {
+        return cargado;
+    }
+
+    /**
+     * @return Cantidad de ISBN indexados.
+     */
+    public int tamano() {
+        return ids.tamano();
+    }
+
+    /**
+     * Normaliza un ISBN-10 o ISBN-13, con o sin guiones ni espacios, a ISBN-13.
+     * Los ISBN-10 se convierten con el prefijo 978 y se recalcula el dígito de control.
+     *
+     * @param isbn ISBN escrito por el usuario o leído por el escáner.
+     * @return ISBN-13 como número, o {@link #INVALIDO} si el formato o el dígito de control no son válidos.
+     */
+    public static long normalizar(String isbn) {
+        if (isbn == null) {
+            return INVALIDO;
+        }
+        long digitos = 0;
+        int cantidad = 0;
+        int sumaIsbn10 = 0;
+        boolean controlX = false;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            if (controlX) {
+                return INVALIDO;
+            }
+            if ((c == 'X' || c == 'x') && cantidad == 9) {
+                controlX = true;
+                sumaIsbn10 += 10;
+                cantidad++;
+                continue;
+            }
+            if (c < '0' || c > '9' || cantidad == 13) {
+                return INVALIDO;
+            }
+            int d = c - '0';
+            if (cantidad < 10) {
+                sumaIsbn10 += d * (10 - cantidad);
+            }
+            digitos = digitos * 10 + d;
+            cantidad++;
+        }
+
+        if (cantidad == 10) {
+            if (sumaIsbn10 % 11 != 0) {
+                return INVALIDO;
+            }
+            // Se descarta el dígito de control del ISBN-10 y se agrega el prefijo 978
+            return completar(978_000_000_000L + (controlX ? digitos : digitos / 10));
+        }
+        if (cantidad == 13 && (digitos / 10_000_000_000L == 978 || digitos / 10_000_000_000L == 979)
+                && digitos % 10 == digitoControl13(digitos / 10)) {
+            return digitos;
+        }
+        return INVALIDO;
+    }
+
+    /**
+     * Formatea un ISBN-13 normalizado como texto de 13 dígitos.
+     *
+     * @param isbn ISBN-13 normalizado.
+     * @return ISBN-13 sin guiones.
+     */
+    public static String formatear(long isbn) {
+        return Long.toString(isbn);
+    }
+
+    /**
+     * Completa un ISBN-13 agregando su dígito de control.
+     *
+     * @param primeros12 Primeros 12 dígitos del ISBN-13.
+     * @return ISBN-13 completo.
+     */
+    static long completar(long primeros12) {
+        return primeros12 * 10 + digitoControl13(primeros12);
+    }
+
+    private static int digitoControl13(long primeros12) {
+        int suma = 0;
+        for (int i = 0; i < 12; i++) {
+            int d = (int) (primeros12 % 10);
+            // Recorriendo desde el final, las posiciones impares pesan 3
+            suma += (i % 2 == 0) ? d * 3 : d;
+            primeros12 /= 10;
+        }
+        return (10 - suma % 10) % 10;
+    }
+}
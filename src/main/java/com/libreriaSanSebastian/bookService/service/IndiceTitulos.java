@@ -0,0 +1,133 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.config.ConBaseDatos;
+import com.libreriaSanSebastian.bookService.dto.SugerenciaTitulo;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Índice en memoria de títulos de libros para autocompletado por prefijo.
+ *
+ * Los títulos se normalizan (minúsculas, sin tildes ni diacríticos y con espacios
+ * colapsados) y se guardan en un mapa ordenado, de modo que las sugerencias de un
+ * prefijo son un rango contiguo del mapa y se obtienen sin consultar la base de datos.
+ * Se construye al iniciar la aplicación y se mantiene actualizado desde {@link LibroService}.
+ */
+@Component
+@ConBaseDatos
+public class IndiceTitulos {
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    // El separador es menor que cualquier carácter de un título, así los títulos
+    // iguales quedan juntos y ordenados por id
+    private static final char SEPARADOR = '\u0000';
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    private final NavigableMap<String, SugerenciaTitulo> indice = new ConcurrentSkipListMap<>();
+
+    private final Map<Long, String> clavesPorId = new ConcurrentHashMap<>();
+
+    /**
+     * Carga todos los títulos desde la base de datos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        indice.clear();
+        clavesPorId.clear();
+        try (Stream<SugerenciaTitulo> titulos = libroRepository.streamTitulos()) {
+            titulos.forEach(t -> actualizar(t.getId(), t.getTitulo()));
+        }
+    }
+
+    /**
+     * Agrega o reemplaza el título de un libro en el índice.
+     *
+     * @param id     Identificador del libro.
+     * @param titulo Título del libro.
+     */
+    public void actualizar(Long id, String titulo) {
+        if (id == null || titulo == null) {
+            return;
+        }
+        String clave = normalizar(titulo) + SEPARADOR + id;
+        String anterior = clavesPorId.put(id, clave);
+        if (anterior != null && !anterior.equals(clave)) {
+            indice.remove(anterior);
+        }
+        indice.put(clave, new SugerenciaTitulo(id, titulo));
+    }
+
+    /**
+     * Quita un libro del índice.
+     *
+     * @param id Identificador del libro.
+     */
+    public void eliminar(Long id) {
+        String clave = clavesPorId.remove(id);
+        if (clave != null) {
+            indice.remove(clave);
+        }
+    }
+
+    /**
+     * Busca los libros cuyo título comienza con el prefijo indicado,
+     * sin distinguir mayúsculas, minúsculas ni tildes.
+     *
+     * @param prefijo Texto escrito por el usuario.
+     * @param limite  Cantidad máxima de sugerencias.
+     * @return Sugerencias en orden alfabético del título normalizado.
+     */
+    public List<SugerenciaTitulo> sugerir(String prefijo, int limite) {
+        String normalizado = normalizar(prefijo);
+        List<SugerenciaTitulo> sugerencias = new ArrayList<>(Math.min(limite, 16));
+        if (normalizado.isEmpty()) {
+            return sugerencias;
+        }
+        for (SugerenciaTitulo sugerencia : indice.subMap(normalizado, true, normalizado + Character.MAX_VALUE, false).values()) {
+            if (sugerencias.size() >= limite) {
+                break;
+            }
+            sugerencias.add(sugerencia);
+        }
+        return sugerencias;
+    }
+
+    /**
+     * @return Cantidad de títulos indexados.
+     */
+    public int tamano() {
+        return clavesPorId.size();
+    }
+
+    /**
+     * Normaliza un texto para compararlo sin distinguir mayúsculas ni tildes.
+     *
+     * @param texto Texto original.
+     * @return Texto en minúsculas, sin diacríticos y con espacios simples.
+     */
+    static String normalizar(String texto) {
+        String sinDiacriticos = DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACIOS.matcher(sinDiacriticos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,505 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.dto.AutorConTotales;
+import com.libreriaSanSebastian.bookService.dto.LibroDeAutor;
+import com.libreriaSanSebastian.bookService.dto.SugerenciaTitulo;
+import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Libro;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Instantánea inmutable del catálogo (libros y autores) leída desde un archivo mapeado en memoria.
+ *
+ * El archivo lo escribe {@link EscritorInstantanea} y se mapea completo con
+ * {@link FileChannel#map}: los datos quedan fuera del heap, en la caché de páginas del
+ * sistema operativo, y cargar una instantánea solo valida la cabecera. Cada consulta
+ * decodifica únicamente los registros que devuelve.
+ *
+ * Formato (enteros big-endian, posiciones relativas al inicio del archivo):
+ * - cabecera de {@link #CABECERA} bytes: mágico, versión, fecha de generación, cantidades
+ *   y posición de cada sección;
+ * - autores en orden de id, registros de {@link #AUTOR} bytes con sus totales precalculados;
+ * - libros en orden de id, registros de {@link #LIBRO} bytes con la posición de su autor;
+ * - índices de posiciones de libros ordenados por título, por título normalizado (con el
+ *   texto normalizado), por ISBN-13 numérico y por autor;
+ * - textos en UTF-8 precedidos por su largo en 2 bytes.
+ *
+ * Los ordenamientos por título usan {@link String#compareTo}, igual al escribir y al leer.
+ * El archivo no puede superar 2 GiB, el límite de un único mapeo.
+ */
+public final class InstantaneaCatalogo {
+
+    static final int MAGICO = 0x4C534331;
+
+    static final int VERSION = 1;
+
+    static final int CABECERA = 56;
+
+    static final int AUTOR = 48;
+
+    static final int LIBRO = 40;
+
+    static final int SUGERENCIA = 8;
+
+    static final int ISBN = 12;
+
+    /**
+     * Marca de fecha de modificación ausente.
+     */
+    static final long SIN_FECHA = Long.MIN_VALUE;
+
+    /**
+     * Marca de texto o autor ausente.
+     */
+    static final int SIN_VALOR = -1;
+
+    private final ByteBuffer datos;
+
+    private final Instant generado;
+
+    private final int autores;
+
+    private final int libros;
+
+    private final int inicioAutores;
+
+    private final int inicioLibros;
+
+    private final int inicioTitulos;
+
+    private final int inicioSugerencias;
+
+    private final int inicioIsbn;
+
+    private final int inicioPorAutor;
+
+    private final int inicioTextos;
+
+    private final int isbns;
+
+    private final int porAutor;
+
+    private InstantaneaCatalogo(ByteBuffer datos) throws IOException {
+        this.datos = datos;
+        if (datos.capacity() < CABECERA || datos.getInt(0) != MAGICO) {
+            throw new IOException("El archivo no es una instantánea del catálogo");
+        }
+        if (datos.getInt(4) != VERSION) {
+            throw new IOException("Versión de instantánea no soportada: " + datos.getInt(4));
+        }
+        generado = fecha(datos.getLong(8));
+        autores = datos.getInt(16);
+        libros = datos.getInt(20);
+        inicioAutores = datos.getInt(24);
+        inicioLibros = datos.getInt(28);
+        inicioTitulos = datos.getInt(32);
+        inicioSugerencias = datos.getInt(36);
+        inicioIsbn = datos.getInt(40);
+        inicioPorAutor = datos.getInt(44);
+        inicioTextos = datos.getInt(48);
+        // El tamaño total detecta un archivo truncado, por ejemplo una copia incompleta
+        if (datos.getInt(52) != datos.capacity()
+                || inicioLibros != inicioAutores + autores * AUTOR
+                || inicioTitulos != inicioLibros + libros * LIBRO
+                || inicioSugerencias != inicioTitulos + libros * Integer.BYTES
+                || inicioIsbn != inicioSugerencias + libros * SUGERENCIA
+                || inicioTextos < inicioPorAutor || inicioPorAutor < inicioIsbn) {
+            throw new IOException("Instantánea del catálogo incompleta o dañada");
+        }
+        isbns = (inicioPorAutor - inicioIsbn) / ISBN;
+        porAutor = (inicioTextos - inicioPorAutor) / Integer.BYTES;
+    }
+
+    /**
+     * Mapea una instantánea en memoria y valida su cabecera.
+     *
+     * El mapeo sigue siendo válido después de cerrar el canal y se libera cuando la
+     * instantánea deja de usarse.
+     *
+     * @param archivo Archivo escrito por {@link EscritorInstantanea}.
+     * @return Instantánea lista para consultar.
+     * @throws IOException si el archivo no puede leerse o no es una instantánea válida.
+     */
+    public static InstantaneaCatalogo abrir(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            if (tamano > Integer.MAX_VALUE) {
+                throw new IOException("La instantánea supera el tamaño máximo de 2 GiB");
+            }
+            return new InstantaneaCatalogo(canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano));
+        }
+    }
+
+    /**
+     * @return Momento en que se exportó la instantánea.
+     */
+    public Instant getGenerado() {
+        return generado;
+    }
+
+    /**
+     * @return Cantidad de libros.
+     */
+    public int getLibros() {
+        return libros;
+    }
+
+    /**
+     * @return Cantidad de autores.
+     */
+    public int getAutores() {
+        return autores;
+    }
+
+    /**
+     * Busca un libro por su identificador, con su autor.
+     *
+     * @param id Identificador del libro.
+     * @return Optional con el libro si existe.
+     */
+    public Optional<Libro> libro(long id) {
+        int posicion = posicionLibro(id);
+        return posicion < 0 ? Optional.empty() : Optional.of(libroEn(posicion));
+    }
+
+    /**
+     * Obtiene, ordenados por id, los libros posteriores al cursor, o los anteriores en
+     * orden descendente si se recorre hacia atrás.
+     *
+     * @param cursor     Id del cursor, o null para comenzar desde el primero.
+     * @param haciaAtras true para obtener los libros con id menor al cursor.
+     * @param filas      Cantidad máxima de libros.
+     * @return Libros con sus autores en el orden recorrido.
+     */
+    public List<Libro> librosPorId(Long cursor, boolean haciaAtras, int filas) {
+        List<Libro> resultado = new ArrayList<>(Math.min(filas, 64));
+        if (haciaAtras) {
+            for (int i = primeraPosicionLibro(cursor) - 1; i >= 0 && resultado.size() < filas; i--) {
+                resultado.add(libroEn(i));
+            }
+        } else {
+            int desde = cursor == null ? 0 : primeraPosicionLibro(cursor + 1);
+            for (int i = desde; i < libros && resultado.size() < filas; i++) {
+                resultado.add(libroEn(i));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene, ordenados por título e id, los libros posteriores al cursor, o los
+     * anteriores en orden descendente si se recorre hacia atrás.
+     *
+     * @param cursor     Id del libro del cursor, o null para comenzar desde el primero.
+     * @param haciaAtras true para obtener los libros anteriores al cursor.
+     * @param filas      Cantidad máxima de libros.
+     * @return Libros con sus autores en el orden recorrido; vacío si el libro del cursor no existe.
+     */
+    public List<Libro> librosPorTitulo(Long cursor, boolean haciaAtras, int filas) {
+        List<Libro> resultado = new ArrayList<>(Math.min(filas, 64));
+        int rango = -1;
+        if (cursor != null) {
+            int posicion = posicionLibro(cursor);
+            if (posicion < 0) {
+                return resultado;
+            }
+            rango = primerRangoTitulo(texto(datos.getInt(libro(posicion) + 32)), cursor);
+        }
+        if (haciaAtras) {
+            for (int i = rango - 1; i >= 0 && resultado.size() < filas; i--) {
+                resultado.add(libroEn(posicionPorTitulo(i)));
+            }
+        } else {
+            for (int i = rango + 1; i < libros && resultado.size() < filas; i++) {
+                resultado.add(libroEn(posicionPorTitulo(i)));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Busca un libro por su título exacto; si hay varios, devuelve el de menor id.
+     *
+     * @param titulo Título del libro.
+     * @return Optional con el libro si existe.
+     */
+    public Optional<Libro> libroPorTitulo(String titulo) {
+        int rango = primerRangoTitulo(titulo, Long.MIN_VALUE);
+        if (rango < libros) {
+            int posicion = posicionPorTitulo(rango);
+            if (titulo.equals(texto(datos.getInt(libro(posicion) + 32)))) {
+                return Optional.of(libroEn(posicion));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Busca un libro por su ISBN-13 normalizado.
+     *
+     * @param isbn ISBN-13 como número, ver {@link IndiceIsbn#normalizar(String)}.
+     * @return Optional con el libro si existe.
+     */
+    public Optional<Libro> libroPorIsbn(long isbn) {
+        int bajo = 0;
+        int alto = isbns - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            long valor = datos.getLong(inicioIsbn + medio * ISBN);
+            if (valor < isbn) {
+                bajo = medio + 1;
+            } else if (valor > isbn) {
+                alto = medio - 1;
+            } else {
+                return Optional.of(libroEn(datos.getInt(inicioIsbn + medio * ISBN + 8)));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Busca los libros cuyo título normalizado comienza con el prefijo indicado.
+     *
+     * @param prefijo Prefijo ya normalizado, ver {@link IndiceTitulos#normalizar(String)}.
+     * @param limite  Cantidad máxima de sugerencias.
+     * @return Sugerencias en orden del título normalizado.
+     */
+    public List<SugerenciaTitulo> sugerir(String prefijo, int limite) {
+        List<SugerenciaTitulo> sugerencias = new ArrayList<>(Math.min(limite, 16));
+        if (prefijo.isEmpty()) {
+            return sugerencias;
+        }
+        // Primera sugerencia cuyo texto normalizado no es menor que el prefijo
+        int bajo = 0;
+        int alto = libros;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (texto(datos.getInt(inicioSugerencias + medio * SUGERENCIA)).compareTo(prefijo) < 0) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        for (int i = bajo; i < libros && sugerencias.size() < limite; i++) {
+            if (!texto(datos.getInt(inicioSugerencias + i * SUGERENCIA)).startsWith(prefijo)) {
+                break;
+            }
+            int registro = libro(datos.getInt(inicioSugerencias + i * SUGERENCIA + 4));
+            sugerencias.add(new SugerenciaTitulo(datos.getLong(registro), texto(datos.getInt(registro + 32))));
+        }
+        return sugerencias;
+    }
+
+    /**
+     * Recorre todos los libros en orden de id.
+     *
+     * @param consumidor Función que recibe cada libro con su autor.
+     * @return Cantidad de libros recorridos.
+     */
+    public long recorrerLibros(Consumer<Libro> consumidor) {
+        for (int i = 0; i < libros; i++) {
+            consumidor.accept(libroEn(i));
+        }
+        return libros;
+    }
+
+    /**
+     * Busca un autor por su identificador.
+     *
+     * @param id Identificador del autor.
+     * @return Optional con el autor si existe.
+     */
+    public Optional<Autor> autor(long id) {
+        int posicion = posicionAutor(id);
+        return posicion < 0 ? Optional.empty() : Optional.of(autorEn(posicion));
+    }
+
+    /**
+     * @return Todos los autores en orden de id.
+     */
+    public List<Autor> autores() {
+        List<Autor> resultado = new ArrayList<>(autores);
+        for (int i = 0; i < autores; i++) {
+            resultado.add(autorEn(i));
+        }
+        return resultado;
+    }
+
+    /**
+     * @return Todos los autores con la cantidad de libros y el stock total, en orden de id.
+     */
+    public List<AutorConTotales> autoresConTotales() {
+        List<AutorConTotales> resultado = new ArrayList<>(autores);
+        for (int i = 0; i < autores; i++) {
+            int registro = autor(i);
+            resultado.add(new AutorConTotales(datos.getLong(registro), texto(datos.getInt(registro + 36)),
+                    texto(datos.getInt(registro + 40)), texto(datos.getInt(registro + 44)), datos.getLong(registro + 8),
+                    (long) datos.getInt(registro + 32), datos.getLong(registro + 24)));
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene, ordenados por id, los libros de un autor cuyo id es mayor al cursor indicado.
+     *
+     * @param autorId   Identificador del autor.
+     * @param despuesDe Id del último libro de la página anterior.
+     * @param filas     Cantidad máxima de libros.
+     * @return Resúmenes de los libros del autor.
+     */
+    public List<LibroDeAutor> librosDeAutor(long autorId, long despuesDe, int filas) {
+        List<LibroDeAutor> resultado = new ArrayList<>(Math.min(filas, 64));
+        int autor = posicionAutor(autorId);
+        if (autor < 0) {
+            return resultado;
+        }
+        // Primer libro del autor con id mayor al cursor; el índice ordena por autor y luego por id
+        int bajo = 0;
+        int alto = porAutor;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            int registro = libro(datos.getInt(inicioPorAutor + medio * Integer.BYTES));
+            int autorMedio = datos.getInt(registro + 24);
+            if (autorMedio < autor || (autorMedio == autor && datos.getLong(registro) <= despuesDe)) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        for (int i = bajo; i < porAutor && resultado.size() < filas; i++) {
+            int registro = libro(datos.getInt(inicioPorAutor + i * Integer.BYTES));
+            if (datos.getInt(registro + 24) != autor) {
+                break;
+            }
+            resultado.add(new LibroDeAutor(datos.getLong(registro), texto(datos.getInt(registro + 32)),
+                    texto(datos.getInt(registro + 36)), datos.getInt(registro + 28)));
+        }
+        return resultado;
+    }
+
+    /**
+     * Decodifica el libro de una posición. Registro: id, versión, modificado (µs),
+     * posición del autor, stock, título e ISBN.
+     */
+    private Libro libroEn(int posicion) {
+        int registro = libro(posicion);
+        int autor = datos.getInt(registro + 24);
+        return new Libro(datos.getLong(registro), texto(datos.getInt(registro + 32)),
+                texto(datos.getInt(registro + 36)), datos.getInt(registro + 28),
+                autor == SIN_VALOR ? null : autorEn(autor), datos.getLong(registro + 8),
+                fecha(datos.getLong(registro + 16)));
+    }
+
+    /**
+     * Decodifica el autor de una posición. Registro: id, versión, modificado (µs),
+     * stock total, cantidad de libros, nombre, apellido y nacionalidad.
+     */
+    private Autor autorEn(int posicion) {
+        int registro = autor(posicion);
+        return new Autor(datos.getLong(registro), texto(datos.getInt(registro + 36)),
+                texto(datos.getInt(registro + 40)), texto(datos.getInt(registro + 44)),
+                datos.getLong(registro + 8), fecha(datos.getLong(registro + 16)));
+    }
+
+    private int libro(int posicion) {
+        return inicioLibros + posicion * LIBRO;
+    }
+
+    private int autor(int posicion) {
+        return inicioAutores + posicion * AUTOR;
+    }
+
+    private int posicionPorTitulo(int rango) {
+        return datos.getInt(inicioTitulos + rango * Integer.BYTES);
+    }
+
+    /**
+     * @return Posición del libro con el id indicado, o -1 si no existe.
+     */
+    private int posicionLibro(long id) {
+        int posicion = primeraPosicionLibro(id);
+        return posicion < libros && datos.getLong(libro(posicion)) == id ? posicion : -1;
+    }
+
+    /**
+     * @return Posición del primer libro con id mayor o igual al indicado.
+     */
+    private int primeraPosicionLibro(long id) {
+        int bajo = 0;
+        int alto = libros;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (datos.getLong(libro(medio)) < id) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * @return Posición del autor con el id indicado, o -1 si no existe.
+     */
+    private int posicionAutor(long id) {
+        int bajo = 0;
+        int alto = autores - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            long valor = datos.getLong(autor(medio));
+            if (valor < id) {
+                bajo = medio + 1;
+            } else if (valor > id) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Rango en el índice por título del primer libro no menor que (titulo, id).
+     */
+    private int primerRangoTitulo(String titulo, long id) {
+        int bajo = 0;
+        int alto = libros;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            int registro = libro(posicionPorTitulo(medio));
+            int comparacion = texto(datos.getInt(registro + 32)).compareTo(titulo);
+            if (comparacion < 0 || (comparacion == 0 && datos.getLong(registro) < id)) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    private String texto(int desplazamiento) {
+        if (desplazamiento == SIN_VALOR) {
+            return null;
+        }
+        int inicio = inicioTextos + desplazamiento;
+        byte[] bytes = new byte[datos.getShort(inicio) & 0xFFFF];
+        datos.get(inicio + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Instant fecha(long micros) {
+        return micros == SIN_FECHA ? null
+                : Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+}
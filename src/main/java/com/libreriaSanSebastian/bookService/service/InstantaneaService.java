@@ -0,0 +1,162 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import com.libreriaSanSebastian.bookService.repository.AutorRepository;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Instantáneas binarias del catálogo para los nodos de borde de solo lectura.
+ *
+ * En la primaria, {@link #exportar(Path)} escribe la instantánea a partir de la base de datos.
+ * En un nodo de borde (libros.instantanea.servir=true), la instantánea de
+ * libros.instantanea.archivo se mapea en memoria al iniciar y {@link LibroService} y
+ * {@link AutorService} responden sus lecturas desde ella, sin consultar la base de datos.
+ * El archivo se vigila cada libros.instantanea.verificacion-ms: cuando se reemplaza, la
+ * nueva instantánea se mapea y sustituye a la anterior de forma atómica; las consultas en
+ * curso terminan sobre la que ya tenían.
+ */
+@Service
+public class InstantaneaService {
+
+    /**
+     * Antigüedad en segundos de la instantánea servida.
+     */
+    public static final String METRICA_ANTIGUEDAD = "libros.instantanea.antiguedad";
+
+    private static final Logger log = LoggerFactory.getLogger(InstantaneaService.class);
+
+    @Autowired(required = false)
+    private AutorRepository autorRepository;
+
+    @Autowired(required = false)
+    private LibroRepository libroRepository;
+
+    @Autowired(required = false)
+    private EntityManager entityManager;
+
+    @Value("${libros.instantanea.archivo:}")
+    private String archivo;
+
+    @Value("${libros.instantanea.servir:false}")
+    private boolean servir;
+
+    private volatile InstantaneaCatalogo actual;
+
+    /**
+     * Fecha de modificación, tamaño e identidad del archivo servido, para detectar su reemplazo.
+     */
+    private volatile String firma;
+
+    /**
+     * Carga la instantánea al iniciar un nodo de borde. Sin una instantánea válida el
+     * nodo no tiene qué servir, por lo que el arranque falla.
+     *
+     * @throws IOException si la instantánea no existe o no es válida.
+     */
+    @PostConstruct
+    public void iniciar() throws IOException {
+        if (!servir) {
+            return;
+        }
+        if (archivo.isBlank()) {
+            throw new IllegalStateException("libros.instantanea.servir requiere indicar libros.instantanea.archivo");
+        }
+        cargar(Path.of(archivo));
+        Metrics.gauge(METRICA_ANTIGUEDAD, this,
+                s -> Duration.between(s.actual.getGenerado(), Instant.now()).toMillis() / 1000.0);
+    }
+
+    /**
+     * @return Instantánea servida, o null si el nodo lee de la base de datos.
+     */
+    public InstantaneaCatalogo actual() {
+        return actual;
+    }
+
+    /**
+     * Vuelve a cargar la instantánea si el archivo fue reemplazado. Si la nueva no es
+     * válida, por ejemplo una copia incompleta, se sigue sirviendo la anterior.
+     */
+    @Scheduled(fixedDelayString = "${libros.instantanea.verificacion-ms:10000}")
+    public void verificar() {
+        if (!servir) {
+            return;
+        }
+        Path ruta = Path.of(archivo);
+        try {
+            if (!firma(ruta).equals(firma)) {
+                cargar(ruta);
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo cargar la instantánea {}, se sigue sirviendo la generada {}: {}",
+                    ruta, actual.getGenerado(), e.getMessage());
+        }
+    }
+
+    /**
+     * Escribe una instantánea de todos los autores y libros, recorriendo los libros con un
+     * cursor y desacoplando cada uno del contexto de persistencia una vez escrito.
+     * El archivo se reemplaza de forma atómica al terminar.
+     *
+     * @param destino Archivo de la instantánea.
+     * @return Cantidad de libros exportados.
+     * @throws IOException si no puede escribirse el archivo.
+     */
+    @Transactional(readOnly = true)
+    public int exportar(Path destino) throws IOException {
+        long inicio = System.nanoTime();
+        try (EscritorInstantanea escritor = new EscritorInstantanea(destino);
+             Stream<Libro> libros = libroRepository.streamAllWithAutor()) {
+            for (Autor autor : autorRepository.findAll(Sort.by("id"))) {
+                escritor.autor(autor);
+            }
+            Iterator<Libro> iterador = libros.iterator();
+            while (iterador.hasNext()) {
+                Libro libro = iterador.next();
+                escritor.libro(libro);
+                entityManager.detach(libro);
+            }
+            int total = escritor.terminar();
+            log.info("Instantánea del catálogo exportada a {}: {} libros en {} ms", destino, total,
+                    (System.nanoTime() - inicio) / 1_000_000);
+            return total;
+        }
+    }
+
+    private synchronized void cargar(Path ruta) throws IOException {
+        // La firma se toma antes de abrir: si el archivo cambia en medio, se recarga en la próxima verificación
+        String nueva = firma(ruta);
+        InstantaneaCatalogo instantanea = InstantaneaCatalogo.abrir(ruta);
+        actual = instantanea;
+        firma = nueva;
+        log.info("Instantánea del catálogo cargada desde {}: {} libros y {} autores, generada {}",
+                ruta, instantanea.getLibros(), instantanea.getAutores(), instantanea.getGenerado());
+    }
+
+    private static String firma(Path ruta) throws IOException {
+        BasicFileAttributes atributos = Files.readAttributes(ruta, BasicFileAttributes.class);
+        return atributos.lastModifiedTime() + "/" + atributos.size() + "/" + Objects.toString(atributos.fileKey());
+    }
+}
@@ -1,78 +1,742 @@
 package com.libreriaSanSebastian.bookService.service;
 
+import com.libreriaSanSebastian.bookService.config.CacheConfig;
+import com.libreriaSanSebastian.bookService.dto.Cambios;
+import com.libreriaSanSebastian.bookService.dto.CamposSolicitados;
+import com.libreriaSanSebastian.bookService.dto.EventoLibro;
+import com.libreriaSanSebastian.bookService.dto.LineaStock;
+import com.libreriaSanSebastian.bookService.dto.MarcaCambios;
+import com.libreriaSanSebastian.bookService.dto.Pagina;
+import com.libreriaSanSebastian.bookService.dto.ResultadoLineaStock;
+import com.libreriaSanSebastian.bookService.dto.StockLibro;
+import com.libreriaSanSebastian.bookService.dto.SugerenciaTitulo;
+import com.libreriaSanSebastian.bookService.model.Eliminacion;
 import com.libreriaSanSebastian.bookService.model.Libro;
+import com.libreriaSanSebastian.bookService.repository.ActualizacionParcialRepository;
 import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import com.libreriaSanSebastian.bookService.repository.ProyeccionRepository;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Servicio para la gestión de libros.
  * 
  * Proporciona métodos para listar, buscar, guardar, eliminar y actualizar el stock de libros.
+ * En un nodo de borde las lecturas se responden desde la instantánea del catálogo
+ * (ver {@link InstantaneaService}) en lugar de la base de datos y las cachés.
  */
 @Service
 public class LibroService {
 
-    @Autowired
+    /**
+     * Contador de decrementos de stock, con las etiquetas motor (caliente, base_datos, lote)
+     * y resultado (exitoso, sin_stock). Un lote suma un decremento por libro, aunque la
+     * solicitud repita el libro en varias líneas.
+     */
+    public static final String METRICA_DECREMENTOS = "libros.stock.decrementos";
+
+    /**
+     * Orden de paginación por identificador.
+     */
+    public static final String ORDEN_ID = "id";
+
+    /**
+     * Orden de paginación por título (desempatando por identificador).
+     */
+    public static final String ORDEN_TITULO = "titulo";
+
+    @Autowired(required = false)
     private LibroRepository libroRepository;
 
+    @Autowired(required = false)
+    private ProyeccionRepository proyeccionRepository;
+
+    @Autowired(required = false)
+    private ActualizacionParcialRepository actualizacionParcial;
+
+    @Autowired(required = false)
+    private EntityManager entityManager;
+
+    @Autowired
+    private StockCalienteService stockCaliente;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired(required = false)
+    private IndiceTitulos indiceTitulos;
+
+    @Autowired(required = false)
+    private IndiceIsbn indiceIsbn;
+
+    @Autowired
+    private ApplicationEventPublisher publicador;
+
+    @Autowired(required = false)
+    private CambiosService cambios;
+
+    @Autowired
+    private InstantaneaService instantanea;
+
     /**
      * Obtiene la lista de todos los libros junto con sus autores.
+     * Si hay réplicas de lectura se consulta una de ellas, igual que los demás listados.
      * 
      * @return Lista de libros con información de autor.
      */
+    @Transactional(readOnly = true)
     public List<Libro> listarTodos() {
-        return libroRepository.findAllWithAutor();
+        InstantaneaCatalogo catalogo = instantanea.actual();
+        if (catalogo != null) {
+            List<Libro> libros = new ArrayList<>(catalogo.getLibros());
+            catalogo.recorrerLibros(libro -> libros.add(stockCaliente.conStockDisponible(libro)));
+            return libros;
+        }
+        return libroRepository.findAllWithAutor().stream().map(stockCaliente::conStockDisponible).toList();
+    }
+
+    /**
+     * Recorre el catálogo completo entregando cada libro al consumidor indicado.
+     *
+     * Los libros se leen con un cursor de base de datos y se desacoplan del contexto
+     * de persistencia una vez consumidos, de modo que la memoria usada no crece con
+     * el tamaño del catálogo.
+     *
+     * @param consumidor Función que recibe cada libro con su autor, en orden de id.
+     * @return Cantidad de libros exportados.
+     */
+    @Transactional(readOnly = true)
+    public long exportar(Consumer<Libro> consumidor) {
+        InstantaneaCatalogo catalogo = instantanea.actual();
+        if (catalogo != null) {
+            return catalogo.recorrerLibros(libro -> consumidor.accept(stockCaliente.conStockDisponible(libro)));
+        }
+        long total = 0;
+        try (Stream<Libro> libros = libroRepository.streamAllWithAutor()) {
+            for (Libro libro : (Iterable<Libro>) libros::iterator) {
+                consumidor.accept(stockCaliente.conStockDisponible(libro));
+                entityManager.detach(libro);
+                if (libro.getAutor() != null) {
+                    entityManager.detach(libro.getAutor());
+                }
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Obtiene una página de libros usando paginación por cursor (keyset).
+     *
+     * El límite se aplica en la consulta SQL; se solicita una fila extra para saber
+     * si existen más elementos en la dirección recorrida sin ejecutar un COUNT.
+     * Si se indica {@code antesDe} se recorre hacia atrás desde ese cursor.
+     *
+     * @param despuesDe Id del último libro de la página anterior, o null para la primera página.
+     * @param antesDe   Id del primer libro de la página siguiente, o null.
+     * @param limite    Cantidad máxima de libros de la página.
+     * @param orden     {@link #ORDEN_ID} u {@link #ORDEN_TITULO}.
+     * @return Página de libros con sus autores, siempre en orden ascendente.
+     */
+    @Transactional(readOnly = true)
+    public Pagina<Libro> listarPagina(Long despuesDe, Long antesDe, int limite, String orden) {
+        Pageable ventana = PageRequest.of(0, limite + 1);
+        boolean haciaAtras = antesDe != null;
+        Long cursor = haciaAtras ? antesDe : despuesDe;
+
+        InstantaneaCatalogo catalogo = instantanea.actual();
+        if (catalogo != null) {
+            return pagina(desdeInstantanea(catalogo, cursor, haciaAtras, limite + 1, orden).stream()
+                    .map(stockCaliente::conStockDisponible).toList(), limite, despuesDe != null, haciaAtras);
+        }
+
+        List<Libro> libros;
+        if (ORDEN_TITULO.equals(orden)) {
+            if (cursor == null) {
+                libros = libroRepository.findPrimerosPorTitulo(ventana);
+            } else {
+                // Si el libro del cursor ya no existe no es posible ubicar su posición
+                libros = libroRepository.findTituloById(cursor)
+                        .map(titulo -> haciaAtras
+                                ? libroRepository.findAnterioresPorTitulo(titulo, cursor, ventana)
+                                : libroRepository.findSiguientesPorTitulo(titulo, cursor, ventana))
+                        .orElse(List.of());
+            }
+        } else if (haciaAtras) {
+            libros = libroRepository.findAnterioresPorId(antesDe, ventana);
+        } else {
+            libros = libroRepository.findSiguientesPorId(despuesDe == null ? 0L : despuesDe, ventana);
+        }
+
+        return pagina(libros.stream().map(stockCaliente::conStockDisponible).toList(),
+                limite, despuesDe != null, haciaAtras);
+    }
+
+    /**
+     * Obtiene una página de libros con solo los campos solicitados.
+     *
+     * Recorre el catálogo igual que {@link #listarPagina}, pero cada consulta selecciona
+     * únicamente las columnas de los campos pedidos en lugar de cargar las entidades.
+     *
+     * @param campos    Campos a devolver.
+     * @param despuesDe Id del último libro de la página anterior, o null para la primera página.
+     * @param antesDe   Id del primer libro de la página siguiente, o null.
+     * @param limite    Cantidad máxima de libros de la página.
+     * @param orden     {@link #ORDEN_ID} u {@link #ORDEN_TITULO}.
+     * @return Página de filas con los campos solicitados, siempre en orden ascendente.
+     */
+    @Transactional(readOnly = true)
+    public Pagina<Map<String, Object>> listarPaginaParcial(CamposSolicitados campos, Long despuesDe, Long antesDe,
+                                                           int limite, String orden) {
+        int filas = limite + 1;
+        boolean haciaAtras = antesDe != null;
+        Long cursor = haciaAtras ? antesDe : despuesDe;
+
+        InstantaneaCatalogo catalogo = instantanea.actual();
+        if (catalogo != null) {
+            return pagina(desdeInstantanea(catalogo, cursor, haciaAtras, filas, orden).stream()
+                    .map(stockCaliente::conStockDisponible).map(campos::recortar).toList(),
+                    limite, despuesDe != null, haciaAtras);
+        }
+
+        List<Map<String, Object>> libros;
+        if (!ORDEN_TITULO.equals(orden)) {
+            libros = proyeccionRepository.librosPorId(campos, cursor, haciaAtras, filas);
+        } else if (cursor == null) {
+            libros = proyeccionRepository.librosPorTitulo(campos, null, null, false, filas);
+        } else {
+            libros = libroRepository.findTituloById(cursor)
+                    .map(titulo -> proyeccionRepository.librosPorTitulo(campos, titulo, cursor, haciaAtras, filas))
+                    .orElse(List.of());
+        }
+        libros.forEach(stockCaliente::conStockDisponible);
+        return pagina(libros, limite, despuesDe != null, haciaAtras);
+    }
+
+    /**
+     * Lee de la instantánea los libros de una página, en el orden recorrido, igual que las consultas de la base de datos.
+     */
+    private static List<Libro> desdeInstantanea(InstantaneaCatalogo catalogo, Long cursor, boolean haciaAtras,
+                                                int filas, String orden) {
+        return ORDEN_TITULO.equals(orden)
+                ? catalogo.librosPorTitulo(cursor, haciaAtras, filas)
+                : catalogo.librosPorId(cursor, haciaAtras, filas);
+    }
+
+    /**
+     * Recorta a la cantidad pedida las filas leídas (limite + 1) y las devuelve en orden ascendente.
+     */
+    private static <T> Pagina<T> pagina(List<T> filas, int limite, boolean conCursor, boolean haciaAtras) {
+        boolean hayMas = filas.size() > limite;
+        List<T> elementos = new ArrayList<>(hayMas ? filas.subList(0, limite) : filas);
+        if (haciaAtras) {
+            Collections.reverse(elementos);
+            return new Pagina<>(elementos, hayMas, true);
+        }
+        return new Pagina<>(elementos, conCursor, hayMas);
     }
 
     /**
      * Busca un libro por su identificador, incluyendo la información del autor.
+     *
+     * El resultado se guarda en la caché de libros; las escrituras sobre el libro lo invalidan.
+     * La caché guarda el stock persistido y el disponible se calcula en cada lectura.
      * 
      * @param id Identificador del libro.
      * @return Optional con el libro y su autor si existe.
      */
     public Optional<Libro> buscarPorId(Long id) {
-        return libroRepository.findByIdWithAutor(id);
+        InstantaneaCatalogo catalogo = instantanea.actual();
+        if (catalogo != null) {
+            return catalogo.libro(id).map(stockCaliente::conStockDisponible);
+        }
+        Cache libros = cacheManager.getCache(CacheConfig.LIBROS);
+        Libro enCache = libros.get(id, Libro.class);
+        if (enCache != null) {
+            return Optional.of(stockCaliente.conStockDisponible(enCache));
+        }
+        Optional<Libro> libro = libroRepository.findByIdWithAutor(id);
+        libro.ifPresent(l -> libros.put(id, l));
+        return libro.map(stockCaliente::conStockDisponible);
+    }
+
+    /**
+     * Busca un libro por su identificador y devuelve solo los campos solicitados.
+     *
+     * Si el libro está en la caché se recorta la entidad guardada; si no, se consultan
+     * únicamente las columnas pedidas, sin cargar la entidad ni guardarla en la caché.
+     *
+     * @param campos Campos a devolver.
+     * @param id     Identificador del libro.
+     * @return Optional con los campos del libro si existe.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> buscarParcial(CamposSolicitados campos, Long id) {
+        InstantaneaCatalogo catalogo = instantanea.actual();
+        if (catalogo != null) {
+            return catalogo.libro(id).map(stockCaliente::conStockDisponible).map(campos::recortar);
+        }
+        Libro enCache = cacheManager.getCache(CacheConfig.LIBROS).get(id, Libro.class);
+        if (enCache != null) {
+            return Optional.of(campos.recortar(stockCaliente.conStockDisponible(enCache)));
+        }
+        return proyeccionRepository.libro(campos, id).map(stockCaliente::conStockDisponible);
     }
 
     /**
      * Busca un libro por su título, incluyendo la información del autor.
+     *
+     * La caché de títulos solo guarda el id del libro, que luego se resuelve con
+     * {@link #buscarPorId(Long)}; así los cambios de stock o de título solo necesitan
+     * invalidar la entrada del libro. Si el libro encontrado ya no tiene ese título,
+     * la asociación se descarta y se consulta la base de datos.
      * 
      * @param titulo Título del libro.
      * @return Optional con el libro y su autor si existe.
      */
     public Optional<Libro> buscarPorTitulo(String titulo) {
-        return Optional.ofNullable(libroRepository.findByTituloWithAutor(titulo));
+        InstantaneaCatalogo catalogo = instantanea.actual();
+        if (catalogo != null) {
+            return catalogo.libroPorTitulo(titulo).map(stockCaliente::conStockDisponible);
+        }
+        Cache titulos = cacheManager.getCache(CacheConfig.LIBROS_POR_TITULO);
+        Long id = titulos.get(titulo, Long.class);
+        if (id != null) {
+            Optional<Libro> libro = buscarPorId(id);
+            if (libro.isPresent() && titulo.equals(libro.get().getTitulo())) {
+                return libro;
+            }
+            titulos.evict(titulo);
+        }
+        Optional<Libro> libro = Optional.ofNullable(libroRepository.findByTituloWithAutor(titulo));
+        libro.ifPresent(l -> {
+            titulos.put(titulo, l.getId());
+            cacheManager.getCache(CacheConfig.LIBROS).put(l.getId(), l);
+        });
+        return libro.map(stockCaliente::conStockDisponible);
+    }
+
+    /**
+     * Busca un libro por su ISBN-10 o ISBN-13, incluyendo la información del autor.
+     *
+     * El id se obtiene del índice de ISBN en memoria y el libro se resuelve con
+     * {@link #buscarPorId(Long)}. Si el libro ya no existe o cambió de ISBN, la entrada
+     * se descarta del índice. Mientras el índice no está cargado, o si el ISBN no está
+     * indexado (un libro creado por otra instancia), se consulta la base de datos.
+     *
+     * @param isbn ISBN con o sin guiones.
+     * @return Optional con el libro y su autor si existe.
+     */
+    public Optional<Libro> buscarPorIsbn(String isbn) {
+        long clave = IndiceIsbn.normalizar(isbn);
+        if (clave == IndiceIsbn.INVALIDO) {
+            return Optional.empty();
+        }
+        InstantaneaCatalogo catalogo = instantanea.actual();
+        if (catalogo != null) {
+            return catalogo.libroPorIsbn(clave).map(stockCaliente::conStockDisponible);
+        }
+        String normalizado = IndiceIsbn.formatear(clave);
+        if (!indiceIsbn.isCargado()) {
+            return libroRepository.findByIsbnWithAutor(normalizado).map(stockCaliente::conStockDisponible);
+        }
+
+        Long id = indiceIsbn.buscar(clave);
+        if (id == null) {
+            Optional<Libro> libro = libroRepository.findByIsbnWithAutor(normalizado);
+            libro.ifPresent(l -> indiceIsbn.actualizar(l.getId(), l.getIsbn()));
+            return libro.map(stockCaliente::conStockDisponible);
+        }
+        Optional<Libro> libro = buscarPorId(id);
+        // Las filas anteriores a la normalización pueden guardar el ISBN con guiones o como ISBN-10
+        if (libro.isPresent() && IndiceIsbn.normalizar(libro.get().getIsbn()) == clave) {
+            return libro;
+        }
+        indiceIsbn.eliminar(clave, id);
+        return libroRepository.findByIsbnWithAutor(normalizado).map(stockCaliente::conStockDisponible);
+    }
+
+    /**
+     * Sugiere libros cuyo título comienza con el texto indicado, usando el índice en memoria.
+     *
+     * @param prefijo Texto escrito por el usuario, sin distinguir mayúsculas ni tildes.
+     * @param limite  Cantidad máxima de sugerencias.
+     * @return Lista de sugerencias con id y título.
+     */
+    public List<SugerenciaTitulo> sugerirTitulos(String prefijo, int limite) {
+        InstantaneaCatalogo catalogo = instantanea.actual();
+        if (catalogo != null) {
+            return catalogo.sugerir(IndiceTitulos.normalizar(prefijo), limite);
+        }
+        return indiceTitulos.sugerir(prefijo, limite);
     }
 
     /**
      * Guarda un libro en la base de datos.
+     *
+     * El ISBN se guarda normalizado como ISBN-13 sin guiones.
      * 
      * @param libro Libro a guardar.
      * @return Libro guardado.
      */
     public Libro guardar(Libro libro) {
-        return libroRepository.save(libro);
+        long isbn = IndiceIsbn.normalizar(libro.getIsbn());
+        if (isbn != IndiceIsbn.INVALIDO) {
+            libro.setIsbn(IndiceIsbn.formatear(isbn));
+        }
+        // El stock enviado reemplaza al persistido, la reserva en memoria deja de ser válida;
+        // si la escritura falla (versión desactualizada, ISBN duplicado) se restaura
+        int descartadas = libro.getId() != null ? stockCaliente.descartarReserva(libro.getId()) : 0;
+        Libro guardado;
+        try {
+            guardado = libroRepository.save(libro);
+        } catch (RuntimeException e) {
+            stockCaliente.restaurarReserva(libro.getId(), descartadas);
+            throw e;
+        }
+        invalidar(guardado.getId());
+        publicar(guardado.getId(), EventoLibro.Tipo.ACTUALIZADO);
+        indiceTitulos.actualizar(guardado.getId(), guardado.getTitulo());
+        indiceIsbn.actualizar(guardado.getId(), guardado.getIsbn());
+        return guardado;
+    }
+
+    /**
+     * Aplica un JSON Merge Patch (RFC 7396) a un libro con una única sentencia UPDATE
+     * que solo escribe los atributos presentes en el parche.
+     *
+     * Admite titulo, isbn, stock y autor (un objeto con el id del autor, o null).
+     * No lee el libro: si no existe, o si se indica una versión y no coincide, no
+     * se modifica ninguna fila.
+     *
+     * @param id      Identificador del libro.
+     * @param parche  Atributos a modificar con sus nuevos valores.
+     * @param version Versión esperada del libro, o null para no comprobarla.
+     * @return true si el libro se modificó.
+     * @throws IllegalArgumentException si el parche está vacío, incluye atributos que no
+     *                                  pueden modificarse o valores inválidos.
+     */
+    public boolean modificar(Long id, Map<String, Object> parche, Long version) {
+        Map<String, Object> cambios = cambiosLibro(parche);
+        // El stock enviado reemplaza al persistido, la reserva en memoria deja de ser válida;
+        // si no se modifica ninguna fila o la sentencia falla, se restaura
+        int descartadas = cambios.containsKey("stock") ? stockCaliente.descartarReserva(id) : 0;
+        int modificados;
+        try {
+            modificados = actualizacionParcial.actualizarLibro(id, cambios, version);
+        } catch (RuntimeException e) {
+            stockCaliente.restaurarReserva(id, descartadas);
+            throw e;
+        }
+        if (modificados == 0) {
+            stockCaliente.restaurarReserva(id, descartadas);
+            return false;
+        }
+        invalidar(id);
+        publicar(id, cambios.size() == 1 && cambios.containsKey("stock")
+                ? EventoLibro.Tipo.STOCK : EventoLibro.Tipo.ACTUALIZADO);
+        if (cambios.containsKey("titulo")) {
+            indiceTitulos.actualizar(id, (String) cambios.get("titulo"));
+        }
+        if (cambios.containsKey("isbn")) {
+            indiceIsbn.actualizar(id, (String) cambios.get("isbn"));
+        }
+        return true;
+    }
+
+    /**
+     * Indica si existe un libro, para distinguir un libro inexistente de una versión
+     * desactualizada cuando una modificación condicional no afecta ninguna fila.
+     *
+     * @param id Identificador del libro.
+     * @return true si el libro existe.
+     */
+    public boolean existe(Long id) {
+        return libroRepository.existsById(id);
+    }
+
+    /**
+     * Valida un parche de libro y convierte sus valores a los tipos de la entidad.
+     */
+    private static Map<String, Object> cambiosLibro(Map<String, Object> parche) {
+        if (parche == null || parche.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un atributo a modificar");
+        }
+        Map<String, Object> cambios = new LinkedHashMap<>();
+        parche.forEach((atributo, valor) -> {
+            switch (atributo) {
+                case "titulo" -> {
+                    if (!(valor instanceof String titulo) || titulo.isEmpty() || titulo.length() > 150) {
+                        throw new IllegalArgumentException("El título es requerido y no puede superar los 150 caracteres");
+                    }
+                    cambios.put(atributo, titulo);
+                }
+                case "isbn" -> {
+                    long isbn = valor instanceof String texto ? IndiceIsbn.normalizar(texto) : IndiceIsbn.INVALIDO;
+                    if (isbn == IndiceIsbn.INVALIDO) {
+                        throw new IllegalArgumentException("El ISBN debe ser un ISBN-10 o ISBN-13 válido");
+                    }
+                    cambios.put(atributo, IndiceIsbn.formatear(isbn));
+                }
+                case "stock" -> {
+                    if (!(valor instanceof Integer stock) || stock < 0) {
+                        throw new IllegalArgumentException("El stock debe ser un entero mayor o igual a 0");
+                    }
+                    cambios.put(atributo, stock);
+                }
+                case "autor" -> {
+                    if (valor == null) {
+                        cambios.put(atributo, null);
+                    } else if (valor instanceof Map<?, ?> autor && autor.get("id") instanceof Number autorId) {
+                        cambios.put(atributo, autorId.longValue());
+                    } else {
+                        throw new IllegalArgumentException("El autor debe ser null o un objeto con su id");
+                    }
+                }
+                default -> throw new IllegalArgumentException("El atributo " + atributo + " no puede modificarse");
+            }
+        });
+        return cambios;
     }
 
     /**
-     * Elimina un libro por su identificador.
+     * Elimina un libro por su identificador y registra la eliminación para el feed de cambios.
      * 
      * @param id Identificador del libro a eliminar.
      */
+    @Transactional
     public void eliminar(Long id) {
+        stockCaliente.descartarReserva(id);
+        Optional<String> isbn = libroRepository.findIsbnById(id);
         libroRepository.deleteById(id);
+        cambios.registrarEliminacion(Eliminacion.Tipo.LIBRO, id);
+        invalidar(id);
+        publicar(id, EventoLibro.Tipo.ELIMINADO);
+        indiceTitulos.eliminar(id);
+        isbn.map(IndiceIsbn::normalizar)
+                .filter(clave -> clave != IndiceIsbn.INVALIDO)
+                .ifPresent(clave -> indiceIsbn.eliminar(clave, id));
+    }
+
+    /**
+     * Obtiene los libros creados, modificados o eliminados después de una marca.
+     *
+     * El stock de los libros calientes incluye las unidades reservadas en memoria, como en
+     * el resto de lecturas: es el que cambia con cada venta desde la reserva.
+     *
+     * Aunque es de solo lectura, se lee siempre de la primaria: RuteoReplicas no
+     * envía a las réplicas las transacciones de los métodos listarCambios.
+     *
+     * @param desde  Marca devuelta por la consulta anterior.
+     * @param limite Cantidad máxima de cambios.
+     * @return Página de cambios con sus autores, o vacío si la marca ya no puede completarse.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Cambios<Libro>> listarCambios(MarcaCambios desde, int limite) {
+        return cambios.listar(Eliminacion.Tipo.LIBRO, desde, limite, libroRepository::findModificados,
+                libro -> new MarcaCambios(libro.getModificado(), libro.getId()))
+                .map(pagina -> new Cambios<>(pagina.getModificados().stream().map(stockCaliente::conStockDisponible).toList(),
+                        pagina.getEliminados(), pagina.getMarca(), pagina.isHayMas()));
+    }
+
+    /**
+     * Obtiene la marca con la que un cliente comienza a sincronizar los libros.
+     *
+     * @return Marca inicial del feed de cambios.
+     */
+    public MarcaCambios marcaInicialCambios() {
+        return cambios.marcaInicial();
     }
 
     /**
      * Disminuye el stock de un libro en 1 si hay stock disponible.
+     *
+     * Los libros marcados como calientes se atienden desde la reserva en memoria de
+     * {@link StockCalienteService}; el resto ejecuta el UPDATE y registra su tiempo de espera.
      * 
      * @param id Identificador del libro.
      * @return true si se decrementó el stock, false en caso contrario.
      */
     public boolean decrementarStock(Long id) {
-        return libroRepository.decrementarStock(id) > 0;
+        boolean caliente = stockCaliente.esCaliente(id);
+        boolean decrementado;
+        if (caliente) {
+            decrementado = stockCaliente.decrementar(id);
+        } else {
+            long inicio = System.nanoTime();
+            decrementado = libroRepository.decrementarStock(id) > 0;
+            stockCaliente.registrarEspera(id, System.nanoTime() - inicio);
+        }
+        if (decrementado) {
+            invalidar(id);
+            publicar(id, EventoLibro.Tipo.STOCK);
+        }
+        contarDecremento(caliente ? "caliente" : "base_datos", decrementado, 1);
+        return decrementado;
+    }
+
+    /**
+     * Suma stock a varios libros en una única transacción.
+     *
+     * Las cantidades de un mismo libro se acumulan y todos los libros se actualizan
+     * con una sola sentencia UPDATE por bloque, en orden de id. Las líneas de libros
+     * inexistentes no impiden reponer el resto; solo en ese caso se consulta qué
+     * libros existen para informarlo. Los libros repuestos salen de la caché también
+     * al confirmarse la transacción, para que el nuevo stock se vea de inmediato.
+     *
+     * @param lineas Líneas con el id del libro y la cantidad a sumar (mayor a 0).
+     * @return Resultado de cada línea, en el mismo orden de la solicitud.
+     */
+    @Transactional
+    public List<ResultadoLineaStock> reponerStock(List<LineaStock> lineas) {
+        Map<Long, Integer> cantidades = new TreeMap<>();
+        for (LineaStock linea : lineas) {
+            cantidades.merge(linea.getId(), linea.getCantidad(), Integer::sum);
+        }
+
+        int actualizados = actualizacionParcial.reponerStock(cantidades);
+        Collection<Long> existentes = actualizados == cantidades.size()
+                ? cantidades.keySet()
+                : new HashSet<>(libroRepository.findIdsExistentes(cantidades.keySet()));
+        existentes.forEach(id -> {
+            invalidar(id);
+            publicar(id, EventoLibro.Tipo.STOCK);
+        });
+
+        List<ResultadoLineaStock> resultados = new ArrayList<>(lineas.size());
+        for (LineaStock linea : lineas) {
+            ResultadoLineaStock.Estado estado = existentes.contains(linea.getId())
+                    ? ResultadoLineaStock.Estado.REPUESTO
+                    : ResultadoLineaStock.Estado.NO_ENCONTRADO;
+            resultados.add(new ResultadoLineaStock(linea.getId(), linea.getCantidad(), estado, null));
+        }
+        return resultados;
+    }
+
+    /**
+     * Disminuye el stock de varios libros en una única transacción (todo o nada).
+     *
+     * Las cantidades de un mismo libro se acumulan y las filas se bloquean en orden
+     * de id antes de validar, evitando deadlocks entre lotes concurrentes. Con las filas
+     * bloqueadas, las reservas en memoria de los libros calientes se devuelven a su fila,
+     * para validar contra todo el stock disponible. Si alguna línea no tiene stock
+     * suficiente o el libro no existe, no se descuenta ningún libro.
+     *
+     * @param lineas Líneas con el id del libro y la cantidad a descontar (mayor a 0).
+     * @return Resultado de cada línea, en el mismo orden de la solicitud.
+     */
+    @Transactional
+    public List<ResultadoLineaStock> decrementarStockLote(List<LineaStock> lineas) {
+        Map<Long, Integer> cantidades = new TreeMap<>();
+        for (LineaStock linea : lineas) {
+            cantidades.merge(linea.getId(), linea.getCantidad(), Integer::sum);
+        }
+
+        Map<Long, Integer> stockActual = new HashMap<>();
+        for (StockLibro stock : libroRepository.bloquearStock(cantidades.keySet())) {
+            stockActual.put(stock.getId(), stock.getStock() + stockCaliente.devolverReservaBloqueada(stock.getId()));
+        }
+
+        boolean aplicable = cantidades.entrySet().stream()
+                .allMatch(e -> stockActual.containsKey(e.getKey()) && stockActual.get(e.getKey()) >= e.getValue());
+        if (aplicable) {
+            // Las filas ya están bloqueadas por esta transacción, el orden de id se mantiene
+            cantidades.forEach((id, cantidad) -> {
+                libroRepository.decrementarStock(id, cantidad);
+                stockActual.put(id, stockActual.get(id) - cantidad);
+                invalidar(id);
+                publicar(id, EventoLibro.Tipo.STOCK);
+            });
+        }
+
+        List<ResultadoLineaStock> resultados = new ArrayList<>(lineas.size());
+        for (LineaStock linea : lineas) {
+            Integer stock = stockActual.get(linea.getId());
+            ResultadoLineaStock.Estado estado;
+            if (stock == null) {
+                estado = ResultadoLineaStock.Estado.NO_ENCONTRADO;
+            } else if (aplicable) {
+                estado = ResultadoLineaStock.Estado.DECREMENTADO;
+            } else if (stock < cantidades.get(linea.getId())) {
+                estado = ResultadoLineaStock.Estado.SIN_STOCK;
+            } else {
+                estado = ResultadoLineaStock.Estado.NO_APLICADO;
+            }
+            resultados.add(new ResultadoLineaStock(linea.getId(), linea.getCantidad(), estado, stock));
+        }
+        if (aplicable) {
+            contarDecremento("lote", true, cantidades.size());
+        } else {
+            int sinStock = (int) cantidades.entrySet().stream()
+                    .filter(e -> stockActual.containsKey(e.getKey()) && stockActual.get(e.getKey()) < e.getValue())
+                    .count();
+            if (sinStock > 0) {
+                contarDecremento("lote", false, sinStock);
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Incrementa el contador de decrementos de stock en el registro global de Micrometer.
+     */
+    private static void contarDecremento(String motor, boolean decrementado, int lineas) {
+        Metrics.counter(METRICA_DECREMENTOS, "motor", motor, "resultado", decrementado ? "exitoso" : "sin_stock")
+                .increment(lineas);
+    }
+
+    /**
+     * Anuncia el cambio de un libro a los suscriptores de eventos. Dentro de una
+     * transacción, el evento se entrega recién al confirmarse.
+     *
+     * @param id   Identificador del libro.
+     * @param tipo Tipo de cambio.
+     */
+    private void publicar(Long id, EventoLibro.Tipo tipo) {
+        publicador.publishEvent(new EventoLibro(id, tipo, null));
+    }
+
+    /**
+     * Elimina un libro de la caché para que la próxima lectura lo obtenga de la base de datos.
+     *
+     * Dentro de una transacción la entrada se elimina también al confirmarse: una lectura
+     * concurrente anterior al commit vuelve a cargar el libro sin el cambio, y esa copia
+     * quedaría en la caché hasta que expire.
+     *
+     * @param id Identificador del libro.
+     */
+    private void invalidar(Long id) {
+        Cache libros = cacheManager.getCache(CacheConfig.LIBROS);
+        libros.evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    libros.evict(id);
+                }
+            });
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,241 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Mapa de {@code long} a {@code long} con direccionamiento abierto y sondeo lineal.
+ *
+ * Las claves y valores se guardan en dos arreglos primitivos, sin objetos por entrada,
+ * por lo que cada entrada ocupa 16 bytes más el espacio libre de la tabla. Las claves
+ * deben ser positivas: el 0 marca una celda vacía. Las lecturas usan una lectura
+ * optimista y no reservan memoria; las escrituras se serializan.
+ */
+final class MapaLongLong {
+
+    /**
+     * Valor devuelto cuando la clave no existe.
+     */
+    static final long AUSENTE = -1L;
+
+    private static final int CAPACIDAD_MINIMA = 16;
+
+    // Proporción máxima de celdas ocupadas antes de duplicar la tabla
+    private static final double CARGA_MAXIMA = 0.75;
+
+    private final StampedLock candado = new StampedLock();
+
+    private long[] claves;
+
+    private long[] valores;
+
+    private int tamano;
+
+    private int umbral;
+
+    MapaLongLong() {
+        this(CAPACIDAD_MINIMA);
+    }
+
+    /**
+     * @param esperados Cantidad de entradas que se espera almacenar.
+     */
+    MapaLongLong(int esperados) {
+        asignar(capacidadPara(esperados));
+    }
+
+    /**
+     * Busca el valor asociado a una clave.
+     *
+     * @param clave Clave positiva.
+     * @return Valor asociado o {@link #AUSENTE}.
+     */
+    long obtener(long clave) {
+        long sello = candado.tryOptimisticRead();
+        long[] k = claves;
+        long[] v = valores;
+        // Durante un redimensionamiento los arreglos pueden no corresponderse
+        long valor = k.length == v.length ? buscar(k, v, clave) : AUSENTE;
+        if (candado.validate(sello)) {
+            return valor;
+        }
+        sello = candado.readLock();
+        try {
+            return buscar(claves, valores, clave);
+        } finally {
+            candado.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Asocia un valor a una clave, reemplazando el anterior si existía.
+     *
+     * @param clave Clave positiva.
+     * @param valor Valor a guardar.
+     */
+    void poner(long clave, long valor) {
+        if (clave <= 0) {
+            throw new IllegalArgumentException("La clave debe ser positiva: " + clave);
+        }
+        long sello = candado.writeLock();
+        try {
+            int mascara = claves.length - 1;
+            int i = indice(clave, mascara);
+            while (claves[i] != 0) {
+                if (claves[i] == clave) {
+                    valores[i] = valor;
+                    return;
+                }
+                i = (i + 1) & mascara;
+            }
+            claves[i] = clave;
+            valores[i] = valor;
+            if (++tamano > umbral) {
+                redimensionar(claves.length << 1);
+            }
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Quita una clave del mapa solo si está asociada al valor indicado.
+     *
+     * @param clave Clave a quitar.
+     * @param valor Valor que debe tener asociado.
+     * @return true si se quitó la entrada.
+     */
+    boolean quitar(long clave, long valor) {
+        long sello = candado.writeLock();
+        try {
+            int mascara = claves.length - 1;
+            int i = indice(clave, mascara);
+            while (claves[i] != 0) {
+                if (claves[i] == clave) {
+                    if (valores[i] != valor) {
+                        return false;
+                    }
+                    desplazarHaciaAtras(i, mascara);
+                    tamano--;
+                    return true;
+                }
+                i = (i + 1) & mascara;
+            }
+            return false;
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Vacía el mapa y reserva espacio para la cantidad de entradas indicada.
+     *
+     * @param esperados Cantidad de entradas que se espera almacenar.
+     */
+    void limpiar(int esperados) {
+        long sello = candado.writeLock();
+        try {
+            asignar(capacidadPara(esperados));
+            tamano = 0;
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * @return Cantidad de entradas del mapa.
+     */
+    int tamano() {
+        return tamano;
+    }
+
+    /**
+     * @return Cantidad de celdas de la tabla.
+     */
+    int capacidad() {
+        return claves.length;
+    }
+
+    private static long buscar(long[] claves, long[] valores, long clave) {
+        int mascara = claves.length - 1;
+        int i = indice(clave, mascara);
+        // El límite evita un ciclo infinito si la tabla cambia durante una lectura optimista
+        for (int intentos = 0; intentos < claves.length; intentos++) {
+            long actual = claves[i];
+            if (actual == clave) {
+                return valores[i];
+            }
+            if (actual == 0) {
+                return AUSENTE;
+            }
+            i = (i + 1) & mascara;
+        }
+        return AUSENTE;
+    }
+
+    /**
+     * Elimina la celda indicada moviendo hacia atrás las entradas siguientes de su
+     * secuencia de sondeo, para no necesitar marcas de borrado.
+     */
+    private void desplazarHaciaAtras(int libre, int mascara) {
+        int i = (libre + 1) & mascara;
+        while (claves[i] != 0) {
+            int ideal = indice(claves[i], mascara);
+            // La entrada se mueve si su posición ideal no está entre el hueco y ella
+            if (((i - ideal) & mascara) >= ((i - libre) & mascara)) {
+                claves[libre] = claves[i];
+                valores[libre] = valores[i];
+                libre = i;
+            }
+            i = (i + 1) & mascara;
+        }
+        claves[libre] = 0;
+        valores[libre] = 0;
+    }
+
+    private void redimensionar(int capacidad) {
+        long[] clavesAnteriores = claves;
+        long[] valoresAnteriores = valores;
+        asignar(capacidad);
+        int mascara = capacidad - 1;
+        for (int j = 0; j < clavesAnteriores.length; j++) {
+            long clave = clavesAnteriores[j];
+            if (clave != 0) {
+                int i = indice(clave, mascara);
+                while (claves[i] != 0) {
+                    i = (i + 1) & mascara;
+                }
+                claves[i] = clave;
+                valores[i] = valoresAnteriores[j];
+            }
+        }
+    }
+
+    private void asignar(int capacidad) {
+        claves = new long[capacidad];
+        valores = new long[capacidad];
+        umbral = (int) (capacidad * CARGA_MAXIMA);
+    }
+
+    private static int capacidadPara(int esperados) {
+        long necesaria = (long) Math.ceil(Math.max(esperados, 1) / CARGA_MAXIMA) + 1;
+        int capacidad = CAPACIDAD_MINIMA;
+        while (capacidad < necesaria) {
+            capacidad <<= 1;
+        }
+        return capacidad;
+    }
+
+    /**
+     * Dispersa la clave con el mezclador final de MurmurHash3, ya que los ISBN
+     * consecutivos solo difieren en sus últimos dígitos.
+     */
+    private static int indice(long clave, int mascara) {
+        long h = clave;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mascara;
+    }
+}
@@ -0,0 +1,83 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.config.ConBaseDatos;
+import com.libreriaSanSebastian.bookService.dto.IsbnLibro;
+import com.libreriaSanSebastian.bookService.dto.MarcaCambios;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Migración única de los ISBN guardados antes de que el servicio los normalizara.
+ *
+ * Reescribe como ISBN-13 sin guiones los ISBN guardados con guiones o como ISBN-10, para
+ * que las búsquedas por ISBN los encuentren y la restricción uk_libros_isbn se aplique
+ * sobre los valores normalizados. Los ISBN inválidos y los que coinciden con el de otro
+ * libro una vez normalizados no se modifican: se informan para corregirlos a mano.
+ */
+@Service
+@ConBaseDatos
+public class NormalizacionIsbnService {
+
+    private static final Logger log = LoggerFactory.getLogger(NormalizacionIsbnService.class);
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    /**
+     * Normaliza los ISBN de todos los libros en una única transacción.
+     *
+     * @return Cantidad de libros cuyo ISBN se reescribió.
+     */
+    @Transactional
+    public int normalizar() {
+        Map<Long, Long> librosPorIsbn = new HashMap<>();
+        Set<Long> duplicados = new HashSet<>();
+        List<long[]> pendientes = new ArrayList<>();
+        List<Long> invalidos = new ArrayList<>();
+        try (Stream<IsbnLibro> isbns = libroRepository.streamIsbns()) {
+            isbns.forEach(libro -> {
+                long clave = IndiceIsbn.normalizar(libro.getIsbn());
+                if (clave == IndiceIsbn.INVALIDO) {
+                    invalidos.add(libro.getId());
+                    return;
+                }
+                if (librosPorIsbn.putIfAbsent(clave, libro.getId()) != null) {
+                    duplicados.add(clave);
+                }
+                if (!IndiceIsbn.formatear(clave).equals(libro.getIsbn())) {
+                    pendientes.add(new long[]{libro.getId(), clave});
+                }
+            });
+        }
+
+        Instant ahora = MarcaCambios.modificacion();
+        int normalizados = 0;
+        for (long[] pendiente : pendientes) {
+            if (!duplicados.contains(pendiente[1])) {
+                normalizados += libroRepository.actualizarIsbn(pendiente[0], IndiceIsbn.formatear(pendiente[1]), ahora);
+            }
+        }
+        if (!invalidos.isEmpty()) {
+            log.warn("{} libros tienen un ISBN inválido y no se normalizaron, ids: {}", invalidos.size(), invalidos);
+        }
+        if (!duplicados.isEmpty()) {
+            log.warn("{} ISBN se repiten entre libros una vez normalizados y no se modificaron: {}",
+                    duplicados.size(), duplicados.stream().map(IndiceIsbn::formatear).toList());
+        }
+        log.info("ISBN normalizados: {} de {} libros con ISBN sin normalizar", normalizados, pendientes.size());
+        return normalizados;
+    }
+}
@@ -0,0 +1,402 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.config.CacheConfig;
+import com.libreriaSanSebastian.bookService.dto.ContencionStock;
+import com.libreriaSanSebastian.bookService.dto.MarcaCambios;
+import com.libreriaSanSebastian.bookService.dto.StockLibro;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Motor de stock para libros muy demandados ("calientes").
+ *
+ * En lugar de ejecutar un UPDATE por unidad vendida, que serializa todas las
+ * peticiones sobre el bloqueo de la misma fila, el motor reserva lotes de stock
+ * de la base de datos y los entrega desde un contador en memoria. Las unidades
+ * reservadas ya están descontadas en la base de datos, por lo que nunca se vende
+ * más stock del existente; si la instancia se detiene de forma abrupta, las
+ * unidades reservadas y no vendidas quedan fuera del stock hasta corregirlo.
+ *
+ * Las reservas sin uso durante el intervalo de inactividad se devuelven a la base
+ * de datos, de modo que el stock persistido vuelve a ser exacto cuando el libro se enfría.
+ *
+ * Las ventas desde la reserva no escriben la fila del libro, así que cada
+ * libros.stock.caliente.marca-ms los libros con ventas se marcan como modificados en una
+ * sola sentencia, para que el feed de cambios entregue su nuevo stock disponible.
+ *
+ * En un nodo de borde no hay base de datos ni ventas: el motor no tiene reservas y las
+ * lecturas devuelven el stock de la instantánea sin cambios.
+ *
+ * También registra el tiempo de espera de los decrementos ejecutados contra la base
+ * de datos, para identificar qué libros conviene marcar como calientes. Las estadísticas
+ * de un libro sin decrementos durante el intervalo de retención se descartan.
+ */
+@Service
+public class StockCalienteService {
+
+    @Autowired(required = false)
+    private LibroRepository libroRepository;
+
+    @Autowired(required = false)
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${libros.stock.caliente.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${libros.stock.caliente.ids:}")
+    private Set<Long> librosCalientes;
+
+    @Value("${libros.stock.caliente.lote:50}")
+    private int tamanoLote;
+
+    @Value("${libros.stock.caliente.inactividad-ms:5000}")
+    private long inactividadMs;
+
+    @Value("${libros.stock.caliente.retencion-esperas-ms:600000}")
+    private long retencionEsperasMs;
+
+    private final Map<Long, Reserva> reservas = new ConcurrentHashMap<>();
+
+    private final Map<Long, Espera> esperas = new ConcurrentHashMap<>();
+
+    private final Set<Long> vendidos = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Indica si el libro debe atenderse con el motor de stock caliente.
+     *
+     * @param id Identificador del libro.
+     * @return true si el motor está habilitado y el libro está marcado como caliente.
+     */
+    public boolean esCaliente(Long id) {
+        return habilitado && librosCalientes.contains(id);
+    }
+
+    /**
+     * Descuenta una unidad de la reserva en memoria del libro, reservando un nuevo
+     * lote de la base de datos cuando la reserva se agota.
+     *
+     * @param id Identificador del libro.
+     * @return true si se descontó una unidad, false si no queda stock.
+     */
+    public boolean decrementar(Long id) {
+        Reserva reserva = reservas.computeIfAbsent(id, k -> new Reserva());
+        while (true) {
+            if (reserva.tomar()) {
+                vendidos.add(id);
+                return true;
+            }
+            // Solo un hilo por libro repone la reserva; el resto espera y reintenta
+            reserva.cerrojo.lock();
+            try {
+                if (reserva.unidades.get() > 0) {
+                    continue;
+                }
+                int obtenidas = reservarLote(id);
+                if (obtenidas == 0) {
+                    return false;
+                }
+                reserva.unidades.addAndGet(obtenidas);
+            } finally {
+                reserva.cerrojo.unlock();
+            }
+        }
+    }
+
+    /**
+     * Descarta la reserva en memoria de un libro sin devolverla a la base de datos.
+     * Se usa cuando el stock del libro se reemplaza o el libro se elimina.
+     *
+     * Dentro de una transacción, las unidades vuelven a la reserva si la transacción no
+     * se confirma; fuera de ella, el llamador debe restaurarlas con restaurarReserva si
+     * la escritura falla.
+     *
+     * @param id Identificador del libro.
+     * @return Unidades descartadas.
+     */
+    public int descartarReserva(Long id) {
+        Reserva reserva = reservas.get(id);
+        if (reserva == null) {
+            return 0;
+        }
+        int descartadas;
+        reserva.cerrojo.lock();
+        try {
+            descartadas = reserva.unidades.getAndSet(0);
+        } finally {
+            reserva.cerrojo.unlock();
+        }
+        if (descartadas > 0 && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    if (estado != STATUS_COMMITTED) {
+                        restaurarReserva(id, descartadas);
+                    }
+                }
+            });
+        }
+        return descartadas;
+    }
+
+    /**
+     * Devuelve a la reserva en memoria unidades descartadas por una escritura que no
+     * llegó a aplicarse. Siguen descontadas en la base de datos.
+     *
+     * @param id       Identificador del libro.
+     * @param unidades Unidades devueltas por descartarReserva.
+     */
+    public void restaurarReserva(Long id, int unidades) {
+        if (unidades > 0) {
+            reservas.computeIfAbsent(id, k -> new Reserva()).unidades.addAndGet(unidades);
+        }
+    }
+
+    /**
+     * Devuelve a la fila del libro las unidades reservadas en memoria, dentro de la transacción
+     * del llamador, que ya debe tener la fila bloqueada. Mientras la fila siga bloqueada, una
+     * nueva reserva espera a que la transacción termine. Si la transacción se revierte, las
+     * unidades vuelven a la reserva en memoria.
+     *
+     * @param id Identificador del libro.
+     * @return Unidades devueltas a la fila, 0 si el libro no tenía reserva.
+     */
+    public int devolverReservaBloqueada(Long id) {
+        Reserva reserva = reservas.get(id);
+        if (reserva == null) {
+            return 0;
+        }
+        int pendientes;
+        reserva.cerrojo.lock();
+        try {
+            pendientes = reserva.unidades.getAndSet(0);
+        } finally {
+            reserva.cerrojo.unlock();
+        }
+        if (pendientes <= 0) {
+            return 0;
+        }
+        libroRepository.incrementarStock(id, pendientes);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    if (estado != STATUS_COMMITTED) {
+                        reserva.unidades.addAndGet(pendientes);
+                    }
+                }
+            });
+        }
+        return pendientes;
+    }
+
+    /**
+     * Obtiene las unidades reservadas en memoria y todavía no vendidas de un libro,
+     * que ya están descontadas del stock persistido.
+     *
+     * @param id Identificador del libro.
+     * @return Unidades reservadas, 0 si el libro no tiene reserva.
+     */
+    public int unidadesReservadas(Long id) {
+        Reserva reserva = reservas.get(id);
+        return reserva == null ? 0 : Math.max(0, reserva.unidades.get());
+    }
+
+    /**
+     * Libro con su stock disponible: el persistido más las unidades reservadas en memoria.
+     * Todas las lecturas de libros pasan por aquí para que devuelvan el mismo stock.
+     *
+     * @param libro Libro leído de la base de datos, la caché o la instantánea.
+     * @return El mismo libro si no tiene reserva; si no, una copia con el stock disponible,
+     *         para no modificar la entidad gestionada ni la guardada en la caché.
+     */
+    public Libro conStockDisponible(Libro libro) {
+        int reservadas = reservas.isEmpty() ? 0 : unidadesReservadas(libro.getId());
+        if (reservadas == 0 || libro.getStock() == null) {
+            return libro;
+        }
+        return new Libro(libro.getId(), libro.getTitulo(), libro.getIsbn(), libro.getStock() + reservadas,
+                libro.getAutor(), libro.getVersion(), libro.getModificado());
+    }
+
+    /**
+     * Igual que {@link #conStockDisponible(Libro)} para una fila con campos parciales,
+     * que se modifica si incluye el stock.
+     *
+     * @param fila Campos del libro, con su id.
+     * @return La misma fila.
+     */
+    public Map<String, Object> conStockDisponible(Map<String, Object> fila) {
+        if (!reservas.isEmpty() && fila.get("stock") instanceof Integer stock && fila.get("id") instanceof Long id) {
+            fila.put("stock", stock + unidadesReservadas(id));
+        }
+        return fila;
+    }
+
+    /**
+     * Devuelve a la base de datos las reservas que no se usaron durante el intervalo de inactividad
+     * y descarta las estadísticas de espera de los libros sin decrementos durante la retención.
+     */
+    @Scheduled(fixedDelayString = "${libros.stock.caliente.inactividad-ms:5000}")
+    public void devolverReservasInactivas() {
+        long ahora = System.currentTimeMillis();
+        long limite = ahora - inactividadMs;
+        reservas.forEach((id, reserva) -> {
+            if (reserva.ultimoUso.get() <= limite) {
+                devolver(id, reserva);
+            }
+        });
+        long limiteEsperas = ahora - retencionEsperasMs;
+        esperas.values().removeIf(espera -> espera.ultimoRegistro.get() <= limiteEsperas);
+    }
+
+    /**
+     * Marca como modificados los libros con ventas desde la reserva en memoria desde la
+     * ejecución anterior, para que el feed de cambios los incluya.
+     */
+    @Scheduled(fixedDelayString = "${libros.stock.caliente.marca-ms:1000}")
+    public void marcarVendidos() {
+        if (vendidos.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Long id : vendidos) {
+            if (vendidos.remove(id)) {
+                ids.add(id);
+            }
+        }
+        Collections.sort(ids);
+        libroRepository.marcarModificados(ids, MarcaCambios.modificacion());
+    }
+
+    /**
+     * Devuelve todas las reservas a la base de datos al detener la aplicación.
+     */
+    @PreDestroy
+    public void devolverReservas() {
+        reservas.forEach(this::devolver);
+    }
+
+    /**
+     * Registra el tiempo que tardó un decremento de stock ejecutado contra la base de datos.
+     *
+     * @param id    Identificador del libro.
+     * @param nanos Duración de la sentencia en nanosegundos.
+     */
+    public void registrarEspera(Long id, long nanos) {
+        esperas.computeIfAbsent(id, k -> new Espera()).registrar(nanos);
+    }
+
+    /**
+     * Obtiene las estadísticas de espera por libro, de mayor a menor tiempo acumulado.
+     *
+     * @return Lista de estadísticas de contención.
+     */
+    public List<ContencionStock> obtenerContencion() {
+        return esperas.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Long, Espera> e) -> e.getValue().totalNanos.sum()).reversed())
+                .map(e -> e.getValue().resumen(e.getKey(), esCaliente(e.getKey())))
+                .collect(Collectors.toList());
+    }
+
+    private int reservarLote(Long id) {
+        long inicio = System.nanoTime();
+        Integer obtenidas = transactionTemplate.execute(estado -> {
+            List<StockLibro> stock = libroRepository.bloquearStock(List.of(id));
+            if (stock.isEmpty() || stock.get(0).getStock() <= 0) {
+                return 0;
+            }
+            int cantidad = Math.min(tamanoLote, stock.get(0).getStock());
+            libroRepository.decrementarStock(id, cantidad);
+            return cantidad;
+        });
+        registrarEspera(id, System.nanoTime() - inicio);
+        return obtenidas == null ? 0 : obtenidas;
+    }
+
+    private void devolver(Long id, Reserva reserva) {
+        reserva.cerrojo.lock();
+        try {
+            int pendientes = reserva.unidades.getAndSet(0);
+            if (pendientes > 0) {
+                libroRepository.incrementarStock(id, pendientes);
+                // El libro en caché tiene el stock sin las unidades devueltas
+                cacheManager.getCache(CacheConfig.LIBROS).evict(id);
+            }
+        } finally {
+            reserva.cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Unidades reservadas en memoria para un libro.
+     *
+     * La reposición se protege con un ReentrantLock y no con synchronized porque
+     * consulta la base de datos mientras lo mantiene: con hilos virtuales, bloquearse
+     * dentro de un monitor fija el hilo virtual a su hilo portador.
+     */
+    private static class Reserva {
+        private final ReentrantLock cerrojo = new ReentrantLock();
+        private final AtomicInteger unidades = new AtomicInteger();
+        private final AtomicLong ultimoUso = new AtomicLong(System.currentTimeMillis());
+
+        private boolean tomar() {
+            int disponibles;
+            do {
+                disponibles = unidades.get();
+                if (disponibles <= 0) {
+                    return false;
+                }
+            } while (!unidades.compareAndSet(disponibles, disponibles - 1));
+            ultimoUso.set(System.currentTimeMillis());
+            return true;
+        }
+    }
+
+    /**
+     * Acumulador de tiempos de espera de un libro.
+     */
+    private static class Espera {
+        private final LongAdder operaciones = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maximoNanos = new AtomicLong();
+        private final AtomicLong ultimoRegistro = new AtomicLong();
+
+        private void registrar(long nanos) {
+            ultimoRegistro.set(System.currentTimeMillis());
+            operaciones.increment();
+            totalNanos.add(nanos);
+            maximoNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        private ContencionStock resumen(Long id, boolean caliente) {
+            long cantidad = operaciones.sum();
+            double media = cantidad == 0 ? 0 : totalNanos.sum() / (double) cantidad / 1_000_000;
+            return new ContencionStock(id, cantidad, media, maximoNanos.get() / 1_000_000.0, caliente);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.libreriaSanSebastian.bookService.assemblers;
+
+import com.libreriaSanSebastian.bookService.model.Autor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+class AutorModelAssemblerTest {
+
+    private Autor autor;
+
+    @BeforeEach
+    void setUp() {
+        MockHttpServletRequest peticion = new MockHttpServletRequest();
+        peticion.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(peticion));
+
+        autor = new Autor();
+        autor.setId(7L);
+        autor.setNombre("Gabriel");
+        autor.setApellido("García Márquez");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testEnlacesPrecalculados() {
+        // Llamada al assembler
+        EntityModel<Autor> modelo = new AutorModelAssembler().toModel(autor);
+
+        // Verificaciones
+        assertEquals(List.of(
+                "self=http://localhost:8080/api/v1/autores/7",
+                "autores=http://localhost:8080/api/v1/autores",
+                "actualizar=http://localhost:8080/api/v1/autores/7",
+                "eliminar=http://localhost:8080/api/v1/autores/7"), enlaces(modelo));
+    }
+
+    @Test
+    void testEnlacesPrecalculadosIgualesADinamicos() {
+        // Configuración de ambos modos
+        AutorModelAssembler precalculado = new AutorModelAssembler();
+        AutorModelAssembler dinamico = new AutorModelAssembler();
+        ReflectionTestUtils.setField(dinamico, "enlacesDinamicos", true);
+
+        // Verificaciones - mismos enlaces, en el mismo orden
+        assertEquals(enlaces(dinamico.toModel(autor)), enlaces(precalculado.toModel(autor)));
+    }
+
+    private List<String> enlaces(EntityModel<Autor> modelo) {
+        return modelo.getLinks().stream()
+                .map(enlace -> enlace.getRel().value() + "=" + enlace.getHref())
+                .collect(Collectors.toList());
+    }
+}
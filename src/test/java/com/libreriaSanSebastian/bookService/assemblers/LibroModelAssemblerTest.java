@@ -0,0 +1,75 @@
+package com.libreriaSanSebastian.bookService.assemblers;
+
+import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+class LibroModelAssemblerTest {
+
+    private Libro libro;
+
+    @BeforeEach
+    void setUp() {
+        MockHttpServletRequest peticion = new MockHttpServletRequest();
+        peticion.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(peticion));
+
+        Autor autor = new Autor();
+        autor.setId(1L);
+        autor.setNombre("Gabriel");
+
+        libro = new Libro();
+        libro.setId(42L);
+        libro.setTitulo("Cien años de soledad");
+        libro.setAutor(autor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testEnlacesPrecalculados() {
+        // Llamada al assembler
+        EntityModel<Libro> modelo = new LibroModelAssembler().toModel(libro);
+
+        // Verificaciones
+        assertEquals(List.of(
+                "self=http://localhost:8080/api/v1/libros/42",
+                "libros=http://localhost:8080/api/v1/libros",
+                "actualizar=http://localhost:8080/api/v1/libros/42",
+                "eliminar=http://localhost:8080/api/v1/libros/42"), enlaces(modelo));
+    }
+
+    @Test
+    void testEnlacesPrecalculadosIgualesADinamicos() {
+        // Configuración de ambos modos
+        LibroModelAssembler precalculado = new LibroModelAssembler();
+        LibroModelAssembler dinamico = new LibroModelAssembler();
+        ReflectionTestUtils.setField(dinamico, "enlacesDinamicos", true);
+
+        // Verificaciones - mismos enlaces, en el mismo orden
+        assertEquals(enlaces(dinamico.toModel(libro)), enlaces(precalculado.toModel(libro)));
+    }
+
+    private List<String> enlaces(EntityModel<Libro> modelo) {
+        return modelo.getLinks().stream()
+                .map(enlace -> enlace.getRel().value() + "=" + enlace.getHref())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,41 @@
+package com.libreriaSanSebastian.bookService.assemblers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlantillaEnlaceTest {
+
+    @Test
+    void testSobrecargasSeResuelvenPorParametros() {
+        PlantillaEnlace detalle = PlantillaEnlace.de(ControladorSobrecargado.class, "obtener", Long.class);
+        PlantillaEnlace formato = PlantillaEnlace.de(ControladorSobrecargado.class, "obtener", Long.class, String.class);
+
+        // Verificaciones
+        assertEquals("http://localhost/api/7", detalle.expandir("http://localhost/api", 7L));
+        assertEquals("http://localhost/api/7/formato", formato.expandir("http://localhost/api", 7L));
+    }
+
+    @Test
+    void testMetodoInexistente() {
+        // Verificaciones
+        assertThrows(IllegalArgumentException.class,
+                () -> PlantillaEnlace.de(ControladorSobrecargado.class, "obtener", Integer.class));
+    }
+
+    public static class ControladorSobrecargado {
+
+        @GetMapping("/{id}/formato")
+        public String obtener(@PathVariable Long id, @RequestParam String formato) {
+            return formato;
+        }
+
+        @GetMapping("/{id}")
+        public String obtener(@PathVariable Long id) {
+            return String.valueOf(id);
+        }
+    }
+}
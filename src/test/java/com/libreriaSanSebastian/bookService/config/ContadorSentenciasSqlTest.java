@@ -0,0 +1,81 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContadorSentenciasSqlTest {
+
+    @Test
+    void testCuentaSentenciasDelHilo() {
+        ContadorSentenciasSql contador = new ContadorSentenciasSql();
+        ContadorSentenciasSql.reiniciar();
+
+        // La sentencia se devuelve sin modificar
+        assertEquals("select 1", contador.inspect("select 1"));
+        contador.inspect("select 2");
+
+        // Verificaciones
+        assertEquals(2, ContadorSentenciasSql.obtener());
+        ContadorSentenciasSql.reiniciar();
+        assertEquals(0, ContadorSentenciasSql.obtener());
+    }
+
+    @Test
+    void testContadorIndependientePorHilo() throws InterruptedException {
+        ContadorSentenciasSql contador = new ContadorSentenciasSql();
+        ContadorSentenciasSql.reiniciar();
+        contador.inspect("select 1");
+
+        AtomicInteger enOtroHilo = new AtomicInteger(-1);
+        Thread hilo = new Thread(() -> {
+            contador.inspect("select 2");
+            contador.inspect("select 3");
+            enOtroHilo.set(ContadorSentenciasSql.obtener());
+        });
+        hilo.start();
+        hilo.join();
+
+        // Verificaciones
+        assertEquals(2, enOtroHilo.get());
+        assertEquals(1, ContadorSentenciasSql.obtener());
+    }
+
+    @Test
+    void testPeticionAsincronaNoSePublica() throws Exception {
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        Metrics.addRegistry(registro);
+        try {
+            MetricasConfig.SentenciasPorPeticion interceptor = new MetricasConfig.SentenciasPorPeticion();
+            HandlerMethod metodo = new HandlerMethod(this, getClass().getDeclaredMethod("testPeticionAsincronaNoSePublica"));
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/libros/exportar");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            // El despacho asíncrono que completa la petición no ve las sentencias del otro hilo
+            request.setDispatcherType(DispatcherType.ASYNC);
+            interceptor.preHandle(request, response, metodo);
+            interceptor.afterCompletion(request, response, metodo, null);
+            assertNull(registro.find(MetricasConfig.METRICA_SENTENCIAS).summary());
+
+            // Una petición síncrona publica las sentencias de su hilo
+            request.setDispatcherType(DispatcherType.REQUEST);
+            interceptor.preHandle(request, response, metodo);
+            new ContadorSentenciasSql().inspect("select 1");
+            interceptor.afterCompletion(request, response, metodo, null);
+            DistributionSummary sentencias = registro.find(MetricasConfig.METRICA_SENTENCIAS).summary();
+            assertEquals(1, sentencias.count());
+            assertEquals(1, sentencias.totalAmount());
+        } finally {
+            Metrics.removeRegistry(registro);
+        }
+    }
+}
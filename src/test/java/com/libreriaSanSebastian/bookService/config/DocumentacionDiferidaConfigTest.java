@@ -0,0 +1,53 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import io.swagger.v3.oas.models.OpenAPI;
+import org.junit.jupiter.api.Test;
+import org.springdoc.core.properties.SpringDocConfigProperties;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentacionDiferidaConfigTest {
+
+    @Test
+    void testDocumentacionSeCreaConLaPrimeraPeticion() {
+        try (AnnotationConfigApplicationContext contexto = contexto(true)) {
+            // Verificaciones - los beans de documentación no se crean al arrancar
+            assertTrue(contexto.getBeanDefinition("customOpenAPI").isLazyInit());
+            assertFalse(contexto.getBeanFactory().containsSingleton("customOpenAPI"));
+            assertFalse(contexto.getBeanFactory().containsSingleton("apiDocs"));
+
+            // El resto de beans se sigue creando al arrancar
+            assertFalse(contexto.getBeanDefinition("contadorSentenciasSql").isLazyInit());
+            assertTrue(contexto.getBeanFactory().containsSingleton("contadorSentenciasSql"));
+
+            // La primera petición a la documentación los crea
+            assertEquals("Librería San Sebastián - Servicio de Libros",
+                    contexto.getBean(OpenAPI.class).getInfo().getTitle());
+        }
+    }
+
+    @Test
+    void testSinElPerfilLaDocumentacionSeCreaAlArrancar() {
+        try (AnnotationConfigApplicationContext contexto = contexto(false)) {
+            // Verificaciones
+            assertFalse(contexto.getBeanDefinition("customOpenAPI").isLazyInit());
+            assertTrue(contexto.getBeanFactory().containsSingleton("customOpenAPI"));
+            assertTrue(contexto.getBeanFactory().containsSingleton("apiDocs"));
+        }
+    }
+
+    private static AnnotationConfigApplicationContext contexto(boolean diferida) {
+        AnnotationConfigApplicationContext contexto = new AnnotationConfigApplicationContext();
+        contexto.getEnvironment().getPropertySources().addFirst(new MapPropertySource("prueba",
+                Map.of("libros.arranque.documentacion-diferida", String.valueOf(diferida))));
+        contexto.register(DocumentacionDiferidaConfig.class, SwaggerConfig.class);
+        contexto.registerBean("apiDocs", SpringDocConfigProperties.ApiDocs.class);
+        contexto.registerBean("contadorSentenciasSql", ContadorSentenciasSql.class);
+        contexto.refresh();
+        return contexto;
+    }
+}
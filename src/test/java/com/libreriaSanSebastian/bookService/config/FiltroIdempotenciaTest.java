@@ -0,0 +1,183 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.libreriaSanSebastian.bookService.dto.RespuestaGuardada;
+import com.libreriaSanSebastian.bookService.service.AlmacenIdempotenciaMemoria;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FiltroIdempotenciaTest {
+
+    private AlmacenIdempotenciaMemoria almacen;
+
+    private FiltroIdempotencia filtro;
+
+    private final AtomicInteger ejecuciones = new AtomicInteger();
+
+    private int estadoRespuesta = 200;
+
+    /**
+     * Controlador simulado: responde con el cuerpo recibido y cuenta sus ejecuciones.
+     */
+    private final FilterChain cadena = (request, response) -> {
+        ejecuciones.incrementAndGet();
+        String cuerpo = StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8);
+        ((HttpServletResponse) response).setStatus(estadoRespuesta);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"recibido\":" + cuerpo + "}");
+    };
+
+    @BeforeEach
+    void setUp() {
+        almacen = new AlmacenIdempotenciaMemoria();
+        ReflectionTestUtils.setField(almacen, "ttl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(almacen, "enCurso", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(almacen, "capacidad", DataSize.ofMegabytes(1));
+        almacen.iniciar();
+        filtro = new FiltroIdempotencia(almacen, new ObjectMapper());
+    }
+
+    @Test
+    void testRepeticionDevuelveRespuestaGuardada() throws Exception {
+        MockHttpServletResponse primera = ejecutar("clave-1", "[1]");
+        MockHttpServletResponse segunda = ejecutar("clave-1", "[1]");
+
+        // Verificaciones - el controlador se ejecuta una sola vez y recibe el cuerpo completo
+        assertEquals(1, ejecuciones.get());
+        assertEquals("{\"recibido\":[1]}", primera.getContentAsString());
+        assertNull(primera.getHeader(FiltroIdempotencia.CABECERA_REPETIDA));
+        assertEquals(200, segunda.getStatus());
+        assertEquals("{\"recibido\":[1]}", segunda.getContentAsString());
+        assertEquals("application/json", segunda.getContentType());
+        assertEquals("true", segunda.getHeader(FiltroIdempotencia.CABECERA_REPETIDA));
+    }
+
+    @Test
+    void testClaveReutilizadaConOtroCuerpo() throws Exception {
+        ejecutar("clave-1", "[1]");
+        MockHttpServletResponse respuesta = ejecutar("clave-1", "[2]");
+
+        // Verificaciones
+        assertEquals(422, respuesta.getStatus());
+        assertEquals(1, ejecuciones.get());
+    }
+
+    @Test
+    void testPeticionEnCurso() throws Exception {
+        // Configuración - otra petición con la misma clave y cuerpo reservó la clave
+        MockHttpServletRequest request = request("clave-1", "[1]");
+        almacen.reservar("clave-1", FiltroIdempotencia.huella(request, "[1]".getBytes(StandardCharsets.UTF_8)));
+
+        MockHttpServletResponse respuesta = ejecutar("clave-1", "[1]");
+
+        // Verificaciones
+        assertEquals(409, respuesta.getStatus());
+        assertEquals(0, ejecuciones.get());
+    }
+
+    @Test
+    void testErrorDelServidorLiberaLaClave() throws Exception {
+        estadoRespuesta = 503;
+        ejecutar("clave-1", "[1]");
+        estadoRespuesta = 200;
+        MockHttpServletResponse reintento = ejecutar("clave-1", "[1]");
+
+        // Verificaciones - el reintento se ejecuta de nuevo
+        assertEquals(2, ejecuciones.get());
+        assertEquals(200, reintento.getStatus());
+        assertNull(reintento.getHeader(FiltroIdempotencia.CABECERA_REPETIDA));
+    }
+
+    @Test
+    void testSinCabeceraNoSeGuarda() throws Exception {
+        ejecutar(null, "[1]");
+        ejecutar(null, "[1]");
+
+        // Verificaciones
+        assertEquals(2, ejecuciones.get());
+    }
+
+    @Test
+    void testClaveDemasiadoLarga() throws Exception {
+        MockHttpServletResponse respuesta = ejecutar("x".repeat(256), "[1]");
+
+        // Verificaciones
+        assertEquals(400, respuesta.getStatus());
+        assertEquals(0, ejecuciones.get());
+    }
+
+    @Test
+    void testLecturaAsincronaDelCuerpo() throws Exception {
+        // Un controlador que lee el cuerpo con un ReadListener, como la E/S no bloqueante
+        StringBuilder leido = new StringBuilder();
+        AtomicInteger finalizadas = new AtomicInteger();
+        FilterChain asincrona = (request, response) -> {
+            ServletInputStream entrada = request.getInputStream();
+            entrada.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    while (entrada.isReady() && !entrada.isFinished()) {
+                        leido.append((char) entrada.read());
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    finalizadas.incrementAndGet();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    fail(error);
+                }
+            });
+        };
+
+        filtro.doFilter(request("clave-1", "[1]"), new MockHttpServletResponse(), asincrona);
+
+        // Verificaciones - el cuerpo guardado en memoria se entrega completo de inmediato
+        assertEquals("[1]", leido.toString());
+        assertEquals(1, finalizadas.get());
+    }
+
+    @Test
+    void testReservaDevuelveLaRespuestaGuardada() {
+        almacen.guardar("clave-1", new RespuestaGuardada("h", 200, "application/json", new byte[]{'1'}));
+
+        // Verificaciones
+        assertNull(almacen.reservar("clave-2", "h"));
+        assertEquals(200, almacen.reservar("clave-1", "h").getEstado());
+    }
+
+    private MockHttpServletResponse ejecutar(String clave, String cuerpo) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request(clave, cuerpo), response, cadena);
+        return response;
+    }
+
+    private MockHttpServletRequest request(String clave, String cuerpo) {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/v1/libros/decrementar-stock");
+        if (clave != null) {
+            request.addHeader(FiltroIdempotencia.CABECERA, clave);
+        }
+        request.setContentType("application/json");
+        request.setContent(cuerpo.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
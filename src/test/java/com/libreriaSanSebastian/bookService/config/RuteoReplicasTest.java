@@ -0,0 +1,200 @@
+package com.libreriaSanSebastian.bookService.config;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuteoReplicasTest {
+
+    private static final AtomicInteger BASES = new AtomicInteger();
+
+    private static final Instant MODIFICADO = Instant.parse("2026-10-01T10:00:00Z");
+
+    private JdbcTemplate primaria;
+
+    private JdbcTemplate replica;
+
+    private RuteoReplicas ruteo;
+
+    private JdbcTemplate jdbc;
+
+    private DataSourceTransactionManager transacciones;
+
+    @BeforeEach
+    void setUp() {
+        // Dos bases embebidas independientes, cada una con una marca de su origen
+        DataSource fuentePrimaria = base("primaria");
+        DataSource fuenteReplica = base("replica-1");
+        primaria = new JdbcTemplate(fuentePrimaria);
+        replica = new JdbcTemplate(fuenteReplica);
+        primaria.update("INSERT INTO libros VALUES (1, ?)", Timestamp.from(MODIFICADO));
+        replica.update("INSERT INTO libros VALUES (1, ?)", Timestamp.from(MODIFICADO));
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", fuenteReplica);
+        ruteo = new RuteoReplicas(fuentePrimaria, replicas, Duration.ofSeconds(1));
+
+        // Igual que en FuentesDatosConfig
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(fuentePrimaria);
+        proxy.setReadOnlyDataSource(ruteo);
+        jdbc = new JdbcTemplate(proxy);
+        transacciones = new DataSourceTransactionManager(proxy);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RuteoReplicas.leerDePrimaria(false);
+    }
+
+    @Test
+    void testSoloLecturaVaALaReplica() {
+        ruteo.verificar();
+
+        // Verificaciones
+        assertEquals("replica-1", leer(true, null));
+        assertEquals("primaria", leer(false, null));
+    }
+
+    @Test
+    void testSinVerificarUsaLaPrimaria() {
+        // Hasta la primera verificación no se conoce el retraso de la réplica
+        assertEquals("primaria", leer(true, null));
+    }
+
+    @Test
+    void testLecturaPropiaUsaLaPrimaria() {
+        ruteo.verificar();
+        RuteoReplicas.leerDePrimaria(true);
+
+        // Verificaciones
+        assertEquals("primaria", leer(true, null));
+        RuteoReplicas.leerDePrimaria(false);
+        assertEquals("replica-1", leer(true, null));
+    }
+
+    @Test
+    void testTransaccionDeRepositorioUsaLaPrimaria() {
+        ruteo.verificar();
+
+        // Verificaciones - findById y similares alimentan las cachés
+        assertEquals("primaria", leer(true, SimpleJpaRepository.class.getName() + ".findById"));
+        assertEquals("replica-1", leer(true, "LibroService.listarTodos"));
+    }
+
+    @Test
+    void testFeedDeCambiosUsaLaPrimaria() {
+        ruteo.verificar();
+
+        // Verificaciones - el retraso medido con libros no cubre autores ni eliminaciones
+        assertEquals("primaria", leer(true, "com.libreriaSanSebastian.bookService.service.LibroService.listarCambios"));
+        assertEquals("primaria", leer(true, "com.libreriaSanSebastian.bookService.service.AutorService.listarCambios"));
+    }
+
+    @Test
+    void testReplicaAtrasadaUsaLaPrimaria() {
+        ruteo.verificar();
+        assertEquals("replica-1", leer(true, null));
+
+        // La primaria recibe una modificación que la réplica no tiene
+        primaria.update("UPDATE libros SET modificado = ?", Timestamp.from(Instant.now()));
+        ruteo.verificar();
+
+        // Verificaciones - la última modificación de la réplica es de hace mucho más que el retraso máximo
+        assertEquals("primaria", leer(true, null));
+
+        // Al ponerse al día vuelve a usarse
+        replica.update("UPDATE libros SET modificado = ?",
+                primaria.queryForObject("SELECT MAX(modificado) FROM libros", Timestamp.class));
+        ruteo.verificar();
+        assertEquals("replica-1", leer(true, null));
+    }
+
+    @Test
+    void testReplicaSinRespuestaUsaLaPrimaria() {
+        ruteo.verificar();
+        replica.execute("DROP TABLE libros");
+        ruteo.verificar();
+
+        // Verificaciones
+        assertEquals("primaria", leer(true, null));
+    }
+
+    @Test
+    void testFiltroEscrituraMarcaAlCliente() throws Exception {
+        ruteo.verificar();
+        FiltroLecturaPropia filtro = new FiltroLecturaPropia(Duration.ofSeconds(5));
+        AtomicReference<String> origen = new AtomicReference<>();
+
+        MockHttpServletResponse respuesta = new MockHttpServletResponse();
+        filtro.doFilter(new MockHttpServletRequest("POST", "/api/v1/libros"), respuesta,
+                (request, response) -> origen.set(leer(true, null)));
+
+        // Verificaciones - la escritura lee de la primaria y deja la cookie
+        assertEquals("primaria", origen.get());
+        Cookie cookie = respuesta.getCookie(FiltroLecturaPropia.COOKIE);
+        assertNotNull(cookie);
+        assertEquals(5, cookie.getMaxAge());
+        // Fuera de la petición el hilo vuelve a leer de las réplicas
+        assertEquals("replica-1", leer(true, null));
+    }
+
+    @Test
+    void testFiltroLecturaConCookieUsaLaPrimaria() throws Exception {
+        ruteo.verificar();
+        FiltroLecturaPropia filtro = new FiltroLecturaPropia(Duration.ofSeconds(5));
+        AtomicReference<String> origen = new AtomicReference<>();
+
+        MockHttpServletRequest conCookie = new MockHttpServletRequest("GET", "/api/v1/libros");
+        conCookie.setCookies(new Cookie(FiltroLecturaPropia.COOKIE, "1"));
+        filtro.doFilter(conCookie, new MockHttpServletResponse(), (request, response) -> origen.set(leer(true, null)));
+        assertEquals("primaria", origen.get());
+
+        MockHttpServletResponse respuesta = new MockHttpServletResponse();
+        filtro.doFilter(new MockHttpServletRequest("GET", "/api/v1/libros"), respuesta,
+                (request, response) -> origen.set(leer(true, null)));
+
+        // Verificaciones - sin cookie la lectura va a la réplica y no se marca al cliente
+        assertEquals("replica-1", origen.get());
+        assertNull(respuesta.getCookie(FiltroLecturaPropia.COOKIE));
+    }
+
+    /**
+     * Lee el origen de la base de datos desde una transacción con el nombre indicado.
+     */
+    private String leer(boolean soloLectura, String nombre) {
+        TransactionTemplate transaccion = new TransactionTemplate(transacciones);
+        transaccion.setReadOnly(soloLectura);
+        transaccion.setName(nombre);
+        return transaccion.execute(estado -> jdbc.queryForObject("SELECT nombre FROM origen", String.class));
+    }
+
+    private static DataSource base(String origen) {
+        DriverManagerDataSource fuente = new DriverManagerDataSource(
+                "jdbc:h2:mem:ruteo" + BASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(fuente);
+        jdbc.execute("CREATE TABLE libros (id BIGINT PRIMARY KEY, modificado TIMESTAMP(6))");
+        jdbc.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+        jdbc.update("INSERT INTO origen VALUES (?)", origen);
+        return fuente;
+    }
+}
@@ -1,6 +1,9 @@
 package com.libreriaSanSebastian.bookService.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.libreriaSanSebastian.bookService.dto.AutorConTotales;
+import com.libreriaSanSebastian.bookService.dto.LibroDeAutor;
+import com.libreriaSanSebastian.bookService.dto.Pagina;
 import com.libreriaSanSebastian.bookService.model.Autor;
 import com.libreriaSanSebastian.bookService.service.AutorService;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,9 +16,11 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -47,15 +52,47 @@ class AutorControllerTest {
 
     @Test
     void testListarTodos() throws Exception {
-        when(autorService.listarTodos()).thenReturn(List.of(autor));
+        when(autorService.listarConTotales()).thenReturn(List.of(
+                new AutorConTotales(1L, "Gabriel", "García Márquez", "Colombiana", 4L, 3L, 42L)));
 
+        // Mismos campos, relación y enlaces que antes de agregar los totales
         mockMvc.perform(get("/api/v1/autores"))
                 .andExpect(status().isOk())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].nombre").value("Gabriel"))
-                .andExpect(jsonPath("$[0].apellido").value("García Márquez"));
+                .andExpect(jsonPath("$._embedded.autorList[0].version").value(4))
+                .andExpect(jsonPath("$._embedded.autorList[0]._links.actualizar.href").exists())
+                .andExpect(jsonPath("$._embedded.autorList[0]._links.eliminar.href").exists())
+                .andExpect(jsonPath("$._embedded.autorList[0]._links.libros.href").exists())
+                .andExpect(jsonPath("$..nombre").value("Gabriel"))
+                .andExpect(jsonPath("$..apellido").value("García Márquez"))
+                .andExpect(jsonPath("$..totalLibros").value(3))
+                .andExpect(jsonPath("$..stockTotal").value(42));
+
+        verify(autorService, times(1)).listarConTotales();
+        verify(autorService, never()).listarTodos();
+    }
+
+    @Test
+    void testListarLibros() throws Exception {
+        when(autorService.buscarPorId(1L)).thenReturn(Optional.of(autor));
+        when(autorService.listarLibros(1L, null, 1)).thenReturn(new Pagina<>(
+                List.of(new LibroDeAutor(7L, "Cien años de soledad", "9780307474728", 5)), false, true));
+
+        mockMvc.perform(get("/api/v1/autores/1/libros").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..titulo").value("Cien años de soledad"))
+                .andExpect(jsonPath("$._links.next.href").value("http://localhost/api/v1/autores/1/libros?after=7&limit=1"));
+
+        verify(autorService, times(1)).listarLibros(1L, null, 1);
+    }
 
-        verify(autorService, times(1)).listarTodos();
+    @Test
+    void testListarLibrosAutorNoEncontrado() throws Exception {
+        when(autorService.buscarPorId(99L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/autores/99/libros"))
+                .andExpect(status().isNotFound());
+
+        verify(autorService, never()).listarLibros(anyLong(), any(), anyInt());
     }
 
     @Test
@@ -71,6 +108,17 @@ class AutorControllerTest {
         verify(autorService, times(1)).buscarPorId(1L);
     }
 
+    @Test
+    void testObtenerPorIdNoModificado() throws Exception {
+        autor.setVersion(2);
+        when(autorService.buscarPorId(1L)).thenReturn(Optional.of(autor));
+
+        mockMvc.perform(get("/api/v1/autores/1").header("If-None-Match", "W/\"2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"2\""));
+
+        verify(autorService, times(1)).buscarPorId(1L);
+    }
 
     @Test
     void testObtenerPorNombre() throws Exception {
@@ -114,6 +162,42 @@ class AutorControllerTest {
         verify(autorService, times(1)).guardar(any(Autor.class));
     }
 
+    @Test
+    void testActualizarVersionDesactualizada() throws Exception {
+        autor.setVersion(5);
+        when(autorService.buscarPorId(1L)).thenReturn(Optional.of(autor));
+
+        mockMvc.perform(put("/api/v1/autores/1")
+                .header("If-Match", "\"4\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(autor)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(autorService, never()).guardar(any(Autor.class));
+    }
+
+    @Test
+    void testModificar() throws Exception {
+        when(autorService.modificar(1L, Map.of("apellido", "Márquez"), null)).thenReturn(true);
+
+        mockMvc.perform(patch("/api/v1/autores/1")
+                .contentType("application/merge-patch+json")
+                .content("{\"apellido\": \"Márquez\"}"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void testModificarVersionDesactualizada() throws Exception {
+        when(autorService.modificar(1L, Map.of("apellido", "Márquez"), 2L)).thenReturn(false);
+        when(autorService.existe(1L)).thenReturn(true);
+
+        mockMvc.perform(patch("/api/v1/autores/1")
+                .header("If-Match", "\"2\"")
+                .contentType("application/merge-patch+json")
+                .content("{\"apellido\": \"Márquez\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     void testEliminar() throws Exception {
         when(autorService.buscarPorId(1L)).thenReturn(Optional.of(autor));
@@ -0,0 +1,85 @@
+package com.libreriaSanSebastian.bookService.controller;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(CacheController.class)
+@ActiveProfiles("test")
+class CacheControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CacheManager cacheManager;
+
+    @MockBean
+    private EntityManagerFactory entityManagerFactory;
+
+    private CaffeineCache libros;
+
+    @BeforeEach
+    void setUp() {
+        libros = new CaffeineCache("libros", Caffeine.newBuilder().recordStats().build());
+        libros.put(1L, "Cien años de soledad");
+        libros.get(1L);
+        libros.get(2L);
+    }
+
+    @Test
+    void testObtenerEstadisticas() throws Exception {
+        when(cacheManager.getCacheNames()).thenReturn(List.of("libros"));
+        when(cacheManager.getCache("libros")).thenReturn(libros);
+
+        mockMvc.perform(get("/api/v1/cache"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].nombre").value("libros"))
+                .andExpect(jsonPath("$[0].entradas").value(1))
+                .andExpect(jsonPath("$[0].aciertos").value(1))
+                .andExpect(jsonPath("$[0].fallos").value(1))
+                .andExpect(jsonPath("$[0].tasaAciertos").value(0.5));
+
+        verify(cacheManager, times(1)).getCacheNames();
+    }
+
+    @Test
+    void testObtenerEstadisticasHibernate() throws Exception {
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        Statistics estadisticas = mock(Statistics.class);
+        CacheRegionStatistics region = mock(CacheRegionStatistics.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getStatistics()).thenReturn(estadisticas);
+        when(estadisticas.getSecondLevelCacheRegionNames()).thenReturn(new String[]{"entidad.autor"});
+        when(estadisticas.getCacheRegionStatistics("entidad.autor")).thenReturn(region);
+        when(region.getHitCount()).thenReturn(3L);
+        when(region.getMissCount()).thenReturn(1L);
+        when(region.getElementCountInMemory()).thenReturn(CacheRegionStatistics.NO_EXTENDED_STAT_SUPPORT_RETURN);
+
+        mockMvc.perform(get("/api/v1/cache/hibernate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nombre").value("entidad.autor"))
+                .andExpect(jsonPath("$[0].entradas").value(-1))
+                .andExpect(jsonPath("$[0].aciertos").value(3))
+                .andExpect(jsonPath("$[0].tasaAciertos").value(0.75));
+    }
+}
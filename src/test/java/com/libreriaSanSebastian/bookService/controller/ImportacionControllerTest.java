@@ -0,0 +1,66 @@
+package com.libreriaSanSebastian.bookService.controller;
+
+import com.libreriaSanSebastian.bookService.dto.ErrorImportacion;
+import com.libreriaSanSebastian.bookService.dto.ResultadoImportacion;
+import com.libreriaSanSebastian.bookService.service.ImportacionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ImportacionController.class)
+@ActiveProfiles("test")
+class ImportacionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ImportacionService importacionService;
+
+    @Test
+    void testImportarCsv() throws Exception {
+        when(importacionService.importar(any(), eq(ImportacionService.Formato.CSV)))
+                .thenReturn(new ResultadoImportacion(2, 1, 0, 1,
+                        List.of(new ErrorImportacion(3, "El título es requerido")), 15));
+
+        mockMvc.perform(post("/api/v1/libros/importar")
+                .contentType("text/csv")
+                .content("titulo,isbn\nRayuela,9788420482309\n,9788420482316\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importadas").value(1))
+                .andExpect(jsonPath("$.errores[0].linea").value(3));
+
+        verify(importacionService, times(1)).importar(any(), eq(ImportacionService.Formato.CSV));
+    }
+
+    @Test
+    void testImportarNdjson() throws Exception {
+        when(importacionService.importar(any(), eq(ImportacionService.Formato.NDJSON)))
+                .thenReturn(new ResultadoImportacion(1, 1, 0, 0, List.of(), 5));
+
+        mockMvc.perform(post("/api/v1/libros/importar")
+                .contentType("application/x-ndjson")
+                .content("{\"titulo\":\"Rayuela\",\"isbn\":\"9788420482309\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importadas").value(1));
+    }
+
+    @Test
+    void testImportarTipoNoSoportado() throws Exception {
+        mockMvc.perform(post("/api/v1/libros/importar")
+                .contentType("application/xml")
+                .content("<libros/>"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+}
@@ -1,23 +1,43 @@
 package com.libreriaSanSebastian.bookService.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.libreriaSanSebastian.bookService.dto.Cambios;
+import com.libreriaSanSebastian.bookService.dto.ContencionStock;
+import com.libreriaSanSebastian.bookService.dto.LineaStock;
+import com.libreriaSanSebastian.bookService.dto.MarcaCambios;
+import com.libreriaSanSebastian.bookService.dto.Pagina;
+import com.libreriaSanSebastian.bookService.dto.ResultadoLineaStock;
+import com.libreriaSanSebastian.bookService.dto.SugerenciaTitulo;
 import com.libreriaSanSebastian.bookService.model.Autor;
 import com.libreriaSanSebastian.bookService.model.Libro;
+import com.libreriaSanSebastian.bookService.service.EventosLibrosService;
 import com.libreriaSanSebastian.bookService.service.LibroService;
+import com.libreriaSanSebastian.bookService.service.StockCalienteService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -32,6 +52,12 @@ class LibroControllerTest {
     @MockBean
     private LibroService libroService;
 
+    @MockBean
+    private StockCalienteService stockCaliente;
+
+    @MockBean
+    private EventosLibrosService eventos;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -58,7 +84,7 @@ class LibroControllerTest {
     void testListarTodos() throws Exception {
         when(libroService.listarTodos()).thenReturn(List.of(libro));
 
-        mockMvc.perform(get("/api/v1/libros"))
+        mockMvc.perform(get("/api/v1/libros").param("todos", "true"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$[0].titulo").value("Cien años de soledad"))
@@ -70,6 +96,131 @@ class LibroControllerTest {
         verify(libroService, times(1)).listarTodos();
     }
 
+    @Test
+    void testListarPaginaInicial() throws Exception {
+        when(libroService.listarPagina(null, null, 20, "id"))
+                .thenReturn(new Pagina<>(List.of(libro), false, true));
+
+        mockMvc.perform(get("/api/v1/libros"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.libroList[0].titulo").value("Cien años de soledad"))
+                .andExpect(jsonPath("$._links.next.href").value("http://localhost/api/v1/libros?after=1&limit=20&sort=id"))
+                .andExpect(jsonPath("$._links.prev").doesNotExist());
+
+        verify(libroService, times(1)).listarPagina(null, null, 20, "id");
+        verify(libroService, never()).listarTodos();
+    }
+
+    @Test
+    void testListarPaginaLimiteAcotado() throws Exception {
+        when(libroService.listarPagina(1L, null, 100, "titulo"))
+                .thenReturn(new Pagina<>(List.of(libro), true, false));
+
+        mockMvc.perform(get("/api/v1/libros")
+                .param("after", "1")
+                .param("limit", "5000")
+                .param("sort", "titulo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.prev.href").value("http://localhost/api/v1/libros?before=1&limit=100&sort=titulo"))
+                .andExpect(jsonPath("$._links.next").doesNotExist());
+
+        verify(libroService, times(1)).listarPagina(1L, null, 100, "titulo");
+    }
+
+    @Test
+    void testListarPaginaOrdenInvalido() throws Exception {
+        mockMvc.perform(get("/api/v1/libros").param("sort", "isbn"))
+                .andExpect(status().isBadRequest());
+
+        verify(libroService, never()).listarPagina(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void testListarParcialSinEnlaces() throws Exception {
+        when(libroService.listarPaginaParcial(any(), isNull(), isNull(), eq(20), eq("id")))
+                .thenReturn(new Pagina<>(List.of(new HashMap<>(Map.of("id", 1L, "stock", 10))), false, true));
+
+        mockMvc.perform(get("/api/v1/libros").param("fields", "stock"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.libros[0].stock").value(10))
+                .andExpect(jsonPath("$._embedded.libros[0].titulo").doesNotExist())
+                .andExpect(jsonPath("$._embedded.libros[0]._links").doesNotExist())
+                .andExpect(jsonPath("$._links").doesNotExist());
+
+        verify(libroService, never()).listarPagina(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void testListarParcialConEnlaces() throws Exception {
+        when(libroService.listarPaginaParcial(any(), isNull(), isNull(), eq(20), eq("id")))
+                .thenReturn(new Pagina<>(List.of(new HashMap<>(Map.of("id", 1L, "stock", 10))), false, true));
+
+        mockMvc.perform(get("/api/v1/libros").param("fields", "stock,_links"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.libros[0]._links.self.href").value("http://localhost/api/v1/libros/1"))
+                .andExpect(jsonPath("$._links.next.href").value("http://localhost/api/v1/libros?after=1&limit=20&sort=id"));
+    }
+
+    @Test
+    void testListarParcialCampoDesconocido() throws Exception {
+        mockMvc.perform(get("/api/v1/libros").param("fields", "titulo,precio"))
+                .andExpect(status().isBadRequest());
+
+        verify(libroService, never()).listarPaginaParcial(any(), any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void testObtenerParcial() throws Exception {
+        when(libroService.buscarParcial(any(), eq(1L)))
+                .thenReturn(Optional.of(new HashMap<>(Map.of("id", 1L, "titulo", "Cien años de soledad"))));
+
+        mockMvc.perform(get("/api/v1/libros/1").param("fields", "titulo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titulo").value("Cien años de soledad"))
+                .andExpect(jsonPath("$._links").doesNotExist());
+
+        verify(libroService, never()).buscarPorId(anyLong());
+    }
+
+    @Test
+    void testExportarNdjson() throws Exception {
+        doAnswer(invocacion -> {
+            Consumer<Libro> consumidor = invocacion.getArgument(0);
+            consumidor.accept(libro);
+            consumidor.accept(libro);
+            return 2L;
+        }).when(libroService).exportar(any());
+
+        MvcResult resultado = mockMvc.perform(get("/api/v1/libros/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(TimeUnit.MINUTES.toMillis(30), resultado.getRequest().getAsyncContext().getTimeout());
+
+        String cuerpo = mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lineas = cuerpo.split("\n");
+        assertEquals(2, lineas.length);
+        assertEquals("Cien años de soledad", objectMapper.readValue(lineas[0], Libro.class).getTitulo());
+        verify(libroService, times(1)).exportar(any());
+        verify(libroService, never()).listarTodos();
+    }
+
+    @Test
+    void testSugerirTitulos() throws Exception {
+        when(libroService.sugerirTitulos("cien a", 10))
+                .thenReturn(List.of(new SugerenciaTitulo(1L, "Cien años de soledad")));
+
+        mockMvc.perform(get("/api/v1/libros/sugerencias").param("q", "cien a"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].titulo").value("Cien años de soledad"));
+
+        verify(libroService, times(1)).sugerirTitulos("cien a", 10);
+    }
+
     @Test
     void testObtenerPorId() throws Exception {
         when(libroService.buscarPorId(1L)).thenReturn(Optional.of(libro));
@@ -85,6 +236,20 @@ class LibroControllerTest {
         verify(libroService, times(1)).buscarPorId(1L);
     }
 
+    @Test
+    void testObtenerPorIdNoModificado() throws Exception {
+        libro.setVersion(3);
+        autor.setVersion(1);
+        when(libroService.buscarPorId(1L)).thenReturn(Optional.of(libro));
+
+        mockMvc.perform(get("/api/v1/libros/1").header("If-None-Match", "\"3.1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3.1\""))
+                .andExpect(content().string(""));
+
+        verify(libroService, times(1)).buscarPorId(1L);
+    }
+
     @Test
     void testObtenerPorIdNoEncontrado() throws Exception {
         when(libroService.buscarPorId(1L)).thenReturn(Optional.empty());
@@ -118,6 +283,36 @@ class LibroControllerTest {
         verify(libroService, times(1)).buscarPorTitulo("Libro inexistente");
     }
 
+    @Test
+    void testObtenerPorIsbn() throws Exception {
+        when(libroService.buscarPorIsbn("84-376-0494-X")).thenReturn(Optional.of(libro));
+
+        mockMvc.perform(get("/api/v1/libros/isbn/84-376-0494-X"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titulo").value("Cien años de soledad"));
+
+        verify(libroService, times(1)).buscarPorIsbn("84-376-0494-X");
+    }
+
+    @Test
+    void testObtenerPorIsbnInvalido() throws Exception {
+        mockMvc.perform(get("/api/v1/libros/isbn/978-84-376-0494-8"))
+                .andExpect(status().isBadRequest());
+
+        verify(libroService, never()).buscarPorIsbn(anyString());
+    }
+
+    @Test
+    void testCrearIsbnDuplicado() throws Exception {
+        when(libroService.guardar(any(Libro.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_libros_isbn"));
+
+        mockMvc.perform(post("/api/v1/libros")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(libro)))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void testCrear() throws Exception {
         when(libroService.guardar(any(Libro.class))).thenReturn(libro);
@@ -149,6 +344,20 @@ class LibroControllerTest {
         verify(libroService, times(1)).guardar(any(Libro.class));
     }
 
+    @Test
+    void testActualizarVersionDesactualizada() throws Exception {
+        libro.setVersion(4);
+        when(libroService.buscarPorId(1L)).thenReturn(Optional.of(libro));
+
+        mockMvc.perform(put("/api/v1/libros/1")
+                .header("If-Match", "\"3.0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(libro)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(libroService, never()).guardar(any(Libro.class));
+    }
+
     @Test
     void testActualizarNoEncontrado() throws Exception {
         when(libroService.buscarPorId(1L)).thenReturn(Optional.empty());
@@ -162,6 +371,87 @@ class LibroControllerTest {
         verify(libroService, never()).guardar(any(Libro.class));
     }
 
+    @Test
+    void testModificar() throws Exception {
+        when(libroService.modificar(1L, Map.of("stock", 7), 4L)).thenReturn(true);
+
+        mockMvc.perform(patch("/api/v1/libros/1")
+                .header("If-Match", "\"4.0\"")
+                .contentType("application/merge-patch+json")
+                .content("{\"stock\": 7}"))
+                .andExpect(status().isNoContent());
+
+        verify(libroService, never()).existe(anyLong());
+    }
+
+    @Test
+    void testModificarVersionDesactualizada() throws Exception {
+        when(libroService.modificar(1L, Map.of("stock", 7), 3L)).thenReturn(false);
+        when(libroService.existe(1L)).thenReturn(true);
+
+        mockMvc.perform(patch("/api/v1/libros/1")
+                .header("If-Match", "\"3.0\"")
+                .contentType("application/merge-patch+json")
+                .content("{\"stock\": 7}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testModificarVariasETags() throws Exception {
+        when(libroService.modificar(1L, Map.of("stock", 7), 5L)).thenReturn(true);
+
+        // Varias ETags de la misma versión del libro se comprueban juntas
+        mockMvc.perform(patch("/api/v1/libros/1")
+                .header("If-Match", "\"5.3\", \"5.4\"")
+                .contentType("application/merge-patch+json")
+                .content("{\"stock\": 7}"))
+                .andExpect(status().isNoContent());
+
+        // Con versiones distintas la condición no cabe en una sola sentencia UPDATE
+        mockMvc.perform(patch("/api/v1/libros/1")
+                .header("If-Match", "\"5.3\", \"6.3\"")
+                .contentType("application/merge-patch+json")
+                .content("{\"stock\": 7}"))
+                .andExpect(status().isBadRequest());
+
+        verify(libroService, times(1)).modificar(anyLong(), any(), any());
+    }
+
+    @Test
+    void testModificarNoEncontrado() throws Exception {
+        when(libroService.modificar(1L, Map.of("stock", 7), null)).thenReturn(false);
+
+        mockMvc.perform(patch("/api/v1/libros/1")
+                .contentType("application/merge-patch+json")
+                .content("{\"stock\": 7}"))
+                .andExpect(status().isNotFound());
+
+        verify(libroService, never()).existe(anyLong());
+    }
+
+    @Test
+    void testModificarIsbnDuplicado() throws Exception {
+        when(libroService.modificar(eq(1L), any(), isNull()))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'uk_libros_isbn'"));
+
+        mockMvc.perform(patch("/api/v1/libros/1")
+                .contentType("application/merge-patch+json")
+                .content("{\"isbn\": \"978-84-376-0494-7\"}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testModificarParcheInvalido() throws Exception {
+        when(libroService.modificar(eq(1L), any(), isNull()))
+                .thenThrow(new IllegalArgumentException("El atributo id no puede modificarse"));
+
+        mockMvc.perform(patch("/api/v1/libros/1")
+                .contentType("application/merge-patch+json")
+                .content("{\"id\": 2}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("El atributo id no puede modificarse"));
+    }
+
     @Test
     void testEliminar() throws Exception {
         when(libroService.buscarPorId(1L)).thenReturn(Optional.of(libro));
@@ -204,4 +494,109 @@ class LibroControllerTest {
 
         verify(libroService, times(1)).decrementarStock(1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDecrementarStockLoteExitoso() throws Exception {
+        List<LineaStock> lineas = List.of(new LineaStock(1L, 2));
+        when(libroService.decrementarStockLote(lineas)).thenReturn(List.of(
+                new ResultadoLineaStock(1L, 2, ResultadoLineaStock.Estado.DECREMENTADO, 8)));
+
+        mockMvc.perform(put("/api/v1/libros/decrementar-stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(lineas)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].estado").value("DECREMENTADO"))
+                .andExpect(jsonPath("$[0].stock").value(8));
+
+        verify(libroService, times(1)).decrementarStockLote(lineas);
+    }
+
+    @Test
+    void testDecrementarStockLoteSinStock() throws Exception {
+        List<LineaStock> lineas = List.of(new LineaStock(1L, 20));
+        when(libroService.decrementarStockLote(lineas)).thenReturn(List.of(
+                new ResultadoLineaStock(1L, 20, ResultadoLineaStock.Estado.SIN_STOCK, 10)));
+
+        mockMvc.perform(put("/api/v1/libros/decrementar-stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(lineas)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$[0].estado").value("SIN_STOCK"));
+    }
+
+    @Test
+    void testDecrementarStockLoteCantidadInvalida() throws Exception {
+        mockMvc.perform(put("/api/v1/libros/decrementar-stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(new LineaStock(1L, 0)))))
+                .andExpect(status().isBadRequest());
+
+        verify(libroService, never()).decrementarStockLote(any());
+    }
+
+    @Test
+    void testReponerStock() throws Exception {
+        List<LineaStock> lineas = List.of(new LineaStock(1L, 5), new LineaStock(9L, 1));
+        when(libroService.reponerStock(lineas)).thenReturn(List.of(
+                new ResultadoLineaStock(1L, 5, ResultadoLineaStock.Estado.REPUESTO, null),
+                new ResultadoLineaStock(9L, 1, ResultadoLineaStock.Estado.NO_ENCONTRADO, null)));
+
+        mockMvc.perform(put("/api/v1/libros/reponer-stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(lineas)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].estado").value("REPUESTO"))
+                .andExpect(jsonPath("$[1].estado").value("NO_ENCONTRADO"));
+    }
+
+    @Test
+    void testSuscribirEventosSinCapacidad() throws Exception {
+        when(eventos.suscribir()).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/libros/eventos").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void testListarCambios() throws Exception {
+        MarcaCambios desde = MarcaCambios.de("1790848800000000-4");
+        Libro libro = new Libro(5L, "Rayuela", "9788437604572", 3, null, 2L, null);
+        when(libroService.listarCambios(desde, 500)).thenReturn(Optional.of(
+                new Cambios<>(List.of(libro), List.of(7L), MarcaCambios.de("1790848800000010-5"), true)));
+
+        mockMvc.perform(get("/api/v1/libros/cambios").param("desde", "1790848800000000-4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.modificados[0].id").value(5))
+                .andExpect(jsonPath("$.eliminados[0]").value(7))
+                .andExpect(jsonPath("$.marca").value("1790848800000010-5"))
+                .andExpect(jsonPath("$.hayMas").value(true));
+    }
+
+    @Test
+    void testListarCambiosMarcaInvalida() throws Exception {
+        mockMvc.perform(get("/api/v1/libros/cambios").param("desde", "ayer"))
+                .andExpect(status().isBadRequest());
+
+        verify(libroService, never()).listarCambios(any(), anyInt());
+    }
+
+    @Test
+    void testListarCambiosMarcaVencida() throws Exception {
+        when(libroService.listarCambios(any(), anyInt())).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/v1/libros/cambios").param("desde", "1-1"))
+                .andExpect(status().isGone());
+    }
+
+    @Test
+    void testObtenerContencionStock() throws Exception {
+        when(stockCaliente.obtenerContencion()).thenReturn(List.of(new ContencionStock(1L, 120, 4.5, 30.0, false)));
+
+        mockMvc.perform(get("/api/v1/libros/stock/contencion"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].operaciones").value(120));
+
+        verify(stockCaliente, times(1)).obtenerContencion();
+    }
+}
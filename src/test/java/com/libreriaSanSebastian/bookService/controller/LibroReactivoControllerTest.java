@@ -0,0 +1,108 @@
+package com.libreriaSanSebastian.bookService.controller;
+
+import com.libreriaSanSebastian.bookService.assemblers.LibroModelAssembler;
+import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import com.libreriaSanSebastian.bookService.repository.CatalogoReactivoRepository;
+import com.libreriaSanSebastian.bookService.service.StockCalienteService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(LibroReactivoController.class)
+@Import(LibroModelAssembler.class)
+@ActiveProfiles("test")
+class LibroReactivoControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CatalogoReactivoRepository catalogo;
+
+    @MockBean
+    private StockCalienteService stockCaliente;
+
+    private Libro libro;
+
+    @BeforeEach
+    void setUp() {
+        Autor autor = new Autor(1L, "Gabriel", "García Márquez", "Colombiana", 0, null);
+        libro = new Libro(1L, "Cien años de soledad", "9788437604947", 10, autor, 3, null);
+        // Sin reservas en memoria el stock disponible es el persistido
+        when(stockCaliente.conStockDisponible(any(Libro.class))).thenAnswer(i -> i.getArgument(0));
+    }
+
+    @Test
+    void testObtenerPorId() throws Exception {
+        when(catalogo.buscarLibro(1L)).thenReturn(Mono.just(libro));
+
+        MvcResult resultado = mockMvc.perform(get("/api/v2/libros/1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Misma forma HAL que la v1; las modificaciones se enlazan a la v1
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3.0\""))
+                .andExpect(jsonPath("$.titulo").value("Cien años de soledad"))
+                .andExpect(jsonPath("$.autor.nombre").value("Gabriel"))
+                .andExpect(jsonPath("$._links.self.href").value("http://localhost/api/v2/libros/1"))
+                .andExpect(jsonPath("$._links.actualizar.href").value("http://localhost/api/v1/libros/1"));
+    }
+
+    @Test
+    void testObtenerPorIdNoEncontrado() throws Exception {
+        when(catalogo.buscarLibro(99L)).thenReturn(Mono.empty());
+
+        MvcResult resultado = mockMvc.perform(get("/api/v2/libros/99"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testListarConPaginaSiguiente() throws Exception {
+        Libro otro = new Libro(2L, "El amor en los tiempos del cólera", "9780306406157", 4, null, 0, null);
+        when(catalogo.listarLibros(0L, 2)).thenReturn(Flux.just(libro, otro));
+
+        MvcResult resultado = mockMvc.perform(get("/api/v2/libros").param("limit", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Se pide un libro más que el límite para detectar la página siguiente
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.libroList.length()").value(1))
+                .andExpect(jsonPath("$._links.next.href").value("http://localhost/api/v2/libros?after=1&limit=1"));
+    }
+
+    @Test
+    void testExportarNdjson() throws Exception {
+        when(catalogo.recorrerLibros()).thenReturn(Flux.just(libro));
+
+        MvcResult resultado = mockMvc.perform(get("/api/v2/libros/export").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"titulo\":\"Cien años de soledad\"")));
+    }
+}
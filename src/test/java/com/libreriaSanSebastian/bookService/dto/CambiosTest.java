@@ -0,0 +1,74 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CambiosTest {
+
+    private static final Instant T1 = Instant.parse("2026-10-01T10:00:00.000001Z");
+    private static final Instant T2 = Instant.parse("2026-10-01T10:00:00.000002Z");
+    private static final MarcaCambios CORTE = MarcaCambios.hasta(Instant.parse("2026-10-01T10:00:05Z"));
+
+    private static final Function<MarcaCambios, MarcaCambios> POSICION = Function.identity();
+
+    @Test
+    void testMarcaIdaYVuelta() {
+        MarcaCambios marca = new MarcaCambios(T2, 42L);
+
+        assertEquals("1790848800000002-42", marca.toString());
+        assertEquals(marca, MarcaCambios.de(marca.toString()));
+    }
+
+    @Test
+    void testMarcaInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> MarcaCambios.de("abc"));
+        assertThrows(IllegalArgumentException.class, () -> MarcaCambios.de("-5-1"));
+        assertThrows(IllegalArgumentException.class, () -> MarcaCambios.de("15-"));
+        assertThrows(IllegalArgumentException.class, () -> MarcaCambios.de("15-1-2"));
+    }
+
+    @Test
+    void testCombinarOrdenaPorMomentoEId() {
+        List<MarcaCambios> modificados = List.of(new MarcaCambios(T1, 5L), new MarcaCambios(T2, 1L));
+        List<MarcaCambios> eliminaciones = List.of(new MarcaCambios(T1, 3L), new MarcaCambios(T1, 7L));
+
+        Cambios<MarcaCambios> cambios = Cambios.combinar(modificados, POSICION, eliminaciones, POSICION, 10, CORTE);
+
+        // Se entregan todos y la marca cubre hasta el corte
+        assertEquals(modificados, cambios.getModificados());
+        assertEquals(List.of(3L, 7L), cambios.getEliminados());
+        assertEquals(CORTE, cambios.getMarca());
+        assertFalse(cambios.isHayMas());
+    }
+
+    @Test
+    void testCombinarCortaEnElLimite() {
+        // Cada lista se obtiene con limite + 1 filas
+        List<MarcaCambios> modificados = List.of(new MarcaCambios(T1, 5L), new MarcaCambios(T2, 1L),
+                new MarcaCambios(T2, 2L));
+        List<MarcaCambios> eliminaciones = List.of(new MarcaCambios(T1, 3L), new MarcaCambios(T2, 4L));
+
+        Cambios<MarcaCambios> cambios = Cambios.combinar(modificados, POSICION, eliminaciones, POSICION, 2, CORTE);
+
+        // La marca queda en el último cambio entregado, en medio del mismo momento
+        assertEquals(List.of(new MarcaCambios(T1, 5L)), cambios.getModificados());
+        assertEquals(List.of(3L), cambios.getEliminados());
+        assertEquals(new MarcaCambios(T1, 5L), cambios.getMarca());
+        assertTrue(cambios.isHayMas());
+    }
+
+    @Test
+    void testCombinarSinCambiosAvanzaHastaElCorte() {
+        Cambios<MarcaCambios> cambios = Cambios.combinar(List.of(), POSICION, List.<MarcaCambios>of(), POSICION, 10, CORTE);
+
+        assertTrue(cambios.getModificados().isEmpty());
+        assertTrue(cambios.getEliminados().isEmpty());
+        assertEquals(CORTE, cambios.getMarca());
+        assertFalse(cambios.isHayMas());
+    }
+}
@@ -0,0 +1,73 @@
+package com.libreriaSanSebastian.bookService.dto;
+
+import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CamposSolicitadosTest {
+
+    private static final Set<String> PERMITIDOS = Set.of(
+            "id", "titulo", "stock", "autor.id", "autor.nombre", "autor.apellido");
+
+    @Test
+    void testDeIncluyeIdYExpandeRelacion() {
+        CamposSolicitados campos = CamposSolicitados.de("stock, autor ,_links", PERMITIDOS);
+
+        // El id va primero y autor se expande a todos sus campos permitidos
+        assertEquals("id", campos.getCampos().get(0));
+        assertEquals("stock", campos.getCampos().get(1));
+        assertTrue(campos.getCampos().containsAll(List.of("autor.id", "autor.nombre", "autor.apellido")));
+        assertEquals(5, campos.getCampos().size());
+        assertTrue(campos.isEnlaces());
+    }
+
+    @Test
+    void testDeSinEnlaces() {
+        CamposSolicitados campos = CamposSolicitados.de("titulo,id", PERMITIDOS);
+
+        assertEquals(List.of("id", "titulo"), campos.getCampos());
+        assertFalse(campos.isEnlaces());
+    }
+
+    @Test
+    void testDeCampoDesconocido() {
+        assertThrows(IllegalArgumentException.class, () -> CamposSolicitados.de("titulo,precio", PERMITIDOS));
+        assertThrows(IllegalArgumentException.class, () -> CamposSolicitados.de("autor.email", PERMITIDOS));
+    }
+
+    @Test
+    void testFilaAgrupaRelacionYDejaNullSiFalta() {
+        CamposSolicitados campos = CamposSolicitados.de("titulo,autor.nombre", PERMITIDOS);
+        Map<String, Object> valores = new HashMap<>(Map.of("id", 1L, "titulo", "Rayuela"));
+
+        Map<String, Object> sinAutor = campos.fila(valores::get);
+        valores.put("autor.nombre", "Julio");
+        Map<String, Object> conAutor = campos.fila(valores::get);
+
+        assertTrue(sinAutor.containsKey("autor"));
+        assertNull(sinAutor.get("autor"));
+        assertEquals(Map.of("nombre", "Julio"), conAutor.get("autor"));
+    }
+
+    @Test
+    void testRecortarEntidad() {
+        Libro libro = new Libro(3L, "Rayuela", "9788437604572", 4, null, 0, null);
+        CamposSolicitados campos = CamposSolicitados.de("stock,autor.nombre", PERMITIDOS);
+
+        // Sin autor la ruta anidada no es legible y la relación queda en null
+        Map<String, Object> sinAutor = campos.recortar(libro);
+        assertEquals(3L, sinAutor.get("id"));
+        assertEquals(4, sinAutor.get("stock"));
+        assertNull(sinAutor.get("autor"));
+
+        libro.setAutor(new Autor(2L, "Julio", "Cortázar", "Argentina", 0, null));
+        assertEquals(Map.of("nombre", "Julio"), campos.recortar(libro).get("autor"));
+    }
+}
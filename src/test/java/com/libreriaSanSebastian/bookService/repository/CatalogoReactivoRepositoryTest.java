@@ -0,0 +1,104 @@
+package com.libreriaSanSebastian.bookService.repository;
+
+import com.libreriaSanSebastian.bookService.model.Libro;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogoReactivoRepositoryTest {
+
+    private static ConnectionFactory connectionFactory;
+
+    private CatalogoReactivoRepository catalogo;
+
+    @BeforeAll
+    static void crearBase() {
+        // Base H2 embebida accedida con el driver R2DBC
+        connectionFactory = ConnectionFactories.get(
+                "r2dbc:h2:mem:///catalogo_reactivo?options=MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        Mono.usingWhen(connectionFactory.create(),
+                conexion -> Flux.from(conexion.createBatch()
+                        .add("CREATE TABLE autores (id BIGINT PRIMARY KEY, nombre VARCHAR(100) NOT NULL, " +
+                             "apellido VARCHAR(100) NOT NULL, nacionalidad VARCHAR(50), version BIGINT NOT NULL)")
+                        .add("CREATE TABLE libros (id BIGINT PRIMARY KEY, titulo VARCHAR(150) NOT NULL, " +
+                             "isbn VARCHAR(255) NOT NULL, stock INT NOT NULL, autor_id BIGINT, version BIGINT NOT NULL)")
+                        .add("INSERT INTO autores VALUES (1, 'Gabriel', 'García Márquez', 'Colombiana', 3)")
+                        .add("INSERT INTO autores VALUES (2, 'Isabel', 'Allende', 'Chilena', 0)")
+                        .add("INSERT INTO libros VALUES (10, 'Cien años de soledad', '9788437604947', 5, 1, 2)")
+                        .add("INSERT INTO libros VALUES (20, 'La casa de los espíritus', '9780306406157', 0, 2, 0)")
+                        .add("INSERT INTO libros VALUES (30, 'Anónimo', '9788420482309', 7, NULL, 1)")
+                        .execute()).then(),
+                Connection::close).block();
+    }
+
+    @BeforeEach
+    void setUp() {
+        catalogo = new CatalogoReactivoRepository();
+        ReflectionTestUtils.setField(catalogo, "connectionFactory", connectionFactory);
+    }
+
+    @Test
+    void testBuscarLibroConAutor() {
+        StepVerifier.create(catalogo.buscarLibro(10))
+                .assertNext(libro -> {
+                    assertEquals("Cien años de soledad", libro.getTitulo());
+                    assertEquals("9788437604947", libro.getIsbn());
+                    assertEquals(5, libro.getStock());
+                    assertEquals(2, libro.getVersion());
+                    assertEquals("García Márquez", libro.getAutor().getApellido());
+                    assertEquals(3, libro.getAutor().getVersion());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testBuscarLibroSinAutorEInexistente() {
+        StepVerifier.create(catalogo.buscarLibro(30))
+                .assertNext(libro -> assertNull(libro.getAutor()))
+                .verifyComplete();
+        StepVerifier.create(catalogo.buscarLibro(99)).verifyComplete();
+    }
+
+    @Test
+    void testListarLibrosPorCursor() {
+        StepVerifier.create(catalogo.listarLibros(10, 5).map(Libro::getId))
+                .expectNext(20L, 30L)
+                .verifyComplete();
+        StepVerifier.create(catalogo.listarLibros(0, 1).map(Libro::getId))
+                .expectNext(10L)
+                .verifyComplete();
+    }
+
+    @Test
+    void testRecorrerLibrosSegunDemanda() {
+        // El suscriptor pide de a un libro; la consulta no emite más de lo solicitado
+        StepVerifier.create(catalogo.recorrerLibros().map(Libro::getId), 1)
+                .expectNext(10L)
+                .thenRequest(1)
+                .expectNext(20L)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testAutores() {
+        StepVerifier.create(catalogo.buscarAutor(2))
+                .assertNext(autor -> assertEquals("Allende", autor.getApellido()))
+                .verifyComplete();
+        StepVerifier.create(catalogo.recorrerAutores().count())
+                .expectNext(2L)
+                .verifyComplete();
+        StepVerifier.create(catalogo.listarAutores(1, 10).count())
+                .expectNext(1L)
+                .verifyComplete();
+    }
+}
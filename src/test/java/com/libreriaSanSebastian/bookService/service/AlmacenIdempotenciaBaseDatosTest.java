@@ -0,0 +1,116 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.dto.RespuestaGuardada;
+import com.libreriaSanSebastian.bookService.model.ClaveIdempotencia;
+import com.libreriaSanSebastian.bookService.repository.ClaveIdempotenciaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+class AlmacenIdempotenciaBaseDatosTest {
+
+    @Mock
+    private ClaveIdempotenciaRepository claveRepository;
+
+    @InjectMocks
+    private AlmacenIdempotenciaBaseDatos almacen;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(almacen, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(almacen, "enCurso", Duration.ofSeconds(30));
+    }
+
+    @Test
+    void testReservarClaveNueva() {
+        // Configuración del mock
+        when(claveRepository.reservar(eq("clave-1"), eq("h"), any(Instant.class))).thenReturn(1);
+
+        // Verificaciones
+        assertNull(almacen.reservar("clave-1", "h"));
+        verify(claveRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void testReservarConPlazoEnCursoYGuardarConTtl() {
+        // Configuración del mock
+        ArgumentCaptor<Instant> expira = ArgumentCaptor.forClass(Instant.class);
+        when(claveRepository.reservar(eq("clave-1"), eq("h"), expira.capture())).thenReturn(1);
+
+        // Llamada al método del servicio
+        Instant antes = Instant.now();
+        almacen.reservar("clave-1", "h");
+        almacen.guardar("clave-1", new RespuestaGuardada("h", 200, null, null));
+
+        // Verificaciones - la reserva vence tras el plazo en curso y la respuesta tras el TTL
+        assertFalse(expira.getValue().isAfter(Instant.now().plusSeconds(30)));
+        verify(claveRepository).guardar(eq("clave-1"), eq(200), isNull(), isNull(),
+                argThat(vence -> !vence.isBefore(antes.plus(Duration.ofHours(1)))));
+    }
+
+    @Test
+    void testReservarClaveEnCursoAbandonada() {
+        // Configuración del mock - la instancia que la reservó cayó y el plazo en curso venció
+        when(claveRepository.reservar(eq("clave-1"), eq("h"), any(Instant.class)))
+                .thenThrow(new DataIntegrityViolationException("PRIMARY"))
+                .thenReturn(1);
+        when(claveRepository.findById("clave-1")).thenReturn(Optional.of(new ClaveIdempotencia(
+                "clave-1", "h", 0, null, null, Instant.now().minusSeconds(1))));
+
+        // Verificaciones - la repetición toma la clave en lugar de recibir "en curso"
+        assertNull(almacen.reservar("clave-1", "h"));
+        verify(claveRepository).eliminarVencida(eq("clave-1"), any(Instant.class));
+    }
+
+    @Test
+    void testReservarClaveExistente() {
+        // Configuración del mock - el INSERT falla y se devuelve la respuesta guardada
+        when(claveRepository.reservar(eq("clave-1"), eq("h"), any(Instant.class)))
+                .thenThrow(new DataIntegrityViolationException("PRIMARY"));
+        when(claveRepository.findById("clave-1")).thenReturn(Optional.of(new ClaveIdempotencia(
+                "clave-1", "h", 200, "application/json", new byte[]{'1'}, Instant.now().plusSeconds(60))));
+
+        // Llamada al método del servicio
+        RespuestaGuardada guardada = almacen.reservar("clave-1", "h");
+
+        // Verificaciones
+        assertEquals(200, guardada.getEstado());
+        assertFalse(guardada.isEnCurso());
+        verify(claveRepository, never()).eliminarVencida(anyString(), any(Instant.class));
+    }
+
+    @Test
+    void testReservarClaveVencida() {
+        // Configuración del mock - la fila venció y todavía no se purgó
+        when(claveRepository.reservar(eq("clave-1"), eq("h"), any(Instant.class)))
+                .thenThrow(new DataIntegrityViolationException("PRIMARY"))
+                .thenReturn(1);
+        when(claveRepository.findById("clave-1")).thenReturn(Optional.of(new ClaveIdempotencia(
+                "clave-1", "h", 200, null, null, Instant.now().minusSeconds(60))));
+
+        // Verificaciones
+        assertNull(almacen.reservar("clave-1", "h"));
+        verify(claveRepository, times(1)).eliminarVencida(eq("clave-1"), any(Instant.class));
+    }
+}
@@ -0,0 +1,54 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.dto.RespuestaGuardada;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlmacenIdempotenciaMemoriaTest {
+
+    private AlmacenIdempotenciaMemoria almacen;
+
+    @BeforeEach
+    void setUp() {
+        almacen = new AlmacenIdempotenciaMemoria();
+        ReflectionTestUtils.setField(almacen, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(almacen, "enCurso", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(almacen, "capacidad", DataSize.ofKilobytes(4));
+        almacen.iniciar();
+    }
+
+    @Test
+    void testReservaEnCursoNoSeExpulsaPorTamano() {
+        assertNull(almacen.reservar("en-curso", "h"));
+
+        // Respuestas grandes que superan varias veces la capacidad
+        for (int i = 0; i < 50; i++) {
+            String clave = "clave-" + i;
+            almacen.reservar(clave, "h");
+            almacen.guardar(clave, new RespuestaGuardada("h", 200, "application/json", new byte[1024]));
+        }
+
+        // Verificaciones - la repetición de la petición en curso no se ejecuta de nuevo
+        RespuestaGuardada repeticion = almacen.reservar("en-curso", "h");
+        assertNotNull(repeticion);
+        assertTrue(repeticion.isEnCurso());
+    }
+
+    @Test
+    void testReservarDevuelveRespuestaGuardada() {
+        assertNull(almacen.reservar("clave-1", "h"));
+        almacen.guardar("clave-1", new RespuestaGuardada("h", 201, null, null));
+
+        // Verificaciones
+        assertEquals(201, almacen.reservar("clave-1", "h").getEstado());
+
+        almacen.liberar("clave-1");
+        assertNull(almacen.reservar("clave-1", "h"));
+    }
+}
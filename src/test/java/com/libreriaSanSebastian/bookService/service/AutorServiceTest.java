@@ -1,16 +1,25 @@
 package com.libreriaSanSebastian.bookService.service;
 
+import com.libreriaSanSebastian.bookService.dto.AutorConTotales;
+import com.libreriaSanSebastian.bookService.dto.LibroDeAutor;
+import com.libreriaSanSebastian.bookService.dto.Pagina;
 import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Eliminacion;
+import com.libreriaSanSebastian.bookService.repository.ActualizacionParcialRepository;
 import com.libreriaSanSebastian.bookService.repository.AutorRepository;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,6 +32,18 @@ class AutorServiceTest {
     @Mock
     private AutorRepository autorRepository;
 
+    @Mock
+    private LibroRepository libroRepository;
+
+    @Mock
+    private ActualizacionParcialRepository actualizacionParcial;
+
+    @Mock
+    private CambiosService cambios;
+
+    @Mock
+    private InstantaneaService instantanea;
+
     @InjectMocks
     private AutorService autorService;
 
@@ -52,6 +73,54 @@ class AutorServiceTest {
         verify(autorRepository, times(1)).findAll();
     }
 
+    @Test
+    void testListarConTotales() {
+        // Configuración del mock
+        when(autorRepository.findAllConTotales()).thenReturn(List.of(
+                new AutorConTotales(1L, "Gabriel", "García Márquez", "Colombiana", 0L, 2L, 15L)));
+
+        // Llamada al método del servicio
+        List<AutorConTotales> autores = autorService.listarConTotales();
+
+        // Verificaciones
+        assertEquals(1, autores.size());
+        assertEquals(2L, autores.get(0).getTotalLibros());
+        assertEquals(15L, autores.get(0).getStockTotal());
+        verify(autorRepository, never()).findAll();
+    }
+
+    @Test
+    void testListarLibrosPrimeraPagina() {
+        // Configuración del mock: se piden limite + 1 filas para detectar la página siguiente
+        when(libroRepository.findPorAutor(1L, 0L, PageRequest.of(0, 3))).thenReturn(List.of(
+                new LibroDeAutor(4L, "A", "9780000000001", 1),
+                new LibroDeAutor(9L, "B", "9780000000002", 2),
+                new LibroDeAutor(12L, "C", "9780000000003", 3)));
+
+        // Llamada al método del servicio
+        Pagina<LibroDeAutor> pagina = autorService.listarLibros(1L, null, 2);
+
+        // Verificaciones
+        assertEquals(List.of(4L, 9L), pagina.getElementos().stream().map(LibroDeAutor::getId).toList());
+        assertTrue(pagina.isHaySiguiente());
+        assertFalse(pagina.isHayAnterior());
+    }
+
+    @Test
+    void testListarLibrosUltimaPagina() {
+        // Configuración del mock
+        when(libroRepository.findPorAutor(1L, 9L, PageRequest.of(0, 3))).thenReturn(List.of(
+                new LibroDeAutor(12L, "C", "9780000000003", 3)));
+
+        // Llamada al método del servicio
+        Pagina<LibroDeAutor> pagina = autorService.listarLibros(1L, 9L, 2);
+
+        // Verificaciones
+        assertEquals(1, pagina.getElementos().size());
+        assertFalse(pagina.isHaySiguiente());
+        assertTrue(pagina.isHayAnterior());
+    }
+
     @Test
     void testBuscarPorId() {
         // Configuración del mock
@@ -106,5 +175,31 @@ class AutorServiceTest {
 
         // Verificación
         verify(autorRepository, times(1)).deleteById(1L);
+        verify(cambios, times(1)).registrarEliminacion(Eliminacion.Tipo.AUTOR, 1L);
+    }
+
+    @Test
+    void testModificar() {
+        // Configuración del mock - null en el parche quita la nacionalidad
+        Map<String, Object> parche = new HashMap<>();
+        parche.put("apellido", "Márquez");
+        parche.put("nacionalidad", null);
+        when(actualizacionParcial.actualizarAutor(1L, parche, 2L)).thenReturn(1);
+
+        // Llamada al método del servicio
+        boolean modificado = autorService.modificar(1L, parche, 2L);
+
+        // Verificación
+        assertTrue(modificado);
+    }
+
+    @Test
+    void testModificarParcheInvalido() {
+        // Verificaciones - el nombre no puede quitarse y el id no es modificable
+        Map<String, Object> sinNombre = new HashMap<>();
+        sinNombre.put("nombre", null);
+        assertThrows(IllegalArgumentException.class, () -> autorService.modificar(1L, sinNombre, null));
+        assertThrows(IllegalArgumentException.class, () -> autorService.modificar(1L, Map.of("id", 5), null));
+        verifyNoInteractions(actualizacionParcial);
     }
-}
\ No newline at end of file
+}
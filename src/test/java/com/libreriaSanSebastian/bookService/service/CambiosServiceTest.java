@@ -0,0 +1,151 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.dto.Cambios;
+import com.libreriaSanSebastian.bookService.dto.MarcaCambios;
+import com.libreriaSanSebastian.bookService.model.Eliminacion;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import com.libreriaSanSebastian.bookService.repository.EliminacionRepository;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+class CambiosServiceTest {
+
+    @Mock
+    private EliminacionRepository eliminacionRepository;
+
+    @Mock
+    private LibroRepository libroRepository;
+
+    @InjectMocks
+    private CambiosService cambiosService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cambiosService, "margen", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(cambiosService, "retencion", Duration.ofDays(1));
+    }
+
+    @Test
+    void testListarCombinaModificadosYEliminaciones() {
+        Instant momento = MarcaCambios.ahora().minusSeconds(60);
+        Libro libro = new Libro(2L, "Rayuela", "9788437604572", 5, null, 1L, momento);
+        MarcaCambios desde = new MarcaCambios(momento.minusSeconds(1), 0L);
+
+        // Configuración del mock
+        when(libroRepository.findModificados(eq(desde.getMomento()), eq(0L), any(Instant.class), any(Pageable.class)))
+                .thenReturn(List.of(libro));
+        when(eliminacionRepository.findEliminaciones(eq(Eliminacion.Tipo.LIBRO), eq(desde.getMomento()), eq(0L),
+                any(Instant.class), any(Pageable.class)))
+                .thenReturn(List.of(new Eliminacion(1L, Eliminacion.Tipo.LIBRO, 9L, momento)));
+
+        // Llamada al método del servicio
+        Optional<Cambios<Libro>> cambios = cambiosService.listar(Eliminacion.Tipo.LIBRO, desde, 10,
+                libroRepository::findModificados, l -> new MarcaCambios(l.getModificado(), l.getId()));
+
+        // Verificaciones - se consulta limite + 1 y la marca avanza hasta el corte, sin incluir el margen
+        assertTrue(cambios.isPresent());
+        assertEquals(List.of(libro), cambios.get().getModificados());
+        assertEquals(List.of(9L), cambios.get().getEliminados());
+        assertFalse(cambios.get().isHayMas());
+        ArgumentCaptor<Instant> hasta = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Pageable> ventana = ArgumentCaptor.forClass(Pageable.class);
+        verify(libroRepository).findModificados(any(), any(), hasta.capture(), ventana.capture());
+        assertEquals(11, ventana.getValue().getPageSize());
+        assertTrue(hasta.getValue().isBefore(MarcaCambios.ahora().minusSeconds(4)));
+        assertEquals(MarcaCambios.hasta(hasta.getValue()), cambios.get().getMarca());
+    }
+
+    @Test
+    void testListarMarcaVencida() {
+        MarcaCambios desde = new MarcaCambios(Instant.now().minus(Duration.ofDays(2)), 1L);
+
+        // Llamada al método del servicio
+        Optional<Cambios<Libro>> cambios = cambiosService.listar(Eliminacion.Tipo.LIBRO, desde, 10,
+                libroRepository::findModificados, l -> new MarcaCambios(l.getModificado(), l.getId()));
+
+        // Verificaciones - ya se purgaron eliminaciones posteriores a la marca
+        assertTrue(cambios.isEmpty());
+        verifyNoInteractions(libroRepository, eliminacionRepository);
+    }
+
+    @Test
+    void testListarMarcaPosteriorAlCorteNoRetrocede() {
+        MarcaCambios desde = MarcaCambios.hasta(MarcaCambios.ahora().minusSeconds(1));
+
+        // Llamada al método del servicio
+        Optional<Cambios<Libro>> cambios = cambiosService.listar(Eliminacion.Tipo.LIBRO, desde, 10,
+                libroRepository::findModificados, l -> new MarcaCambios(l.getModificado(), l.getId()));
+
+        // Verificaciones
+        assertEquals(desde, cambios.orElseThrow().getMarca());
+        verifyNoInteractions(libroRepository, eliminacionRepository);
+    }
+
+    @Test
+    void testEscrituraEnCursoRetieneElCorte() {
+        ReflectionTestUtils.setField(cambiosService, "margen", Duration.ZERO);
+        MarcaCambios desde = new MarcaCambios(MarcaCambios.ahora().minusSeconds(60), 0L);
+
+        // Transacción de escritura que sigue abierta más allá del margen
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Instant escritura = MarcaCambios.modificacion();
+            MarcaCambios.modificacion();
+            assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+
+            // Llamada al método del servicio
+            Optional<Cambios<Libro>> cambios = cambiosService.listar(Eliminacion.Tipo.LIBRO, desde, 10,
+                    libroRepository::findModificados, l -> new MarcaCambios(l.getModificado(), l.getId()));
+
+            // Verificaciones - el corte queda antes de la primera marca de la transacción
+            ArgumentCaptor<Instant> hasta = ArgumentCaptor.forClass(Instant.class);
+            verify(libroRepository).findModificados(any(), any(), hasta.capture(), any());
+            assertTrue(hasta.getValue().isBefore(escritura));
+            assertEquals(MarcaCambios.hasta(hasta.getValue()), cambios.orElseThrow().getMarca());
+
+            // Al terminar la transacción el corte vuelve a ser ahora - margen
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+            assertTrue(MarcaCambios.escrituraMasAntigua().isEmpty());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testRegistrarEliminacion() {
+        // Llamada al método del servicio
+        cambiosService.registrarEliminacion(Eliminacion.Tipo.AUTOR, 3L);
+
+        // Verificaciones
+        ArgumentCaptor<Eliminacion> eliminacion = ArgumentCaptor.forClass(Eliminacion.class);
+        verify(eliminacionRepository).save(eliminacion.capture());
+        assertEquals(Eliminacion.Tipo.AUTOR, eliminacion.getValue().getTipo());
+        assertEquals(3L, eliminacion.getValue().getEntidadId());
+        assertNotNull(eliminacion.getValue().getEliminado());
+    }
+}
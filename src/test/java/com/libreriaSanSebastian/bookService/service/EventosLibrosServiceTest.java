@@ -0,0 +1,204 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.dto.EventoLibro;
+import com.libreriaSanSebastian.bookService.dto.StockLibro;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+class EventosLibrosServiceTest {
+
+    @Mock
+    private LibroRepository libroRepository;
+
+    @Mock
+    private StockCalienteService stockCaliente;
+
+    @InjectMocks
+    private EventosLibrosService eventosService;
+
+    /**
+     * Tareas de envío pendientes; se ejecutan a demanda para simular un cliente lento.
+     */
+    private final List<Runnable> tareas = new ArrayList<>();
+
+    private final List<Object> enviados = new ArrayList<>();
+
+    private final List<String> nombres = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(eventosService, "capacidadBuffer", 2);
+        ReflectionTestUtils.setField(eventosService, "envios", (Executor) tareas::add);
+        eventosService.agregar(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder evento) {
+                // El texto del evento (id, event, data) se separa de los datos serializables
+                evento.build().forEach(parte -> {
+                    if (!(parte.getData() instanceof String texto)) {
+                        enviados.add(parte.getData());
+                    } else if (texto.contains("event:")) {
+                        nombres.add(texto.substring(texto.indexOf("event:") + 6).split("\n")[0]);
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    void testAgrupaCambiosPorLibro() {
+        // Configuración del mock - el libro 1 tiene 2 unidades reservadas por el motor caliente
+        when(libroRepository.findStockByIds(List.of(1L, 2L))).thenReturn(List.of(stock(1L, 8), stock(2L, 3)));
+        when(stockCaliente.unidadesReservadas(any())).thenReturn(0);
+        when(stockCaliente.unidadesReservadas(1L)).thenReturn(2);
+
+        // Ráfaga de cambios: tres ventas y una modificación del libro 1, una venta del libro 2
+        eventosService.registrar(new EventoLibro(1L, EventoLibro.Tipo.STOCK, null));
+        eventosService.registrar(new EventoLibro(1L, EventoLibro.Tipo.ACTUALIZADO, null));
+        eventosService.registrar(new EventoLibro(1L, EventoLibro.Tipo.STOCK, null));
+        eventosService.registrar(new EventoLibro(2L, EventoLibro.Tipo.STOCK, null));
+        eventosService.publicar();
+        tareas.forEach(Runnable::run);
+
+        // Verificaciones - un solo envío, con un evento por libro y una sola consulta de stock
+        assertEquals(List.of(EventosLibrosService.EVENTO_LIBROS), nombres);
+        assertEquals(List.of(List.of(
+                new EventoLibro(1L, EventoLibro.Tipo.ACTUALIZADO, 10),
+                new EventoLibro(2L, EventoLibro.Tipo.STOCK, 3))), enviados);
+        verify(libroRepository, times(1)).findStockByIds(any());
+    }
+
+    @Test
+    void testLibroInexistenteSePublicaEliminado() {
+        // Configuración del mock - el libro se eliminó antes de publicar
+        when(libroRepository.findStockByIds(List.of(5L))).thenReturn(List.of());
+
+        eventosService.registrar(new EventoLibro(5L, EventoLibro.Tipo.STOCK, null));
+        eventosService.publicar();
+        tareas.forEach(Runnable::run);
+
+        // Verificación
+        assertEquals(List.of(List.of(new EventoLibro(5L, EventoLibro.Tipo.ELIMINADO, null))), enviados);
+    }
+
+    @Test
+    void testClienteLentoSeResincroniza() {
+        // Configuración del mock - tres libros eliminados no requieren consultar stock
+        for (long id = 1; id <= 3; id++) {
+            eventosService.registrar(new EventoLibro(id, EventoLibro.Tipo.ELIMINADO, null));
+        }
+
+        // El buffer admite 2 libros: los cambios se descartan y se pide resincronizar
+        eventosService.publicar();
+        tareas.forEach(Runnable::run);
+
+        // Verificaciones
+        assertEquals(List.of(EventosLibrosService.EVENTO_RESINCRONIZAR), nombres);
+        verify(libroRepository, never()).findStockByIds(any());
+    }
+
+    @Test
+    void testEnvioEstancadoDescartaAlSuscriptor() throws InterruptedException {
+        ReflectionTestUtils.setField(eventosService, "limiteEnvio", Duration.ZERO);
+        CountDownLatch escribiendo = new CountDownLatch(1);
+        AtomicBoolean interrumpido = new AtomicBoolean();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        SseEmitter estancado = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder evento) throws IOException {
+                // Cliente que dejó de leer: la escritura queda bloqueada hasta que se interrumpe
+                escribiendo.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    interrumpido.set(true);
+                    throw new IOException(e);
+                }
+            }
+
+            @Override
+            public void completeWithError(Throwable ex) {
+                error.set(ex);
+            }
+        };
+        eventosService.agregar(estancado);
+
+        eventosService.registrar(new EventoLibro(1L, EventoLibro.Tipo.ELIMINADO, null));
+        eventosService.publicar();
+        List<Thread> hilos = new ArrayList<>();
+        AtomicBoolean hiloInterrumpido = new AtomicBoolean();
+        for (Runnable tarea : tareas) {
+            Thread hilo = new Thread(() -> {
+                tarea.run();
+                hiloInterrumpido.compareAndSet(false, Thread.currentThread().isInterrupted());
+            });
+            hilo.start();
+            hilos.add(hilo);
+        }
+        assertTrue(escribiendo.await(5, TimeUnit.SECONDS));
+
+        // Llamada al método del servicio
+        eventosService.revisarEnvios();
+        for (Thread hilo : hilos) {
+            hilo.join(5000);
+        }
+
+        // Verificaciones - se interrumpe la escritura, se completa el emisor y el hilo queda limpio
+        assertTrue(interrumpido.get());
+        assertNotNull(error.get());
+        assertFalse(hiloInterrumpido.get());
+        assertEquals(List.of(EventosLibrosService.EVENTO_LIBROS), nombres);
+
+        // El suscriptor descartado ya no recibe cambios
+        tareas.clear();
+        eventosService.registrar(new EventoLibro(2L, EventoLibro.Tipo.ELIMINADO, null));
+        eventosService.publicar();
+        assertEquals(1, tareas.size());
+    }
+
+    @Test
+    void testSinCambiosNoSeEnviaNada() {
+        eventosService.publicar();
+
+        // Verificaciones
+        assertTrue(tareas.isEmpty());
+        verifyNoInteractions(libroRepository);
+    }
+
+    private StockLibro stock(Long id, Integer stock) {
+        return new StockLibro() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getStock() {
+                return stock;
+            }
+        };
+    }
+}
@@ -0,0 +1,121 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.config.SecuenciasConfig;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+class GeneradorCatalogoTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private SecuenciasConfig secuencias;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private Cache cacheSegundoNivel;
+
+    @InjectMocks
+    private GeneradorCatalogo generador;
+
+    private final List<String> sentencias = new ArrayList<>();
+
+    private final List<List<Object>> valores = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(generador, "filasPorSentencia", 100);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cacheSegundoNivel);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(0L);
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocacion -> {
+            sentencias.add(invocacion.getArgument(0));
+            Object[] argumentos = invocacion.getArguments();
+            valores.add(Arrays.asList(argumentos).subList(1, argumentos.length));
+            return 0;
+        });
+    }
+
+    @Test
+    void testGenerarInsertaPorLotesDeVariasFilas() {
+        // Llamada al generador
+        generador.generar(50, 250, 7L, 2.5);
+
+        // Verificaciones - 50 autores en una sentencia y 250 libros en sentencias de 100, 100 y 50 filas
+        assertEquals(4, sentencias.size());
+        assertTrue(sentencias.get(0).startsWith("INSERT INTO autores"));
+        assertEquals(50 * 4, valores.get(0).size());
+        assertEquals(100 * 5, valores.get(1).size());
+        assertEquals(50 * 5, valores.get(3).size());
+        verify(secuencias, times(1)).ajustarSecuencias();
+        verify(cacheSegundoNivel, times(1)).evictAllRegions();
+
+        List<Object> libros = libros();
+        long[] librosPorAutor = new long[51];
+        for (int i = 0; i < libros.size(); i += 5) {
+            String titulo = (String) libros.get(i + 1);
+            String isbn = (String) libros.get(i + 2);
+            int stock = (Integer) libros.get(i + 3);
+            long autor = (Long) libros.get(i + 4);
+            assertFalse(titulo.isBlank());
+            assertNotEquals(IndiceIsbn.INVALIDO, IndiceIsbn.normalizar(isbn));
+            assertTrue(stock >= 0 && stock <= 1000);
+            assertTrue(autor >= 1 && autor <= 50);
+            librosPorAutor[(int) autor]++;
+        }
+        // La distribución está sesgada hacia los primeros autores
+        assertTrue(librosPorAutor[1] + librosPorAutor[2] + librosPorAutor[3] > librosPorAutor[48] + librosPorAutor[49] + librosPorAutor[50]);
+    }
+
+    @Test
+    void testGenerarEsDeterminista() {
+        generador.generar(20, 120, 42L, 2.5);
+        List<List<Object>> primera = new ArrayList<>(valores);
+        valores.clear();
+
+        generador.generar(20, 120, 42L, 2.5);
+        assertEquals(primera, valores);
+
+        valores.clear();
+        generador.generar(20, 120, 43L, 2.5);
+        assertNotEquals(primera, valores);
+    }
+
+    private List<Object> libros() {
+        List<Object> libros = new ArrayList<>();
+        for (int i = 0; i < sentencias.size(); i++) {
+            if (sentencias.get(i).startsWith("INSERT INTO libros")) {
+                libros.addAll(valores.get(i));
+            }
+        }
+        return libros;
+    }
+}
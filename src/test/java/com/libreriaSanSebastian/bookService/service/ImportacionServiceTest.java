@@ -0,0 +1,225 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.libreriaSanSebastian.bookService.dto.NombreAutor;
+import com.libreriaSanSebastian.bookService.dto.ResultadoImportacion;
+import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import com.libreriaSanSebastian.bookService.repository.AutorRepository;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+class ImportacionServiceTest {
+
+    @Mock
+    private LibroRepository libroRepository;
+
+    @Mock
+    private AutorRepository autorRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private IndiceIsbn indiceIsbn;
+
+    @Mock
+    private IndiceTitulos indiceTitulos;
+
+    @InjectMocks
+    private ImportacionService importacionService;
+
+    // Entidades persistidas desde el último clear(), para simular el flush
+    private final List<Object> pendientes = new ArrayList<>();
+
+    private final List<Libro> insertados = new ArrayList<>();
+
+    private final List<Autor> autoresInsertados = new ArrayList<>();
+
+    private long siguienteId = 100;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(importacionService, "tamanoLote", 2);
+        ReflectionTestUtils.setField(importacionService, "maxErrores", 10);
+
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocacion -> ((TransactionCallback<?>) invocacion.getArgument(0)).doInTransaction(null));
+        lenient().doCallRealMethod().when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(autorRepository.streamNombres()).thenReturn(Stream.of(nombre(1L, "Gabriel", "García Márquez")));
+        lenient().when(indiceIsbn.isCargado()).thenReturn(true);
+
+        // El id se asigna al persistir, como con la secuencia por bloques
+        lenient().doAnswer(invocacion -> {
+            Object entidad = invocacion.getArgument(0);
+            if (entidad instanceof Libro libro) {
+                libro.setId(siguienteId++);
+            } else if (entidad instanceof Autor autor) {
+                autor.setId(siguienteId++);
+            }
+            pendientes.add(entidad);
+            return null;
+        }).when(entityManager).persist(any());
+        lenient().doAnswer(invocacion -> {
+            if (pendientes.stream().anyMatch(e -> e instanceof Libro l && "9780306406157".equals(l.getIsbn()))) {
+                // La transacción se revierte y el contexto de persistencia se descarta
+                pendientes.clear();
+                throw new PersistenceException("Duplicate entry for key 'uk_libros_isbn'");
+            }
+            for (Object entidad : pendientes) {
+                if (entidad instanceof Libro libro) {
+                    insertados.add(libro);
+                } else {
+                    autoresInsertados.add((Autor) entidad);
+                }
+            }
+            return null;
+        }).when(entityManager).flush();
+        lenient().doAnswer(invocacion -> {
+            pendientes.clear();
+            return null;
+        }).when(entityManager).clear();
+    }
+
+    @Test
+    void testImportarCsv() throws Exception {
+        // Configuración del mock
+        when(entityManager.getReference(eq(Autor.class), any()))
+                .thenAnswer(invocacion -> new Autor(invocacion.getArgument(1), null, null, null, 0, null));
+        String csv = "titulo,isbn,stock,autor_nombre,autor_apellido,autor_nacionalidad\n"
+                + "\"Cien años de soledad\",978-84-376-0494-7,10,Gabriel,García Márquez,Colombiana\n"
+                + "\"Rayuela, edición crítica\",84-204-8230-7,5,Julio,Cortázar,Argentina\n"
+                + "\n"
+                + "Final del juego,978-84-204-8231-6,,julio,cortázar,\n";
+
+        // Llamada al método del servicio
+        ResultadoImportacion resultado = importacionService.importar(new StringReader(csv), ImportacionService.Formato.CSV);
+
+        // Verificaciones
+        assertEquals(3, resultado.getProcesadas());
+        assertEquals(3, resultado.getImportadas());
+        assertEquals(1, resultado.getAutoresCreados());
+        assertEquals(0, resultado.getTotalErrores());
+        assertEquals(List.of("Cien años de soledad", "Rayuela, edición crítica", "Final del juego"),
+                insertados.stream().map(Libro::getTitulo).collect(Collectors.toList()));
+        assertEquals("9788420482309", insertados.get(1).getIsbn());
+        assertEquals(0, insertados.get(2).getStock());
+        assertEquals(1L, insertados.get(0).getAutor().getId());
+        assertEquals(insertados.get(1).getAutor().getId(), insertados.get(2).getAutor().getId());
+        assertEquals(1, autoresInsertados.size());
+        verify(indiceIsbn, times(1)).actualizar(insertados.get(0).getId(), "9788437604947");
+        verify(autorRepository, never()).findByNombre(any());
+    }
+
+    @Test
+    void testImportarNdjsonConErrores() throws Exception {
+        // Configuración del mock - el segundo ISBN ya existe en la base de datos
+        when(indiceIsbn.buscar(anyLong())).thenAnswer(invocacion -> 9788437604947L == (long) invocacion.getArgument(0) ? 1L : null);
+        when(libroRepository.existsByIsbn("9788437604947")).thenReturn(true);
+        String ndjson = "{\"titulo\":\"Rayuela\",\"isbn\":\"9788420482309\",\"stock\":3}\n"
+                + "{\"titulo\":\"Cien años de soledad\",\"isbn\":\"978-84-376-0494-7\",\"stock\":1}\n"
+                + "{\"titulo\":\"Rayuela (copia)\",\"isbn\":\"84-204-8230-7\"}\n"
+                + "{\"titulo\":\"Sin stock\",\"isbn\":\"9788420482316\",\"stock\":-1}\n"
+                + "{\"titulo\":\"Mal ISBN\",\"isbn\":\"123\"}\n"
+                + "{no es json\n";
+
+        // Llamada al método del servicio
+        ResultadoImportacion resultado = importacionService.importar(new StringReader(ndjson), ImportacionService.Formato.NDJSON);
+
+        // Verificaciones
+        assertEquals(6, resultado.getProcesadas());
+        assertEquals(1, resultado.getImportadas());
+        assertEquals(5, resultado.getTotalErrores());
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L), resultado.getErrores().stream()
+                .map(e -> e.getLinea())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void testLoteFallidoSeReintentaPorFila() throws Exception {
+        // El flush falla por el ISBN duplicado 9780306406157 del segundo libro
+        String csv = "titulo,isbn,autor_nombre,autor_apellido\n"
+                + "Rayuela,9788420482309,Julio,Cortázar\n"
+                + "Duplicado,0-306-40615-2,Autor,Nuevo\n"
+                + "Final del juego,9788420482316,,\n";
+
+        // Llamada al método del servicio
+        ResultadoImportacion resultado = importacionService.importar(new StringReader(csv), ImportacionService.Formato.CSV);
+
+        // Verificaciones
+        assertEquals(3, resultado.getProcesadas());
+        assertEquals(2, resultado.getImportadas());
+        assertEquals(1, resultado.getAutoresCreados());
+        assertEquals(1, resultado.getTotalErrores());
+        assertEquals(3L, resultado.getErrores().get(0).getLinea());
+        assertEquals(List.of("Rayuela", "Final del juego"),
+                insertados.stream().map(Libro::getTitulo).collect(Collectors.toList()));
+        verify(indiceTitulos, never()).actualizar(any(), eq("Duplicado"));
+    }
+
+    @Test
+    void testEncabezadoSinIsbn() throws Exception {
+        ResultadoImportacion resultado = importacionService.importar(
+                new StringReader("titulo,stock\nRayuela,1\n"), ImportacionService.Formato.CSV);
+
+        assertEquals(0, resultado.getImportadas());
+        assertEquals(1, resultado.getTotalErrores());
+        assertEquals(1L, resultado.getErrores().get(0).getLinea());
+    }
+
+    @Test
+    void testSepararCsv() {
+        assertEquals(List.of("a", "b, c", "d \"e\"", ""), ImportacionService.separarCsv("a,\"b, c\",\"d \"\"e\"\"\","));
+    }
+
+    private static NombreAutor nombre(Long id, String nombre, String apellido) {
+        return new NombreAutor() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getNombre() {
+                return nombre;
+            }
+
+            @Override
+            public String getApellido() {
+                return apellido;
+            }
+        };
+    }
+}
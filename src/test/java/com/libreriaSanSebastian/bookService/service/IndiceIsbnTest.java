@@ -0,0 +1,114 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.dto.IsbnLibro;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+class IndiceIsbnTest {
+
+    @Mock
+    private LibroRepository libroRepository;
+
+    @InjectMocks
+    private IndiceIsbn indiceIsbn;
+
+    @Test
+    void testNormalizarIsbn13() {
+        assertEquals(9788437604947L, IndiceIsbn.normalizar("978-84-376-0494-7"));
+        assertEquals(9788437604947L, IndiceIsbn.normalizar("978 84 376 0494 7"));
+        assertEquals(9790000000001L, IndiceIsbn.normalizar("9790000000001"));
+    }
+
+    @Test
+    void testNormalizarIsbn10() {
+        assertEquals(9788437604947L, IndiceIsbn.normalizar("84-376-0494-X"));
+        assertEquals(9780306406157L, IndiceIsbn.normalizar("0-306-40615-2"));
+    }
+
+    @Test
+    void testNormalizarInvalido() {
+        assertEquals(IndiceIsbn.INVALIDO, IndiceIsbn.normalizar(null));
+        assertEquals(IndiceIsbn.INVALIDO, IndiceIsbn.normalizar("978-84-376-0494-8"));
+        assertEquals(IndiceIsbn.INVALIDO, IndiceIsbn.normalizar("0-306-40615-3"));
+        assertEquals(IndiceIsbn.INVALIDO, IndiceIsbn.normalizar("84-376-X494-7"));
+        assertEquals(IndiceIsbn.INVALIDO, IndiceIsbn.normalizar("1234567890123"));
+        assertEquals(IndiceIsbn.INVALIDO, IndiceIsbn.normalizar("97884376049470"));
+    }
+
+    @Test
+    void testReconstruirYBuscar() {
+        // Configuración del mock
+        when(libroRepository.count()).thenReturn(2L);
+        when(libroRepository.streamIsbns()).thenReturn(Stream.of(
+                isbn(1L, "978-84-376-0494-7"),
+                isbn(2L, "0-306-40615-2"),
+                isbn(3L, "sin isbn")));
+
+        // Llamada al índice
+        indiceIsbn.reconstruir();
+
+        // Verificaciones
+        assertTrue(indiceIsbn.isCargado());
+        assertEquals(2, indiceIsbn.tamano());
+        assertEquals(1L, indiceIsbn.buscar(9788437604947L));
+        assertEquals(2L, indiceIsbn.buscar(9780306406157L));
+        assertNull(indiceIsbn.buscar(9790000000001L));
+    }
+
+    @Test
+    void testEliminarSoloSiCorrespondeAlLibro() {
+        indiceIsbn.actualizar(1L, "9788437604947");
+        indiceIsbn.actualizar(2L, "9788437604947");
+
+        indiceIsbn.eliminar(9788437604947L, 1L);
+        assertEquals(2L, indiceIsbn.buscar(9788437604947L));
+
+        indiceIsbn.eliminar(9788437604947L, 2L);
+        assertNull(indiceIsbn.buscar(9788437604947L));
+    }
+
+    @Test
+    void testMapaConMuchasEntradas() {
+        MapaLongLong mapa = new MapaLongLong();
+        int total = 100_000;
+        for (int i = 1; i <= total; i++) {
+            mapa.poner(9780000000000L + i, i);
+        }
+        // Se quitan las claves pares para ejercitar el desplazamiento de entradas
+        for (int i = 2; i <= total; i += 2) {
+            assertTrue(mapa.quitar(9780000000000L + i, i));
+        }
+
+        assertEquals(total / 2, mapa.tamano());
+        for (int i = 1; i <= total; i++) {
+            long esperado = i % 2 == 0 ? MapaLongLong.AUSENTE : i;
+            assertEquals(esperado, mapa.obtener(9780000000000L + i));
+        }
+    }
+
+    private static IsbnLibro isbn(Long id, String isbn) {
+        return new IsbnLibro() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getIsbn() {
+                return isbn;
+            }
+        };
+    }
+}
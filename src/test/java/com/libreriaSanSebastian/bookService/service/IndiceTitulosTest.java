@@ -0,0 +1,84 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.dto.SugerenciaTitulo;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+class IndiceTitulosTest {
+
+    @Mock
+    private LibroRepository libroRepository;
+
+    @InjectMocks
+    private IndiceTitulos indiceTitulos;
+
+    @BeforeEach
+    void setUp() {
+        // Configuración del mock
+        when(libroRepository.streamTitulos()).thenReturn(Stream.of(
+                new SugerenciaTitulo(1L, "Cien años de soledad"),
+                new SugerenciaTitulo(2L, "Crónica de una muerte anunciada"),
+                new SugerenciaTitulo(3L, "El amor en los tiempos del cólera"),
+                new SugerenciaTitulo(4L, "Ciudad y los perros")));
+
+        indiceTitulos.reconstruir();
+    }
+
+    @Test
+    void testSugerirSinTildesNiMayusculas() {
+        // Llamada al índice
+        List<SugerenciaTitulo> sugerencias = indiceTitulos.sugerir("CRONICA", 10);
+
+        // Verificaciones
+        assertEquals(1, sugerencias.size());
+        assertEquals("Crónica de una muerte anunciada", sugerencias.get(0).getTitulo());
+    }
+
+    @Test
+    void testSugerirOrdenadoYLimitado() {
+        // Llamada al índice
+        List<Long> ids = indiceTitulos.sugerir("ci", 10).stream()
+                .map(SugerenciaTitulo::getId)
+                .collect(Collectors.toList());
+
+        // Verificaciones
+        assertEquals(List.of(1L, 4L), ids);
+        assertEquals(1, indiceTitulos.sugerir("ci", 1).size());
+        assertTrue(indiceTitulos.sugerir("  ", 10).isEmpty());
+    }
+
+    @Test
+    void testActualizarYEliminar() {
+        // Llamada al índice - el libro 1 cambia de título y el 2 se elimina
+        indiceTitulos.actualizar(1L, "Memoria de mis putas tristes");
+        indiceTitulos.eliminar(2L);
+
+        // Verificaciones
+        assertEquals(List.of(4L), indiceTitulos.sugerir("ci", 10).stream()
+                .map(SugerenciaTitulo::getId)
+                .collect(Collectors.toList()));
+        assertTrue(indiceTitulos.sugerir("cronica", 10).isEmpty());
+        assertEquals(1L, indiceTitulos.sugerir("memoria", 10).get(0).getId());
+        assertEquals(3, indiceTitulos.tamano());
+    }
+
+    @Test
+    void testNormalizar() {
+        assertEquals("el nino y la ciguena", IndiceTitulos.normalizar("  El  Niño y la Cigüeña "));
+    }
+}
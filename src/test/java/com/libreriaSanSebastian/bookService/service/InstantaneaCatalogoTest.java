@@ -0,0 +1,146 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.dto.AutorConTotales;
+import com.libreriaSanSebastian.bookService.dto.LibroDeAutor;
+import com.libreriaSanSebastian.bookService.dto.SugerenciaTitulo;
+import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstantaneaCatalogoTest {
+
+    private static final Instant MODIFICADO = Instant.parse("2026-10-01T10:00:00.000001Z");
+
+    @TempDir
+    private Path directorio;
+
+    private Path archivo;
+
+    private InstantaneaCatalogo catalogo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Autor garcia = new Autor(1L, "Gabriel", "García Márquez", "Colombiana", 2L, MODIFICADO);
+        Autor cortazar = new Autor(2L, "Julio", "Cortázar", null, 0L, null);
+        archivo = directorio.resolve("catalogo.bin");
+        try (EscritorInstantanea escritor = new EscritorInstantanea(archivo)) {
+            escritor.autor(garcia);
+            escritor.autor(cortazar);
+            escritor.libro(new Libro(3L, "Cien años de soledad", "9788437604947", 10, garcia, 4L, MODIFICADO));
+            escritor.libro(new Libro(5L, "Rayuela", "9788437604572", 7, cortazar, 0L, null));
+            escritor.libro(new Libro(8L, "Crónica de una muerte anunciada", "9780306406157", 2, garcia, 0L, null));
+            escritor.libro(new Libro(9L, "Cien años de soledad", "9780140449136", 1, null, 0L, null));
+            assertEquals(4, escritor.terminar());
+        }
+        catalogo = InstantaneaCatalogo.abrir(archivo);
+    }
+
+    @Test
+    void testLibroPorIdConAutor() {
+        Libro libro = catalogo.libro(3L).orElseThrow();
+
+        // Verificaciones - se conservan todos los campos, incluida la versión usada como ETag
+        assertEquals("Cien años de soledad", libro.getTitulo());
+        assertEquals("9788437604947", libro.getIsbn());
+        assertEquals(10, libro.getStock());
+        assertEquals(4L, libro.getVersion());
+        assertEquals(MODIFICADO, libro.getModificado());
+        assertEquals("García Márquez", libro.getAutor().getApellido());
+        assertNull(catalogo.libro(9L).orElseThrow().getAutor());
+        assertTrue(catalogo.libro(4L).isEmpty());
+        assertEquals(4, catalogo.getLibros());
+        assertEquals(2, catalogo.getAutores());
+    }
+
+    @Test
+    void testPaginasPorId() {
+        // Verificaciones - hacia atrás se devuelve en orden descendente, igual que la base de datos
+        assertEquals(List.of(3L, 5L), ids(catalogo.librosPorId(null, false, 2)));
+        assertEquals(List.of(8L, 9L), ids(catalogo.librosPorId(5L, false, 5)));
+        assertEquals(List.of(5L, 3L), ids(catalogo.librosPorId(8L, true, 5)));
+        assertEquals(List.of(), ids(catalogo.librosPorId(9L, false, 5)));
+    }
+
+    @Test
+    void testPaginasPorTitulo() {
+        // Los títulos iguales se ordenan por id
+        assertEquals(List.of(3L, 9L, 8L, 5L), ids(catalogo.librosPorTitulo(null, false, 10)));
+        assertEquals(List.of(8L, 5L), ids(catalogo.librosPorTitulo(9L, false, 10)));
+        assertEquals(List.of(9L, 3L), ids(catalogo.librosPorTitulo(8L, true, 10)));
+
+        // Verificaciones - si el libro del cursor no existe no hay página
+        assertTrue(catalogo.librosPorTitulo(4L, false, 10).isEmpty());
+    }
+
+    @Test
+    void testBusquedasPorTituloIsbnYPrefijo() {
+        assertEquals(3L, catalogo.libroPorTitulo("Cien años de soledad").orElseThrow().getId());
+        assertTrue(catalogo.libroPorTitulo("Cien años").isEmpty());
+        assertEquals(5L, catalogo.libroPorIsbn(9788437604572L).orElseThrow().getId());
+        assertTrue(catalogo.libroPorIsbn(9788437604948L).isEmpty());
+
+        // Verificaciones - el prefijo se compara sin mayúsculas ni tildes
+        List<SugerenciaTitulo> sugerencias = catalogo.sugerir(IndiceTitulos.normalizar("CRONICA"), 5);
+        assertEquals(1, sugerencias.size());
+        assertEquals("Crónica de una muerte anunciada", sugerencias.get(0).getTitulo());
+        assertEquals(2, catalogo.sugerir("cien", 2).size());
+        assertEquals(1, catalogo.sugerir("cien", 1).size());
+    }
+
+    @Test
+    void testAutoresConTotalesYLibros() {
+        List<AutorConTotales> autores = catalogo.autoresConTotales();
+
+        // Verificaciones
+        assertEquals(new AutorConTotales(1L, "Gabriel", "García Márquez", "Colombiana", 2L, 2L, 12L), autores.get(0));
+        assertEquals(new AutorConTotales(2L, "Julio", "Cortázar", null, 0L, 1L, 7L), autores.get(1));
+        assertEquals(2L, catalogo.autor(1L).orElseThrow().getVersion());
+        assertTrue(catalogo.autor(3L).isEmpty());
+        List<LibroDeAutor> libros = catalogo.librosDeAutor(1L, 0L, 10);
+        assertEquals(List.of(3L, 8L), libros.stream().map(LibroDeAutor::getId).toList());
+        assertEquals(List.of(8L), catalogo.librosDeAutor(1L, 3L, 10).stream().map(LibroDeAutor::getId).toList());
+        assertTrue(catalogo.librosDeAutor(7L, 0L, 10).isEmpty());
+    }
+
+    @Test
+    void testArchivoInvalidoOTruncado() throws IOException {
+        Path invalido = Files.writeString(directorio.resolve("otro.bin"), "no es una instantánea del catálogo, solo texto");
+        byte[] bytes = Files.readAllBytes(archivo);
+        Path truncado = Files.write(directorio.resolve("truncado.bin"), Arrays.copyOf(bytes, bytes.length - 10));
+
+        // Verificaciones
+        assertThrows(IOException.class, () -> InstantaneaCatalogo.abrir(invalido));
+        assertThrows(IOException.class, () -> InstantaneaCatalogo.abrir(truncado));
+    }
+
+    @Test
+    void testEscritorExigeOrdenDeIds() throws IOException {
+        try (EscritorInstantanea escritor = new EscritorInstantanea(directorio.resolve("desordenado.bin"))) {
+            escritor.libro(new Libro(5L, "Rayuela", "9788437604572", 7, null, 0L, null));
+
+            // Verificaciones
+            assertThrows(IllegalArgumentException.class,
+                    () -> escritor.libro(new Libro(3L, "Ficciones", "9780306406157", 1, null, 0L, null)));
+            assertThrows(IllegalStateException.class, () -> escritor.autor(new Autor(1L, "Jorge Luis", "Borges", null, 0L, null)));
+        }
+        // Los archivos temporales se eliminan al cerrar
+        try (var archivos = Files.list(directorio)) {
+            assertEquals(List.of(archivo), archivos.toList());
+        }
+    }
+
+    private static List<Long> ids(List<Libro> libros) {
+        return libros.stream().map(Libro::getId).toList();
+    }
+}
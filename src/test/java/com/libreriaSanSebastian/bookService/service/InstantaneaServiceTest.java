@@ -0,0 +1,128 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import com.libreriaSanSebastian.bookService.repository.AutorRepository;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+class InstantaneaServiceTest {
+
+    @Mock
+    private AutorRepository autorRepository;
+
+    @Mock
+    private LibroRepository libroRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private InstantaneaService instantaneaService;
+
+    @TempDir
+    private Path directorio;
+
+    private final Autor autor = new Autor(1L, "Julio", "Cortázar", "Argentina", 0L, null);
+
+    @Test
+    void testExportarDesdeLaBaseDeDatos() throws IOException {
+        Libro libro = new Libro(2L, "Rayuela", "9788437604572", 7, autor, 0L, null);
+        Path archivo = directorio.resolve("catalogo.bin");
+
+        // Configuración del mock
+        when(autorRepository.findAll(Sort.by("id"))).thenReturn(List.of(autor));
+        when(libroRepository.streamAllWithAutor()).thenReturn(Stream.of(libro));
+
+        // Llamada al método del servicio
+        int exportados = instantaneaService.exportar(archivo);
+
+        // Verificaciones - cada libro escrito se desacopla del contexto de persistencia
+        assertEquals(1, exportados);
+        verify(entityManager).detach(libro);
+        InstantaneaCatalogo catalogo = InstantaneaCatalogo.abrir(archivo);
+        assertEquals("Rayuela", catalogo.libro(2L).orElseThrow().getTitulo());
+        assertEquals("Cortázar", catalogo.libro(2L).orElseThrow().getAutor().getApellido());
+    }
+
+    @Test
+    void testSinServirNoHayInstantanea() throws IOException {
+        ReflectionTestUtils.setField(instantaneaService, "servir", false);
+        ReflectionTestUtils.setField(instantaneaService, "archivo", "");
+
+        // Llamada al método del servicio
+        instantaneaService.iniciar();
+        instantaneaService.verificar();
+
+        // Verificaciones - las lecturas van a la base de datos
+        assertNull(instantaneaService.actual());
+    }
+
+    @Test
+    void testReemplazoDelArchivo() throws IOException {
+        Path archivo = directorio.resolve("catalogo.bin");
+        escribir(archivo, 1);
+        ReflectionTestUtils.setField(instantaneaService, "servir", true);
+        ReflectionTestUtils.setField(instantaneaService, "archivo", archivo.toString());
+
+        // Llamada al método del servicio
+        instantaneaService.iniciar();
+        InstantaneaCatalogo primera = instantaneaService.actual();
+        instantaneaService.verificar();
+
+        // Verificaciones - sin cambios en el archivo se conserva la misma instantánea
+        assertEquals(1, primera.getLibros());
+        assertSame(primera, instantaneaService.actual());
+
+        // La primaria publica una nueva instantánea con un movimiento atómico
+        escribir(archivo, 3);
+        instantaneaService.verificar();
+        assertEquals(3, instantaneaService.actual().getLibros());
+        // Quien ya tenía la anterior la sigue leyendo
+        assertEquals("Libro 1", primera.libro(1L).orElseThrow().getTitulo());
+
+        // Una copia dañada no reemplaza a la instantánea servida
+        Files.writeString(archivo, "copia incompleta");
+        instantaneaService.verificar();
+        assertEquals(3, instantaneaService.actual().getLibros());
+    }
+
+    @Test
+    void testServirSinInstantaneaFallaAlIniciar() {
+        ReflectionTestUtils.setField(instantaneaService, "servir", true);
+        ReflectionTestUtils.setField(instantaneaService, "archivo", directorio.resolve("no-existe.bin").toString());
+
+        // Verificaciones
+        assertThrows(IOException.class, () -> instantaneaService.iniciar());
+    }
+
+    private void escribir(Path archivo, int libros) throws IOException {
+        try (EscritorInstantanea escritor = new EscritorInstantanea(archivo)) {
+            escritor.autor(autor);
+            for (long id = 1; id <= libros; id++) {
+                escritor.libro(new Libro(id, "Libro " + id, "9788437604572", 1, autor, 0L, null));
+            }
+            escritor.terminar();
+        }
+    }
+}
@@ -1,20 +1,55 @@
 package com.libreriaSanSebastian.bookService.service;
 
+import com.libreriaSanSebastian.bookService.config.CacheConfig;
+import com.libreriaSanSebastian.bookService.dto.Cambios;
+import com.libreriaSanSebastian.bookService.dto.CamposSolicitados;
+import com.libreriaSanSebastian.bookService.dto.EventoLibro;
+import com.libreriaSanSebastian.bookService.dto.LineaStock;
+import com.libreriaSanSebastian.bookService.dto.MarcaCambios;
+import com.libreriaSanSebastian.bookService.dto.Pagina;
+import com.libreriaSanSebastian.bookService.dto.ResultadoLineaStock;
+import com.libreriaSanSebastian.bookService.dto.StockLibro;
 import com.libreriaSanSebastian.bookService.model.Autor;
+import com.libreriaSanSebastian.bookService.model.Eliminacion;
 import com.libreriaSanSebastian.bookService.model.Libro;
+import com.libreriaSanSebastian.bookService.repository.ActualizacionParcialRepository;
 import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import com.libreriaSanSebastian.bookService.repository.ProyeccionRepository;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +59,36 @@ class LibroServiceTest {
     @Mock
     private LibroRepository libroRepository;
 
+    @Mock
+    private ProyeccionRepository proyeccionRepository;
+
+    @Mock
+    private ActualizacionParcialRepository actualizacionParcial;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private StockCalienteService stockCaliente;
+
+    @Mock
+    private IndiceTitulos indiceTitulos;
+
+    @Mock
+    private IndiceIsbn indiceIsbn;
+
+    @Mock
+    private ApplicationEventPublisher publicador;
+
+    @Mock
+    private CambiosService cambios;
+
+    @Mock
+    private InstantaneaService instantanea;
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager();
+
     @InjectMocks
     private LibroService libroService;
 
@@ -44,6 +109,28 @@ class LibroServiceTest {
         libro.setIsbn("978-84-376-0494-7");
         libro.setStock(10);
         libro.setAutor(autor);
+
+        // Sin reservas en memoria el stock disponible es el persistido
+        lenient().when(stockCaliente.conStockDisponible(any(Libro.class))).thenAnswer(i -> i.getArgument(0));
+        lenient().when(stockCaliente.conStockDisponible(anyMap())).thenAnswer(i -> i.getArgument(0));
+    }
+
+    @Test
+    void testLecturasConStockDisponible() {
+        MarcaCambios desde = new MarcaCambios(Instant.EPOCH, 0L);
+        Libro disponible = new Libro(1L, libro.getTitulo(), libro.getIsbn(), 13, autor, 0L, null);
+        cacheManager.getCache(CacheConfig.LIBROS).put(1L, libro);
+
+        // Configuración del mock - el libro 1 es caliente y tiene 3 unidades reservadas en memoria
+        when(stockCaliente.conStockDisponible(libro)).thenReturn(disponible);
+        when(cambios.<Libro>listar(eq(Eliminacion.Tipo.LIBRO), eq(desde), eq(10), any(), any()))
+                .thenReturn(Optional.of(new Cambios<>(List.of(libro), List.of(9L), desde, false)));
+
+        // Verificaciones - la lectura por id y el feed de cambios devuelven el mismo stock
+        assertEquals(13, libroService.buscarPorId(1L).orElseThrow().getStock());
+        assertEquals(13, libroService.listarCambios(desde, 10).orElseThrow().getModificados().get(0).getStock());
+        // La caché conserva el stock persistido
+        assertSame(libro, cacheManager.getCache(CacheConfig.LIBROS).get(1L, Libro.class));
     }
 
     @Test
@@ -62,6 +149,126 @@ class LibroServiceTest {
         verify(libroRepository, times(1)).findAllWithAutor();
     }
 
+    @Test
+    void testLecturasDesdeInstantanea() {
+        InstantaneaCatalogo catalogo = mock(InstantaneaCatalogo.class);
+
+        // Configuración del mock
+        when(instantanea.actual()).thenReturn(catalogo);
+        when(catalogo.libro(1L)).thenReturn(Optional.of(libro));
+        when(catalogo.librosPorTitulo(null, false, 2)).thenReturn(List.of(libro));
+
+        // Llamada al método del servicio
+        Optional<Libro> encontrado = libroService.buscarPorId(1L);
+        Pagina<Libro> pagina = libroService.listarPagina(null, null, 1, LibroService.ORDEN_TITULO);
+
+        // Verificaciones - no se consulta la base de datos ni se llena la caché
+        assertEquals(Optional.of(libro), encontrado);
+        assertEquals(List.of(libro), pagina.getElementos());
+        assertFalse(pagina.isHaySiguiente());
+        verifyNoInteractions(libroRepository);
+        assertNull(cacheManager.getCache("libros").get(1L));
+    }
+
+    @Test
+    void testListarPaginaPorId() {
+        // Configuración del mock - se pide una fila extra para detectar la página siguiente
+        Libro otro = new Libro();
+        otro.setId(2L);
+        when(libroRepository.findSiguientesPorId(0L, PageRequest.of(0, 2))).thenReturn(List.of(libro, otro));
+
+        // Llamada al método del servicio
+        Pagina<Libro> pagina = libroService.listarPagina(null, null, 1, LibroService.ORDEN_ID);
+
+        // Verificaciones
+        assertEquals(1, pagina.getElementos().size());
+        assertEquals(1L, pagina.getElementos().get(0).getId());
+        assertTrue(pagina.isHaySiguiente());
+        assertFalse(pagina.isHayAnterior());
+    }
+
+    @Test
+    void testListarPaginaHaciaAtrasPorTitulo() {
+        // Configuración del mock - la consulta hacia atrás devuelve orden descendente
+        Libro anterior = new Libro();
+        anterior.setId(3L);
+        anterior.setTitulo("Amor en los tiempos del cólera");
+        when(libroRepository.findTituloById(5L)).thenReturn(Optional.of("El otoño del patriarca"));
+        when(libroRepository.findAnterioresPorTitulo("El otoño del patriarca", 5L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(libro, anterior));
+
+        // Llamada al método del servicio
+        Pagina<Libro> pagina = libroService.listarPagina(null, 5L, 2, LibroService.ORDEN_TITULO);
+
+        // Verificaciones
+        assertEquals(List.of(anterior, libro), pagina.getElementos());
+        assertFalse(pagina.isHayAnterior());
+        assertTrue(pagina.isHaySiguiente());
+    }
+
+    @Test
+    void testListarPaginaParcialPorId() {
+        // Configuración del mock - la proyección devuelve solo los campos pedidos
+        CamposSolicitados campos = CamposSolicitados.de("titulo", ProyeccionRepository.CAMPOS_LIBRO.keySet());
+        when(proyeccionRepository.librosPorId(campos, 4L, false, 3)).thenReturn(List.of(
+                Map.of("id", 5L, "titulo", "A"), Map.of("id", 6L, "titulo", "B"), Map.of("id", 7L, "titulo", "C")));
+
+        // Llamada al método del servicio
+        Pagina<Map<String, Object>> pagina = libroService.listarPaginaParcial(campos, 4L, null, 2, LibroService.ORDEN_ID);
+
+        // Verificaciones - no se cargan entidades
+        assertEquals(List.of(5L, 6L), pagina.getElementos().stream().map(fila -> fila.get("id")).toList());
+        assertTrue(pagina.isHayAnterior());
+        assertTrue(pagina.isHaySiguiente());
+        verifyNoInteractions(libroRepository);
+    }
+
+    @Test
+    void testBuscarParcialDesdeCache() {
+        // Configuración del mock - el libro completo ya está en la caché
+        when(libroRepository.findByIdWithAutor(1L)).thenReturn(Optional.of(libro));
+        libroService.buscarPorId(1L);
+        CamposSolicitados campos = CamposSolicitados.de("stock,autor.nombre", ProyeccionRepository.CAMPOS_LIBRO.keySet());
+
+        // Llamada al método del servicio
+        Optional<Map<String, Object>> fila = libroService.buscarParcial(campos, 1L);
+
+        // Verificaciones - se recorta la entidad en caché sin consultar la base de datos
+        assertEquals(Map.of("id", 1L, "stock", 10, "autor", Map.of("nombre", "Gabriel")), fila.orElseThrow());
+        verifyNoInteractions(proyeccionRepository);
+    }
+
+    @Test
+    void testBuscarParcialSinCache() {
+        // Configuración del mock
+        CamposSolicitados campos = CamposSolicitados.de("titulo", ProyeccionRepository.CAMPOS_LIBRO.keySet());
+        when(proyeccionRepository.libro(campos, 1L)).thenReturn(Optional.of(Map.of("id", 1L, "titulo", "Cien años de soledad")));
+
+        // Llamada al método del servicio
+        Optional<Map<String, Object>> fila = libroService.buscarParcial(campos, 1L);
+
+        // Verificaciones - la proyección no carga la entidad ni la guarda en la caché
+        assertEquals("Cien años de soledad", fila.orElseThrow().get("titulo"));
+        verify(libroRepository, never()).findByIdWithAutor(anyLong());
+        assertNull(cacheManager.getCache("libros").get(1L));
+    }
+
+    @Test
+    void testExportar() {
+        // Configuración del mock
+        when(libroRepository.streamAllWithAutor()).thenReturn(Stream.of(libro));
+        List<Libro> exportados = new ArrayList<>();
+
+        // Llamada al método del servicio
+        long total = libroService.exportar(exportados::add);
+
+        // Verificaciones - cada libro se desacopla del contexto tras exportarse
+        assertEquals(1, total);
+        assertEquals(List.of(libro), exportados);
+        verify(entityManager, times(1)).detach(libro);
+        verify(entityManager, times(1)).detach(autor);
+    }
+
     @Test
     void testBuscarPorId() {
         // Configuración del mock
@@ -77,6 +284,71 @@ class LibroServiceTest {
         verify(libroRepository, times(1)).findByIdWithAutor(1L);
     }
 
+    @Test
+    void testBuscarPorIdDesdeCache() {
+        // Configuración del mock
+        when(libroRepository.findByIdWithAutor(1L)).thenReturn(Optional.of(libro));
+
+        // Llamada al método del servicio - la segunda lectura se resuelve en memoria
+        libroService.buscarPorId(1L);
+        Optional<Libro> libroEncontrado = libroService.buscarPorId(1L);
+
+        // Verificaciones
+        assertTrue(libroEncontrado.isPresent());
+        verify(libroRepository, times(1)).findByIdWithAutor(1L);
+    }
+
+    @Test
+    void testDecrementarStockInvalidaCache() {
+        // Configuración del mock
+        when(libroRepository.findByIdWithAutor(1L)).thenReturn(Optional.of(libro));
+        when(libroRepository.decrementarStock(1L)).thenReturn(1);
+
+        // Llamada al método del servicio
+        libroService.buscarPorId(1L);
+        libroService.decrementarStock(1L);
+        libroService.buscarPorId(1L);
+
+        // Verificaciones - tras el decremento se vuelve a consultar la base de datos
+        verify(libroRepository, times(2)).findByIdWithAutor(1L);
+    }
+
+    @Test
+    void testBuscarPorTituloDesdeCache() {
+        // Configuración del mock
+        when(libroRepository.findByTituloWithAutor("Cien años de soledad")).thenReturn(libro);
+
+        // Llamada al método del servicio
+        libroService.buscarPorTitulo("Cien años de soledad");
+        Optional<Libro> libroEncontrado = libroService.buscarPorTitulo("Cien años de soledad");
+
+        // Verificaciones
+        assertTrue(libroEncontrado.isPresent());
+        verify(libroRepository, times(1)).findByTituloWithAutor("Cien años de soledad");
+        verify(libroRepository, never()).findByIdWithAutor(anyLong());
+    }
+
+    @Test
+    void testBuscarPorTituloCambiado() {
+        // Configuración del mock - el libro cambia de título después de quedar en caché
+        when(libroRepository.findByTituloWithAutor("Cien años de soledad")).thenReturn(libro).thenReturn(null);
+        Libro renombrado = new Libro();
+        renombrado.setId(1L);
+        renombrado.setTitulo("Cien años de soledad (edición conmemorativa)");
+        renombrado.setAutor(autor);
+        when(libroRepository.save(renombrado)).thenReturn(renombrado);
+        when(libroRepository.findByIdWithAutor(1L)).thenReturn(Optional.of(renombrado));
+
+        // Llamada al método del servicio
+        libroService.buscarPorTitulo("Cien años de soledad");
+        libroService.guardar(renombrado);
+        Optional<Libro> libroEncontrado = libroService.buscarPorTitulo("Cien años de soledad");
+
+        // Verificaciones
+        assertFalse(libroEncontrado.isPresent());
+        verify(libroRepository, times(2)).findByTituloWithAutor("Cien años de soledad");
+    }
+
     @Test
     void testBuscarPorTitulo() {
         // Configuración del mock
@@ -103,11 +375,94 @@ class LibroServiceTest {
         assertNotNull(libroGuardado);
         assertEquals("Cien años de soledad", libroGuardado.getTitulo());
         verify(libroRepository, times(1)).save(libro);
+        verify(indiceTitulos, times(1)).actualizar(1L, "Cien años de soledad");
+        assertEquals("9788437604947", libroGuardado.getIsbn());
+        verify(indiceIsbn, times(1)).actualizar(1L, "9788437604947");
+    }
+
+    @Test
+    void testGuardarFallidoRestauraLaReserva() {
+        // Configuración del mock - la versión enviada está desactualizada
+        when(stockCaliente.descartarReserva(1L)).thenReturn(5);
+        when(libroRepository.save(libro)).thenThrow(new ObjectOptimisticLockingFailureException(Libro.class, 1L));
+
+        // Llamada al método del servicio
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> libroService.guardar(libro));
+
+        // Verificaciones - la reserva descartada vuelve a estar disponible
+        verify(stockCaliente, times(1)).restaurarReserva(1L, 5);
+        verify(indiceTitulos, never()).actualizar(anyLong(), anyString());
+    }
+
+    @Test
+    void testBuscarPorIsbn() {
+        // Configuración del mock - el libro se busca con su ISBN-10
+        libro.setIsbn("9788437604947");
+        when(indiceIsbn.isCargado()).thenReturn(true);
+        when(indiceIsbn.buscar(9788437604947L)).thenReturn(1L);
+        when(libroRepository.findByIdWithAutor(1L)).thenReturn(Optional.of(libro));
+
+        // Llamada al método del servicio
+        Optional<Libro> libroEncontrado = libroService.buscarPorIsbn("84-376-0494-X");
+
+        // Verificaciones
+        assertTrue(libroEncontrado.isPresent());
+        assertEquals("Cien años de soledad", libroEncontrado.get().getTitulo());
+        verify(libroRepository, never()).findByIsbnWithAutor(anyString());
+    }
+
+    @Test
+    void testBuscarPorIsbnGuardadoSinNormalizar() {
+        // Configuración del mock - la fila es anterior a la normalización y guarda el ISBN con guiones
+        when(indiceIsbn.isCargado()).thenReturn(true);
+        when(indiceIsbn.buscar(9788437604947L)).thenReturn(1L);
+        when(libroRepository.findByIdWithAutor(1L)).thenReturn(Optional.of(libro));
+
+        // Llamada al método del servicio
+        Optional<Libro> libroEncontrado = libroService.buscarPorIsbn("9788437604947");
+
+        // Verificaciones
+        assertTrue(libroEncontrado.isPresent());
+        verify(indiceIsbn, never()).eliminar(anyLong(), any());
+    }
+
+    @Test
+    void testBuscarPorIsbnNoIndexadoConsultaLaBaseDeDatos() {
+        // Configuración del mock - el libro lo creó otra instancia y no está en el índice
+        libro.setIsbn("9788437604947");
+        when(indiceIsbn.isCargado()).thenReturn(true);
+        when(indiceIsbn.buscar(9788437604947L)).thenReturn(null);
+        when(libroRepository.findByIsbnWithAutor("9788437604947")).thenReturn(Optional.of(libro));
+
+        // Llamada al método del servicio
+        Optional<Libro> libroEncontrado = libroService.buscarPorIsbn("978-84-376-0494-7");
+
+        // Verificaciones - se encuentra y se agrega al índice
+        assertTrue(libroEncontrado.isPresent());
+        verify(indiceIsbn, times(1)).actualizar(1L, "9788437604947");
+    }
+
+    @Test
+    void testBuscarPorIsbnDesactualizado() {
+        // Configuración del mock - el libro indexado ya no tiene ese ISBN
+        libro.setIsbn("9780306406157");
+        when(indiceIsbn.isCargado()).thenReturn(true);
+        when(indiceIsbn.buscar(9788437604947L)).thenReturn(1L);
+        when(libroRepository.findByIdWithAutor(1L)).thenReturn(Optional.of(libro));
+        when(libroRepository.findByIsbnWithAutor("9788437604947")).thenReturn(Optional.empty());
+
+        // Llamada al método del servicio
+        Optional<Libro> libroEncontrado = libroService.buscarPorIsbn("978-84-376-0494-7");
+
+        // Verificaciones
+        assertFalse(libroEncontrado.isPresent());
+        verify(indiceIsbn, times(1)).eliminar(9788437604947L, 1L);
     }
 
     @Test
     void testEliminar() {
         // Configuración del mock
+        when(libroRepository.findIsbnById(1L)).thenReturn(Optional.of("9788437604947"));
         doNothing().when(libroRepository).deleteById(1L);
 
         // Llamada al método del servicio
@@ -115,6 +470,28 @@ class LibroServiceTest {
 
         // Verificación
         verify(libroRepository, times(1)).deleteById(1L);
+        verify(indiceTitulos, times(1)).eliminar(1L);
+        verify(indiceIsbn, times(1)).eliminar(9788437604947L, 1L);
+        verify(publicador, times(1)).publishEvent(new EventoLibro(1L, EventoLibro.Tipo.ELIMINADO, null));
+        verify(cambios, times(1)).registrarEliminacion(Eliminacion.Tipo.LIBRO, 1L);
+    }
+
+    @Test
+    void testEliminarInvalidaCacheAlConfirmar() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Llamada al método del servicio
+            libroService.eliminar(1L);
+
+            // Una lectura concurrente anterior al commit vuelve a guardar el libro eliminado
+            cacheManager.getCache(CacheConfig.LIBROS).put(1L, libro);
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+
+            // Verificaciones
+            assertNull(cacheManager.getCache(CacheConfig.LIBROS).get(1L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
@@ -128,6 +505,21 @@ class LibroServiceTest {
         // Verificaciones
         assertTrue(resultado);
         verify(libroRepository, times(1)).decrementarStock(1L);
+        verify(publicador, times(1)).publishEvent(new EventoLibro(1L, EventoLibro.Tipo.STOCK, null));
+    }
+
+    @Test
+    void testDecrementarStockLibroCaliente() {
+        // Configuración del mock - el libro se atiende desde la reserva en memoria
+        when(stockCaliente.esCaliente(1L)).thenReturn(true);
+        when(stockCaliente.decrementar(1L)).thenReturn(true);
+
+        // Llamada al método del servicio
+        boolean resultado = libroService.decrementarStock(1L);
+
+        // Verificaciones
+        assertTrue(resultado);
+        verify(libroRepository, never()).decrementarStock(1L);
     }
 
     @Test
@@ -142,4 +534,236 @@ class LibroServiceTest {
         assertFalse(resultado);
         verify(libroRepository, times(1)).decrementarStock(1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDecrementarStockRegistraMetrica() {
+        // Configuración del mock - registro de métricas en memoria
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        Metrics.addRegistry(registro);
+        when(libroRepository.decrementarStock(1L)).thenReturn(1, 0);
+
+        try {
+            // Llamadas al método del servicio
+            libroService.decrementarStock(1L);
+            libroService.decrementarStock(1L);
+
+            // Verificaciones
+            assertEquals(1.0, registro.get(LibroService.METRICA_DECREMENTOS)
+                    .tags("motor", "base_datos", "resultado", "exitoso").counter().count());
+            assertEquals(1.0, registro.get(LibroService.METRICA_DECREMENTOS)
+                    .tags("motor", "base_datos", "resultado", "sin_stock").counter().count());
+        } finally {
+            Metrics.removeRegistry(registro);
+        }
+    }
+
+    @Test
+    void testDecrementarStockLoteExitoso() {
+        // Configuración del mock - las cantidades del mismo libro se acumulan
+        when(libroRepository.bloquearStock(Set.of(1L, 2L)))
+                .thenReturn(List.of(stock(1L, 10), stock(2L, 1)));
+
+        // Llamada al método del servicio
+        List<ResultadoLineaStock> resultados = libroService.decrementarStockLote(List.of(
+                new LineaStock(2L, 1), new LineaStock(1L, 3), new LineaStock(1L, 2)));
+
+        // Verificaciones
+        assertEquals(3, resultados.size());
+        assertTrue(resultados.stream().allMatch(r -> r.getEstado() == ResultadoLineaStock.Estado.DECREMENTADO));
+        assertEquals(5, resultados.get(1).getStock());
+        assertEquals(0, resultados.get(0).getStock());
+        verify(libroRepository, times(1)).decrementarStock(1L, 5);
+        verify(libroRepository, times(1)).decrementarStock(2L, 1);
+    }
+
+    @Test
+    void testDecrementarStockLoteRegistraUnDecrementoPorLibro() {
+        // Configuración del mock - registro de métricas en memoria
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        Metrics.addRegistry(registro);
+        when(libroRepository.bloquearStock(Set.of(1L, 2L)))
+                .thenReturn(List.of(stock(1L, 10), stock(2L, 1)));
+        when(libroRepository.bloquearStock(Set.of(2L))).thenReturn(List.of(stock(2L, 1)));
+
+        try {
+            // Llamadas al método del servicio - el libro 1 aparece en dos líneas
+            libroService.decrementarStockLote(List.of(
+                    new LineaStock(2L, 1), new LineaStock(1L, 3), new LineaStock(1L, 2)));
+            libroService.decrementarStockLote(List.of(
+                    new LineaStock(2L, 1), new LineaStock(2L, 1)));
+
+            // Verificaciones
+            assertEquals(2.0, registro.get(LibroService.METRICA_DECREMENTOS)
+                    .tags("motor", "lote", "resultado", "exitoso").counter().count());
+            assertEquals(1.0, registro.get(LibroService.METRICA_DECREMENTOS)
+                    .tags("motor", "lote", "resultado", "sin_stock").counter().count());
+        } finally {
+            Metrics.removeRegistry(registro);
+        }
+    }
+
+    @Test
+    void testDecrementarStockLoteUsaLaReservaCaliente() {
+        // Configuración del mock - la fila tiene 5 unidades y la reserva en memoria 40
+        when(libroRepository.bloquearStock(Set.of(1L))).thenReturn(List.of(stock(1L, 5)));
+        when(stockCaliente.devolverReservaBloqueada(1L)).thenReturn(40);
+
+        // Llamada al método del servicio
+        List<ResultadoLineaStock> resultados = libroService.decrementarStockLote(List.of(new LineaStock(1L, 30)));
+
+        // Verificaciones - las unidades de la reserva cuentan como stock del lote
+        assertEquals(ResultadoLineaStock.Estado.DECREMENTADO, resultados.get(0).getEstado());
+        assertEquals(15, resultados.get(0).getStock());
+        verify(libroRepository, times(1)).decrementarStock(1L, 30);
+    }
+
+    @Test
+    void testDecrementarStockLoteInvalidaCacheAlConfirmar() {
+        // Configuración del mock
+        when(libroRepository.bloquearStock(Set.of(1L))).thenReturn(List.of(stock(1L, 10)));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Llamada al método del servicio
+            libroService.decrementarStockLote(List.of(new LineaStock(1L, 3)));
+
+            // Una lectura concurrente anterior al commit vuelve a guardar el stock anterior
+            cacheManager.getCache(CacheConfig.LIBROS).put(1L, libro);
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+
+            // Verificaciones
+            assertNull(cacheManager.getCache(CacheConfig.LIBROS).get(1L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testDecrementarStockLoteSinStockNoAplicaNada() {
+        // Configuración del mock - el libro 3 no existe y el libro 2 no tiene stock suficiente
+        when(libroRepository.bloquearStock(Set.of(1L, 2L, 3L)))
+                .thenReturn(List.of(stock(1L, 10), stock(2L, 1)));
+
+        // Llamada al método del servicio
+        List<ResultadoLineaStock> resultados = libroService.decrementarStockLote(List.of(
+                new LineaStock(1L, 1), new LineaStock(2L, 2), new LineaStock(3L, 1)));
+
+        // Verificaciones
+        assertEquals(ResultadoLineaStock.Estado.NO_APLICADO, resultados.get(0).getEstado());
+        assertEquals(ResultadoLineaStock.Estado.SIN_STOCK, resultados.get(1).getEstado());
+        assertEquals(ResultadoLineaStock.Estado.NO_ENCONTRADO, resultados.get(2).getEstado());
+        verify(libroRepository, never()).decrementarStock(anyLong(), anyInt());
+    }
+
+    @Test
+    void testModificar() {
+        // Configuración del mock - el ISBN se normaliza y el autor se indica por su id
+        when(actualizacionParcial.actualizarLibro(1L,
+                Map.of("isbn", "9788437604947", "autor", 2L), 3L)).thenReturn(1);
+
+        // Llamada al método del servicio
+        boolean modificado = libroService.modificar(1L,
+                Map.of("isbn", "84-376-0494-X", "autor", Map.of("id", 2)), 3L);
+
+        // Verificaciones
+        assertTrue(modificado);
+        verify(indiceIsbn, times(1)).actualizar(1L, "9788437604947");
+        verify(indiceTitulos, never()).actualizar(anyLong(), anyString());
+        verify(stockCaliente, never()).descartarReserva(anyLong());
+    }
+
+    @Test
+    void testModificarQuitaAutorYStock() {
+        // Configuración del mock - null en el parche quita el autor; el stock descarta la reserva
+        Map<String, Object> parche = new HashMap<>();
+        parche.put("autor", null);
+        parche.put("stock", 4);
+        when(actualizacionParcial.actualizarLibro(1L, parche, null)).thenReturn(0);
+        when(stockCaliente.descartarReserva(1L)).thenReturn(3);
+
+        // Llamada al método del servicio
+        boolean modificado = libroService.modificar(1L, parche, null);
+
+        // Verificaciones - sin filas modificadas, la reserva descartada se restaura
+        assertFalse(modificado);
+        verify(stockCaliente, times(1)).descartarReserva(1L);
+        verify(stockCaliente, times(1)).restaurarReserva(1L, 3);
+        verify(indiceIsbn, never()).actualizar(anyLong(), anyString());
+    }
+
+    @Test
+    void testModificarParcheInvalido() {
+        // Verificaciones - atributos no modificables, valores inválidos y parche vacío
+        assertThrows(IllegalArgumentException.class,
+                () -> libroService.modificar(1L, Map.of("version", 7), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> libroService.modificar(1L, Map.of("stock", -1), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> libroService.modificar(1L, Map.of("isbn", "123"), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> libroService.modificar(1L, Map.of(), null));
+        verifyNoInteractions(actualizacionParcial);
+    }
+
+    @Test
+    void testReponerStock() {
+        // Configuración del mock - el libro 3 no existe, se consulta cuáles existen
+        when(actualizacionParcial.reponerStock(Map.of(1L, 5, 3L, 1))).thenReturn(1);
+        when(libroRepository.findIdsExistentes(Set.of(1L, 3L))).thenReturn(List.of(1L));
+
+        // Llamada al método del servicio
+        List<ResultadoLineaStock> resultados = libroService.reponerStock(List.of(
+                new LineaStock(1L, 2), new LineaStock(3L, 1), new LineaStock(1L, 3)));
+
+        // Verificaciones
+        assertEquals(ResultadoLineaStock.Estado.REPUESTO, resultados.get(0).getEstado());
+        assertEquals(ResultadoLineaStock.Estado.NO_ENCONTRADO, resultados.get(1).getEstado());
+        assertEquals(ResultadoLineaStock.Estado.REPUESTO, resultados.get(2).getEstado());
+    }
+
+    @Test
+    void testReponerStockInvalidaCacheAlConfirmar() {
+        // Configuración del mock
+        when(actualizacionParcial.reponerStock(Map.of(1L, 4))).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Llamada al método del servicio
+            libroService.reponerStock(List.of(new LineaStock(1L, 4)));
+
+            // Una lectura concurrente anterior al commit vuelve a guardar el stock sin reponer
+            cacheManager.getCache(CacheConfig.LIBROS).put(1L, libro);
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+
+            // Verificaciones
+            assertNull(cacheManager.getCache(CacheConfig.LIBROS).get(1L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testReponerStockSinConsultarExistentes() {
+        // Configuración del mock - se actualizaron todos los libros
+        when(actualizacionParcial.reponerStock(Map.of(1L, 2))).thenReturn(1);
+
+        // Llamada al método del servicio
+        List<ResultadoLineaStock> resultados = libroService.reponerStock(List.of(new LineaStock(1L, 2)));
+
+        // Verificaciones
+        assertEquals(ResultadoLineaStock.Estado.REPUESTO, resultados.get(0).getEstado());
+        verify(libroRepository, never()).findIdsExistentes(any());
+    }
+
+    private StockLibro stock(Long id, Integer stock) {
+        return new StockLibro() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getStock() {
+                return stock;
+            }
+        };
+    }
+}
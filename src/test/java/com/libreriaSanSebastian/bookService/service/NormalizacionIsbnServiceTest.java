@@ -0,0 +1,79 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.dto.IsbnLibro;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+class NormalizacionIsbnServiceTest {
+
+    @Mock
+    private LibroRepository libroRepository;
+
+    @InjectMocks
+    private NormalizacionIsbnService normalizacionIsbnService;
+
+    @Test
+    void testNormalizarIsbnGuardados() {
+        // Configuración del mock - un ISBN con guiones, un ISBN-10, uno ya normalizado y uno inválido
+        when(libroRepository.streamIsbns()).thenReturn(Stream.of(
+                isbn(1L, "978-0-306-40615-7"),
+                isbn(2L, "84-376-0494-X"),
+                isbn(3L, "9780140449136"),
+                isbn(4L, "sin isbn")));
+        when(libroRepository.actualizarIsbn(anyLong(), anyString(), any())).thenReturn(1);
+
+        // Llamada al método del servicio
+        int normalizados = normalizacionIsbnService.normalizar();
+
+        // Verificaciones
+        assertEquals(2, normalizados);
+        verify(libroRepository, times(1)).actualizarIsbn(eq(1L), eq("9780306406157"), any());
+        verify(libroRepository, times(1)).actualizarIsbn(eq(2L), eq("9788437604947"), any());
+        verify(libroRepository, times(2)).actualizarIsbn(anyLong(), anyString(), any());
+    }
+
+    @Test
+    void testDuplicadosNoSeModifican() {
+        // Configuración del mock - el ISBN-10 del libro 2 es el mismo ISBN que el del libro 1
+        when(libroRepository.streamIsbns()).thenReturn(Stream.of(
+                isbn(1L, "9788437604947"),
+                isbn(2L, "84-376-0494-X")));
+
+        // Llamada al método del servicio
+        int normalizados = normalizacionIsbnService.normalizar();
+
+        // Verificaciones - la restricción de unicidad fallaría, se deja para corregir a mano
+        assertEquals(0, normalizados);
+        verify(libroRepository, never()).actualizarIsbn(anyLong(), anyString(), any());
+    }
+
+    private static IsbnLibro isbn(Long id, String isbn) {
+        return new IsbnLibro() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getIsbn() {
+                return isbn;
+            }
+        };
+    }
+}
@@ -0,0 +1,264 @@
+package com.libreriaSanSebastian.bookService.service;
+
+import com.libreriaSanSebastian.bookService.config.CacheConfig;
+import com.libreriaSanSebastian.bookService.dto.ContencionStock;
+import com.libreriaSanSebastian.bookService.dto.StockLibro;
+import com.libreriaSanSebastian.bookService.model.Libro;
+import com.libreriaSanSebastian.bookService.repository.LibroRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+class StockCalienteServiceTest {
+
+    @Mock
+    private LibroRepository libroRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager();
+
+    @InjectMocks
+    private StockCalienteService stockCalienteService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(stockCalienteService, "habilitado", true);
+        ReflectionTestUtils.setField(stockCalienteService, "librosCalientes", Set.of(1L));
+        ReflectionTestUtils.setField(stockCalienteService, "tamanoLote", 3);
+        ReflectionTestUtils.setField(stockCalienteService, "inactividadMs", 0L);
+        ReflectionTestUtils.setField(stockCalienteService, "retencionEsperasMs", 60_000L);
+    }
+
+    @Test
+    void testEsCaliente() {
+        assertTrue(stockCalienteService.esCaliente(1L));
+        assertFalse(stockCalienteService.esCaliente(2L));
+    }
+
+    @Test
+    void testDecrementarReservaPorLotes() {
+        // Configuración del mock - la fila tiene 4 unidades, se reservan lotes de 3
+        ejecutarTransacciones();
+        when(libroRepository.bloquearStock(List.of(1L)))
+                .thenReturn(List.of(stock(4)))
+                .thenReturn(List.of(stock(1)))
+                .thenReturn(List.of(stock(0)));
+
+        // Llamada al método del servicio - 4 ventas posibles, la quinta falla
+        for (int i = 0; i < 4; i++) {
+            assertTrue(stockCalienteService.decrementar(1L));
+        }
+        assertFalse(stockCalienteService.decrementar(1L));
+
+        // Verificaciones - solo se accede a la fila al agotar cada lote
+        verify(libroRepository, times(1)).decrementarStock(1L, 3);
+        verify(libroRepository, times(1)).decrementarStock(1L, 1);
+        verify(libroRepository, times(3)).bloquearStock(List.of(1L));
+    }
+
+    @Test
+    void testMarcarVendidosParaElFeedDeCambios() {
+        // Configuración del mock - se reservan 3 unidades y se venden 2 desde memoria
+        ejecutarTransacciones();
+        when(libroRepository.bloquearStock(List.of(1L))).thenReturn(List.of(stock(10)));
+        stockCalienteService.decrementar(1L);
+        stockCalienteService.decrementar(1L);
+
+        // Llamada al método del servicio
+        stockCalienteService.marcarVendidos();
+        stockCalienteService.marcarVendidos();
+
+        // Verificaciones - una sola sentencia para todas las ventas del intervalo
+        verify(libroRepository, times(1)).marcarModificados(eq(List.of(1L)), any(Instant.class));
+    }
+
+    @Test
+    void testStockDisponibleIncluyeLaReserva() {
+        // Configuración del mock - se reservan 3 de 10 unidades y se vende 1: quedan 7 en la fila y 2 en memoria
+        ejecutarTransacciones();
+        when(libroRepository.bloquearStock(List.of(1L))).thenReturn(List.of(stock(10)));
+        stockCalienteService.decrementar(1L);
+        Libro libro = new Libro(1L, "Rayuela", "9788437604572", 7, null, 2L, null);
+        Libro frio = new Libro(2L, "Ficciones", "9788420633114", 4, null, 0L, null);
+        Map<String, Object> fila = new HashMap<>(Map.of("id", 1L, "stock", 7));
+
+        // Llamada al método del servicio
+        Libro disponible = stockCalienteService.conStockDisponible(libro);
+
+        // Verificaciones - copia con el stock disponible, sin modificar la entidad
+        assertEquals(9, disponible.getStock());
+        assertEquals(7, libro.getStock());
+        assertSame(frio, stockCalienteService.conStockDisponible(frio));
+        assertEquals(9, stockCalienteService.conStockDisponible(fila).get("stock"));
+    }
+
+    @Test
+    void testDevolverReservaBloqueadaSeRestauraAlRevertir() {
+        // Configuración del mock - se reservan 3 unidades y se vende 1
+        ejecutarTransacciones();
+        when(libroRepository.bloquearStock(List.of(1L))).thenReturn(List.of(stock(10)));
+        stockCalienteService.decrementar(1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Llamada al método del servicio - dentro de la transacción que bloqueó la fila
+            assertEquals(2, stockCalienteService.devolverReservaBloqueada(1L));
+            assertEquals(0, stockCalienteService.unidadesReservadas(1L));
+            verify(libroRepository, times(1)).incrementarStock(1L, 2);
+
+            // Verificaciones - si la transacción se revierte, las unidades vuelven a la reserva
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                    TransactionSynchronization.STATUS_ROLLED_BACK);
+            assertEquals(2, stockCalienteService.unidadesReservadas(1L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testDevolverReservasInactivas() {
+        // Configuración del mock - se reservan 3 unidades y se vende 1
+        ejecutarTransacciones();
+        when(libroRepository.bloquearStock(List.of(1L))).thenReturn(List.of(stock(10)));
+        stockCalienteService.decrementar(1L);
+
+        // Llamada al método del servicio
+        stockCalienteService.devolverReservasInactivas();
+
+        // Verificaciones - las 2 unidades sin vender vuelven a la base de datos
+        verify(libroRepository, times(1)).incrementarStock(1L, 2);
+    }
+
+    @Test
+    void testDevolverReservaInvalidaCache() {
+        // Configuración del mock
+        ejecutarTransacciones();
+        when(libroRepository.bloquearStock(List.of(1L))).thenReturn(List.of(stock(10)));
+        stockCalienteService.decrementar(1L);
+        cacheManager.getCache(CacheConfig.LIBROS).put(1L, new Libro());
+
+        // Llamada al método del servicio
+        stockCalienteService.devolverReservas();
+
+        // Verificaciones - la próxima lectura obtiene el stock devuelto
+        assertNull(cacheManager.getCache(CacheConfig.LIBROS).get(1L));
+    }
+
+    @Test
+    void testDescartarEsperasInactivas() {
+        stockCalienteService.registrarEspera(2L, 1_000_000);
+        stockCalienteService.registrarEspera(3L, 1_000_000);
+
+        // Llamada al método del servicio - dentro de la retención se conservan
+        stockCalienteService.devolverReservasInactivas();
+        assertEquals(2, stockCalienteService.obtenerContencion().size());
+
+        // Verificaciones - sin decrementos durante la retención se descartan
+        ReflectionTestUtils.setField(stockCalienteService, "retencionEsperasMs", -1L);
+        stockCalienteService.devolverReservasInactivas();
+        assertTrue(stockCalienteService.obtenerContencion().isEmpty());
+    }
+
+    @Test
+    void testDescartarReserva() {
+        // Configuración del mock
+        ejecutarTransacciones();
+        when(libroRepository.bloquearStock(List.of(1L))).thenReturn(List.of(stock(10)));
+        stockCalienteService.decrementar(1L);
+
+        // Llamada al método del servicio
+        stockCalienteService.descartarReserva(1L);
+        stockCalienteService.devolverReservas();
+
+        // Verificaciones
+        verify(libroRepository, never()).incrementarStock(any(), anyInt());
+    }
+
+    @Test
+    void testDescartarReservaSeRestauraAlRevertir() {
+        // Configuración del mock - se reservan 3 unidades y se vende 1
+        ejecutarTransacciones();
+        when(libroRepository.bloquearStock(List.of(1L))).thenReturn(List.of(stock(10)));
+        stockCalienteService.decrementar(1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Llamada al método del servicio - la escritura que reemplaza el stock no se confirma
+            assertEquals(2, stockCalienteService.descartarReserva(1L));
+            assertEquals(0, stockCalienteService.unidadesReservadas(1L));
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                    TransactionSynchronization.STATUS_ROLLED_BACK);
+
+            // Verificaciones
+            assertEquals(2, stockCalienteService.unidadesReservadas(1L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testObtenerContencion() {
+        // Llamada al método del servicio
+        stockCalienteService.registrarEspera(2L, 1_000_000);
+        stockCalienteService.registrarEspera(2L, 3_000_000);
+        stockCalienteService.registrarEspera(3L, 10_000_000);
+
+        List<ContencionStock> contencion = stockCalienteService.obtenerContencion();
+
+        // Verificaciones - ordenado por tiempo acumulado
+        assertEquals(2, contencion.size());
+        assertEquals(3L, contencion.get(0).getId());
+        assertEquals(2, contencion.get(1).getOperaciones());
+        assertEquals(2.0, contencion.get(1).getEsperaMediaMs(), 0.0001);
+        assertEquals(3.0, contencion.get(1).getEsperaMaximaMs(), 0.0001);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void ejecutarTransacciones() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocacion -> ((TransactionCallback<Integer>) invocacion.getArgument(0)).doInTransaction(null));
+    }
+
+    private StockLibro stock(Integer stock) {
+        return new StockLibro() {
+            @Override
+            public Long getId() {
+                return 1L;
+            }
+
+            @Override
+            public Integer getStock() {
+                return stock;
+            }
+        };
+    }
+}